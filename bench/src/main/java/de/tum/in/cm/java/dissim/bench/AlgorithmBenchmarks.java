@@ -0,0 +1,108 @@
+package de.tum.in.cm.java.dissim.bench;
+
+import de.tum.in.cm.java.dissim.Algorithm;
+import de.tum.in.cm.java.dissim.ClientSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits and divisions of {@link Algorithm}, on the slice based client sets
+ * used by the simulation and on the copying array variants.
+ *
+ * @author teemuk
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class AlgorithmBenchmarks {
+
+  @Param( { "1000", "100000", "1000000" } )
+  public int clients;
+
+  @Param( { "3", "9", "33" } )
+  public int channels;
+
+  private int[] clientArray;
+  private ClientSet clientSet;
+  private double[] weights;
+
+  //==============================================================================================//
+  // Setup
+  //==============================================================================================//
+  @Setup
+  public void setUp() {
+    this.clientArray = new int[ this.clients ];
+    for ( int i = 0; i < this.clients; i++ ) {
+      this.clientArray[ i ] = i + 2;
+    }
+    this.clientSet = ClientSet.of( this.clientArray );
+
+    // Uneven weights, like the channel capacities of the weighted division
+    final int count = Math.max( 1, this.channels - 1 );
+    this.weights = new double[ count ];
+    double total = 0.0;
+    for ( int i = 0; i < count; i++ ) {
+      this.weights[ i ] = i + 1;
+      total += i + 1;
+    }
+    for ( int i = 0; i < count; i++ ) {
+      this.weights[ i ] /= total;
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Benchmarks
+  //==============================================================================================//
+  @Benchmark
+  public ClientSet[] divide() {
+    return Algorithm.divide( this.clientSet, this.channels );
+  }
+
+  @Benchmark
+  public int[][] divideArrays() {
+    return Algorithm.divide( this.clientArray, this.channels );
+  }
+
+  @Benchmark
+  public ClientSet[] divideWeighted() {
+    return Algorithm.divideWeighted( this.clientSet, this.weights );
+  }
+
+  @Benchmark
+  public int[][] divideWeightedArrays() {
+    return Algorithm.divideWeighted( this.clientArray, this.weights );
+  }
+
+  @Benchmark
+  public ClientSet[] selectFollowersApprox() {
+    return Algorithm.selectFollowersApprox( this.clientSet, this.channels - 1, 1 );
+  }
+
+  @Benchmark
+  public ClientSet[] selectFollowersWithSwitchDelay() {
+    return Algorithm.selectFollowersWithSwitchDelay( this.clientSet, this.channels - 1, 1,
+        0.5, 1.0 );
+  }
+
+  @Benchmark
+  public int[][] selectFollowersApproxArrays() {
+    return Algorithm.selectFollowersApprox( this.clientArray, this.channels - 1, 1 );
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,124 @@
+package de.tum.in.cm.java.dissim.bench;
+
+import de.tum.in.cm.java.dissim.ClientPool;
+import de.tum.in.cm.java.dissim.ClientRange;
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SimEvent;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processing of the root {@link CreateLeaderEvent} of the standard scenario,
+ * i.e., the split of all clients and the scheduling of the children and the
+ * local receptions. The scheduled events go to a {@link Blackhole}.
+ *
+ * @author teemuk
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class CreateLeaderBenchmarks {
+
+  @Param( { "1000", "100000", "1000000" } )
+  public int clients;
+
+  @Param( { "3", "9", "33" } )
+  public int channels;
+
+  @Param( { "SEQUENTIAL", "CONCURRENT" } )
+  public String dissStrategy;
+
+  @Param( { "false", "true" } )
+  public boolean batchReceptions;
+
+  private CreateLeaderEvent event;
+
+  //==============================================================================================//
+  // Setup
+  //==============================================================================================//
+  @Setup
+  public void setUp() {
+    final Main.Args args = new Main.Args( new String[] {
+        Main.ARG_CLIENT_COUNT + "=" + this.clients,
+        Main.ARG_CHANNEL_COUNT + "=" + this.channels,
+        Main.ARG_DISS_STRATEGY + "=" + this.dissStrategy,
+        Main.ARG_BATCH_RECEPTIONS + "=" + this.batchReceptions } );
+    this.event = ( CreateLeaderEvent ) Simulation.createInitialEvent( args );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Benchmarks
+  //==============================================================================================//
+  @Benchmark
+  public void process( final Blackhole blackhole ) {
+    this.event.process( new DiscardingContext( blackhole ) );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Context that hands the scheduled events to the blackhole. The stats
+   * only keep aggregates, so they don't grow over the iterations.
+   */
+  private static final class DiscardingContext
+  implements SimContext {
+    private static final Stats STATS = Stats.streaming( Main.Args.DEFAULT_BUCKET_WIDTH );
+    private static final ClientPool CLIENT_POOL = new ClientPool( ClientRange.EMPTY );
+
+    private final Blackhole blackhole;
+
+    private DiscardingContext( final Blackhole blackhole ) {
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public final Stats stats() {
+      return STATS;
+    }
+
+    @Override
+    public final ClientPool clientPool() {
+      return CLIENT_POOL;
+    }
+
+    @Override
+    public final void schedule( final SimEvent event ) {
+      this.blackhole.consume( event );
+    }
+
+    @Override
+    public final void scheduleReception(
+        final double time,
+        final int node,
+        final int from,
+        final int channel ) {
+      this.blackhole.consume( time );
+      this.blackhole.consume( node );
+    }
+  }
+  //==============================================================================================//
+}
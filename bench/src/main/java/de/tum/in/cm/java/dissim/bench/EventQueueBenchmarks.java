@@ -0,0 +1,94 @@
+package de.tum.in.cm.java.dissim.bench;
+
+import de.tum.in.cm.java.dissim.SimEvent;
+import de.tum.in.cm.java.dissim.events.ContentReceivedEvent;
+import de.tum.in.cm.java.dissim.queue.EventQueue;
+import de.tum.in.cm.java.dissim.queue.EventQueueType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hold model of the event queues: every operation removes the earliest event
+ * and inserts one a random increment later, so the queue size stays at the
+ * parameter.
+ *
+ * @author teemuk
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class EventQueueBenchmarks {
+
+  /** Number of precomputed increments, a power of two */
+  private static final int INCREMENTS = 1 << 16;
+
+  @Param( { "heap", "calendar" } )
+  public String queueType;
+
+  @Param( { "1000", "100000", "1000000" } )
+  public int size;
+
+  @Param( { "uniform", "exponential" } )
+  public String increments;
+
+  private EventQueue queue;
+  private double[] incrementValues;
+  private int next;
+
+  //==============================================================================================//
+  // Setup
+  //==============================================================================================//
+  @Setup
+  public void setUp() {
+    final Random random = new Random( 42 );
+    this.incrementValues = new double[ INCREMENTS ];
+    for ( int i = 0; i < INCREMENTS; i++ ) {
+      this.incrementValues[ i ] = this.increments.equals( "uniform" )
+          ? random.nextDouble() * 2.0 : -Math.log( 1.0 - random.nextDouble() );
+    }
+
+    this.queue = EventQueueType.fromString( this.queueType ).create();
+    for ( int i = 0; i < this.size; i++ ) {
+      this.queue.add( new ContentReceivedEvent( this.increment(), i, 0, 1 ) );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Benchmarks
+  //==============================================================================================//
+  @Benchmark
+  public SimEvent hold() {
+    final SimEvent event = this.queue.remove();
+    this.queue.add( new ContentReceivedEvent( event.time() + this.increment(), 0, 0, 1 ) );
+    return event;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private double increment() {
+    final double increment = this.incrementValues[ this.next ];
+    this.next = ( this.next + 1 ) & ( INCREMENTS - 1 );
+    return increment;
+  }
+  //==============================================================================================//
+}
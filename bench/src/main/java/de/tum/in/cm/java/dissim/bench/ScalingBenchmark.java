@@ -0,0 +1,383 @@
+package de.tum.in.cm.java.dissim.bench;
+
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.sweep.Sweep;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * End-to-end scaling benchmark. Runs simulator scenarios in-process with
+ * warmup and repeated iterations, measures wall time, event rate, peak heap,
+ * allocation and garbage collection, and compares the results against a
+ * baseline file.
+ * <p>
+ * The scenarios are the points of a {@link Sweep} over the simulator
+ * arguments. Without arguments, the default grid is
+ * <pre>
+ *   clients=1000,10000,100000,1000000 mode=normal,optimizing dissStrategy=SEQUENTIAL,CONCURRENT
+ * </pre>
+ * and any of the three can be overridden, e.g., {@code clients=10000000,100000000}
+ * with a large enough {@code -Xmx}. Further arguments, e.g.,
+ * {@code engine=array}, are swept as well. For example:
+ * <pre>
+ *   java -Xmx4g -cp bench/target/benchmarks.jar de.tum.in.cm.java.dissim.bench.ScalingBenchmark \
+ *       baseline=bench/baseline.tsv
+ * </pre>
+ * The run fails with exit code 1 if a scenario of the baseline got slower,
+ * used more heap or allocated more than the thresholds allow.
+ *
+ * @author teemuk
+ */
+public final class ScalingBenchmark {
+
+  //==============================================================================================//
+  // Constants
+  //==============================================================================================//
+  public static String ARG_WARMUP = "warmup";
+  public static String ARG_ITERATIONS = "iterations";
+  public static String ARG_BASELINE = "baseline";
+  public static String ARG_SAVE_BASELINE = "saveBaseline";
+  public static String ARG_TIME_THRESHOLD = "timeThreshold";
+  public static String ARG_HEAP_THRESHOLD = "heapThreshold";
+  public static String ARG_ALLOCATION_THRESHOLD = "allocationThreshold";
+
+  public static final int DEFAULT_WARMUP = 2;
+  public static final int DEFAULT_ITERATIONS = 5;
+  /** Wall time of the 1 CPU reference machine varies by about 15 % */
+  public static final double DEFAULT_TIME_THRESHOLD = 0.25;
+  public static final double DEFAULT_HEAP_THRESHOLD = 0.10;
+  public static final double DEFAULT_ALLOCATION_THRESHOLD = 0.05;
+  /** Absolute slack on top of the relative thresholds, for the small scenarios */
+  private static final double TIME_SLACK_MILLIS = 5.0;
+  private static final double HEAP_SLACK_MB = 2.0;
+  private static final double ALLOCATION_SLACK_MB = 1.0;
+
+  /** Default scenario grid, by argument name */
+  private static final String[][] DEFAULT_GRID = {
+      { Main.ARG_CLIENT_COUNT, "1000,10000,100000,1000000" },
+      { Main.ARG_MODE, "normal,optimizing" },
+      { Main.ARG_DISS_STRATEGY, "SEQUENTIAL,CONCURRENT" } };
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Main
+  //==============================================================================================//
+  public static void main( final String[] argStrings ) throws IOException {
+    int warmup = DEFAULT_WARMUP;
+    int iterations = DEFAULT_ITERATIONS;
+    File baselineFile = null;
+    File saveFile = null;
+    double timeThreshold = DEFAULT_TIME_THRESHOLD;
+    double heapThreshold = DEFAULT_HEAP_THRESHOLD;
+    double allocationThreshold = DEFAULT_ALLOCATION_THRESHOLD;
+    final Map <String, String> sweepArgs = new LinkedHashMap<>();
+    for ( final String[] arg : DEFAULT_GRID ) {
+      sweepArgs.put( arg[ 0 ], arg[ 1 ] );
+    }
+    for ( final String argString : argStrings ) {
+      if ( argString.startsWith( ARG_WARMUP + "=" ) ) {
+        warmup = Integer.parseInt( argString.substring( ARG_WARMUP.length() + 1 ) );
+      } else if ( argString.startsWith( ARG_ITERATIONS + "=" ) ) {
+        iterations = Integer.parseInt( argString.substring( ARG_ITERATIONS.length() + 1 ) );
+      } else if ( argString.startsWith( ARG_BASELINE + "=" ) ) {
+        baselineFile = new File( argString.substring( ARG_BASELINE.length() + 1 ) );
+      } else if ( argString.startsWith( ARG_SAVE_BASELINE + "=" ) ) {
+        saveFile = new File( argString.substring( ARG_SAVE_BASELINE.length() + 1 ) );
+      } else if ( argString.startsWith( ARG_TIME_THRESHOLD + "=" ) ) {
+        timeThreshold = Double.parseDouble(
+            argString.substring( ARG_TIME_THRESHOLD.length() + 1 ) );
+      } else if ( argString.startsWith( ARG_HEAP_THRESHOLD + "=" ) ) {
+        heapThreshold = Double.parseDouble(
+            argString.substring( ARG_HEAP_THRESHOLD.length() + 1 ) );
+      } else if ( argString.startsWith( ARG_ALLOCATION_THRESHOLD + "=" ) ) {
+        allocationThreshold = Double.parseDouble(
+            argString.substring( ARG_ALLOCATION_THRESHOLD.length() + 1 ) );
+      } else {
+        final int split = argString.indexOf( '=' );
+        if ( split <= 0 ) {
+          System.err.println( "Malformed argument '" + argString + "'" );
+          System.exit( 1 );
+        }
+        sweepArgs.put( argString.substring( 0, split ), argString.substring( split + 1 ) );
+      }
+    }
+    if ( iterations < 1 || warmup < 0 ) {
+      System.err.println( "Need at least one iteration and no negative warmup." );
+      System.exit( 1 );
+    }
+
+    final List <String> sweepArgStrings = new ArrayList<>();
+    for ( final Map.Entry <String, String> arg : sweepArgs.entrySet() ) {
+      sweepArgStrings.add( arg.getKey() + "=" + arg.getValue() );
+    }
+    final Sweep sweep;
+    try {
+      sweep = new Sweep( sweepArgStrings.toArray( new String[ sweepArgStrings.size() ] ) );
+    } catch ( final IllegalArgumentException e ) {
+      System.err.println( e.getMessage() );
+      System.exit( 1 );
+      return;
+    }
+    final Map <String, ScalingResult> baseline = baselineFile != null
+        ? readBaseline( baselineFile ) : null;
+
+    // Run
+    final List <ScalingResult> results = new ArrayList<>();
+    System.out.println( ScalingResult.HEADER );
+    for ( final String[] point : sweep.points() ) {
+      final ScalingResult result = measure( sweep, point, warmup, iterations );
+      results.add( result );
+      System.out.println( result.toRow() );
+    }
+
+    if ( saveFile != null ) try ( PrintStream out = new PrintStream( saveFile, "UTF-8" ) ) {
+      out.println( "# Scaling baseline, " + System.getProperty( "java.vm.name" ) + " "
+          + System.getProperty( "java.version" ) + ", "
+          + Runtime.getRuntime().availableProcessors() + " CPUs, max heap "
+          + ( Runtime.getRuntime().maxMemory() >> 20 ) + "MB" );
+      out.println( ScalingResult.HEADER );
+      for ( final ScalingResult result : results ) {
+        out.println( result.toRow() );
+      }
+    }
+
+    if ( baseline != null ) {
+      final int regressions = compare( baseline, results, timeThreshold, heapThreshold,
+          allocationThreshold );
+      if ( regressions > 0 ) {
+        System.out.println( regressions + " regression(s) against " + baselineFile + "." );
+        System.exit( 1 );
+      }
+      System.out.println( "No regressions against " + baselineFile + "." );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Runs the warmup and the measured iterations of a scenario.
+   */
+  private static ScalingResult measure(
+      final Sweep sweep,
+      final String[] point,
+      final int warmup,
+      final int iterations ) {
+    final StringBuilder scenario = new StringBuilder();
+    for ( int i = 0; i < point.length; i++ ) {
+      if ( i > 0 ) scenario.append( ' ' );
+      scenario.append( sweep.names().get( i ) ).append( '=' ).append( point[ i ] );
+    }
+
+    for ( int i = 0; i < warmup; i++ ) {
+      new Simulation( sweep.args( point ) ).run();
+    }
+
+    final double[] wallMillis = new double[ iterations ];
+    final double[] allocatedMB = new double[ iterations ];
+    final double[] gcCounts = new double[ iterations ];
+    final double[] gcMillis = new double[ iterations ];
+    double peakHeapMB = 0.0;
+    long events = 0;
+    for ( int i = 0; i < iterations; i++ ) {
+      final Main.Args args = sweep.args( point );
+      System.gc();
+      resetPeakHeap();
+      final long startGcCount = gcCount();
+      final long startGcMillis = gcMillis();
+      final long startAllocated = allocatedBytes();
+      final long startTime = System.nanoTime();
+
+      events = new Simulation( args ).run();
+
+      final long endTime = System.nanoTime();
+      final long allocated = allocatedBytes();
+      wallMillis[ i ] = ( endTime - startTime ) / 1e6;
+      allocatedMB[ i ] = startAllocated < 0 ? -1 : ( allocated - startAllocated ) / 1048576.0;
+      gcCounts[ i ] = gcCount() - startGcCount;
+      gcMillis[ i ] = gcMillis() - startGcMillis;
+      peakHeapMB = Math.max( peakHeapMB, peakHeap() / 1048576.0 );
+    }
+    return new ScalingResult( scenario.toString(), events, min( wallMillis ), peakHeapMB,
+        median( allocatedMB ), ( long ) median( gcCounts ), median( gcMillis ) );
+  }
+
+  /**
+   * Prints the comparison of every scenario that is in the baseline.
+   *
+   * @return
+   *    Number of regressed scenarios.
+   */
+  private static int compare(
+      final Map <String, ScalingResult> baseline,
+      final List <ScalingResult> results,
+      final double timeThreshold,
+      final double heapThreshold,
+      final double allocationThreshold ) {
+    int regressions = 0;
+    System.out.println( "# scenario\twall\tpeakHeap\tallocated\tstatus" );
+    for ( final ScalingResult result : results ) {
+      final ScalingResult base = baseline.get( result.scenario );
+      if ( base == null ) {
+        System.out.println( result.scenario + "\t\t\t\tnot in baseline" );
+        continue;
+      }
+      final double wall = change( result.wallMillis, base.wallMillis );
+      final double heap = change( result.peakHeapMB, base.peakHeapMB );
+      final double allocated = result.allocatedMB < 0 || base.allocatedMB < 0
+          ? 0.0 : change( result.allocatedMB, base.allocatedMB );
+      final List <String> failures = new ArrayList<>();
+      if ( exceeds( result.wallMillis, base.wallMillis, timeThreshold, TIME_SLACK_MILLIS ) ) {
+        failures.add( "wall" );
+      }
+      if ( exceeds( result.peakHeapMB, base.peakHeapMB, heapThreshold, HEAP_SLACK_MB ) ) {
+        failures.add( "heap" );
+      }
+      if ( result.allocatedMB >= 0 && base.allocatedMB >= 0 && exceeds( result.allocatedMB,
+          base.allocatedMB, allocationThreshold, ALLOCATION_SLACK_MB ) ) {
+        failures.add( "allocation" );
+      }
+      String status = failures.isEmpty() ? "ok" : "REGRESSION " + failures;
+      if ( result.events != base.events ) {
+        status += ", events " + base.events + " -> " + result.events;
+      }
+      if ( !failures.isEmpty() ) regressions++;
+      System.out.println( String.format( Locale.ROOT, "%s\t%+.1f%%\t%+.1f%%\t%+.1f%%\t%s",
+          result.scenario, wall * 100.0, heap * 100.0, allocated * 100.0, status ) );
+    }
+    return regressions;
+  }
+
+  private static Map <String, ScalingResult> readBaseline( final File file ) throws IOException {
+    final Map <String, ScalingResult> baseline = new LinkedHashMap<>();
+    try ( BufferedReader in = new BufferedReader( new FileReader( file ) ) ) {
+      String line;
+      while ( ( line = in.readLine() ) != null ) {
+        if ( line.isEmpty() || line.startsWith( "#" ) ) continue;
+        final ScalingResult result = ScalingResult.fromRow( line );
+        baseline.put( result.scenario, result );
+      }
+    } catch ( final FileNotFoundException e ) {
+      System.err.println( "Baseline " + file + " not found." );
+      System.exit( 1 );
+    }
+    return baseline;
+  }
+
+  /**
+   * Relative change from the baseline value.
+   */
+  private static double change(
+      final double value,
+      final double base ) {
+    return base > 0.0 ? ( value - base ) / base : 0.0;
+  }
+
+  /**
+   * Whether the value is above the baseline value by more than the relative
+   * threshold plus the absolute slack.
+   */
+  private static boolean exceeds(
+      final double value,
+      final double base,
+      final double threshold,
+      final double slack ) {
+    return value > base * ( 1.0 + threshold ) + slack;
+  }
+
+  private static double min( final double[] values ) {
+    double min = Double.POSITIVE_INFINITY;
+    for ( final double value : values ) {
+      min = Math.min( min, value );
+    }
+    return min;
+  }
+
+  private static double median( final double[] values ) {
+    final double[] sorted = values.clone();
+    Arrays.sort( sorted );
+    final int middle = sorted.length / 2;
+    return sorted.length % 2 == 1
+        ? sorted[ middle ] : ( sorted[ middle - 1 ] + sorted[ middle ] ) / 2.0;
+  }
+
+  private static void resetPeakHeap() {
+    for ( final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() ) {
+      if ( pool.getType() == MemoryType.HEAP ) {
+        pool.resetPeakUsage();
+      }
+    }
+  }
+
+  /**
+   * Sum of the peak usages of the heap pools since the last reset. The pools
+   * may peak at different times, so this is an upper bound.
+   */
+  private static long peakHeap() {
+    long peak = 0;
+    for ( final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() ) {
+      if ( pool.getType() == MemoryType.HEAP ) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+    return peak;
+  }
+
+  private static long gcCount() {
+    long count = 0;
+    for ( final GarbageCollectorMXBean collector
+        : ManagementFactory.getGarbageCollectorMXBeans() ) {
+      count += Math.max( 0, collector.getCollectionCount() );
+    }
+    return count;
+  }
+
+  private static long gcMillis() {
+    long millis = 0;
+    for ( final GarbageCollectorMXBean collector
+        : ManagementFactory.getGarbageCollectorMXBeans() ) {
+      millis += Math.max( 0, collector.getCollectionTime() );
+    }
+    return millis;
+  }
+
+  /**
+   * Total bytes allocated by the live threads, or -1 if not supported.
+   */
+  private static long allocatedBytes() {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if ( !( threads instanceof com.sun.management.ThreadMXBean ) ) return -1;
+    final com.sun.management.ThreadMXBean allocations
+        = ( com.sun.management.ThreadMXBean ) threads;
+    if ( !allocations.isThreadAllocatedMemorySupported()
+        || !allocations.isThreadAllocatedMemoryEnabled() ) {
+      return -1;
+    }
+    long allocatedBytes = 0;
+    for ( final long bytes : allocations.getThreadAllocatedBytes( threads.getAllThreadIds() ) ) {
+      if ( bytes > 0 ) allocatedBytes += bytes;
+    }
+    return allocatedBytes;
+  }
+  //==============================================================================================//
+}
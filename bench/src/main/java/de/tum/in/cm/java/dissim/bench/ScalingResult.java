@@ -0,0 +1,85 @@
+package de.tum.in.cm.java.dissim.bench;
+
+import java.util.Locale;
+
+/**
+ * Measurements of a single scenario of the {@link ScalingBenchmark}, as
+ * stored in the baseline file.
+ *
+ * @author teemuk
+ */
+public final class ScalingResult {
+  /** Column names of the rows, after the scenario */
+  public static final String HEADER = "# scenario\tevents\twallMillis\teventsPerSecond"
+      + "\tpeakHeapMB\tallocatedMB\tgcCount\tgcMillis";
+
+  /** Simulator arguments of the scenario, separated by spaces */
+  public final String scenario;
+  /** Processed events */
+  public final long events;
+  /** Shortest wall clock time of the measured iterations, the least disturbed one */
+  public final double wallMillis;
+  /** Largest peak heap of the measured iterations */
+  public final double peakHeapMB;
+  /** Median allocation of the measured iterations, -1 if not measured */
+  public final double allocatedMB;
+  /** Median number of collections of the measured iterations */
+  public final long gcCount;
+  /** Median collection time of the measured iterations */
+  public final double gcMillis;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public ScalingResult(
+      final String scenario,
+      final long events,
+      final double wallMillis,
+      final double peakHeapMB,
+      final double allocatedMB,
+      final long gcCount,
+      final double gcMillis ) {
+    this.scenario = scenario;
+    this.events = events;
+    this.wallMillis = wallMillis;
+    this.peakHeapMB = peakHeapMB;
+    this.allocatedMB = allocatedMB;
+    this.gcCount = gcCount;
+    this.gcMillis = gcMillis;
+  }
+
+  public final double eventsPerSecond() {
+    return this.events / ( this.wallMillis / 1000.0 );
+  }
+
+  /**
+   * Formats the result as a tab separated row.
+   */
+  public final String toRow() {
+    return String.format( Locale.ROOT, "%s\t%d\t%.1f\t%.0f\t%.1f\t%.1f\t%d\t%.1f",
+        this.scenario, this.events, this.wallMillis, this.eventsPerSecond(), this.peakHeapMB,
+        this.allocatedMB, this.gcCount, this.gcMillis );
+  }
+
+  /**
+   * Parses a row written by {@link #toRow()}.
+   *
+   * @throws IllegalArgumentException
+   *    if the row is malformed.
+   */
+  public static ScalingResult fromRow( final String row ) {
+    final String[] fields = row.split( "\t" );
+    if ( fields.length != 8 ) {
+      throw new IllegalArgumentException( "Malformed baseline row '" + row + "'" );
+    }
+    try {
+      return new ScalingResult( fields[ 0 ], Long.parseLong( fields[ 1 ] ),
+          Double.parseDouble( fields[ 2 ] ), Double.parseDouble( fields[ 4 ] ),
+          Double.parseDouble( fields[ 5 ] ), Long.parseLong( fields[ 6 ] ),
+          Double.parseDouble( fields[ 7 ] ) );
+    } catch ( final NumberFormatException e ) {
+      throw new IllegalArgumentException( "Malformed baseline row '" + row + "'", e );
+    }
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,140 @@
+package de.tum.in.cm.java.dissim.bench;
+
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.ReportWriter;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.Stats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports of the {@link Stats} of a finished optimizing run, written to a
+ * stream that discards the bytes.
+ *
+ * @author teemuk
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class StatsBenchmarks {
+
+  @Param( { "10000", "1000000" } )
+  public int clients;
+
+  @Param( { "3", "9", "33" } )
+  public int channels;
+
+  private Stats stats;
+
+  //==============================================================================================//
+  // Setup
+  //==============================================================================================//
+  @Setup
+  public void setUp() {
+    // Optimizing runs have both the total and the client receptions
+    final Simulation simulation = new Simulation( new Main.Args( new String[] {
+        Main.ARG_MODE + "=optimizing",
+        Main.ARG_CLIENT_COUNT + "=" + this.clients,
+        Main.ARG_CHANNEL_COUNT + "=" + this.channels } ) );
+    simulation.run();
+    this.stats = simulation.stats();
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Benchmarks
+  //==============================================================================================//
+  @Benchmark
+  public void receptionsPerChannel() throws IOException {
+    try ( ReportWriter out = ReportWriter.of( new NullOutputStream() ) ) {
+      this.stats.writeReceptionReports( out, null, 0.0, null );
+    }
+  }
+
+  @Benchmark
+  public void receptionsBucketed() throws IOException {
+    try ( ReportWriter out = ReportWriter.of( new NullOutputStream() ) ) {
+      this.stats.writeReceptionReports( null, out, Main.Args.DEFAULT_BUCKET_WIDTH, null );
+    }
+  }
+
+  @Benchmark
+  public void receptionCdf() throws IOException {
+    try ( ReportWriter out = ReportWriter.of( new NullOutputStream() ) ) {
+      this.stats.writeReceptionReports( null, null, 0.0, out );
+    }
+  }
+
+  @Benchmark
+  public void allReceptionReports() throws IOException {
+    try ( ReportWriter channelReport = ReportWriter.of( new NullOutputStream() );
+          ReportWriter bucketedReport = ReportWriter.of( new NullOutputStream() );
+          ReportWriter cdfReport = ReportWriter.of( new NullOutputStream() ) ) {
+      this.stats.writeReceptionReports( channelReport, bucketedReport,
+          Main.Args.DEFAULT_BUCKET_WIDTH, cdfReport );
+    }
+  }
+
+  @Benchmark
+  public void clientReceptionsPerChannel() throws IOException {
+    try ( ReportWriter out = ReportWriter.of( new NullOutputStream() ) ) {
+      this.stats.writeClientReceptionsPerChannel( out );
+    }
+  }
+
+  @Benchmark
+  public void leaderCountOverTime() throws IOException {
+    try ( ReportWriter out = ReportWriter.of( new NullOutputStream() ) ) {
+      this.stats.writeLeaderCountOverTime( out );
+    }
+  }
+
+  @Benchmark
+  public void latency() throws IOException {
+    try ( ReportWriter out = ReportWriter.of( new NullOutputStream() ) ) {
+      this.stats.latency().write( out );
+    }
+  }
+
+  @Benchmark
+  public double completionTime() {
+    return this.stats.completionTime();
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private static final class NullOutputStream
+  extends OutputStream {
+    @Override
+    public final void write( final int b ) {
+    }
+
+    @Override
+    public final void write(
+        final byte[] b,
+        final int off,
+        final int len ) {
+    }
+  }
+  //==============================================================================================//
+}
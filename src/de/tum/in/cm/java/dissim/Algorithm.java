@@ -12,22 +12,30 @@ public final class Algorithm {
       final int[] clients,
       final int numChannels,
       final int minLocal ) {
-    if ( clients.length <= minLocal || numChannels == 0 ) {
-      return new int[][] { {}, clients };
+    return toArrays( selectFollowersApprox( ClientSet.of( clients ), numChannels, minLocal ) );
+  }
+
+  /**
+   * Splits the clients into followers and local clients without copying.
+   *
+   * @return
+   *    Two slices of {@code clients}: the followers and the local clients.
+   */
+  public static ClientSet[] selectFollowersApprox(
+      final ClientSet clients,
+      final int numChannels,
+      final int minLocal ) {
+    if ( clients.length() <= minLocal || numChannels == 0 ) {
+      return new ClientSet[] { ClientRange.EMPTY, clients };
     }
 
     // Number of clients per channel
-    final double split = 1.0 * clients.length / ( numChannels + 1.0 );
+    final double split = 1.0 * clients.length() / ( numChannels + 1.0 );
 
     final int localSize = ( int ) Math.max( Math.ceil( split ), minLocal );
-    final int followerSize = clients.length - localSize;
 
-    final int[] localClients = new int[ localSize ];
-    System.arraycopy( clients, 0, localClients, 0, localSize );
-    final int[] followers = new int[ followerSize ];
-    System.arraycopy( clients, localSize, followers, 0, followerSize );
-
-    return new int[][]{ followers, localClients };
+    return new ClientSet[] {
+        clients.slice( localSize, clients.length() ), clients.slice( 0, localSize ) };
   }
 
   public static int[][] selectFollowersWithSwitchDelay(
@@ -36,26 +44,37 @@ public final class Algorithm {
       final int minLocal,
       final double switchDelay,
       final double transmissionTime ) {
-    if ( clients.length <= minLocal || numChannels == 0 ) {
-      return new int[][] { {}, clients };
+    return toArrays( selectFollowersWithSwitchDelay( ClientSet.of( clients ), numChannels,
+        minLocal, switchDelay, transmissionTime ) );
+  }
+
+  /**
+   * Splits the clients into followers and local clients without copying.
+   *
+   * @return
+   *    Two slices of {@code clients}: the followers and the local clients.
+   */
+  public static ClientSet[] selectFollowersWithSwitchDelay(
+      final ClientSet clients,
+      final int numChannels,
+      final int minLocal,
+      final double switchDelay,
+      final double transmissionTime ) {
+    if ( clients.length() <= minLocal || numChannels == 0 ) {
+      return new ClientSet[] { ClientRange.EMPTY, clients };
     }
 
     // Number of clients per channel
-    final double localCount = 1.0 * ( clients.length
+    final double localCount = 1.0 * ( clients.length()
         + ( numChannels * switchDelay / transmissionTime ) )
           / ( numChannels + 1.0 );
 
     final int localSize = ( int ) Math.min(
             Math.max( Math.ceil( localCount ), minLocal ),
-            clients.length );
-    final int followerSize = clients.length - localSize;
-
-    final int[] localClients = new int[ localSize ];
-    System.arraycopy( clients, 0, localClients, 0, localSize );
-    final int[] followers = new int[ followerSize ];
-    System.arraycopy( clients, localSize, followers, 0, followerSize );
+            clients.length() );
 
-    return new int[][]{ followers, localClients };
+    return new ClientSet[] {
+        clients.slice( localSize, clients.length() ), clients.slice( 0, localSize ) };
   }
 
   public static int branchingFactor(
@@ -70,60 +89,73 @@ public final class Algorithm {
   public static int[][] divide(
       final int[] input,
       final int count ) {
-    // Precondition
-    if ( count < 0 ) {
-      throw new IllegalArgumentException( "count must be " + "positive" );
-    }
-    if ( input.length < count ) {
-      throw new IllegalArgumentException( "input array length must be greater"
-          + " than count" );
-    }
+    return toArrays( divide( IntSlice.of( input ), count ) );
+  }
 
-    final int subsetSize = input.length / count;
-    final int[][] output = new int[ count ][];
+  /**
+   * Divides the clients into {@code count} sets without copying.
+   */
+  public static ClientSet[] divide(
+      final ClientSet input,
+      final int count ) {
+    checkDivision( input.length(), count );
+    final ClientSet[] output = new ClientSet[ count ];
     for ( int i = 0; i < count; i++ ) {
-      final int position = i * subsetSize;
-      final int size = ( i == count - 1 ) ?
-          ( input.length - position ) : ( subsetSize );
-      final int[] subset = new int[ size ];
-      System.arraycopy( input, position, subset, 0, size );
-      output[ i ] = subset;
+      output[ i ] = input.slice( divisionStart( input.length(), count, i ),
+          divisionEnd( input.length(), count, i ) );
     }
+    return output;
+  }
 
+  /**
+   * Divides the IDs into {@code count} slices without copying.
+   */
+  public static IntSlice[] divide(
+      final IntSlice input,
+      final int count ) {
+    checkDivision( input.length(), count );
+    final IntSlice[] output = new IntSlice[ count ];
+    for ( int i = 0; i < count; i++ ) {
+      output[ i ] = input.slice( divisionStart( input.length(), count, i ),
+          divisionEnd( input.length(), count, i ) );
+    }
     return output;
   }
 
   public static double[][] divide(
       final double[] input,
       final int count ) {
-    // Precondition
-    if ( count < 0 ) {
-      throw new IllegalArgumentException( "count must be " + "positive" );
-    }
-    if ( input.length < count ) {
-      throw new IllegalArgumentException( "input array length must be greater"
-          + " than count" );
+    final DoubleSlice[] slices = divide( DoubleSlice.of( input ), count );
+    final double[][] output = new double[ slices.length ][];
+    for ( int i = 0; i < slices.length; i++ ) {
+      output[ i ] = slices[ i ].toArray();
     }
+    return output;
+  }
 
-    final int subsetSize = input.length / count;
-    final double[][] output = new double[ count ][];
+  public static DoubleSlice[] divide(
+      final DoubleSlice input,
+      final int count ) {
+    checkDivision( input.length(), count );
+    final DoubleSlice[] output = new DoubleSlice[ count ];
     for ( int i = 0; i < count; i++ ) {
-      final int position = i * subsetSize;
-      final int size = ( i == count - 1 ) ?
-          ( input.length - position ) : ( subsetSize );
-      final double[] subset = new double[ size ];
-      System.arraycopy( input, position, subset, 0, size );
-      output[ i ] = subset;
+      output[ i ] = input.slice( divisionStart( input.length(), count, i ),
+          divisionEnd( input.length(), count, i ) );
     }
-
     return output;
   }
 
   public static int[][] divideWeighted(
       final int[] input,
       final double[] weights ) {
+    return toArrays( divideWeighted( ClientSet.of( input ), weights ) );
+  }
+
+  public static ClientSet[] divideWeighted(
+      final ClientSet input,
+      final double[] weights ) {
     final int count = weights.length;
-    final int[][] output = new int[ count ][];
+    final ClientSet[] output = new ClientSet[ count ];
 
     int pos = 0;
     for ( int i = 0; i < count; i++ ) {
@@ -131,14 +163,12 @@ public final class Algorithm {
       final int size;
       if ( i == count - 1 ) {
         // Last group, take all the remaining ones
-        size = input.length - pos;
+        size = input.length() - pos;
       } else {
-        size = ( int )( weights[ i ] * input.length );
+        size = ( int )( weights[ i ] * input.length() );
       }
 
-      final int[] subset = new int[ size ];
-      System.arraycopy( input, pos, subset, 0, size );
-      output[ i ] = subset;
+      output[ i ] = input.slice( pos, pos + size );
       pos += size;
     }
 
@@ -146,19 +176,73 @@ public final class Algorithm {
   }
 
   public static double[] calculateWeights( final int[][] input ) {
-    final int count = input.length;
+    final int[] lengths = new int[ input.length ];
+    for ( int i = 0; i < input.length; i++ ) {
+      lengths[ i ] = input[ i ].length;
+    }
+    return calculateWeights( lengths );
+  }
+
+  public static double[] calculateWeights( final IntSlice[] input ) {
+    final int[] lengths = new int[ input.length ];
+    for ( int i = 0; i < input.length; i++ ) {
+      lengths[ i ] = input[ i ].length();
+    }
+    return calculateWeights( lengths );
+  }
+
+  private static double[] calculateWeights( final int[] lengths ) {
+    final int count = lengths.length;
     final double[] weights = new double[ count ];
 
     int total = 0;
     for ( int i = 0; i < count; i++ ) {
-      total += input[ i ].length;
+      total += lengths[ i ];
     }
     for ( int i = 0; i < count; i++ ) {
-      weights[ i ] = 1.0 * input[ i ].length / total;
+      weights[ i ] = 1.0 * lengths[ i ] / total;
     }
     return weights;
   }
 
+  private static int[][] toArrays( final ClientSet[] slices ) {
+    final int[][] output = new int[ slices.length ][];
+    for ( int i = 0; i < slices.length; i++ ) {
+      output[ i ] = slices[ i ].toArray();
+    }
+    return output;
+  }
+
+  private static void checkDivision(
+      final int length,
+      final int count ) {
+    if ( count < 0 ) {
+      throw new IllegalArgumentException( "count must be " + "positive" );
+    }
+    if ( length < count ) {
+      throw new IllegalArgumentException( "input array length must be greater"
+          + " than count" );
+    }
+  }
+
+  /**
+   * Start of the {@code i}th of {@code count} equal sets, the last set also
+   * takes the remainder.
+   */
+  private static int divisionStart(
+      final int length,
+      final int count,
+      final int i ) {
+    return i * ( length / count );
+  }
+
+  private static int divisionEnd(
+      final int length,
+      final int count,
+      final int i ) {
+    return ( i == count - 1 ) ? ( length ) : ( divisionStart( length, count, i + 1 ) );
+  }
+
   public enum DisseminationStrategy {
     CONCURRENT, SEQUENTIAL;
 
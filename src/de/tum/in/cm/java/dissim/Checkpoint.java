@@ -0,0 +1,339 @@
+package de.tum.in.cm.java.dissim;
+
+import de.tum.in.cm.java.dissim.events.EventCodec;
+import de.tum.in.cm.java.dissim.queue.EventQueue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary snapshot of a running simulation, from which the simulation can be
+ * resumed.
+ *
+ * <p>A checkpoint holds the argument strings, the number of processed
+ * events, the simulation time, the position of the optimizer's client pool,
+ * the aggregates and latency sketches of the stats, the pending events and
+ * finally the record logs of the stats. Everything but the record logs is
+ * encoded when the checkpoint is captured. The record logs are only
+ * snapshotted, which shares their full chunks, and are encoded when the
+ * checkpoint is written, so that writing can happen on another thread while
+ * the simulation continues.</p>
+ *
+ * @author teemuk
+ */
+public final class Checkpoint {
+
+  private static final int MAGIC = 0x44534350;
+  private static final int VERSION = 2;
+
+  private final String[] argStrings;
+  private final long eventCount;
+  private final double time;
+  private final int clientPosition;
+  /** Encoded aggregates and latency sketches */
+  private final byte[] state;
+  private final int pendingCount;
+  /** Encoded pending events */
+  private final byte[] pending;
+  /** Snapshots of the record logs of a captured checkpoint */
+  private final RecordLog[] logs;
+  /** File of a checkpoint that was read, holds the record logs */
+  private final File file;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Reads a checkpoint. The record logs stay in the file until the
+   * checkpoint is restored.
+   *
+   * @param file
+   *    File written by a {@link Checkpointer}.
+   * @return
+   *    The checkpoint.
+   * @throws IOException
+   *    If reading fails or the file is not a checkpoint.
+   */
+  public static Checkpoint read( final File file ) throws IOException {
+    try ( DataInputStream in = open( file ) ) {
+      return readHeader( in, file );
+    }
+  }
+
+  /**
+   * Arguments of the checkpointed simulation, without the resume argument.
+   */
+  public final String[] argStrings() {
+    return this.argStrings.clone();
+  }
+
+  /**
+   * Number of events processed before the checkpoint.
+   */
+  public final long eventCount() {
+    return this.eventCount;
+  }
+
+  /**
+   * Time of the last event processed before the checkpoint.
+   */
+  public final double time() {
+    return this.time;
+  }
+
+  /**
+   * Number of clients taken from the optimizer's client pool.
+   */
+  public final int clientPosition() {
+    return this.clientPosition;
+  }
+
+  /**
+   * Number of pending events.
+   */
+  public final int pendingCount() {
+    return this.pendingCount;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Package
+  //==============================================================================================//
+  /**
+   * Captures the state of a simulation between two events. The pending
+   * events and the stats are encoded right away, the record logs are
+   * snapshotted.
+   *
+   * @throws IllegalArgumentException
+   *    If one of the pending events can't be encoded.
+   */
+  static Checkpoint capture(
+      final Main.Args args,
+      final long eventCount,
+      final double time,
+      final ClientPool clientPool,
+      final Stats stats,
+      final EventQueue queue ) {
+    final List <String> argStrings = new ArrayList<>( args.argStrings.length );
+    for ( final String argString : args.argStrings ) {
+      if ( !argString.startsWith( Main.ARG_RESUME + "=" ) ) {
+        argStrings.add( argString );
+      }
+    }
+
+    final ByteSink state = new ByteSink( 1 << 12 );
+    final ByteSink pending = new ByteSink( queue.size() * 32 );
+    try {
+      stats.writeState( new DataOutputStream( state ) );
+      final DataOutputStream out = new DataOutputStream( pending );
+      queue.forEach( event -> {
+        try {
+          EventCodec.write( event, out );
+        } catch ( final IOException e ) {
+          throw new UncheckedIOException( e );
+        }
+      } );
+    } catch ( final IOException e ) {
+      // Byte sinks don't fail
+      throw new UncheckedIOException( e );
+    }
+
+    final RecordLog[] logs = { stats.receptionLog().snapshot(),
+        stats.clientReceptionLog().snapshot(), stats.leaderActivationLog().snapshot() };
+    return new Checkpoint( argStrings.toArray( new String[ 0 ] ), eventCount, time,
+        clientPool.position(), state.toByteArray(), queue.size(), pending.toByteArray(), logs,
+        null );
+  }
+
+  /**
+   * Writes a captured checkpoint. The checkpoint is first written into a
+   * temporary file next to the target, which then replaces the target, so a
+   * crash while writing never destroys the previous checkpoint.
+   *
+   * @param target
+   *    File to write into.
+   * @throws IOException
+   *    If writing fails.
+   */
+  final void write( final File target ) throws IOException {
+    if ( this.logs == null ) {
+      throw new IllegalStateException( "Only captured checkpoints can be written" );
+    }
+    final File temp = new File( target.getPath() + ".tmp" );
+    try ( FileOutputStream stream = new FileOutputStream( temp ) ) {
+      final DataOutputStream out
+          = new DataOutputStream( new BufferedOutputStream( stream, 1 << 16 ) );
+      out.writeInt( MAGIC );
+      out.writeInt( VERSION );
+      out.writeInt( this.argStrings.length );
+      for ( final String argString : this.argStrings ) {
+        out.writeUTF( argString );
+      }
+      out.writeLong( this.eventCount );
+      out.writeDouble( this.time );
+      out.writeInt( this.clientPosition );
+      out.writeInt( this.state.length );
+      out.write( this.state );
+      out.writeInt( this.pendingCount );
+      out.writeInt( this.pending.length );
+      out.write( this.pending );
+      for ( final RecordLog log : this.logs ) {
+        log.write( out );
+      }
+      out.flush();
+      stream.getFD().sync();
+    }
+    Files.move( temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE );
+  }
+
+  /**
+   * Restores the stats of a read checkpoint and decodes its pending events.
+   *
+   * @param stats
+   *    New stats of the resumed simulation.
+   * @param args
+   *    Arguments of the resumed simulation.
+   * @return
+   *    The pending events.
+   * @throws IOException
+   *    If reading fails or the stats don't match the checkpoint.
+   */
+  final List <SimEvent> restore(
+      final Stats stats,
+      final Main.Args args ) throws IOException {
+    if ( this.file == null ) {
+      throw new IllegalStateException( "Only read checkpoints can be restored" );
+    }
+    stats.readState( new DataInputStream( new ByteArrayInputStream( this.state ) ) );
+    try ( DataInputStream in = open( this.file ) ) {
+      readHeader( in, this.file );
+      stats.receptionLog().read( in );
+      stats.clientReceptionLog().read( in );
+      stats.leaderActivationLog().read( in );
+    }
+
+    final List <SimEvent> events = new ArrayList<>( this.pendingCount );
+    final DataInputStream in = new DataInputStream( new ByteArrayInputStream( this.pending ) );
+    for ( int i = 0; i < this.pendingCount; i++ ) {
+      events.add( EventCodec.read( in, args ) );
+    }
+    return events;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private Checkpoint(
+      final String[] argStrings,
+      final long eventCount,
+      final double time,
+      final int clientPosition,
+      final byte[] state,
+      final int pendingCount,
+      final byte[] pending,
+      final RecordLog[] logs,
+      final File file ) {
+    this.argStrings = argStrings;
+    this.eventCount = eventCount;
+    this.time = time;
+    this.clientPosition = clientPosition;
+    this.state = state;
+    this.pendingCount = pendingCount;
+    this.pending = pending;
+    this.logs = logs;
+    this.file = file;
+  }
+
+  private static DataInputStream open( final File file ) throws IOException {
+    return new DataInputStream( new BufferedInputStream( new FileInputStream( file ), 1 << 16 ) );
+  }
+
+  /**
+   * Reads everything before the record logs.
+   */
+  private static Checkpoint readHeader(
+      final DataInputStream in,
+      final File file ) throws IOException {
+    if ( in.readInt() != MAGIC ) {
+      throw new IOException( file + " is not a checkpoint" );
+    }
+    final int version = in.readInt();
+    if ( version != VERSION ) {
+      throw new IOException( "Unsupported checkpoint version (" + version + ")" );
+    }
+    final String[] argStrings = new String[ in.readInt() ];
+    for ( int i = 0; i < argStrings.length; i++ ) {
+      argStrings[ i ] = in.readUTF();
+    }
+    final long eventCount = in.readLong();
+    final double time = in.readDouble();
+    final int clientPosition = in.readInt();
+    final byte[] state = new byte[ in.readInt() ];
+    in.readFully( state );
+    final int pendingCount = in.readInt();
+    final byte[] pending = new byte[ in.readInt() ];
+    in.readFully( pending );
+    return new Checkpoint( argStrings, eventCount, time, clientPosition, state, pendingCount,
+        pending, null, file );
+  }
+
+  /**
+   * Growing byte array. Unlike {@link java.io.ByteArrayOutputStream} it is
+   * not synchronized, which matters for the single byte writes of a data
+   * output stream while the event loop waits for the capture.
+   */
+  private static final class ByteSink
+  extends OutputStream {
+    private byte[] bytes;
+    private int size;
+
+    private ByteSink( final int capacity ) {
+      this.bytes = new byte[ Math.max( capacity, 16 ) ];
+    }
+
+    @Override
+    public final void write( final int b ) {
+      if ( this.size == this.bytes.length ) this.grow( 1 );
+      this.bytes[ this.size++ ] = ( byte ) b;
+    }
+
+    @Override
+    public final void write(
+        final byte[] b,
+        final int off,
+        final int len ) {
+      if ( this.bytes.length - this.size < len ) this.grow( len );
+      System.arraycopy( b, off, this.bytes, this.size, len );
+      this.size += len;
+    }
+
+    private void grow( final int needed ) {
+      this.bytes = Arrays.copyOf( this.bytes, Math.max( this.bytes.length * 2,
+          this.size + needed ) );
+    }
+
+    private byte[] toByteArray() {
+      return ( this.size == this.bytes.length )
+          ? ( this.bytes ) : ( Arrays.copyOf( this.bytes, this.size ) );
+    }
+  }
+  //==============================================================================================//
+}
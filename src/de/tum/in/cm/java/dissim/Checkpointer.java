@@ -0,0 +1,178 @@
+package de.tum.in.cm.java.dissim;
+
+import de.tum.in.cm.java.dissim.queue.EventQueue;
+
+import java.io.Closeable;
+import java.io.File;
+
+/**
+ * Writes checkpoints of a simulation at simulated time or wall clock
+ * intervals. The event loop asks {@link #due(double)} after every event and
+ * calls {@link #checkpoint(long, double)} when it returns {@code true}.
+ *
+ * <p>The loop only pauses to capture the checkpoint, which encodes the
+ * pending events and the aggregates and snapshots the record logs without
+ * copying their full chunks. The file is written by a background thread.
+ * If the previous checkpoint is still being written when the next one is
+ * due, the next one is skipped.</p>
+ *
+ * @author teemuk
+ */
+public final class Checkpointer
+implements Closeable {
+
+  /** Events between wall clock checks */
+  private static final int CLOCK_EVENTS = 4096;
+
+  private final File file;
+  private final double timeInterval;
+  private final long wallInterval;
+  private final Simulation simulation;
+  private final EventQueue queue;
+  /** Events processed before the simulation was resumed */
+  private final long baseEventCount;
+
+  private double nextTime;
+  private long nextWall;
+  private int sinceClock;
+  private Thread writer;
+  private volatile Throwable failure;
+  private int written;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * @param file
+   *    File to write the checkpoints into, replaced by every checkpoint.
+   * @param timeInterval
+   *    Simulated time between checkpoints, zero for none.
+   * @param wallInterval
+   *    Seconds between checkpoints, zero for none.
+   * @param simulation
+   *    Simulation to checkpoint.
+   * @param queue
+   *    Event queue of the simulation's engine.
+   * @param baseEventCount
+   *    Number of events processed before the simulation was resumed.
+   * @param startTime
+   *    Simulation time at which the simulation was resumed.
+   */
+  public Checkpointer(
+      final File file,
+      final double timeInterval,
+      final double wallInterval,
+      final Simulation simulation,
+      final EventQueue queue,
+      final long baseEventCount,
+      final double startTime ) {
+    if ( !( timeInterval >= 0.0 ) || !( wallInterval >= 0.0 ) ) {
+      throw new IllegalArgumentException( "Checkpoint intervals must not be negative" );
+    }
+    this.file = file;
+    this.timeInterval = timeInterval;
+    this.wallInterval = ( long ) ( wallInterval * 1.0e9 );
+    this.simulation = simulation;
+    this.queue = queue;
+    this.baseEventCount = baseEventCount;
+    this.nextTime = Double.POSITIVE_INFINITY;
+    this.scheduleNext( startTime );
+  }
+
+  /**
+   * Whether a checkpoint is due after an event at the given time.
+   */
+  public final boolean due( final double time ) {
+    if ( time >= this.nextTime ) return true;
+    if ( this.wallInterval == 0 || ++this.sinceClock < CLOCK_EVENTS ) return false;
+    this.sinceClock = 0;
+    return System.nanoTime() - this.nextWall >= 0;
+  }
+
+  /**
+   * Captures a checkpoint and starts writing it, unless the previous one is
+   * still being written.
+   *
+   * @param eventCount
+   *    Events processed by the engine so far.
+   * @param time
+   *    Time of the last processed event.
+   * @throws IllegalStateException
+   *    If writing the previous checkpoint failed.
+   */
+  public final void checkpoint(
+      final long eventCount,
+      final double time ) {
+    this.checkFailure();
+    this.scheduleNext( time );
+    if ( this.writer != null && this.writer.isAlive() ) return;
+
+    final Checkpoint checkpoint = Checkpoint.capture( this.simulation.args(),
+        this.baseEventCount + eventCount, time, this.simulation.clientPool(),
+        this.simulation.stats(), this.queue );
+    this.writer = new Thread( () -> this.write( checkpoint ), "checkpoint-writer" );
+    this.writer.setDaemon( true );
+    this.writer.start();
+    this.written++;
+  }
+
+  /**
+   * Number of checkpoints started so far.
+   */
+  public final int written() {
+    return this.written;
+  }
+
+  /**
+   * Waits until the last checkpoint has been written.
+   *
+   * @throws IllegalStateException
+   *    If writing a checkpoint failed.
+   */
+  @Override
+  public final void close() {
+    boolean interrupted = false;
+    while ( this.writer != null && this.writer.isAlive() ) {
+      try {
+        this.writer.join();
+      } catch ( final InterruptedException e ) {
+        interrupted = true;
+      }
+    }
+    if ( interrupted ) {
+      Thread.currentThread().interrupt();
+    }
+    this.checkFailure();
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Schedules the next checkpoint after the given time and from now on.
+   */
+  private void scheduleNext( final double time ) {
+    if ( this.timeInterval > 0.0 ) {
+      this.nextTime = ( Math.floor( time / this.timeInterval ) + 1.0 ) * this.timeInterval;
+    }
+    this.nextWall = System.nanoTime() + this.wallInterval;
+  }
+
+  private void write( final Checkpoint checkpoint ) {
+    try {
+      checkpoint.write( this.file );
+    } catch ( final Throwable t ) {
+      this.failure = t;
+    }
+  }
+
+  private void checkFailure() {
+    if ( this.failure != null ) {
+      throw new IllegalStateException( "Writing checkpoint " + this.file + " failed",
+          this.failure );
+    }
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,65 @@
+package de.tum.in.cm.java.dissim;
+
+/**
+ * Clients that have not yet been served by the optimizer. Channels take
+ * clients from the pool in order as they become free.
+ *
+ * @author teemuk
+ */
+public final class ClientPool {
+
+  /** Unserved clients */
+  private final ClientSet clients;
+  /** Position in the unserved clients */
+  private int position;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public ClientPool( final ClientSet clients ) {
+    this( clients, 0 );
+  }
+
+  /**
+   * Creates a pool of which the first {@code position} clients have already
+   * been served.
+   */
+  public ClientPool(
+      final ClientSet clients,
+      final int position ) {
+    this.clients = clients;
+    this.position = position;
+  }
+
+  public final boolean hasClients() {
+    return ( this.position < this.clients.length() );
+  }
+
+  public final int nextClient() {
+    final int nextClient = this.clients.get( this.position );
+    this.position++;
+    return nextClient;
+  }
+
+  public final int clientsLeft() {
+    return this.clients.length() - this.position;
+  }
+
+  public final ClientSet getClients( final int count ) {
+    final ClientSet ret = this.clients.slice( this.position, this.position + count );
+    this.position += count;
+    return ret;
+  }
+
+  public final ClientSet clients() {
+    return this.clients;
+  }
+
+  /**
+   * Number of clients taken from the pool so far.
+   */
+  public final int position() {
+    return this.position;
+  }
+  //==============================================================================================//
+}
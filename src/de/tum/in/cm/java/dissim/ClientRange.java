@@ -0,0 +1,90 @@
+package de.tum.in.cm.java.dissim;
+
+/**
+ * Implicit set of the consecutive client IDs {@code [lo, hi)}. Takes constant
+ * memory regardless of the number of clients.
+ *
+ * @author teemuk
+ */
+public final class ClientRange
+implements ClientSet {
+
+  public static final ClientRange EMPTY = new ClientRange( 0, 0 );
+
+  private final int lo;
+  private final int hi;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Creates the range of client IDs {@code [lo, hi)}.
+   *
+   * @param lo
+   *    First client ID.
+   * @param hi
+   *    One past the last client ID.
+   */
+  public ClientRange(
+      final int lo,
+      final int hi ) {
+    if ( hi < lo ) {
+      throw new IllegalArgumentException( "invalid client range [" + lo + ", " + hi + ")" );
+    }
+    this.lo = lo;
+    this.hi = hi;
+  }
+
+  public final int lo() {
+    return this.lo;
+  }
+
+  public final int hi() {
+    return this.hi;
+  }
+
+  @Override
+  public final String toString() {
+    return "[" + this.lo + ", " + this.hi + ")";
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // ClientSet
+  //==============================================================================================//
+  @Override
+  public final int length() {
+    return this.hi - this.lo;
+  }
+
+  @Override
+  public final int get( final int index ) {
+    if ( index < 0 || index >= this.hi - this.lo ) {
+      throw new IndexOutOfBoundsException( "index " + index + " out of bounds for length "
+          + ( this.hi - this.lo ) );
+    }
+    return this.lo + index;
+  }
+
+  @Override
+  public final ClientRange slice(
+      final int from,
+      final int to ) {
+    if ( from < 0 || to < from || to > this.hi - this.lo ) {
+      throw new IndexOutOfBoundsException( "slice [" + from + ", " + to
+          + ") out of bounds for length " + ( this.hi - this.lo ) );
+    }
+    return new ClientRange( this.lo + from, this.lo + to );
+  }
+
+  @Override
+  public final int[] toArray() {
+    final int[] clients = new int[ this.hi - this.lo ];
+    for ( int i = 0; i < clients.length; i++ ) {
+      clients[ i ] = this.lo + i;
+    }
+    return clients;
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,47 @@
+package de.tum.in.cm.java.dissim;
+
+/**
+ * Ordered set of client IDs. Either an implicit range of consecutive IDs
+ * ({@link ClientRange}) or a view of an explicit array ({@link IntSlice}).
+ * Slicing never copies.
+ *
+ * @author teemuk
+ */
+public interface ClientSet {
+  /**
+   * Number of clients in the set.
+   */
+  int length();
+
+  /**
+   * Client at the given position.
+   */
+  int get( int index );
+
+  /**
+   * Sub-set {@code [from, to)} relative to this set.
+   */
+  ClientSet slice( int from, int to );
+
+  /**
+   * Copies the client IDs into a new array.
+   */
+  int[] toArray();
+
+  /**
+   * Creates a client set of the given IDs. Runs of consecutive IDs are
+   * represented as an implicit range, anything else as a view of the array.
+   *
+   * @param clients
+   *    Client IDs.
+   * @return
+   *    Client set with the same IDs in the same order.
+   */
+  static ClientSet of( final int[] clients ) {
+    if ( clients.length == 0 ) return ClientRange.EMPTY;
+    for ( int i = 1; i < clients.length; i++ ) {
+      if ( clients[ i ] != clients[ 0 ] + i ) return IntSlice.of( clients );
+    }
+    return new ClientRange( clients[ 0 ], clients[ 0 ] + clients.length );
+  }
+}
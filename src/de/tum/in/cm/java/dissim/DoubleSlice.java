@@ -0,0 +1,79 @@
+package de.tum.in.cm.java.dissim;
+
+import java.util.Arrays;
+
+/**
+ * Read-only view of a contiguous range of a {@code double[]}, see
+ * {@link IntSlice}.
+ *
+ * @author teemuk
+ */
+public final class DoubleSlice {
+
+  public static final DoubleSlice EMPTY = new DoubleSlice( new double[ 0 ], 0, 0 );
+
+  private final double[] array;
+  private final int offset;
+  private final int length;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public DoubleSlice(
+      final double[] array,
+      final int offset,
+      final int length ) {
+    if ( offset < 0 || length < 0 || offset + length > array.length ) {
+      throw new IndexOutOfBoundsException( "slice [" + offset + ", " + ( offset + length )
+          + ") out of bounds for length " + array.length );
+    }
+    this.array = array;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * Creates a slice covering the whole array.
+   */
+  public static DoubleSlice of( final double[] array ) {
+    return new DoubleSlice( array, 0, array.length );
+  }
+
+  public final int length() {
+    return this.length;
+  }
+
+  public final double get( final int index ) {
+    if ( index < 0 || index >= this.length ) {
+      throw new IndexOutOfBoundsException( "index " + index + " out of bounds for length "
+          + this.length );
+    }
+    return this.array[ this.offset + index ];
+  }
+
+  /**
+   * Sub-slice {@code [from, to)} relative to this slice.
+   */
+  public final DoubleSlice slice(
+      final int from,
+      final int to ) {
+    if ( from < 0 || to < from || to > this.length ) {
+      throw new IndexOutOfBoundsException( "slice [" + from + ", " + to
+          + ") out of bounds for length " + this.length );
+    }
+    return new DoubleSlice( this.array, this.offset + from, to - from );
+  }
+
+  /**
+   * Copies the elements of this slice into a new array.
+   */
+  public final double[] toArray() {
+    return Arrays.copyOfRange( this.array, this.offset, this.offset + this.length );
+  }
+
+  @Override
+  public final String toString() {
+    return Arrays.toString( this.toArray() );
+  }
+  //==============================================================================================//
+}
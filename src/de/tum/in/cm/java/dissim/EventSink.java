@@ -0,0 +1,65 @@
+package de.tum.in.cm.java.dissim;
+
+import de.tum.in.cm.java.dissim.events.ContentReceivedEvent;
+import de.tum.in.cm.java.dissim.events.ReceptionRun;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Receives the events emitted by a {@link SinkEvent} while it is processed,
+ * and schedules them directly into the simulator.
+ *
+ * @author teemuk
+ */
+public interface EventSink {
+  /**
+   * Schedules the event.
+   *
+   * @param event
+   *    Event to schedule.
+   */
+  void schedule( SimEvent event );
+
+  /**
+   * Schedules all the given events.
+   *
+   * @param events
+   *    Events to schedule.
+   */
+  default void scheduleAll( final Collection <? extends SimEvent> events ) {
+    for ( final SimEvent event : events ) {
+      this.schedule( event );
+    }
+  }
+
+  /**
+   * Schedules a run of events that is already sorted by time. Implementations
+   * may use the order to speed up insertion. By default a
+   * {@link ReceptionRun} goes through {@link #scheduleReception}, so sinks
+   * that schedule receptions without event objects keep doing so.
+   *
+   * @param events
+   *    Events in non-decreasing time order.
+   */
+  default void scheduleSorted( final List <? extends SimEvent> events ) {
+    if ( events instanceof ReceptionRun ) {
+      ( ( ReceptionRun ) events ).scheduleInto( this );
+    } else {
+      this.scheduleAll( events );
+    }
+  }
+
+  /**
+   * Schedules the reception of the content by a node. Equivalent to
+   * scheduling a {@link ContentReceivedEvent}, but lets implementations avoid
+   * creating the event object.
+   */
+  default void scheduleReception(
+      final double time,
+      final int node,
+      final int from,
+      final int channel ) {
+    this.schedule( new ContentReceivedEvent( time, node, from, channel ) );
+  }
+}
@@ -0,0 +1,85 @@
+package de.tum.in.cm.java.dissim;
+
+import java.util.Arrays;
+
+/**
+ * Read-only view of a contiguous range of an {@code int[]}. Slicing a slice
+ * does not copy, so recursive splits can all share one backing array. Used
+ * as the explicit {@link ClientSet} representation.
+ *
+ * @author teemuk
+ */
+public final class IntSlice
+implements ClientSet {
+
+  public static final IntSlice EMPTY = new IntSlice( new int[ 0 ], 0, 0 );
+
+  private final int[] array;
+  private final int offset;
+  private final int length;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public IntSlice(
+      final int[] array,
+      final int offset,
+      final int length ) {
+    if ( offset < 0 || length < 0 || offset + length > array.length ) {
+      throw new IndexOutOfBoundsException( "slice [" + offset + ", " + ( offset + length )
+          + ") out of bounds for length " + array.length );
+    }
+    this.array = array;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * Creates a slice covering the whole array.
+   */
+  public static IntSlice of( final int[] array ) {
+    return new IntSlice( array, 0, array.length );
+  }
+
+  @Override
+  public final int length() {
+    return this.length;
+  }
+
+  @Override
+  public final int get( final int index ) {
+    if ( index < 0 || index >= this.length ) {
+      throw new IndexOutOfBoundsException( "index " + index + " out of bounds for length "
+          + this.length );
+    }
+    return this.array[ this.offset + index ];
+  }
+
+  /**
+   * Sub-slice {@code [from, to)} relative to this slice.
+   */
+  @Override
+  public final IntSlice slice(
+      final int from,
+      final int to ) {
+    if ( from < 0 || to < from || to > this.length ) {
+      throw new IndexOutOfBoundsException( "slice [" + from + ", " + to
+          + ") out of bounds for length " + this.length );
+    }
+    return new IntSlice( this.array, this.offset + from, to - from );
+  }
+
+  /**
+   * Copies the elements of this slice into a new array.
+   */
+  @Override
+  public final int[] toArray() {
+    return Arrays.copyOfRange( this.array, this.offset, this.offset + this.length );
+  }
+
+  @Override
+  public final String toString() {
+    return Arrays.toString( this.toArray() );
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,186 @@
+package de.tum.in.cm.java.dissim;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Fixed precision histogram of non-negative values for quantile queries, in
+ * the style of an HDR histogram. Buckets are log-linear: every power of two
+ * is split into {@value #SUB_BUCKETS} equal buckets, taken directly from
+ * the exponent and the top mantissa bits of the value, so a quantile is
+ * within {@code 1 / }{@value #SUB_BUCKETS} of the true value relative to it.
+ * Recording is a few bit operations and an increment. Memory depends only
+ * on the range of the values, and histograms merge by adding the counts.
+ *
+ * @author teemuk
+ */
+public final class LatencyHistogram {
+
+  /** Mantissa bits per bucket */
+  private static final int SUB_BUCKET_BITS = 7;
+  public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  /** Smallest and largest tracked binary exponents, values outside are clamped */
+  private static final int MIN_EXPONENT = -64;
+  private static final int MAX_EXPONENT = 63;
+
+  /** Counts per exponent, allocated when the first value in the range is recorded */
+  private final long[][] counts = new long[ MAX_EXPONENT - MIN_EXPONENT + 1 ][];
+  /** Values of zero and below the smallest exponent */
+  private long zeroCount;
+  private long count;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public final void record( final double value ) {
+    if ( !( value >= 0.0 ) ) {
+      throw new IllegalArgumentException( "Negative value (" + value + ")" );
+    }
+    this.count++;
+    if ( value < this.min ) this.min = value;
+    if ( value > this.max ) this.max = value;
+
+    final long bits = Double.doubleToRawLongBits( value );
+    final int exponent = ( int ) ( bits >>> 52 ) - 1023;
+    if ( exponent < MIN_EXPONENT ) {
+      this.zeroCount++;
+      return;
+    }
+    final int row = Math.min( exponent, MAX_EXPONENT ) - MIN_EXPONENT;
+    long[] rowCounts = this.counts[ row ];
+    if ( rowCounts == null ) {
+      rowCounts = new long[ SUB_BUCKETS ];
+      this.counts[ row ] = rowCounts;
+    }
+    final int subBucket = exponent > MAX_EXPONENT
+        ? SUB_BUCKETS - 1 : ( int ) ( bits >>> ( 52 - SUB_BUCKET_BITS ) ) & ( SUB_BUCKETS - 1 );
+    rowCounts[ subBucket ]++;
+  }
+
+  /**
+   * Adds the counts of the other histogram to this one.
+   */
+  public final void merge( final LatencyHistogram other ) {
+    this.count += other.count;
+    this.zeroCount += other.zeroCount;
+    this.min = Math.min( this.min, other.min );
+    this.max = Math.max( this.max, other.max );
+    for ( int row = 0; row < this.counts.length; row++ ) {
+      final long[] otherCounts = other.counts[ row ];
+      if ( otherCounts == null ) continue;
+      if ( this.counts[ row ] == null ) {
+        this.counts[ row ] = otherCounts.clone();
+      } else {
+        for ( int i = 0; i < SUB_BUCKETS; i++ ) {
+          this.counts[ row ][ i ] += otherCounts[ i ];
+        }
+      }
+    }
+  }
+
+  public final long count() {
+    return this.count;
+  }
+
+  /**
+   * Smallest recorded value, {@code NaN} if empty.
+   */
+  public final double min() {
+    return this.count == 0 ? Double.NaN : this.min;
+  }
+
+  /**
+   * Largest recorded value, {@code NaN} if empty.
+   */
+  public final double max() {
+    return this.count == 0 ? Double.NaN : this.max;
+  }
+
+  /**
+   * Value at the quantile, as the midpoint of the bucket holding it, limited
+   * to the recorded range.
+   *
+   * @param quantile
+   *    Quantile between 0 and 1.
+   * @return
+   *    Approximate value, {@code NaN} if empty.
+   */
+  public final double quantile( final double quantile ) {
+    if ( !( quantile >= 0.0 && quantile <= 1.0 ) ) {
+      throw new IllegalArgumentException( "Quantile out of range (" + quantile + ")" );
+    }
+    if ( this.count == 0 ) return Double.NaN;
+
+    // Rank of the value, one based
+    final long rank = Math.max( 1, ( long ) Math.ceil( quantile * this.count ) );
+    long seen = this.zeroCount;
+    if ( seen >= rank ) return this.min;
+    for ( int row = 0; row < this.counts.length; row++ ) {
+      final long[] rowCounts = this.counts[ row ];
+      if ( rowCounts == null ) continue;
+      for ( int i = 0; i < SUB_BUCKETS; i++ ) {
+        seen += rowCounts[ i ];
+        if ( seen >= rank ) {
+          return Math.max( this.min, Math.min( this.max, midpoint( row, i ) ) );
+        }
+      }
+    }
+    return this.max;
+  }
+
+  /**
+   * Writes the counts, see {@link #read(DataInput)}.
+   */
+  public final void write( final DataOutput out ) throws IOException {
+    out.writeLong( this.count );
+    out.writeLong( this.zeroCount );
+    out.writeDouble( this.min );
+    out.writeDouble( this.max );
+    for ( final long[] rowCounts : this.counts ) {
+      out.writeBoolean( rowCounts != null );
+      if ( rowCounts == null ) continue;
+      for ( final long count : rowCounts ) {
+        out.writeLong( count );
+      }
+    }
+  }
+
+  /**
+   * Reads a histogram written by {@link #write(DataOutput)}.
+   */
+  public static LatencyHistogram read( final DataInput in ) throws IOException {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.count = in.readLong();
+    histogram.zeroCount = in.readLong();
+    histogram.min = in.readDouble();
+    histogram.max = in.readDouble();
+    for ( int row = 0; row < histogram.counts.length; row++ ) {
+      if ( !in.readBoolean() ) continue;
+      final long[] rowCounts = new long[ SUB_BUCKETS ];
+      for ( int i = 0; i < SUB_BUCKETS; i++ ) {
+        rowCounts[ i ] = in.readLong();
+      }
+      histogram.counts[ row ] = rowCounts;
+    }
+    return histogram;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private static double midpoint(
+      final int row,
+      final int subBucket ) {
+    final long exponentBits = ( long ) ( row + MIN_EXPONENT + 1023 ) << 52;
+    final double lower = Double.longBitsToDouble(
+        exponentBits | ( ( long ) subBucket << ( 52 - SUB_BUCKET_BITS ) ) );
+    final double width = Math.scalb( 1.0, row + MIN_EXPONENT - SUB_BUCKET_BITS );
+    return lower + 0.5 * width;
+  }
+  //==============================================================================================//
+}
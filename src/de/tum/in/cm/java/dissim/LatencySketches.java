@@ -0,0 +1,312 @@
+package de.tum.in.cm.java.dissim;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Reception time distributions of a simulation, one
+ * {@link LatencyHistogram} per channel and one per leader depth. The depth
+ * of a reception is the depth of the transmitting leader in the leader
+ * tree, the source is at depth zero. Receptions from nodes that were not
+ * activated as leaders are only counted per channel. Sketches of different
+ * runs can be merged, for example over the points of a sweep.
+ *
+ * @author teemuk
+ */
+public final class LatencySketches {
+
+  /** Quantiles of the report */
+  private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+  private static final int NO_NODE = Integer.MIN_VALUE;
+
+  /** Index is the channel */
+  private LatencyHistogram[] channels = new LatencyHistogram[ 0 ];
+  /** Index is the depth */
+  private LatencyHistogram[] depths = new LatencyHistogram[ 0 ];
+
+  /** Depths of the activated leaders, open addressing on the node */
+  private int[] leaderNodes = emptyTable( 16 );
+  private int[] leaderDepths = new int[ 16 ];
+  private int leaderCount;
+  /**
+   * Last source on each channel and its depth histogram, {@code null} if the
+   * source is not a leader. A channel is used by one leader at a time.
+   */
+  private int[] channelSources = new int[ 0 ];
+  private LatencyHistogram[] channelDepths = new LatencyHistogram[ 0 ];
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public final void reception(
+      final double time,
+      final int source,
+      final int channel ) {
+    if ( channel >= this.channelSources.length || this.channels[ channel ] == null ) {
+      this.addChannel( channel );
+    }
+    this.channels[ channel ].record( time );
+
+    if ( this.channelSources[ channel ] != source ) {
+      final int depth = this.leaderDepth( source );
+      if ( depth >= 0 ) {
+        this.depths = ensure( this.depths, depth );
+      }
+      this.channelSources[ channel ] = source;
+      this.channelDepths[ channel ] = ( depth >= 0 ) ? this.depths[ depth ] : null;
+    }
+    final LatencyHistogram depthHistogram = this.channelDepths[ channel ];
+    if ( depthHistogram != null ) {
+      depthHistogram.record( time );
+    }
+  }
+
+  public final void leaderActivation(
+      final int leader,
+      final int depth ) {
+    if ( 2 * ( this.leaderCount + 1 ) > this.leaderNodes.length ) {
+      this.grow();
+    }
+    this.put( leader, depth );
+    // The leader may be the cached source of a channel with an old depth
+    for ( int i = 0; i < this.channelSources.length; i++ ) {
+      if ( this.channelSources[ i ] == leader ) {
+        this.channelSources[ i ] = NO_NODE;
+      }
+    }
+  }
+
+  /**
+   * Adds the distributions of the other sketches to these.
+   */
+  public final void merge( final LatencySketches other ) {
+    this.channels = merge( this.channels, other.channels );
+    this.depths = merge( this.depths, other.depths );
+  }
+
+  /**
+   * Writes the distributions and the depths of the leaders, see
+   * {@link #read(DataInput)}.
+   */
+  public final void write( final DataOutput out ) throws IOException {
+    writeHistograms( out, this.channels );
+    writeHistograms( out, this.depths );
+    out.writeInt( this.leaderCount );
+    for ( int i = 0; i < this.leaderNodes.length; i++ ) {
+      if ( this.leaderNodes[ i ] == NO_NODE ) continue;
+      out.writeInt( this.leaderNodes[ i ] );
+      out.writeInt( this.leaderDepths[ i ] );
+    }
+  }
+
+  /**
+   * Replaces the state of these sketches with the one written by
+   * {@link #write(DataOutput)}.
+   */
+  public final void read( final DataInput in ) throws IOException {
+    this.channels = readHistograms( in );
+    this.depths = readHistograms( in );
+    final int leaderCount = in.readInt();
+    this.leaderNodes = emptyTable( 16 );
+    this.leaderDepths = new int[ 16 ];
+    this.leaderCount = 0;
+    for ( int i = 0; i < leaderCount; i++ ) {
+      if ( 2 * ( this.leaderCount + 1 ) > this.leaderNodes.length ) {
+        this.grow();
+      }
+      this.put( in.readInt(), in.readInt() );
+    }
+    this.channelSources = new int[ this.channels.length ];
+    Arrays.fill( this.channelSources, NO_NODE );
+    this.channelDepths = new LatencyHistogram[ this.channels.length ];
+  }
+
+  /**
+   * Distribution of the receptions on the channel, {@code null} if the
+   * channel had none.
+   */
+  public final LatencyHistogram channel( final int channel ) {
+    return channel < this.channels.length ? this.channels[ channel ] : null;
+  }
+
+  /**
+   * Distribution of the receptions transmitted by leaders at the depth,
+   * {@code null} if there were none.
+   */
+  public final LatencyHistogram depth( final int depth ) {
+    return depth < this.depths.length ? this.depths[ depth ] : null;
+  }
+
+  /**
+   * Distribution of all receptions.
+   */
+  public final LatencyHistogram total() {
+    final LatencyHistogram total = new LatencyHistogram();
+    for ( final LatencyHistogram histogram : this.channels ) {
+      if ( histogram != null ) total.merge( histogram );
+    }
+    return total;
+  }
+
+  /**
+   * Prints the count, the median, the 99th and 99.9th percentiles and the
+   * maximum of the reception times in total, per channel and per depth.
+   */
+  public final void print( final PrintStream out ) {
+    final ReportWriter writer = ReportWriter.of( out );
+    this.write( writer );
+    try {
+      writer.flush();
+    } catch ( final IOException e ) {
+      throw new UncheckedIOException( "Failed to write the report", e );
+    }
+  }
+
+  /**
+   * Writes the report of {@link #print}.
+   */
+  public final void write( final ReportWriter out ) {
+    out.append( "# Reception time quantiles" ).newLine();
+    out.append( "# <group> <count> <p50> <p99> <p99.9> <max>" ).newLine();
+    writeRow( out.append( "total" ), this.total() );
+    for ( int i = 0; i < this.channels.length; i++ ) {
+      if ( this.channels[ i ] != null ) {
+        writeRow( out.append( "channel" ).append( i ), this.channels[ i ] );
+      }
+    }
+    for ( int i = 0; i < this.depths.length; i++ ) {
+      if ( this.depths[ i ] != null ) {
+        writeRow( out.append( "depth" ).append( i ), this.depths[ i ] );
+      }
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private void addChannel( final int channel ) {
+    this.channels = ensure( this.channels, channel );
+    if ( channel >= this.channelSources.length ) {
+      final int length = this.channels.length;
+      final int oldLength = this.channelSources.length;
+      this.channelSources = Arrays.copyOf( this.channelSources, length );
+      Arrays.fill( this.channelSources, oldLength, length, NO_NODE );
+      this.channelDepths = Arrays.copyOf( this.channelDepths, length );
+    }
+  }
+
+  /**
+   * Depth of the leader, -1 if the node has not been activated as a leader.
+   */
+  private int leaderDepth( final int node ) {
+    final int mask = this.leaderNodes.length - 1;
+    for ( int slot = mix( node ) & mask; this.leaderNodes[ slot ] != NO_NODE;
+          slot = ( slot + 1 ) & mask ) {
+      if ( this.leaderNodes[ slot ] == node ) return this.leaderDepths[ slot ];
+    }
+    return -1;
+  }
+
+  private void put(
+      final int node,
+      final int depth ) {
+    final int mask = this.leaderNodes.length - 1;
+    int slot = mix( node ) & mask;
+    while ( this.leaderNodes[ slot ] != NO_NODE && this.leaderNodes[ slot ] != node ) {
+      slot = ( slot + 1 ) & mask;
+    }
+    if ( this.leaderNodes[ slot ] == NO_NODE ) {
+      this.leaderNodes[ slot ] = node;
+      this.leaderCount++;
+    }
+    this.leaderDepths[ slot ] = depth;
+  }
+
+  private void grow() {
+    final int[] nodes = this.leaderNodes;
+    final int[] depths = this.leaderDepths;
+    this.leaderNodes = emptyTable( nodes.length * 2 );
+    this.leaderDepths = new int[ nodes.length * 2 ];
+    this.leaderCount = 0;
+    for ( int i = 0; i < nodes.length; i++ ) {
+      if ( nodes[ i ] != NO_NODE ) this.put( nodes[ i ], depths[ i ] );
+    }
+  }
+
+  private static int[] emptyTable( final int size ) {
+    final int[] table = new int[ size ];
+    Arrays.fill( table, NO_NODE );
+    return table;
+  }
+
+  private static int mix( final int node ) {
+    final int h = node * 0x9E3779B9;
+    return h ^ ( h >>> 16 );
+  }
+
+  private static LatencyHistogram[] merge(
+      final LatencyHistogram[] histograms,
+      final LatencyHistogram[] others ) {
+    LatencyHistogram[] result = histograms;
+    for ( int i = 0; i < others.length; i++ ) {
+      if ( others[ i ] == null ) continue;
+      result = ensure( result, i );
+      result[ i ].merge( others[ i ] );
+    }
+    return result;
+  }
+
+  private static LatencyHistogram[] ensure(
+      final LatencyHistogram[] histograms,
+      final int index ) {
+    if ( index < 0 ) {
+      throw new IllegalArgumentException( "Negative index (" + index + ")" );
+    }
+    LatencyHistogram[] result = histograms;
+    if ( index >= result.length ) {
+      result = Arrays.copyOf( result, Math.max( index + 1, 2 * result.length ) );
+    }
+    if ( result[ index ] == null ) {
+      result[ index ] = new LatencyHistogram();
+    }
+    return result;
+  }
+
+  private static void writeHistograms(
+      final DataOutput out,
+      final LatencyHistogram[] histograms ) throws IOException {
+    out.writeInt( histograms.length );
+    for ( final LatencyHistogram histogram : histograms ) {
+      out.writeBoolean( histogram != null );
+      if ( histogram != null ) histogram.write( out );
+    }
+  }
+
+  private static LatencyHistogram[] readHistograms( final DataInput in ) throws IOException {
+    final LatencyHistogram[] histograms = new LatencyHistogram[ in.readInt() ];
+    for ( int i = 0; i < histograms.length; i++ ) {
+      if ( in.readBoolean() ) histograms[ i ] = LatencyHistogram.read( in );
+    }
+    return histograms;
+  }
+
+  /**
+   * Writes the rest of a row after the group name.
+   */
+  private static void writeRow(
+      final ReportWriter out,
+      final LatencyHistogram histogram ) {
+    out.append( ' ' ).append( histogram.count() );
+    for ( final double quantile : QUANTILES ) {
+      out.append( ' ' ).append( histogram.quantile( quantile ) );
+    }
+    out.append( ' ' ).append( histogram.max() ).newLine();
+  }
+  //==============================================================================================//
+}
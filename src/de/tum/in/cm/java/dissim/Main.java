@@ -1,16 +1,18 @@
 package de.tum.in.cm.java.dissim;
 
-import de.tum.in.cm.java.dissim.events.ContentReceivedOptimizerEvent;
-import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
-import de.tum.in.cm.java.dissim.events.CreateLeaderOptimizerEvent;
+import de.tum.in.cm.java.dissim.engine.EngineType;
+import de.tum.in.cm.java.dissim.jfr.ReportEvent;
+import de.tum.in.cm.java.dissim.metrics.EngineMetrics;
+import de.tum.in.cm.java.dissim.queue.EventQueueType;
+import de.tum.in.cm.java.dissim.subtree.Makespan;
+import de.tum.in.cm.java.dissim.subtree.MakespanEvaluator;
+import de.tum.in.cm.java.dissim.trace.CompressedTraceWriter;
+import de.tum.in.cm.java.dissim.trace.TraceWriter;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintStream;
-import java.util.Collection;
-import java.util.Comparator;
-import java.util.List;
-import java.util.PriorityQueue;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
 
 /**
  * Event based simulator for studying the algorithm from "Practical Opportunistic Content
@@ -36,62 +38,206 @@ public final class Main {
   public static String ARG_CHANNEL_USE_REPORT = "channelReport";
   public static String ARG_LEADER_COUNT_REPORT = "leaderCountReport";
   public static String ARG_BUCKETED_RECEPTION_REPORT = "bucketedReceptionReport";
+  public static String ARG_EVENT_QUEUE = "eventQueue";
+  public static String ARG_ENGINE = "engine";
+  public static String ARG_BATCH_RECEPTIONS = "batchReceptions";
+  public static String ARG_SUBTREE_CACHE = "subtreeCache";
+  public static String ARG_MAKESPAN_ONLY = "makespanOnly";
+  public static String ARG_OFF_HEAP_STATS = "offHeapStats";
+  public static String ARG_STREAMING_STATS = "streamingStats";
+  public static String ARG_RECEPTION_TRACE = "receptionTrace";
+  public static String ARG_COMPRESSED_TRACE = "compressedTrace";
+  public static String ARG_LATENCY_REPORT = "latencyReport";
+  public static String ARG_RECEPTION_CDF_REPORT = "receptionCdfReport";
+  public static String ARG_ASYNC_REPORTS = "asyncReports";
+  public static String ARG_METRICS = "metrics";
+  public static String ARG_PROGRESS_INTERVAL = "progressInterval";
+  public static String ARG_SPILL_DIRECTORY = "spillDirectory";
+  public static String ARG_SPILL_WINDOW = "spillWindow";
+  public static String ARG_CHECKPOINT = "checkpoint";
+  public static String ARG_CHECKPOINT_TIME = "checkpointTime";
+  public static String ARG_CHECKPOINT_INTERVAL = "checkpointInterval";
+  public static String ARG_RESUME = "resume";
 
-  private static final Comparator <SimEvent> EVENT_COMPARATOR = ( o1, o2 ) -> {
-        if ( o1.time() == o2.time() ) return 0;
-        return ( o1.time() < o2.time() ) ? ( -1 ) : ( 1 );
-      };
-
-  private static final PriorityQueue <SimEvent> EVENT_QUEUE
-      = new PriorityQueue<>( EVENT_COMPARATOR );
   //==============================================================================================//
 
 
   //==============================================================================================//
   // Main
   //==============================================================================================//
-  public static void main( final String[] argStrings ) throws FileNotFoundException {
-    final Args args = new Args( argStrings );
+  public static void main( final String[] argStrings ) throws IOException {
+    try {
+      run( argStrings );
+    } catch ( final IllegalArgumentException | IllegalStateException e ) {
+      System.err.println( e.getMessage() );
+      System.exit( 1 );
+    }
+  }
+
+  private static void run( final String[] argStrings ) throws IOException {
+    Args args = new Args( argStrings );
+
+    // Continue from a checkpoint with its arguments, overridden by the given ones
+    final Checkpoint checkpoint = args.resumeFile != null
+        ? Checkpoint.read( args.resumeFile ) : null;
+    if ( checkpoint != null ) {
+      final String[] resumed = checkpoint.argStrings();
+      final String[] merged = Arrays.copyOf( resumed, resumed.length + argStrings.length );
+      System.arraycopy( argStrings, 0, merged, resumed.length, argStrings.length );
+      args = new Args( merged );
+    }
 
     // Setup the simulation
     if ( args.runMode == RunMode.NORMAL ) {
       System.out.println( "Starting normal run." );
-      setupNormal( args );
     } else if ( args.runMode == RunMode.OPTIMIZING ) {
       System.out.println( "Starting optimizing run." );
-      setupOptimizer( args );
+    } else {
+      throw new IllegalArgumentException( "Unknown run mode (" + args.runMode + ")" );
+    }
+
+    if ( args.makespanOnly ) {
+      evaluateMakespan( args );
+      return;
+    }
+    final Simulation simulation;
+    if ( checkpoint != null ) {
+      System.out.println( "Resuming at time " + checkpoint.time() + " after "
+          + checkpoint.eventCount() + " events." );
+      simulation = Simulation.resume( args, checkpoint );
+    } else {
+      simulation = new Simulation( args );
     }
 
     // Run the event loop
-    final long startTime = System.nanoTime();
-    int eventCount = 0;
-    while ( EVENT_QUEUE.size() != 0 ) {
-      eventCount++;
-      final SimEvent event = EVENT_QUEUE.remove();
-      final Collection <SimEvent> newEvents = event.process();
-      EVENT_QUEUE.addAll( newEvents );
+    final long startTime;
+    final long eventCount;
+    final long endTime;
+    try ( TraceWriter trace = args.receptionTrace != null
+              ? TraceWriter.open( args.receptionTrace ) : null;
+          CompressedTraceWriter compressedTrace = args.compressedTrace != null
+              ? CompressedTraceWriter.open( args.compressedTrace ) : null ) {
+      if ( trace != null ) {
+        simulation.reportStats().addReceptionListener( trace );
+      }
+      if ( compressedTrace != null ) {
+        simulation.reportStats().addReceptionListener( compressedTrace );
+      }
+      startTime = System.nanoTime();
+      eventCount = simulation.run();
+      endTime = System.nanoTime();
     }
-    final long endTime = System.nanoTime();
 
     final double durationMillis = 1.0 * ( endTime - startTime ) / 1000000.0;
     System.out.println( "Processed " + eventCount + " events in " + durationMillis + "ms." );
+    if ( simulation.metrics() != null ) {
+      printMetrics( simulation.metrics() );
+    }
 
 
-    // Output reports
-    if ( args.channelReportFile != null ) try ( PrintStream out = new PrintStream(
-        args.channelReportFile ) ) {
-      Stats.printReceptionsPerChannel( out );
+    // Output reports, the reception reports in a single pass
+    final Stats stats = simulation.stats();
+    final ReportEvent receptionReports = new ReportEvent();
+    receptionReports.begin();
+    try ( ReportWriter channelReport = openReport( args.channelReportFile );
+          ReportWriter bucketedReport = openReport( args.bucketedReceptionReport );
+          ReportWriter cdfReport = openReport( args.receptionCdfReport ) ) {
+      if ( channelReport != null || bucketedReport != null || cdfReport != null ) {
+        stats.writeReceptionReports( channelReport, bucketedReport,
+            args.receptionReportBucketWidth, cdfReport );
+      }
     }
+    commitReport( receptionReports, "receptions", args.channelReportFile,
+        args.bucketedReceptionReport, args.receptionCdfReport );
 
-    if ( args.bucketedReceptionReport != null ) try ( PrintStream out = new PrintStream(
-        args.bucketedReceptionReport ) ) {
-      Stats.printReceptionsBucketed( out, args.receptionReportBucketWidth );
+    final ReportEvent leaderCountReport = new ReportEvent();
+    leaderCountReport.begin();
+    if ( args.leaderCountReport != null ) try ( ReportWriter out = ReportWriter.open(
+        args.leaderCountReport ) ) {
+      stats.writeLeaderCountOverTime( out );
     }
+    commitReport( leaderCountReport, "leaderCount", args.leaderCountReport );
 
-    if ( args.leaderCountReport != null ) try ( PrintStream out = new PrintStream(
-        args.leaderCountReport ) ) {
-      Stats.printLeaderCountOverTime( out );
+    final ReportEvent latencyReport = new ReportEvent();
+    latencyReport.begin();
+    if ( args.latencyReport != null ) try ( ReportWriter out = ReportWriter.open(
+        args.latencyReport ) ) {
+      stats.latency().write( out );
     }
+    commitReport( latencyReport, "latency", args.latencyReport );
+  }
+
+  /**
+   * Commits the flight recorder event of a report, if any of its files was
+   * written.
+   */
+  private static void commitReport(
+      final ReportEvent event,
+      final String report,
+      final File... files ) {
+    if ( !event.shouldCommit() ) return;
+    final StringBuilder paths = new StringBuilder();
+    for ( final File file : files ) {
+      if ( file == null ) continue;
+      if ( paths.length() != 0 ) paths.append( ", " );
+      paths.append( file.getPath() );
+    }
+    if ( paths.length() == 0 ) return;
+    event.report = report;
+    event.files = paths.toString();
+    event.commit();
+  }
+
+  /**
+   * Prints the event loop metrics of a finished run.
+   */
+  private static void printMetrics( final EngineMetrics metrics ) {
+    for ( final Map.Entry <String, Long> entry : metrics.getEventCounts().entrySet() ) {
+      System.out.println( "  " + entry.getKey() + ": " + entry.getValue() + " events" );
+    }
+    System.out.println( "  Max queue depth: " + metrics.getMaxQueueDepth() );
+    System.out.println( "  Simulated time per second: " + metrics.getSimulatedTimeRatio() );
+    if ( metrics.getAllocatedBytes() >= 0 ) {
+      System.out.println( "  Allocated: " + ( metrics.getAllocatedBytes() >> 20 ) + "MB" );
+    }
+  }
+
+  /**
+   * Computes the completion time and the per channel receptions without
+   * simulating the receptions.
+   */
+  private static void evaluateMakespan( final Args args ) throws IOException {
+    if ( args.runMode != RunMode.NORMAL ) {
+      throw new IllegalArgumentException( "Makespan evaluation only supports normal runs." );
+    }
+    if ( args.leaderCountReport != null || args.bucketedReceptionReport != null
+        || args.receptionTrace != null || args.compressedTrace != null
+        || args.latencyReport != null || args.receptionCdfReport != null ) {
+      throw new IllegalArgumentException( "Makespan evaluation only supports the channel report." );
+    }
+
+    final long startTime = System.nanoTime();
+    final Makespan makespan = MakespanEvaluator.evaluate( args );
+    final long endTime = System.nanoTime();
+
+    final double durationMillis = 1.0 * ( endTime - startTime ) / 1000000.0;
+    System.out.println( "Evaluated " + makespan.leaderCount + " leaders in " + durationMillis
+        + "ms." );
+    System.out.println( "Completion time " + makespan.completionTime + " for "
+        + makespan.receptionCount + " receptions." );
+
+    if ( args.channelReportFile != null ) try ( ReportWriter out = ReportWriter.open(
+        args.channelReportFile ) ) {
+      Stats.writeReceptionsPerChannel( out, makespan.receptionsPerChannel );
+    }
+  }
+
+  /**
+   * Opens the report file, or returns {@code null} if the report was not
+   * requested.
+   */
+  private static ReportWriter openReport( final File file ) throws IOException {
+    return ( file != null ) ? ReportWriter.open( file ) : null;
   }
   //==============================================================================================//
 
@@ -114,6 +260,19 @@ public final class Main {
     public static final Algorithm.DisseminationStrategy DEFAULT_DISS_STRATEGY
         = Algorithm.DisseminationStrategy.SEQUENTIAL;
     public static final double DEFAULT_BUCKET_WIDTH = 10.0;
+    public static final EventQueueType DEFAULT_EVENT_QUEUE = EventQueueType.HEAP;
+    public static final EngineType DEFAULT_ENGINE = EngineType.OBJECT;
+    public static final boolean DEFAULT_BATCH_RECEPTIONS = false;
+    public static final boolean DEFAULT_SUBTREE_CACHE = false;
+    public static final boolean DEFAULT_MAKESPAN_ONLY = false;
+    public static final boolean DEFAULT_OFF_HEAP_STATS = false;
+    public static final boolean DEFAULT_STREAMING_STATS = false;
+    public static final int DEFAULT_ASYNC_REPORTS = 0;
+    public static final boolean DEFAULT_METRICS = false;
+    public static final double DEFAULT_PROGRESS_INTERVAL = 0.0;
+    public static final double DEFAULT_SPILL_WINDOW = 1000.0;
+    public static final double DEFAULT_CHECKPOINT_TIME = 0.0;
+    public static final double DEFAULT_CHECKPOINT_INTERVAL = 600.0;
 
     public final int clientCount;
     public final double contentSize;
@@ -129,7 +288,45 @@ public final class Main {
     public final File leaderCountReport;
     public final File bucketedReceptionReport;
     public final double receptionReportBucketWidth;
-
+    public final EventQueueType eventQueueType;
+    public final EngineType engineType;
+    public final boolean batchReceptions;
+    public final boolean subtreeCache;
+    public final boolean makespanOnly;
+    public final boolean offHeapStats;
+    public final boolean streamingStats;
+    public final File receptionTrace;
+    public final File compressedTrace;
+    public final File latencyReport;
+    public final File receptionCdfReport;
+    /** Records in flight to the report thread, zero to record on the event loop */
+    public final int asyncReports;
+    /** Whether to instrument the event loop and register it as an MBean */
+    public final boolean metrics;
+    /** Seconds between progress lines, zero for none */
+    public final double progressInterval;
+    /** Directory of the spilled event runs, {@code null} for the temporary directory */
+    public final File spillDirectory;
+    /** Simulation time kept in memory by the spilling event queue */
+    public final double spillWindow;
+    /** File the checkpoints are written into, {@code null} for no checkpoints */
+    public final File checkpointFile;
+    /** Simulation time between checkpoints, zero for none */
+    public final double checkpointTime;
+    /** Seconds between checkpoints, zero for none */
+    public final double checkpointInterval;
+    /** Checkpoint to resume from, {@code null} to start from the beginning */
+    public final File resumeFile;
+    /** The parsed argument strings, written into the checkpoints */
+    public final String[] argStrings;
+
+    /**
+     * Parses the {@code name=value} arguments, missing ones get their
+     * defaults.
+     *
+     * @throws IllegalArgumentException
+     *    If an argument is unknown or its value malformed.
+     */
     public Args( final String[] args ) {
       // Defaults
       Algorithm.LocalSplitStrategy localSplitStrategy = DEFAULT_SPLIT_STRATEGY;
@@ -146,6 +343,26 @@ public final class Main {
       File leaderCountReport = null;
       File bucketedReceptionReport = null;
       double receptionReportBucketWidth = DEFAULT_BUCKET_WIDTH;
+      EventQueueType eventQueueType = DEFAULT_EVENT_QUEUE;
+      EngineType engineType = DEFAULT_ENGINE;
+      boolean batchReceptions = DEFAULT_BATCH_RECEPTIONS;
+      boolean subtreeCache = DEFAULT_SUBTREE_CACHE;
+      boolean makespanOnly = DEFAULT_MAKESPAN_ONLY;
+      boolean offHeapStats = DEFAULT_OFF_HEAP_STATS;
+      boolean streamingStats = DEFAULT_STREAMING_STATS;
+      File receptionTrace = null;
+      File compressedTrace = null;
+      File latencyReport = null;
+      File receptionCdfReport = null;
+      int asyncReports = DEFAULT_ASYNC_REPORTS;
+      boolean metrics = DEFAULT_METRICS;
+      double progressInterval = DEFAULT_PROGRESS_INTERVAL;
+      File spillDirectory = null;
+      double spillWindow = DEFAULT_SPILL_WINDOW;
+      File checkpointFile = null;
+      double checkpointTime = DEFAULT_CHECKPOINT_TIME;
+      double checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+      File resumeFile = null;
 
       // Parse args
       for ( int i = 0; i < args.length; i++ ) {
@@ -191,9 +408,68 @@ public final class Main {
           final String[] split = value.split( ";" );
           receptionReportBucketWidth = Double.parseDouble( split[ 0 ] );
           bucketedReceptionReport = new File( split[ 1 ] );
+        } else if ( argString.startsWith( ARG_EVENT_QUEUE + "=" ) ) {
+          final String value = argString.substring( ARG_EVENT_QUEUE.length() + 1 );
+          eventQueueType = EventQueueType.fromString( value );
+        } else if ( argString.startsWith( ARG_ENGINE + "=" ) ) {
+          final String value = argString.substring( ARG_ENGINE.length() + 1 );
+          engineType = EngineType.fromString( value );
+        } else if ( argString.startsWith( ARG_BATCH_RECEPTIONS + "=" ) ) {
+          final String value = argString.substring( ARG_BATCH_RECEPTIONS.length() + 1 );
+          batchReceptions = Boolean.parseBoolean( value );
+        } else if ( argString.startsWith( ARG_SUBTREE_CACHE + "=" ) ) {
+          final String value = argString.substring( ARG_SUBTREE_CACHE.length() + 1 );
+          subtreeCache = Boolean.parseBoolean( value );
+        } else if ( argString.startsWith( ARG_MAKESPAN_ONLY + "=" ) ) {
+          final String value = argString.substring( ARG_MAKESPAN_ONLY.length() + 1 );
+          makespanOnly = Boolean.parseBoolean( value );
+        } else if ( argString.startsWith( ARG_OFF_HEAP_STATS + "=" ) ) {
+          final String value = argString.substring( ARG_OFF_HEAP_STATS.length() + 1 );
+          offHeapStats = Boolean.parseBoolean( value );
+        } else if ( argString.startsWith( ARG_STREAMING_STATS + "=" ) ) {
+          final String value = argString.substring( ARG_STREAMING_STATS.length() + 1 );
+          streamingStats = Boolean.parseBoolean( value );
+        } else if ( argString.startsWith( ARG_RECEPTION_TRACE + "=" ) ) {
+          final String value = argString.substring( ARG_RECEPTION_TRACE.length() + 1 );
+          receptionTrace = new File( value );
+        } else if ( argString.startsWith( ARG_COMPRESSED_TRACE + "=" ) ) {
+          final String value = argString.substring( ARG_COMPRESSED_TRACE.length() + 1 );
+          compressedTrace = new File( value );
+        } else if ( argString.startsWith( ARG_LATENCY_REPORT + "=" ) ) {
+          final String value = argString.substring( ARG_LATENCY_REPORT.length() + 1 );
+          latencyReport = new File( value );
+        } else if ( argString.startsWith( ARG_RECEPTION_CDF_REPORT + "=" ) ) {
+          final String value = argString.substring( ARG_RECEPTION_CDF_REPORT.length() + 1 );
+          receptionCdfReport = new File( value );
+        } else if ( argString.startsWith( ARG_ASYNC_REPORTS + "=" ) ) {
+          final String value = argString.substring( ARG_ASYNC_REPORTS.length() + 1 );
+          asyncReports = Integer.parseInt( value );
+        } else if ( argString.startsWith( ARG_METRICS + "=" ) ) {
+          final String value = argString.substring( ARG_METRICS.length() + 1 );
+          metrics = Boolean.parseBoolean( value );
+        } else if ( argString.startsWith( ARG_PROGRESS_INTERVAL + "=" ) ) {
+          final String value = argString.substring( ARG_PROGRESS_INTERVAL.length() + 1 );
+          progressInterval = Double.parseDouble( value );
+        } else if ( argString.startsWith( ARG_SPILL_DIRECTORY + "=" ) ) {
+          final String value = argString.substring( ARG_SPILL_DIRECTORY.length() + 1 );
+          spillDirectory = new File( value );
+        } else if ( argString.startsWith( ARG_SPILL_WINDOW + "=" ) ) {
+          final String value = argString.substring( ARG_SPILL_WINDOW.length() + 1 );
+          spillWindow = Double.parseDouble( value );
+        } else if ( argString.startsWith( ARG_CHECKPOINT + "=" ) ) {
+          final String value = argString.substring( ARG_CHECKPOINT.length() + 1 );
+          checkpointFile = new File( value );
+        } else if ( argString.startsWith( ARG_CHECKPOINT_TIME + "=" ) ) {
+          final String value = argString.substring( ARG_CHECKPOINT_TIME.length() + 1 );
+          checkpointTime = Double.parseDouble( value );
+        } else if ( argString.startsWith( ARG_CHECKPOINT_INTERVAL + "=" ) ) {
+          final String value = argString.substring( ARG_CHECKPOINT_INTERVAL.length() + 1 );
+          checkpointInterval = Double.parseDouble( value );
+        } else if ( argString.startsWith( ARG_RESUME + "=" ) ) {
+          final String value = argString.substring( ARG_RESUME.length() + 1 );
+          resumeFile = new File( value );
         } else {
-          System.err.println( "Unknown argument '" + argString + "'" );
-          System.exit( 1 );
+          throw new IllegalArgumentException( "Unknown argument '" + argString + "'" );
         }
       }
 
@@ -212,117 +488,39 @@ public final class Main {
       this.leaderCountReport = leaderCountReport;
       this.bucketedReceptionReport = bucketedReceptionReport;
       this.receptionReportBucketWidth = receptionReportBucketWidth;
+      this.eventQueueType = eventQueueType;
+      this.engineType = engineType;
+      this.batchReceptions = batchReceptions;
+      this.subtreeCache = subtreeCache;
+      this.makespanOnly = makespanOnly;
+      this.offHeapStats = offHeapStats;
+      this.streamingStats = streamingStats;
+      this.receptionTrace = receptionTrace;
+      this.compressedTrace = compressedTrace;
+      this.latencyReport = latencyReport;
+      this.receptionCdfReport = receptionCdfReport;
+      this.asyncReports = asyncReports;
+      this.metrics = metrics;
+      this.progressInterval = progressInterval;
+      this.spillDirectory = spillDirectory;
+      this.spillWindow = spillWindow;
+      this.checkpointFile = checkpointFile;
+      this.checkpointTime = checkpointTime;
+      this.checkpointInterval = checkpointInterval;
+      this.resumeFile = resumeFile;
+      this.argStrings = args.clone();
     }
   }
   //==============================================================================================//
 
 
-  //==============================================================================================//
-  private static void setupOptimizer( final Args args ) {
-    // Scenario
-    final int[] nodes = getSequence( args.clientCount, 2 );
-    final int[] channels = getSequence( args.channelCount - 1, 2 );
-
-    // Set up the clients
-    ContentReceivedOptimizerEvent.CLIENTS
-        = new int[ nodes.length - channels.length ];
-    System.arraycopy( nodes, channels.length,
-        ContentReceivedOptimizerEvent.CLIENTS, 0,
-        ContentReceivedOptimizerEvent.CLIENTS.length );
-
-    // Create initial event
-    final CreateLeaderOptimizerEvent initialEvent
-        = new CreateLeaderOptimizerEvent( 0.0, 1, 1, args.channelCapacity, channels, args );
-//    final CreateLeaderOptimizerEvent initialEvent
-//        = new CreateLeaderOptimizerEvent( 0.0, 1, 1, args.contentSize, args.channelCapacity,
-//            channels, args, new int[] { 0, 250, 249 } );
-
-    EVENT_QUEUE.add( initialEvent );
-
-
-  }
-
-  private static void setupNormal( final Args args ) {
-    // Scenario
-    final int[] nodes = getSequence( args.clientCount, 2 );
-    final int[] channels = getSequence( args.channelCount - 1, 2 );
-    final double[] channelCaps = getArray( args.channelCount - 1, args.channelCapacity, 0.0 );
-
-    // Create initial event
-    final CreateLeaderEvent initialEvent = new CreateLeaderEvent( 0.0, 1, 1,
-        args.channelCapacity, nodes, channels, channelCaps, args );
-
-    EVENT_QUEUE.add( initialEvent );
-  }
-  //==============================================================================================//
-
-
-  //==============================================================================================//
-  // Analysis
-  //==============================================================================================//
-  private static void analyzeReceptions( final List <Stats.Reception> stats ) {
-    System.out.println( "Collected " + stats.size() + " receptions." );
-
-    final int totalCount = stats.size();
-    int count = 0;
-    for ( final Stats.Reception stat : stats ) {
-      count++;
-      final double fraction = 1.0 * count / totalCount;
-      System.out.println( "" + stat.time + " " + fraction );
-    }
-  }
-
-  private static void analyzeReceptionsFiltered(
-      final List <Stats.Reception> stats ) {
-    System.out.println( "Dissemination CDF:" );
-
-    final int totalCount = stats.size();
-    int count = 0;
-    double curTime = stats.get( 0 ).time;
-    double curValue = 0.0;
-    for ( final Stats.Reception stat : stats ) {
-      if ( stat.time - curTime > 0.0000000001 ) {
-        System.out.println( "" + curTime + " " + curValue );
-      }
-
-      count++;
-      final double fraction = 1.0 * count / totalCount;
-      curValue = fraction;
-      curTime = stat.time;
-    }
-    System.out.println( "" + curTime + " " + curValue );
-  }
-
-
-  //==============================================================================================//
-
-
   //==============================================================================================//
   // Private
   //==============================================================================================//
-  private static int[] getSequence( final int count, final int firstVal ) {
-    final int[] vals = new int[ count ];
-    for ( int i = 0; i < count; i++ ) {
-      vals[ i ] = firstVal + i;
-    }
-    return vals;
-  }
-
-  private static double[] getArray(
-      final int count,
-      final double initialValue,
-      final double delta ) {
-    final double[] vals = new double[ count ];
-    for ( int i = 0; i < count; i++ ) {
-      vals[ i ] = initialValue + i * delta;
-    }
-    return vals;
-  }
-
   /**
    * Simulation run type. Either normal or optimizing run.
    */
-  private enum RunMode {
+  public enum RunMode {
     NORMAL, OPTIMIZING;
 
     public final String toString() {
@@ -0,0 +1,22 @@
+package de.tum.in.cm.java.dissim;
+
+/**
+ * Receives the receptions recorded by {@link Stats} as they happen.
+ *
+ * @author teemuk
+ */
+public interface ReceptionListener {
+  /**
+   * Called for every recorded reception, in time order.
+   *
+   * @param time
+   *    Time of the reception.
+   * @param source
+   *    Transmitting node.
+   * @param destination
+   *    Receiving node.
+   * @param channel
+   *    Channel of the transmission.
+   */
+  void reception( double time, int source, int destination, int channel );
+}
@@ -0,0 +1,327 @@
+package de.tum.in.cm.java.dissim;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Append-only columnar log of time stamped records, each with a fixed number
+ * of int fields. Records are stored in fixed size chunks, either as
+ * primitive arrays or as direct buffers outside the Java heap, so growing
+ * the log never copies records and no object is allocated per record.
+ * Within a chunk the times and every field are stored as separate columns,
+ * so a scan over one field reads consecutive ints.
+ *
+ * @author teemuk
+ */
+public final class RecordLog {
+
+  /** Records per chunk */
+  public static final int CHUNK_SIZE = 1 << 14;
+  private static final int CHUNK_SHIFT = 14;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private final int fieldCount;
+  private final boolean offHeap;
+  /** Bytes per record in the off-heap chunks */
+  private final int recordBytes;
+
+  /** On-heap chunks, index is the chunk and for the fields then the field */
+  private double[][] timeChunks;
+  private int[][][] fieldChunks;
+  /**
+   * Off-heap chunks, a column of times followed by a column per field, see
+   * {@link #timePosition(int)} and {@link #fieldPosition(int, int)}
+   */
+  private ByteBuffer[] bufferChunks;
+  private int chunkCount;
+  private int size;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * @param fieldCount
+   *    Number of int fields per record.
+   * @param offHeap
+   *    Whether to store the records in direct buffers.
+   */
+  public RecordLog(
+      final int fieldCount,
+      final boolean offHeap ) {
+    if ( fieldCount < 1 ) {
+      throw new IllegalArgumentException( "Field count must be positive (" + fieldCount + ")" );
+    }
+    this.fieldCount = fieldCount;
+    this.offHeap = offHeap;
+    this.recordBytes = 8 + 4 * fieldCount;
+    if ( offHeap ) {
+      this.bufferChunks = new ByteBuffer[ 8 ];
+    } else {
+      this.timeChunks = new double[ 8 ][];
+      this.fieldChunks = new int[ 8 ][][];
+    }
+  }
+
+  public final int size() {
+    return this.size;
+  }
+
+  public final boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  public final int fieldCount() {
+    return this.fieldCount;
+  }
+
+  public final boolean isOffHeap() {
+    return this.offHeap;
+  }
+
+  public final void add(
+      final double time,
+      final int field0 ) {
+    final int offset = this.append( time );
+    this.set( offset, 0, field0 );
+  }
+
+  public final void add(
+      final double time,
+      final int field0,
+      final int field1 ) {
+    final int offset = this.append( time );
+    this.set( offset, 0, field0 );
+    this.set( offset, 1, field1 );
+  }
+
+  public final void add(
+      final double time,
+      final int field0,
+      final int field1,
+      final int field2 ) {
+    final int offset = this.append( time );
+    this.set( offset, 0, field0 );
+    this.set( offset, 1, field1 );
+    this.set( offset, 2, field2 );
+  }
+
+  /**
+   * Appends a copy of a record of another log with the same fields.
+   */
+  public final void addFrom(
+      final RecordLog other,
+      final int index ) {
+    final int offset = this.append( other.time( index ) );
+    for ( int field = 0; field < this.fieldCount; field++ ) {
+      this.set( offset, field, other.field( index, field ) );
+    }
+  }
+
+  public final double time( final int index ) {
+    this.checkIndex( index );
+    final int offset = index & CHUNK_MASK;
+    if ( this.offHeap ) {
+      return this.bufferChunks[ index >>> CHUNK_SHIFT ].getDouble( timePosition( offset ) );
+    } else {
+      return this.timeChunks[ index >>> CHUNK_SHIFT ][ offset ];
+    }
+  }
+
+  public final int field(
+      final int index,
+      final int field ) {
+    this.checkIndex( index );
+    final int offset = index & CHUNK_MASK;
+    if ( this.offHeap ) {
+      return this.bufferChunks[ index >>> CHUNK_SHIFT ].getInt( fieldPosition( offset, field ) );
+    } else {
+      return this.fieldChunks[ index >>> CHUNK_SHIFT ][ field ][ offset ];
+    }
+  }
+
+  /**
+   * Copies the records so far, e.g., to write them out while this log keeps
+   * growing. Full chunks are never modified again, so they are shared and
+   * only the last, partially filled chunk is copied.
+   *
+   * @return
+   *    Independent log with the same records.
+   */
+  public final RecordLog snapshot() {
+    final RecordLog copy = new RecordLog( this.fieldCount, this.offHeap );
+    final int last = this.chunkCount - 1;
+    final boolean partial = ( this.size & CHUNK_MASK ) != 0;
+    if ( this.offHeap ) {
+      copy.bufferChunks = this.bufferChunks.clone();
+      if ( partial ) {
+        final ByteBuffer chunk = ByteBuffer.allocateDirect( CHUNK_SIZE * this.recordBytes )
+            .order( ByteOrder.nativeOrder() );
+        final ByteBuffer source = this.bufferChunks[ last ].duplicate();
+        source.clear();
+        chunk.put( source );
+        copy.bufferChunks[ last ] = chunk;
+      }
+    } else {
+      copy.timeChunks = this.timeChunks.clone();
+      copy.fieldChunks = this.fieldChunks.clone();
+      if ( partial ) {
+        copy.timeChunks[ last ] = this.timeChunks[ last ].clone();
+        copy.fieldChunks[ last ] = new int[ this.fieldCount ][];
+        for ( int field = 0; field < this.fieldCount; field++ ) {
+          copy.fieldChunks[ last ][ field ] = this.fieldChunks[ last ][ field ].clone();
+        }
+      }
+    }
+    copy.chunkCount = this.chunkCount;
+    copy.size = this.size;
+    return copy;
+  }
+
+  /**
+   * Writes the field count and the records, see {@link #read(DataInput)}.
+   *
+   * @param out
+   *    Output to write into.
+   * @throws IOException
+   *    If writing fails.
+   */
+  public final void write( final DataOutput out ) throws IOException {
+    out.writeInt( this.fieldCount );
+    out.writeInt( this.size );
+    final byte[] bytes = new byte[ CHUNK_SIZE * this.recordBytes ];
+    final ByteBuffer buffer = ByteBuffer.wrap( bytes );
+    for ( int start = 0; start < this.size; start += CHUNK_SIZE ) {
+      final int count = Math.min( CHUNK_SIZE, this.size - start );
+      buffer.clear();
+      for ( int i = start; i < start + count; i++ ) {
+        buffer.putDouble( this.time( i ) );
+        for ( int field = 0; field < this.fieldCount; field++ ) {
+          buffer.putInt( this.field( i, field ) );
+        }
+      }
+      out.write( bytes, 0, buffer.position() );
+    }
+  }
+
+  /**
+   * Appends the records written by {@link #write(DataOutput)}.
+   *
+   * @param in
+   *    Input to read from.
+   * @throws IOException
+   *    If reading fails or the records have a different number of fields.
+   */
+  public final void read( final DataInput in ) throws IOException {
+    final int fieldCount = in.readInt();
+    if ( fieldCount != this.fieldCount ) {
+      throw new IOException( "Records have " + fieldCount + " fields, expected "
+          + this.fieldCount );
+    }
+    final int size = in.readInt();
+    final byte[] bytes = new byte[ CHUNK_SIZE * this.recordBytes ];
+    final ByteBuffer buffer = ByteBuffer.wrap( bytes );
+    for ( int start = 0; start < size; start += CHUNK_SIZE ) {
+      final int count = Math.min( CHUNK_SIZE, size - start );
+      in.readFully( bytes, 0, count * this.recordBytes );
+      buffer.clear();
+      for ( int i = 0; i < count; i++ ) {
+        final int offset = this.append( buffer.getDouble() );
+        for ( int field = 0; field < this.fieldCount; field++ ) {
+          this.set( offset, field, buffer.getInt() );
+        }
+      }
+    }
+  }
+
+  /**
+   * Bytes used by the records, including the unused part of the last chunk.
+   */
+  public final long allocatedBytes() {
+    return ( long ) this.chunkCount * CHUNK_SIZE * this.recordBytes;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Appends a record with the time and returns its offset in the last chunk.
+   */
+  private int append( final double time ) {
+    final int offset = this.size & CHUNK_MASK;
+    if ( offset == 0 ) this.addChunk();
+    final int chunk = this.chunkCount - 1;
+    if ( this.offHeap ) {
+      this.bufferChunks[ chunk ].putDouble( timePosition( offset ), time );
+    } else {
+      this.timeChunks[ chunk ][ offset ] = time;
+    }
+    this.size++;
+    return offset;
+  }
+
+  /**
+   * Sets a field of a record in the last chunk.
+   */
+  private void set(
+      final int offset,
+      final int field,
+      final int value ) {
+    final int chunk = this.chunkCount - 1;
+    if ( this.offHeap ) {
+      this.bufferChunks[ chunk ].putInt( fieldPosition( offset, field ), value );
+    } else {
+      this.fieldChunks[ chunk ][ field ][ offset ] = value;
+    }
+  }
+
+  private void addChunk() {
+    if ( this.size == Integer.MAX_VALUE ) {
+      throw new IllegalStateException( "Record log is full" );
+    }
+    if ( this.offHeap ) {
+      if ( this.chunkCount == this.bufferChunks.length ) {
+        this.bufferChunks = Arrays.copyOf( this.bufferChunks, this.chunkCount * 2 );
+      }
+      this.bufferChunks[ this.chunkCount ] = ByteBuffer.allocateDirect(
+          CHUNK_SIZE * this.recordBytes ).order( ByteOrder.nativeOrder() );
+    } else {
+      if ( this.chunkCount == this.timeChunks.length ) {
+        this.timeChunks = Arrays.copyOf( this.timeChunks, this.chunkCount * 2 );
+        this.fieldChunks = Arrays.copyOf( this.fieldChunks, this.chunkCount * 2 );
+      }
+      this.timeChunks[ this.chunkCount ] = new double[ CHUNK_SIZE ];
+      this.fieldChunks[ this.chunkCount ] = new int[ this.fieldCount ][ CHUNK_SIZE ];
+    }
+    this.chunkCount++;
+  }
+
+  /**
+   * Position of a time in an off-heap chunk.
+   */
+  private static int timePosition( final int offset ) {
+    return 8 * offset;
+  }
+
+  /**
+   * Position of a field in an off-heap chunk, after the times.
+   */
+  private static int fieldPosition(
+      final int offset,
+      final int field ) {
+    return 8 * CHUNK_SIZE + 4 * ( field * CHUNK_SIZE + offset );
+  }
+
+  private void checkIndex( final int index ) {
+    if ( index < 0 || index >= this.size ) {
+      throw new IndexOutOfBoundsException( "index " + index + " out of bounds for length "
+          + this.size );
+    }
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,200 @@
+package de.tum.in.cm.java.dissim;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single producer, single consumer ring of statistics records. The
+ * records are kept in primitive arrays, so publishing allocates nothing.
+ * The producer waits while the ring is full, which bounds the memory used
+ * by records that the consumer has not caught up with.
+ *
+ * @author teemuk
+ */
+public final class RecordRing {
+
+  /** Record kinds */
+  private static final byte RECEPTION = 0;
+  private static final byte CLIENT_RECEPTION = 1;
+  private static final byte LEADER_ACTIVATION = 2;
+  private static final byte CLIENT_ONLY_RECEPTION = 3;
+
+  /** Busy waits before yielding, and yields before parking */
+  private static final int SPINS = 100;
+  private static final int YIELDS = 100;
+  private static final long PARK_NANOS = 50000;
+
+  private final int mask;
+  private final byte[] kinds;
+  private final double[] times;
+  private final int[] fields0;
+  private final int[] fields1;
+  private final int[] fields2;
+
+  /** Next position to publish, written by the producer */
+  private final AtomicLong tail = new AtomicLong();
+  /** Next position to consume, written by the consumer */
+  private final AtomicLong head = new AtomicLong();
+  /** Producer's view of the head, refreshed when the ring looks full */
+  private long cachedHead;
+  private volatile boolean closed;
+  /** Set when the consumer gives up, so a waiting producer does not hang */
+  private volatile boolean abandoned;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * @param capacity
+   *    Maximum number of records in the ring, rounded up to a power of two.
+   */
+  public RecordRing( final int capacity ) {
+    if ( capacity < 1 || capacity > 1 << 30 ) {
+      throw new IllegalArgumentException( "Ring capacity out of range (" + capacity + ")" );
+    }
+    final int size = Integer.highestOneBit( capacity ) == capacity
+        ? capacity : Integer.highestOneBit( capacity ) << 1;
+    this.mask = size - 1;
+    this.kinds = new byte[ size ];
+    this.times = new double[ size ];
+    this.fields0 = new int[ size ];
+    this.fields1 = new int[ size ];
+    this.fields2 = new int[ size ];
+  }
+
+  public final int capacity() {
+    return this.mask + 1;
+  }
+
+  public final void reception(
+      final double time,
+      final int source,
+      final int destination,
+      final int channel ) {
+    this.publish( RECEPTION, time, source, destination, channel );
+  }
+
+  public final void clientReception(
+      final double time,
+      final int source,
+      final int destination,
+      final int channel ) {
+    this.publish( CLIENT_RECEPTION, time, source, destination, channel );
+  }
+
+  /**
+   * Client reception that is already included in the receptions, see
+   * {@link Stats#merge(java.util.List)}.
+   */
+  final void clientOnlyReception(
+      final double time,
+      final int source,
+      final int destination,
+      final int channel ) {
+    this.publish( CLIENT_ONLY_RECEPTION, time, source, destination, channel );
+  }
+
+  public final void leaderActivation(
+      final double time,
+      final int leader,
+      final int depth ) {
+    this.publish( LEADER_ACTIVATION, time, leader, depth, 0 );
+  }
+
+  /**
+   * Marks the end of the records. Called by the producer after the last
+   * record.
+   */
+  public final void close() {
+    this.closed = true;
+  }
+
+  /**
+   * Records the published records into the stats in publishing order until
+   * the ring is closed and empty. Called by the consumer.
+   */
+  public final void drainTo( final Stats stats ) {
+    try {
+      long position = this.head.get();
+      int idle = 0;
+      while ( true ) {
+        final long available = this.tail.get();
+        if ( position == available ) {
+          if ( this.closed && position == this.tail.get() ) return;
+          idle = backOff( idle );
+          continue;
+        }
+        idle = 0;
+        for ( ; position < available; position++ ) {
+          final int slot = ( int ) position & this.mask;
+          final byte kind = this.kinds[ slot ];
+          if ( kind == RECEPTION ) {
+            stats.recordReception( this.times[ slot ], this.fields0[ slot ],
+                this.fields1[ slot ], this.fields2[ slot ] );
+          } else if ( kind == CLIENT_RECEPTION ) {
+            stats.recordClientReception( this.times[ slot ], this.fields0[ slot ],
+                this.fields1[ slot ], this.fields2[ slot ] );
+          } else if ( kind == LEADER_ACTIVATION ) {
+            stats.recordLeaderActivation( this.times[ slot ], this.fields0[ slot ],
+                this.fields1[ slot ] );
+          } else {
+            stats.recordClientOnlyReception( this.times[ slot ], this.fields0[ slot ],
+                this.fields1[ slot ], this.fields2[ slot ] );
+          }
+        }
+        this.head.lazySet( position );
+      }
+    } catch ( final RuntimeException | Error e ) {
+      this.abandoned = true;
+      throw e;
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private void publish(
+      final byte kind,
+      final double time,
+      final int field0,
+      final int field1,
+      final int field2 ) {
+    final long position = this.tail.get();
+    if ( position - this.cachedHead > this.mask ) {
+      this.awaitSpace( position );
+    }
+    final int slot = ( int ) position & this.mask;
+    this.kinds[ slot ] = kind;
+    this.times[ slot ] = time;
+    this.fields0[ slot ] = field0;
+    this.fields1[ slot ] = field1;
+    this.fields2[ slot ] = field2;
+    this.tail.lazySet( position + 1 );
+  }
+
+  private void awaitSpace( final long position ) {
+    int idle = 0;
+    while ( true ) {
+      this.cachedHead = this.head.get();
+      if ( position - this.cachedHead <= this.mask ) return;
+      if ( this.abandoned ) {
+        throw new IllegalStateException( "Record consumer failed" );
+      }
+      idle = backOff( idle );
+    }
+  }
+
+  private static int backOff( final int idle ) {
+    if ( idle < SPINS ) {
+      // Busy wait
+    } else if ( idle < SPINS + YIELDS ) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos( PARK_NANOS );
+    }
+    return idle + 1;
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,96 @@
+package de.tum.in.cm.java.dissim;
+
+/**
+ * Builds the statistics of a simulation on a background thread. The event
+ * loop records into {@link #producer()}, which only publishes the records
+ * into a bounded {@link RecordRing}. The consumer thread records them into
+ * {@link #stats()}, so its aggregates, latency sketches and reception
+ * listeners such as trace writers run while the simulation is still
+ * running.
+ *
+ * @author teemuk
+ */
+public final class ReportPipeline {
+
+  private final RecordRing ring;
+  private final Stats producer;
+  private final Stats stats;
+  private final Thread consumer;
+  private volatile Throwable failure;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * @param stats
+   *    Stats that the consumer records into. Must not be used by other
+   *    threads until {@link #finish()} returns.
+   * @param capacity
+   *    Maximum number of records in flight.
+   */
+  public ReportPipeline(
+      final Stats stats,
+      final int capacity ) {
+    this.ring = new RecordRing( capacity );
+    this.producer = Stats.forwarding( this.ring );
+    this.stats = stats;
+    this.consumer = new Thread( this::consume, "report-pipeline" );
+    this.consumer.setDaemon( true );
+  }
+
+  /**
+   * Stats for the event loop, forwards every record to the consumer.
+   */
+  public final Stats producer() {
+    return this.producer;
+  }
+
+  /**
+   * Stats built by the consumer.
+   */
+  public final Stats stats() {
+    return this.stats;
+  }
+
+  public final void start() {
+    this.consumer.start();
+  }
+
+  /**
+   * Ends the records and waits until the consumer has recorded all of them.
+   *
+   * @throws IllegalStateException
+   *    if the consumer failed.
+   */
+  public final void finish() {
+    this.ring.close();
+    boolean interrupted = false;
+    while ( this.consumer.isAlive() ) {
+      try {
+        this.consumer.join();
+      } catch ( final InterruptedException e ) {
+        interrupted = true;
+      }
+    }
+    if ( interrupted ) {
+      Thread.currentThread().interrupt();
+    }
+    if ( this.failure != null ) {
+      throw new IllegalStateException( "Report pipeline failed", this.failure );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private void consume() {
+    try {
+      this.ring.drainTo( this.stats );
+    } catch ( final Throwable t ) {
+      this.failure = t;
+    }
+  }
+  //==============================================================================================//
+}
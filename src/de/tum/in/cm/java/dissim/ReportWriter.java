@@ -0,0 +1,183 @@
+package de.tum.in.cm.java.dissim;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Text output of the reports. Characters are encoded straight into a large
+ * buffer that is written to a channel when full, and numbers are formatted
+ * without creating strings: integers and integral doubles digit by digit,
+ * other doubles through a reused builder. The output is the same as
+ * printing the values with {@link java.io.PrintStream}, numbers in the
+ * format of {@link Double#toString(double)} and {@link Long#toString(long)}.
+ * Only ASCII text is supported.
+ *
+ * @author teemuk
+ */
+public final class ReportWriter
+implements Closeable, Flushable {
+
+  /** Buffer size for files */
+  public static final int FILE_BUFFER_SIZE = 1 << 20;
+  /** Buffer size for streams */
+  public static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+  /** Largest double printed without an exponent by {@link Double#toString(double)} */
+  private static final double PLAIN_LIMIT = 1.0e7;
+
+  private final WritableByteChannel channel;
+  /** Stream that is flushed with the channel, {@code null} for files */
+  private final OutputStream stream;
+  private final byte[] bytes;
+  private final ByteBuffer buffer;
+  private int position;
+  private final StringBuilder scratch = new StringBuilder( 32 );
+  private final byte[] digits = new byte[ 20 ];
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Creates or truncates the file.
+   */
+  public static ReportWriter open( final File file ) throws IOException {
+    final FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE );
+    return new ReportWriter( channel, null, FILE_BUFFER_SIZE );
+  }
+
+  /**
+   * Creates a writer into a stream. Closing the writer closes the stream,
+   * flushing it does not.
+   */
+  public static ReportWriter of( final OutputStream out ) {
+    return new ReportWriter( Channels.newChannel( out ), out, STREAM_BUFFER_SIZE );
+  }
+
+  public final ReportWriter append( final String string ) {
+    final int length = string.length();
+    for ( int i = 0; i < length; i++ ) {
+      this.append( string.charAt( i ) );
+    }
+    return this;
+  }
+
+  public final ReportWriter append( final char c ) {
+    if ( c >= 0x80 ) {
+      throw new IllegalArgumentException( "Non-ASCII character in report" );
+    }
+    if ( this.position == this.bytes.length ) {
+      this.drain();
+    }
+    this.bytes[ this.position++ ] = ( byte ) c;
+    return this;
+  }
+
+  public final ReportWriter append( final long value ) {
+    if ( value == Long.MIN_VALUE ) {
+      return this.append( Long.toString( value ) );
+    }
+    long remaining = value;
+    if ( remaining < 0 ) {
+      this.append( '-' );
+      remaining = -remaining;
+    }
+    int count = 0;
+    do {
+      this.digits[ count++ ] = ( byte ) ( '0' + remaining % 10 );
+      remaining /= 10;
+    } while ( remaining != 0 );
+    if ( this.bytes.length - this.position < count ) {
+      this.drain();
+    }
+    while ( count > 0 ) {
+      this.bytes[ this.position++ ] = this.digits[ --count ];
+    }
+    return this;
+  }
+
+  public final ReportWriter append( final double value ) {
+    // Integral values in plain notation, the common case for times
+    if ( value >= 0.0 && value < PLAIN_LIMIT && value == ( long ) value
+         && Double.doubleToRawLongBits( value ) != Long.MIN_VALUE ) {
+      return this.append( ( long ) value ).append( '.' ).append( '0' );
+    }
+    this.scratch.setLength( 0 );
+    this.scratch.append( value );
+    final int length = this.scratch.length();
+    for ( int i = 0; i < length; i++ ) {
+      this.append( this.scratch.charAt( i ) );
+    }
+    return this;
+  }
+
+  /**
+   * Ends the line with the platform line separator.
+   */
+  public final ReportWriter newLine() {
+    return this.append( LINE_SEPARATOR );
+  }
+
+  /**
+   * Writes the buffered text to the channel, and flushes the stream.
+   */
+  @Override
+  public final void flush() throws IOException {
+    this.write();
+    if ( this.stream != null ) {
+      this.stream.flush();
+    }
+  }
+
+  @Override
+  public final void close() throws IOException {
+    try {
+      this.flush();
+    } finally {
+      this.channel.close();
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private ReportWriter(
+      final WritableByteChannel channel,
+      final OutputStream stream,
+      final int bufferSize ) {
+    this.channel = channel;
+    this.stream = stream;
+    this.bytes = new byte[ bufferSize ];
+    this.buffer = ByteBuffer.wrap( this.bytes );
+  }
+
+  private void drain() {
+    try {
+      this.write();
+    } catch ( final IOException e ) {
+      throw new UncheckedIOException( "Failed to write the report", e );
+    }
+  }
+
+  private void write() throws IOException {
+    this.buffer.clear();
+    this.buffer.limit( this.position );
+    while ( this.buffer.hasRemaining() ) {
+      this.channel.write( this.buffer );
+    }
+    this.position = 0;
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,71 @@
+package de.tum.in.cm.java.dissim;
+
+import de.tum.in.cm.java.dissim.metrics.EngineMetrics;
+
+import java.util.Collection;
+
+/**
+ * State of a single simulation as seen by the events processed in it. Events
+ * schedule new events, record statistics and take optimizer clients through
+ * the context instead of through global state, so any number of simulations
+ * can run side by side.
+ *
+ * @author teemuk
+ */
+public interface SimContext
+extends EventSink {
+  /**
+   * Statistics of this simulation.
+   */
+  Stats stats();
+
+  /**
+   * Instrumentation of the event loop, {@code null} if disabled.
+   */
+  default EngineMetrics metrics() {
+    return null;
+  }
+
+  /**
+   * Writes the checkpoints of the event loop, {@code null} if disabled.
+   */
+  default Checkpointer checkpointer() {
+    return null;
+  }
+
+  /**
+   * Clients not yet served by the optimizer.
+   */
+  ClientPool clientPool();
+
+  /**
+   * Creates a detached context that collects the scheduled events into the
+   * given collection. Statistics recorded through it are discarded, and its
+   * client pool is empty.
+   *
+   * @param events
+   *    Collection for the scheduled events.
+   * @return
+   *    New context.
+   */
+  static SimContext collecting( final Collection <SimEvent> events ) {
+    final Stats stats = new Stats();
+    final ClientPool clientPool = new ClientPool( ClientRange.EMPTY );
+    return new SimContext() {
+      @Override
+      public void schedule( final SimEvent event ) {
+        events.add( event );
+      }
+
+      @Override
+      public Stats stats() {
+        return stats;
+      }
+
+      @Override
+      public ClientPool clientPool() {
+        return clientPool;
+      }
+    };
+  }
+}
@@ -0,0 +1,386 @@
+package de.tum.in.cm.java.dissim;
+
+import de.tum.in.cm.java.dissim.engine.Engine;
+import de.tum.in.cm.java.dissim.engine.QueueEngine;
+import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
+import de.tum.in.cm.java.dissim.events.CreateLeaderOptimizerEvent;
+import de.tum.in.cm.java.dissim.jfr.FlightRecording;
+import de.tum.in.cm.java.dissim.metrics.EngineMetrics;
+import de.tum.in.cm.java.dissim.metrics.ProgressLog;
+import de.tum.in.cm.java.dissim.subtree.SubtreeCache;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single simulation run. Owns all mutable state of the run (event loop,
+ * statistics and the optimizer client pool), so independent simulations can
+ * be run side by side in the same JVM.
+ *
+ * @author teemuk
+ */
+public final class Simulation
+implements SimContext {
+
+  /** Numbers the runs in the MBean names */
+  private static final AtomicInteger RUN_IDS = new AtomicInteger();
+
+  private final Main.Args args;
+  /**
+   * Stats the events record into. With asynchronous reports these forward
+   * to the pipeline until the run has finished, and are then replaced by
+   * the stats built by the pipeline.
+   */
+  private Stats stats;
+  /** Builds the stats on a background thread, {@code null} if disabled */
+  private final ReportPipeline pipeline;
+  private final ClientPool clientPool;
+  private final Engine engine;
+  /** Replays the subtrees of scheduled leaders, {@code null} if disabled */
+  private final SubtreeCache subtreeCache;
+  /** Instrumentation of the event loop, {@code null} if disabled */
+  private final EngineMetrics metrics;
+  /** Writes the checkpoints, {@code null} if disabled */
+  private final Checkpointer checkpointer;
+  /** Events processed before the simulation was resumed from a checkpoint */
+  private final long baseEventCount;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Creates the standard scenario for the run mode in the arguments.
+   */
+  public Simulation( final Main.Args args ) {
+    this( args, createInitialEvent( args ), createClientPool( args ),
+        args.subtreeCache ? new SubtreeCache( args ) : null );
+  }
+
+  /**
+   * Creates a simulation that starts from the given event.
+   *
+   * @param args
+   *    Simulation arguments.
+   * @param initialEvent
+   *    First event of the simulation.
+   * @param clientPool
+   *    Clients for the optimizer, empty for normal runs.
+   */
+  public Simulation(
+      final Main.Args args,
+      final SimEvent initialEvent,
+      final ClientPool clientPool ) {
+    this( args, initialEvent, clientPool, null );
+  }
+
+  /**
+   * Creates a simulation that starts from the given event and replays the
+   * subtrees of the leaders it schedules from the cache. The initial event
+   * itself is processed normally. The parallel engines schedule within their
+   * tasks and don't use the cache.
+   *
+   * @param subtreeCache
+   *    Cache for the same arguments, or {@code null} to simulate everything.
+   */
+  public Simulation(
+      final Main.Args args,
+      final SimEvent initialEvent,
+      final ClientPool clientPool,
+      final SubtreeCache subtreeCache ) {
+    this( args, clientPool, subtreeCache, null );
+    this.engine.schedule( initialEvent );
+  }
+
+  /**
+   * Resumes a simulation from a checkpoint. The stats and the client pool are
+   * restored and the pending events scheduled.
+   *
+   * @param args
+   *    Arguments of the resumed simulation, the arguments of the checkpoint
+   *    with the report files and other settings possibly changed.
+   * @param checkpoint
+   *    Checkpoint to resume from.
+   * @return
+   *    Simulation that continues from the checkpoint.
+   * @throws IOException
+   *    If the checkpoint can't be read or its stats don't match the
+   *    arguments.
+   */
+  public static Simulation resume(
+      final Main.Args args,
+      final Checkpoint checkpoint ) throws IOException {
+    final ClientPool clientPool = new ClientPool( createClientPool( args ).clients(),
+        checkpoint.clientPosition() );
+    final Simulation simulation = new Simulation( args, clientPool,
+        args.subtreeCache ? new SubtreeCache( args ) : null, checkpoint );
+    simulation.scheduleAll( checkpoint.restore( simulation.reportStats(), args ) );
+    return simulation;
+  }
+
+  private Simulation(
+      final Main.Args args,
+      final ClientPool clientPool,
+      final SubtreeCache subtreeCache,
+      final Checkpoint checkpoint ) {
+    this.args = args;
+    final Stats stats = args.streamingStats
+        ? Stats.streaming( args.receptionReportBucketWidth ) : new Stats( args.offHeapStats );
+    if ( args.latencyReport != null ) {
+      stats.trackLatency();
+    }
+    if ( args.asyncReports > 0 ) {
+      this.pipeline = new ReportPipeline( stats, args.asyncReports );
+      this.stats = this.pipeline.producer();
+    } else {
+      this.pipeline = null;
+      this.stats = stats;
+    }
+    this.clientPool = clientPool;
+    this.engine = args.engineType.create( args );
+    this.subtreeCache = subtreeCache;
+    this.metrics = args.metrics || args.progressInterval > 0.0 ? new EngineMetrics() : null;
+    this.baseEventCount = ( checkpoint != null ) ? ( checkpoint.eventCount() ) : ( 0 );
+    this.checkpointer = ( args.checkpointFile != null ) ? ( this.createCheckpointer(
+        ( checkpoint != null ) ? ( checkpoint.time() ) : ( 0.0 ) ) ) : ( null );
+    // Outside of the event loop, which only creates flight recorder events if recording
+    FlightRecording.register();
+  }
+
+  /**
+   * Runs the simulation until no events are left. The event queues of the
+   * engine are closed when the run ends, also if it fails.
+   *
+   * @return
+   *    Number of processed events, including those processed before the
+   *    checkpoint the simulation was resumed from.
+   */
+  public final long run() {
+    final long eventCount;
+    try {
+      eventCount = this.runMetered();
+    } finally {
+      try {
+        if ( this.checkpointer != null ) {
+          this.checkpointer.close();
+        }
+      } finally {
+        this.engine.close();
+      }
+    }
+    return this.baseEventCount + eventCount;
+  }
+
+  public final Main.Args args() {
+    return this.args;
+  }
+
+  public final Engine engine() {
+    return this.engine;
+  }
+
+  /**
+   * Stats that the reports are built from. Same as {@link #stats()}, except
+   * that with asynchronous reports these are the stats built by the
+   * pipeline also before the run has finished, so that listeners such as
+   * trace writers can be attached to them.
+   */
+  public final Stats reportStats() {
+    return this.pipeline != null ? this.pipeline.stats() : this.stats;
+  }
+
+  /**
+   * Cache for the leader subtrees, or {@code null} if not used.
+   */
+  public final SubtreeCache subtreeCache() {
+    return this.subtreeCache;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // SimContext
+  //==============================================================================================//
+  @Override
+  public final Stats stats() {
+    return this.stats;
+  }
+
+  @Override
+  public final ClientPool clientPool() {
+    return this.clientPool;
+  }
+
+  @Override
+  public final EngineMetrics metrics() {
+    return this.metrics;
+  }
+
+  @Override
+  public final Checkpointer checkpointer() {
+    return this.checkpointer;
+  }
+
+  @Override
+  public final void schedule( final SimEvent event ) {
+    if ( this.subtreeCache != null && event instanceof CreateLeaderEvent ) {
+      this.engine.schedule( this.subtreeCache.replay( ( CreateLeaderEvent ) event ) );
+    } else {
+      this.engine.schedule( event );
+    }
+  }
+
+  @Override
+  public final void scheduleAll( final Collection <? extends SimEvent> events ) {
+    if ( this.subtreeCache != null ) {
+      SimContext.super.scheduleAll( events );
+    } else {
+      this.engine.scheduleAll( events );
+    }
+  }
+
+  @Override
+  public final void scheduleSorted( final List <? extends SimEvent> events ) {
+    if ( this.subtreeCache != null ) {
+      SimContext.super.scheduleAll( events );
+    } else {
+      this.engine.scheduleSorted( events );
+    }
+  }
+
+  @Override
+  public final void scheduleReception(
+      final double time,
+      final int node,
+      final int from,
+      final int channel ) {
+    this.engine.scheduleReception( time, node, from, channel );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Scenario
+  //==============================================================================================//
+  /**
+   * Creates the initial event of the standard scenario. Node 1 is the
+   * source, the next {@code channelCount - 1} nodes are the channel
+   * leaders.
+   */
+  public static SimEvent createInitialEvent( final Main.Args args ) {
+    final int[] channels = getSequence( args.channelCount - 1, 2 );
+    if ( args.runMode == Main.RunMode.NORMAL ) {
+      final ClientSet nodes = new ClientRange( 2, 2 + args.clientCount );
+      final double[] channelCaps = getArray( args.channelCount - 1, args.channelCapacity, 0.0 );
+      return new CreateLeaderEvent( 0.0, 1, 1, args.channelCapacity, nodes,
+          IntSlice.of( channels ), DoubleSlice.of( channelCaps ), args );
+    } else if ( args.runMode == Main.RunMode.OPTIMIZING ) {
+      return new CreateLeaderOptimizerEvent( 0.0, 1, 1, args.channelCapacity,
+          IntSlice.of( channels ), args );
+    } else {
+      throw new IllegalArgumentException( "Unknown run mode (" + args.runMode + ")" );
+    }
+  }
+
+  /**
+   * Creates the client pool of the standard scenario. Optimizing runs serve
+   * all nodes that are not channel leaders from the pool.
+   */
+  public static ClientPool createClientPool( final Main.Args args ) {
+    if ( args.runMode == Main.RunMode.OPTIMIZING ) {
+      final ClientSet nodes = new ClientRange( 2, 2 + args.clientCount );
+      return new ClientPool( nodes.slice( args.channelCount - 1, nodes.length() ) );
+    } else {
+      return new ClientPool( ClientRange.EMPTY );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Runs the engine, instrumented if metrics are enabled.
+   */
+  private long runMetered() {
+    if ( this.metrics == null ) {
+      return this.runEngine();
+    }
+    this.metrics.start();
+    if ( this.args.metrics ) {
+      this.metrics.register( "run-" + RUN_IDS.incrementAndGet() );
+    }
+    final ProgressLog progress = this.args.progressInterval > 0.0
+        ? new ProgressLog( this.metrics, System.out, this.args.progressInterval ) : null;
+    try {
+      return this.runEngine();
+    } finally {
+      if ( progress != null ) {
+        progress.close();
+      }
+      this.metrics.unregister();
+    }
+  }
+
+  /**
+   * Runs the engine, through the report pipeline if there is one.
+   */
+  private long runEngine() {
+    if ( this.pipeline == null || this.stats != this.pipeline.producer() ) {
+      return this.engine.run( this );
+    }
+    this.pipeline.start();
+    final long eventCount;
+    try {
+      eventCount = this.engine.run( this );
+    } finally {
+      this.pipeline.finish();
+      this.stats = this.pipeline.stats();
+    }
+    return eventCount;
+  }
+
+  /**
+   * Checkpoints need the pending events in a queue and the stats on the
+   * event loop.
+   */
+  private Checkpointer createCheckpointer( final double startTime ) {
+    if ( !( this.engine instanceof QueueEngine ) ) {
+      throw new IllegalArgumentException( "Checkpoints are not supported by the "
+          + this.args.engineType + " engine" );
+    }
+    if ( this.pipeline != null ) {
+      throw new IllegalArgumentException( "Checkpoints are not supported with asynchronous "
+          + "reports" );
+    }
+    if ( this.subtreeCache != null ) {
+      throw new IllegalArgumentException( "Checkpoints are not supported with the subtree "
+          + "cache" );
+    }
+    return new Checkpointer( this.args.checkpointFile, this.args.checkpointTime,
+        this.args.checkpointInterval, this, ( ( QueueEngine ) this.engine ).queue(),
+        this.baseEventCount, startTime );
+  }
+
+  private static int[] getSequence( final int count, final int firstVal ) {
+    final int[] vals = new int[ count ];
+    for ( int i = 0; i < count; i++ ) {
+      vals[ i ] = firstVal + i;
+    }
+    return vals;
+  }
+
+  private static double[] getArray(
+      final int count,
+      final double initialValue,
+      final double delta ) {
+    final double[] vals = new double[ count ];
+    for ( int i = 0; i < count; i++ ) {
+      vals[ i ] = initialValue + i * delta;
+    }
+    return vals;
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,58 @@
+package de.tum.in.cm.java.dissim;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Event that emits the events it creates into the {@link SimContext} it is
+ * processed in, instead of returning them as a collection.
+ *
+ * @author teemuk
+ */
+public interface SinkEvent
+extends SimEvent {
+  /**
+   * Processes this event. Will be called by the simulator when the
+   * simulation time reaches the time instance for this event.
+   *
+   * @param context
+   *    Context of the simulation. The events created by the processing of
+   *    this event are scheduled into it.
+   */
+  void process( SimContext context );
+
+  /**
+   * Processes this event in a detached context, collecting the created
+   * events into a list. Statistics are not recorded.
+   *
+   * @return
+   *    Collection of events created by the processing of this event.
+   */
+  @Override
+  default Collection <SimEvent> process() {
+    final List <SimEvent> events = new ArrayList<>();
+    this.process( SimContext.collecting( events ) );
+    return events;
+  }
+
+  /**
+   * Processes any event in the context. Events that only implement the
+   * collection returning {@link SimEvent#process()} have their results
+   * scheduled in bulk.
+   *
+   * @param event
+   *    Event to process.
+   * @param context
+   *    Context for the created events.
+   */
+  static void process(
+      final SimEvent event,
+      final SimContext context ) {
+    if ( event instanceof SinkEvent ) {
+      ( ( SinkEvent ) event ).process( context );
+    } else {
+      context.scheduleAll( event.process() );
+    }
+  }
+}
@@ -1,24 +1,101 @@
 package de.tum.in.cm.java.dissim;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
 
 /**
+ * Statistics collected by a single {@link Simulation}. The records are kept
+ * in columnar {@link RecordLog}s, optionally outside the Java heap. In
+ * streaming mode the records are not kept at all, only the running
+ * aggregates of a {@link StatsAggregator} from which the reports are
+ * printed. The reception time distributions per channel and per leader
+ * depth are kept as {@link LatencySketches} in both modes, if requested
+ * with {@link #trackLatency()}.
+ *
  * @author teemuk
  */
 public final class Stats {
-  private Stats() {}
 
-  public static final List <Reception> RECEPTIONS = new ArrayList<>( 1000 );
+  /** Fields of the records in the {@link #receptionLog()} */
+  public static final int RECEPTION_SOURCE = 0;
+  public static final int RECEPTION_DESTINATION = 1;
+  public static final int RECEPTION_CHANNEL = 2;
+  /** Fields of the records in the {@link #leaderActivationLog()} */
+  public static final int ACTIVATION_LEADER = 0;
+  public static final int ACTIVATION_DEPTH = 1;
 
+  private final RecordLog receptions;
 
-  public static final List <Reception> CLIENT_RECEPTIONS
-      = new ArrayList<>( 1000 );
+  private final RecordLog clientReceptions;
 
-  public static final List <LeaderActivation> LEADER_ACTIVATIONS
-      = new ArrayList<>( 1000 );
+  private final RecordLog leaderActivations;
+
+  /** Running aggregates in streaming mode, {@code null} if the records are kept */
+  private final StatsAggregator aggregator;
+
+  /** Reception time distributions, {@code null} if not tracked */
+  private LatencySketches latency;
+
+  private ReceptionListener[] receptionListeners = new ReceptionListener[ 0 ];
+
+  /** Ring that the records are forwarded to, {@code null} if recorded here */
+  private final RecordRing ring;
+
+  public Stats() {
+    this( false );
+  }
+
+  /**
+   * @param offHeap
+   *    Whether to keep the records in direct buffers outside the heap.
+   */
+  public Stats( final boolean offHeap ) {
+    this( offHeap, null );
+  }
+
+  /**
+   * Creates stats that only keep running aggregates. The record lists stay
+   * empty, and the bucketed reception report can only be printed with the
+   * given bucket width.
+   */
+  public static Stats streaming( final double bucketWidth ) {
+    return new Stats( false, new StatsAggregator( bucketWidth ), null );
+  }
+
+  /**
+   * Creates stats that publish every record into the ring instead of
+   * recording it. The stats themselves stay empty, the reports are built
+   * from the stats that consume the ring.
+   */
+  public static Stats forwarding( final RecordRing ring ) {
+    return new Stats( false, null, ring );
+  }
+
+  private Stats(
+      final boolean offHeap,
+      final StatsAggregator aggregator ) {
+    this( offHeap, aggregator, null );
+  }
+
+  private Stats(
+      final boolean offHeap,
+      final StatsAggregator aggregator,
+      final RecordRing ring ) {
+    this.receptions = new RecordLog( 3, offHeap );
+    this.clientReceptions = new RecordLog( 3, offHeap );
+    this.leaderActivations = new RecordLog( 2, offHeap );
+    this.aggregator = aggregator;
+    this.ring = ring;
+  }
 
   public static final class Reception {
     public final double time;
@@ -41,82 +118,590 @@ public final class Stats {
   public static final class LeaderActivation {
     public final double time;
     public final int leader;
+    /** Depth in the leader tree, zero for the source */
+    public final int depth;
 
     public LeaderActivation(
         final double time,
         final int leader ) {
+      this( time, leader, 0 );
+    }
+
+    public LeaderActivation(
+        final double time,
+        final int leader,
+        final int depth ) {
       this.time = time;
       this.leader = leader;
+      this.depth = depth;
     }
   }
 
-  public static void printLeaderCountOverTime( final PrintStream out ) {
-    out.println( "# Leader count vs. time" );
+  /**
+   * All receptions in the order they happened. The list is a read-only view
+   * that creates the {@link Reception} objects on access.
+   */
+  public final List <Reception> receptions() {
+    return receptionView( this.receptions );
+  }
 
-    double curTime = 0.0;
-    int count = 0;
-    for ( final LeaderActivation a : LEADER_ACTIVATIONS ) {
-      if ( a.time - curTime > 0.00000001 ) {
-        out.println( curTime + " " + count );
+  /**
+   * Receptions by the clients served by the optimizer.
+   */
+  public final List <Reception> clientReceptions() {
+    return receptionView( this.clientReceptions );
+  }
+
+  public final List <LeaderActivation> leaderActivations() {
+    final RecordLog log = this.leaderActivations;
+    return new AbstractList <LeaderActivation>() {
+      @Override
+      public LeaderActivation get( final int index ) {
+        return new LeaderActivation( log.time( index ), log.field( index, ACTIVATION_LEADER ),
+            log.field( index, ACTIVATION_DEPTH ) );
       }
-      count++;
-      curTime = a.time;
+
+      @Override
+      public int size() {
+        return log.size();
+      }
+    };
+  }
+
+  /**
+   * Running aggregates, or {@code null} if the records are kept.
+   */
+  public final StatsAggregator aggregator() {
+    return this.aggregator;
+  }
+
+  /**
+   * Adds a listener that is notified of every recorded reception, in the
+   * order they are recorded, whether the records are kept or not.
+   *
+   * @throws IllegalStateException
+   *    if the stats forward their records, listeners belong to the stats
+   *    that consume them.
+   */
+  public final void addReceptionListener( final ReceptionListener listener ) {
+    if ( this.ring != null ) {
+      throw new IllegalStateException( "Forwarding stats don't notify listeners" );
     }
-    out.println( curTime + " " + count );
+    this.receptionListeners = Arrays.copyOf( this.receptionListeners,
+        this.receptionListeners.length + 1 );
+    this.receptionListeners[ this.receptionListeners.length - 1 ] = listener;
   }
 
-  public static void printClientReceptionsPerChannel( final PrintStream out ) {
-    out.println( "# Client receptions per channel" );
-    out.println( "# <channel> <count>" );
-    printCounts( CLIENT_RECEPTIONS, out );
+  /**
+   * Starts keeping the reception time distributions. Only receptions
+   * recorded afterwards are counted, so this is called before the run.
+   */
+  public final void trackLatency() {
+    if ( this.latency == null ) {
+      this.latency = new LatencySketches();
+    }
   }
 
-  public static void printReceptionsPerChannel( final PrintStream out ) {
-    out.println( "# Total receptions per channel" );
-    out.println( "# <channel> <count>" );
-    printCounts( RECEPTIONS, out );
+  /**
+   * Reception time distributions, {@code null} if not tracked.
+   */
+  public final LatencySketches latency() {
+    return this.latency;
   }
 
-  private static void printCounts(
-      final Collection <Reception> receptions,
-      final PrintStream out ) {
-    int maxChannel = 0;
-    for ( final Reception reception : receptions ) {
-      if ( reception.channel > maxChannel ) maxChannel = reception.channel;
+  public final RecordLog receptionLog() {
+    return this.receptions;
+  }
+
+  public final RecordLog clientReceptionLog() {
+    return this.clientReceptions;
+  }
+
+  public final RecordLog leaderActivationLog() {
+    return this.leaderActivations;
+  }
+
+  /**
+   * Writes the state that is not in the record logs, the running aggregates
+   * and the latency sketches if tracked, for a {@link Checkpoint}.
+   */
+  final void writeState( final DataOutput out ) throws IOException {
+    if ( this.ring != null ) {
+      throw new IllegalStateException( "Forwarding stats have no state" );
     }
+    out.writeBoolean( this.aggregator != null );
+    if ( this.aggregator != null ) {
+      this.aggregator.write( out );
+    }
+    out.writeBoolean( this.latency != null );
+    if ( this.latency != null ) {
+      this.latency.write( out );
+    }
+  }
 
-    final int[] channelCounts = new int[ maxChannel ];
-    for ( final Reception reception : receptions ) {
-      channelCounts[ reception.channel - 1 ]++;
+  /**
+   * Replaces the state that is not in the record logs with the one written
+   * by {@link #writeState(DataOutput)}.
+   *
+   * @throws IOException
+   *    If reading fails, the state is from stats of the other mode or has no
+   *    latency sketches while these track them.
+   */
+  final void readState( final DataInput in ) throws IOException {
+    final boolean streaming = in.readBoolean();
+    if ( streaming != ( this.aggregator != null ) ) {
+      throw new IOException( "Checkpoint is from " + ( streaming ? "streaming" : "retaining" )
+          + " stats" );
+    }
+    if ( this.aggregator != null ) {
+      this.aggregator.read( in );
+    }
+    if ( in.readBoolean() ) {
+      // Read also when not tracked, so that the reader ends after the state
+      final LatencySketches latency = new LatencySketches();
+      latency.read( in );
+      if ( this.latency != null ) {
+        this.latency = latency;
+      }
+    } else if ( this.latency != null ) {
+      throw new IOException( "Checkpoint has no latency sketches" );
+    }
+  }
+
+  public final void recordReception(
+      final double time,
+      final int source,
+      final int destination,
+      final int channel ) {
+    if ( this.ring != null ) {
+      this.ring.reception( time, source, destination, channel );
+      return;
     }
+    if ( this.aggregator != null ) {
+      this.aggregator.reception( time, channel );
+    } else {
+      this.receptions.add( time, source, destination, channel );
+    }
+    if ( this.latency != null ) {
+      this.latency.reception( time, source, channel );
+    }
+    if ( this.receptionListeners.length != 0 ) {
+      this.notifyListeners( time, source, destination, channel );
+    }
+  }
 
-    for ( int i = 0; i < channelCounts.length; i ++ ) {
-      out.println( "" + (i + 1) + " " + channelCounts[ i ] );
+  /**
+   * Records a reception by a client that is served by the optimizer. Client receptions are
+   * tracked both in the total and in the client specific receptions.
+   */
+  public final void recordClientReception(
+      final double time,
+      final int source,
+      final int destination,
+      final int channel ) {
+    if ( this.ring != null ) {
+      this.ring.clientReception( time, source, destination, channel );
+      return;
+    }
+    if ( this.aggregator != null ) {
+      this.aggregator.reception( time, channel );
+      this.aggregator.clientReception( channel );
+    } else {
+      this.receptions.add( time, source, destination, channel );
+      this.clientReceptions.add( time, source, destination, channel );
+    }
+    if ( this.latency != null ) {
+      this.latency.reception( time, source, channel );
+    }
+    if ( this.receptionListeners.length != 0 ) {
+      this.notifyListeners( time, source, destination, channel );
     }
   }
 
-  public static void printReceptionsBucketed(
-      final PrintStream out,
-      final double bucketWidth ) {
-    out.println( "# Reception CDF" );
-    out.println( "# <time> <fraction received>" );
+  /**
+   * Records a client reception without counting it in the total. Used for
+   * the client records of merged stats, whose total already contains them.
+   */
+  final void recordClientOnlyReception(
+      final double time,
+      final int source,
+      final int destination,
+      final int channel ) {
+    if ( this.aggregator != null ) {
+      this.aggregator.clientReception( channel );
+    } else {
+      this.clientReceptions.add( time, source, destination, channel );
+    }
+  }
+
+  /**
+   * Records the activation of a leader at depth zero.
+   */
+  public final void recordLeaderActivation(
+      final double time,
+      final int leader ) {
+    this.recordLeaderActivation( time, leader, 0 );
+  }
+
+  /**
+   * Records the activation of a leader at the given depth of the leader
+   * tree. The receptions transmitted by the leader are counted at that
+   * depth in the {@link #latency()} sketches.
+   */
+  public final void recordLeaderActivation(
+      final double time,
+      final int leader,
+      final int depth ) {
+    if ( this.ring != null ) {
+      this.ring.leaderActivation( time, leader, depth );
+      return;
+    }
+    if ( this.aggregator != null ) {
+      this.aggregator.leaderActivation( time );
+    } else {
+      this.leaderActivations.add( time, leader, depth );
+    }
+    if ( this.latency != null ) {
+      this.latency.leaderActivation( leader, depth );
+    }
+  }
+
+  /**
+   * Appends the records of the given stats to this one, merged in time
+   * order. Each of the parts must be in time order, records at the same time
+   * are taken in the order of the parts. The parts must keep their records.
+   */
+  public final void merge( final List <Stats> parts ) {
+    final List <RecordLog> receptions = new ArrayList<>( parts.size() );
+    final List <RecordLog> clientReceptions = new ArrayList<>( parts.size() );
+    final List <RecordLog> leaderActivations = new ArrayList<>( parts.size() );
+    for ( final Stats part : parts ) {
+      receptions.add( part.receptions );
+      clientReceptions.add( part.clientReceptions );
+      leaderActivations.add( part.leaderActivations );
+    }
+    // Leaders first, so that the depths of all sources are known
+    mergeSorted( leaderActivations, ( log, i ) -> this.recordLeaderActivation( log.time( i ),
+        log.field( i, ACTIVATION_LEADER ), log.field( i, ACTIVATION_DEPTH ) ) );
+    mergeSorted( receptions, ( log, i ) -> this.recordReception( log.time( i ),
+        log.field( i, RECEPTION_SOURCE ), log.field( i, RECEPTION_DESTINATION ),
+        log.field( i, RECEPTION_CHANNEL ) ) );
+    final StatsAggregator aggregator = this.aggregator;
+    if ( this.ring != null ) {
+      final RecordRing ring = this.ring;
+      mergeSorted( clientReceptions, ( log, i ) -> ring.clientOnlyReception( log.time( i ),
+          log.field( i, RECEPTION_SOURCE ), log.field( i, RECEPTION_DESTINATION ),
+          log.field( i, RECEPTION_CHANNEL ) ) );
+    } else if ( aggregator != null ) {
+      mergeSorted( clientReceptions, ( log, i ) -> aggregator.clientReception(
+          log.field( i, RECEPTION_CHANNEL ) ) );
+    } else {
+      mergeSorted( clientReceptions, this.clientReceptions::addFrom );
+    }
+  }
+
+  public final void printLeaderCountOverTime( final PrintStream out ) {
+    toStream( out, this::writeLeaderCountOverTime );
+  }
+
+  public final void writeLeaderCountOverTime( final ReportWriter out ) {
+    out.append( "# Leader count vs. time" ).newLine();
+    if ( this.aggregator != null ) {
+      this.aggregator.writeLeaderCountOverTime( out );
+      return;
+    }
 
-    final int totalCount = RECEPTIONS.size();
+    final RecordLog activations = this.leaderActivations;
+    double curTime = 0.0;
     int count = 0;
-    double curTime = RECEPTIONS.get( 0 ).time;
+    for ( int i = 0; i < activations.size(); i++ ) {
+      final double time = activations.time( i );
+      if ( time - curTime > 0.00000001 ) {
+        out.append( curTime ).append( ' ' ).append( count ).newLine();
+      }
+      count++;
+      curTime = time;
+    }
+    out.append( curTime ).append( ' ' ).append( count ).newLine();
+  }
+
+  public final void printClientReceptionsPerChannel( final PrintStream out ) {
+    toStream( out, this::writeClientReceptionsPerChannel );
+  }
+
+  public final void writeClientReceptionsPerChannel( final ReportWriter out ) {
+    out.append( "# Client receptions per channel" ).newLine();
+    out.append( "# <channel> <count>" ).newLine();
+    final int[] channelCounts = ( this.aggregator != null )
+        ? this.aggregator.clientReceptionsPerChannel() : countPerChannel( this.clientReceptions );
+    writeCounts( out, channelCounts, channelCounts.length );
+  }
+
+  public final void printReceptionsPerChannel( final PrintStream out ) {
+    toStream( out, writer -> this.writeReceptionReports( writer, null, 0.0, null ) );
+  }
+
+  /**
+   * Prints the total receptions per channel report from counts.
+   *
+   * @param channelCounts
+   *    Receptions per channel, index 0 is channel 1.
+   */
+  public static void printReceptionsPerChannel(
+      final PrintStream out,
+      final int[] channelCounts ) {
+    toStream( out, writer -> writeReceptionsPerChannel( writer, channelCounts ) );
+  }
+
+  /**
+   * Writes the total receptions per channel report from counts.
+   *
+   * @param channelCounts
+   *    Receptions per channel, index 0 is channel 1.
+   */
+  public static void writeReceptionsPerChannel(
+      final ReportWriter out,
+      final int[] channelCounts ) {
+    writeReceptionsPerChannel( out, channelCounts, channelCounts.length );
+  }
+
+  /**
+   * Writes the requested reception reports in a single pass over the
+   * receptions. Reports without a writer are skipped.
+   *
+   * @param channelReport
+   *    Total receptions per channel, or {@code null}.
+   * @param bucketedReport
+   *    Reception CDF at every passed bucket boundary, or {@code null}.
+   * @param bucketWidth
+   *    Bucket width of the bucketed report.
+   * @param cdfReport
+   *    Reception CDF with a row per reception, or {@code null}. Not
+   *    available in streaming mode.
+   */
+  public final void writeReceptionReports(
+      final ReportWriter channelReport,
+      final ReportWriter bucketedReport,
+      final double bucketWidth,
+      final ReportWriter cdfReport ) {
+    if ( bucketedReport != null ) {
+      bucketedReport.append( "# Reception CDF" ).newLine();
+      bucketedReport.append( "# <time> <fraction received>" ).newLine();
+    }
+    if ( cdfReport != null ) {
+      cdfReport.append( "# Reception CDF per reception" ).newLine();
+      cdfReport.append( "# <time> <fraction received>" ).newLine();
+    }
+
+    if ( this.aggregator != null ) {
+      if ( channelReport != null ) {
+        writeReceptionsPerChannel( channelReport, this.aggregator.receptionsPerChannel() );
+      }
+      if ( bucketedReport != null ) {
+        if ( bucketWidth != this.aggregator.bucketWidth() ) {
+          throw new IllegalArgumentException( "Streaming stats are bucketed by "
+              + this.aggregator.bucketWidth() + ", not by " + bucketWidth );
+        }
+        this.aggregator.writeReceptionsBucketed( bucketedReport );
+      }
+      if ( cdfReport != null ) {
+        throw new IllegalStateException( "Streaming stats keep no receptions for the CDF" );
+      }
+      return;
+    }
+
+    final RecordLog receptions = this.receptions;
+    final int totalCount = receptions.size();
+    if ( bucketedReport != null && totalCount == 0 ) {
+      throw new IndexOutOfBoundsException( "No receptions" );
+    }
+    int[] channelCounts = new int[ 16 ];
+    int maxChannel = 0;
+    double curTime = 0.0;
     double curValue = 0.0;
     double boundary = bucketWidth;
-    for ( final Stats.Reception stat : RECEPTIONS ) {
-      if ( stat.time > boundary ) {
-        out.println( "" + boundary + " " + curValue );
+    for ( int i = 0; i < totalCount; i++ ) {
+      final double time = receptions.time( i );
+      if ( channelReport != null ) {
+        final int channel = receptions.field( i, RECEPTION_CHANNEL );
+        if ( channel > channelCounts.length ) {
+          channelCounts = Arrays.copyOf( channelCounts, Math.max( channel,
+              2 * channelCounts.length ) );
+        }
+        channelCounts[ channel - 1 ]++;
+        if ( channel > maxChannel ) maxChannel = channel;
+      }
+      if ( bucketedReport != null && time > boundary ) {
+        bucketedReport.append( boundary ).append( ' ' ).append( curValue ).newLine();
         boundary += bucketWidth;
       }
 
-      count++;
-      final double fraction = 1.0 * count / totalCount;
+      final double fraction = 1.0 * ( i + 1 ) / totalCount;
+      if ( cdfReport != null ) {
+        cdfReport.append( time ).append( ' ' ).append( fraction ).newLine();
+      }
       curValue = fraction;
-      curTime = stat.time;
+      curTime = time;
+    }
+
+    if ( channelReport != null ) {
+      writeReceptionsPerChannel( channelReport, channelCounts, maxChannel );
+    }
+    if ( bucketedReport != null ) {
+      bucketedReport.append( curTime ).append( ' ' ).append( curValue ).newLine();
+    }
+  }
+
+  /**
+   * Number of receptions per channel, index 0 is channel 1.
+   */
+  public final int[] receptionsPerChannel() {
+    if ( this.aggregator != null ) return this.aggregator.receptionsPerChannel();
+    return countPerChannel( this.receptions );
+  }
+
+  /**
+   * Time of the last reception, or 0.0 if nothing was received.
+   */
+  public final double completionTime() {
+    if ( this.aggregator != null ) return this.aggregator.completionTime();
+
+    final RecordLog receptions = this.receptions;
+    double completionTime = 0.0;
+    for ( int i = 0; i < receptions.size(); i++ ) {
+      final double time = receptions.time( i );
+      if ( time > completionTime ) completionTime = time;
+    }
+    return completionTime;
+  }
+
+  /**
+   * K-way merge of time ordered logs, ties are broken by log index.
+   */
+  private static void mergeSorted(
+      final List <RecordLog> logs,
+      final MergeTarget out ) {
+    final PriorityQueue <MergeCursor> cursors = new PriorityQueue<>(
+        Math.max( 1, logs.size() ) );
+    for ( int i = 0; i < logs.size(); i++ ) {
+      final RecordLog log = logs.get( i );
+      if ( !log.isEmpty() ) {
+        cursors.add( new MergeCursor( i, log.time( 0 ) ) );
+      }
     }
-    out.println( "" + curTime + " " + curValue );
+
+    while ( !cursors.isEmpty() ) {
+      final MergeCursor cursor = cursors.remove();
+      final RecordLog log = logs.get( cursor.list );
+      out.add( log, cursor.position );
+      cursor.position++;
+      if ( cursor.position < log.size() ) {
+        cursor.time = log.time( cursor.position );
+        cursors.add( cursor );
+      }
+    }
+  }
+
+  private void notifyListeners(
+      final double time,
+      final int source,
+      final int destination,
+      final int channel ) {
+    for ( final ReceptionListener listener : this.receptionListeners ) {
+      listener.reception( time, source, destination, channel );
+    }
+  }
+
+  private interface MergeTarget {
+    void add( RecordLog log, int index );
+  }
+
+  private static final class MergeCursor
+  implements Comparable <MergeCursor> {
+    private final int list;
+    private int position;
+    private double time;
+
+    private MergeCursor(
+        final int list,
+        final double time ) {
+      this.list = list;
+      this.time = time;
+    }
+
+    @Override
+    public final int compareTo( final MergeCursor other ) {
+      final int order = Double.compare( this.time, other.time );
+      return ( order != 0 ) ? order : Integer.compare( this.list, other.list );
+    }
+  }
+
+  private static int[] countPerChannel( final RecordLog receptions ) {
+    int maxChannel = 0;
+    for ( int i = 0; i < receptions.size(); i++ ) {
+      final int channel = receptions.field( i, RECEPTION_CHANNEL );
+      if ( channel > maxChannel ) maxChannel = channel;
+    }
+
+    final int[] channelCounts = new int[ maxChannel ];
+    for ( int i = 0; i < receptions.size(); i++ ) {
+      channelCounts[ receptions.field( i, RECEPTION_CHANNEL ) - 1 ]++;
+    }
+    return channelCounts;
+  }
+
+  private static List <Reception> receptionView( final RecordLog log ) {
+    return new AbstractList <Reception>() {
+      @Override
+      public Reception get( final int index ) {
+        return new Reception( log.time( index ), log.field( index, RECEPTION_SOURCE ),
+            log.field( index, RECEPTION_DESTINATION ), log.field( index, RECEPTION_CHANNEL ) );
+      }
+
+      @Override
+      public int size() {
+        return log.size();
+      }
+    };
+  }
+
+  private static void writeReceptionsPerChannel(
+      final ReportWriter out,
+      final int[] channelCounts,
+      final int channelCount ) {
+    out.append( "# Total receptions per channel" ).newLine();
+    out.append( "# <channel> <count>" ).newLine();
+    writeCounts( out, channelCounts, channelCount );
+  }
+
+  private static void writeCounts(
+      final ReportWriter out,
+      final int[] channelCounts,
+      final int channelCount ) {
+    for ( int i = 0; i < channelCount; i ++ ) {
+      out.append( i + 1 ).append( ' ' ).append( channelCounts[ i ] ).newLine();
+    }
+  }
+
+  /**
+   * Writes a report to a stream through a {@link ReportWriter}, leaving the
+   * stream open.
+   */
+  private static void toStream(
+      final PrintStream out,
+      final Consumer <ReportWriter> report ) {
+    final ReportWriter writer = ReportWriter.of( out );
+    report.accept( writer );
+    try {
+      writer.flush();
+    } catch ( final IOException e ) {
+      throw new UncheckedIOException( "Failed to write the report", e );
+    }
+  }
+
+  public final void printReceptionsBucketed(
+      final PrintStream out,
+      final double bucketWidth ) {
+    toStream( out, writer -> this.writeReceptionReports( null, writer, bucketWidth, null ) );
   }
 }
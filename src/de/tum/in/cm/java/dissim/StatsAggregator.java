@@ -0,0 +1,246 @@
+package de.tum.in.cm.java.dissim;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Running aggregates for the reports of a streaming {@link Stats}. Records
+ * must arrive in time order. The reports are the same as those computed
+ * from the retained records, but the memory use only depends on the number
+ * of channels, buckets and leaders.
+ *
+ * @author teemuk
+ */
+public final class StatsAggregator {
+
+  private final double bucketWidth;
+
+  // Receptions
+  private long receptionCount = 0;
+  private double completionTime = 0.0;
+  private int[] channelCounts = new int[ 0 ];
+  private int[] clientChannelCounts = new int[ 0 ];
+
+  // Reception CDF, reception count at each passed bucket boundary
+  private double boundary;
+  private double lastReceptionTime;
+  private int bucketRows = 0;
+  private double[] bucketTimes = new double[ 16 ];
+  private long[] bucketCounts = new long[ 16 ];
+
+  // Leader count, count at each distinct activation time
+  private double leaderTime = 0.0;
+  private int leaderCount = 0;
+  private int leaderRows = 0;
+  private double[] leaderTimes = new double[ 16 ];
+  private int[] leaderCounts = new int[ 16 ];
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * @param bucketWidth
+   *    Bucket width of the reception CDF report.
+   */
+  public StatsAggregator( final double bucketWidth ) {
+    this.bucketWidth = bucketWidth;
+    this.boundary = bucketWidth;
+  }
+
+  public final double bucketWidth() {
+    return this.bucketWidth;
+  }
+
+  public final void reception(
+      final double time,
+      final int channel ) {
+    if ( time > this.boundary ) {
+      this.addBucketRow( this.boundary, this.receptionCount );
+      this.boundary += this.bucketWidth;
+    }
+    this.receptionCount++;
+    this.lastReceptionTime = time;
+    if ( time > this.completionTime ) this.completionTime = time;
+    this.channelCounts = count( this.channelCounts, channel );
+  }
+
+  public final void clientReception( final int channel ) {
+    this.clientChannelCounts = count( this.clientChannelCounts, channel );
+  }
+
+  public final void leaderActivation( final double time ) {
+    if ( time - this.leaderTime > 0.00000001 ) {
+      this.addLeaderRow( this.leaderTime, this.leaderCount );
+    }
+    this.leaderCount++;
+    this.leaderTime = time;
+  }
+
+  public final long receptionCount() {
+    return this.receptionCount;
+  }
+
+  public final int leaderCount() {
+    return this.leaderCount;
+  }
+
+  public final double completionTime() {
+    return this.completionTime;
+  }
+
+  /**
+   * Receptions per channel, index 0 is channel 1.
+   */
+  public final int[] receptionsPerChannel() {
+    return this.channelCounts.clone();
+  }
+
+  public final int[] clientReceptionsPerChannel() {
+    return this.clientChannelCounts.clone();
+  }
+
+  /**
+   * Writes the rows of the bucketed report of
+   * {@link Stats#writeReceptionReports}.
+   */
+  public final void writeReceptionsBucketed( final ReportWriter out ) {
+    if ( this.receptionCount == 0 ) {
+      throw new IndexOutOfBoundsException( "No receptions" );
+    }
+    for ( int i = 0; i < this.bucketRows; i++ ) {
+      out.append( this.bucketTimes[ i ] ).append( ' ' )
+          .append( this.fraction( this.bucketCounts[ i ] ) ).newLine();
+    }
+    out.append( this.lastReceptionTime ).append( ' ' )
+        .append( this.fraction( this.receptionCount ) ).newLine();
+  }
+
+  /**
+   * Writes the rows of {@link Stats#writeLeaderCountOverTime}.
+   */
+  public final void writeLeaderCountOverTime( final ReportWriter out ) {
+    for ( int i = 0; i < this.leaderRows; i++ ) {
+      out.append( this.leaderTimes[ i ] ).append( ' ' ).append( this.leaderCounts[ i ] ).newLine();
+    }
+    out.append( this.leaderTime ).append( ' ' ).append( this.leaderCount ).newLine();
+  }
+
+  /**
+   * Writes the aggregates, see {@link #read(DataInput)}.
+   */
+  public final void write( final DataOutput out ) throws IOException {
+    out.writeDouble( this.bucketWidth );
+    out.writeLong( this.receptionCount );
+    out.writeDouble( this.completionTime );
+    writeInts( out, this.channelCounts );
+    writeInts( out, this.clientChannelCounts );
+    out.writeDouble( this.boundary );
+    out.writeDouble( this.lastReceptionTime );
+    out.writeInt( this.bucketRows );
+    for ( int i = 0; i < this.bucketRows; i++ ) {
+      out.writeDouble( this.bucketTimes[ i ] );
+      out.writeLong( this.bucketCounts[ i ] );
+    }
+    out.writeDouble( this.leaderTime );
+    out.writeInt( this.leaderCount );
+    out.writeInt( this.leaderRows );
+    for ( int i = 0; i < this.leaderRows; i++ ) {
+      out.writeDouble( this.leaderTimes[ i ] );
+      out.writeInt( this.leaderCounts[ i ] );
+    }
+  }
+
+  /**
+   * Replaces the aggregates with the ones written by
+   * {@link #write(DataOutput)}.
+   *
+   * @throws IOException
+   *    If reading fails or the aggregates have a different bucket width.
+   */
+  public final void read( final DataInput in ) throws IOException {
+    final double bucketWidth = in.readDouble();
+    if ( bucketWidth != this.bucketWidth ) {
+      throw new IOException( "Aggregates have bucket width " + bucketWidth + ", expected "
+          + this.bucketWidth );
+    }
+    this.receptionCount = in.readLong();
+    this.completionTime = in.readDouble();
+    this.channelCounts = readInts( in );
+    this.clientChannelCounts = readInts( in );
+    this.boundary = in.readDouble();
+    this.lastReceptionTime = in.readDouble();
+    this.bucketRows = 0;
+    final int bucketRows = in.readInt();
+    for ( int i = 0; i < bucketRows; i++ ) {
+      this.addBucketRow( in.readDouble(), in.readLong() );
+    }
+    this.leaderTime = in.readDouble();
+    this.leaderCount = in.readInt();
+    this.leaderRows = 0;
+    final int leaderRows = in.readInt();
+    for ( int i = 0; i < leaderRows; i++ ) {
+      this.addLeaderRow( in.readDouble(), in.readInt() );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private double fraction( final long count ) {
+    return ( count == 0 ) ? 0.0 : 1.0 * count / this.receptionCount;
+  }
+
+  private void addBucketRow(
+      final double time,
+      final long count ) {
+    if ( this.bucketRows == this.bucketTimes.length ) {
+      this.bucketTimes = Arrays.copyOf( this.bucketTimes, this.bucketRows * 2 );
+      this.bucketCounts = Arrays.copyOf( this.bucketCounts, this.bucketRows * 2 );
+    }
+    this.bucketTimes[ this.bucketRows ] = time;
+    this.bucketCounts[ this.bucketRows ] = count;
+    this.bucketRows++;
+  }
+
+  private void addLeaderRow(
+      final double time,
+      final int count ) {
+    if ( this.leaderRows == this.leaderTimes.length ) {
+      this.leaderTimes = Arrays.copyOf( this.leaderTimes, this.leaderRows * 2 );
+      this.leaderCounts = Arrays.copyOf( this.leaderCounts, this.leaderRows * 2 );
+    }
+    this.leaderTimes[ this.leaderRows ] = time;
+    this.leaderCounts[ this.leaderRows ] = count;
+    this.leaderRows++;
+  }
+
+  private static void writeInts(
+      final DataOutput out,
+      final int[] values ) throws IOException {
+    out.writeInt( values.length );
+    for ( final int value : values ) {
+      out.writeInt( value );
+    }
+  }
+
+  private static int[] readInts( final DataInput in ) throws IOException {
+    final int[] values = new int[ in.readInt() ];
+    for ( int i = 0; i < values.length; i++ ) {
+      values[ i ] = in.readInt();
+    }
+    return values;
+  }
+
+  private static int[] count(
+      final int[] counts,
+      final int channel ) {
+    final int[] ret = ( channel > counts.length ) ? Arrays.copyOf( counts, channel ) : counts;
+    ret[ channel - 1 ]++;
+    return ret;
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,181 @@
+package de.tum.in.cm.java.dissim.engine;
+
+import de.tum.in.cm.java.dissim.Algorithm;
+import de.tum.in.cm.java.dissim.ClientPool;
+import de.tum.in.cm.java.dissim.EventSink;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SimEvent;
+import de.tum.in.cm.java.dissim.SinkEvent;
+import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.events.BatchReceptionEvent;
+import de.tum.in.cm.java.dissim.events.ContentReceivedEvent;
+import de.tum.in.cm.java.dissim.events.ContentReceivedOptimizerEvent;
+import de.tum.in.cm.java.dissim.metrics.EngineMetrics;
+
+/**
+ * Event loop over an {@link ArrayEventStore}. Receptions, which make up the
+ * bulk of the events, are kept as primitive rows and dispatched by their type
+ * tag. All other events are stored as object payloads and processed through
+ * {@link SinkEvent#process(SimContext)}. Receptions emitted through
+ * {@link EventSink#scheduleReception} never exist as objects.
+ *
+ * @author teemuk
+ */
+public final class ArrayEngine
+implements Engine {
+
+  // Type tags
+  /** Reception, see {@link ContentReceivedEvent} */
+  static final byte RECEPTION = 0;
+  /** Optimizer client reception that does not continue, see {@link ContentReceivedOptimizerEvent} */
+  static final byte CLIENT_RECEPTION = 1;
+  /** Optimizer client reception that continues with the next client on the same channel */
+  static final byte CLIENT_RECEPTION_SEQUENTIAL = 2;
+  /** Run of receptions, the {@link BatchReceptionEvent} is the payload */
+  static final byte BATCH = 3;
+  /** Any other event, the event object is the payload */
+  static final byte OBJECT = 4;
+
+  private final ArrayEventStore store;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public ArrayEngine() {
+    this.store = new ArrayEventStore();
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Engine
+  //==============================================================================================//
+  @Override
+  public final long run( final SimContext context ) {
+    final ArrayEventStore store = this.store;
+    final Stats stats = context.stats();
+    final ClientPool clientPool = context.clientPool();
+    final EngineMetrics metrics = context.metrics();
+    long eventCount = 0;
+    while ( store.size() != 0 ) {
+      eventCount++;
+      final int slot = store.poll();
+      final double time = store.time( slot );
+      if ( metrics != null ) {
+        metrics.event( eventType( store, slot ), store.size(), time );
+      }
+
+      switch ( store.type( slot ) ) {
+        case RECEPTION:
+          stats.recordReception( time, store.from( slot ), store.node( slot ),
+              store.channel( slot ) );
+          store.release( slot );
+          break;
+
+        case CLIENT_RECEPTION:
+          stats.recordClientReception( time, store.from( slot ), store.node( slot ),
+              store.channel( slot ) );
+          store.release( slot );
+          break;
+
+        case CLIENT_RECEPTION_SEQUENTIAL:
+          stats.recordClientReception( time, store.from( slot ), store.node( slot ),
+              store.channel( slot ) );
+          // Start the next client transfer on this channel, reusing the slot
+          if ( clientPool.hasClients() ) {
+            store.reschedule( slot, time + store.period( slot ), clientPool.nextClient() );
+          } else {
+            store.release( slot );
+          }
+          break;
+
+        case BATCH:
+          final BatchReceptionEvent batch = ( BatchReceptionEvent ) store.payload( slot );
+          if ( batch.receiveNext( stats ) ) {
+            store.reschedule( slot, batch.time(), 0 );
+          } else {
+            store.release( slot );
+          }
+          break;
+
+        case OBJECT:
+          final SimEvent event = store.event( slot );
+          store.release( slot );
+          SinkEvent.process( event, context );
+          break;
+
+        default:
+          throw new IllegalStateException( "Unknown event type ("
+              + store.type( slot ) + ")" );
+      }
+    }
+    return eventCount;
+  }
+
+  @Override
+  public final int size() {
+    return this.store.size();
+  }
+
+  /**
+   * Schedules the event. Known reception events are lowered into primitive
+   * rows, and the event object is not retained.
+   *
+   * @param event
+   *    Event to schedule.
+   */
+  @Override
+  public final void schedule( final SimEvent event ) {
+    if ( event instanceof ContentReceivedEvent ) {
+      final ContentReceivedEvent reception = ( ContentReceivedEvent ) event;
+      this.store.push( RECEPTION, reception.time(), reception.node(), reception.from(),
+          reception.channel(), 0.0, null );
+    } else if ( event instanceof ContentReceivedOptimizerEvent ) {
+      final ContentReceivedOptimizerEvent reception = ( ContentReceivedOptimizerEvent ) event;
+      final byte type = ( reception.disseminationStrategy()
+          == Algorithm.DisseminationStrategy.SEQUENTIAL )
+          ? ( CLIENT_RECEPTION_SEQUENTIAL ) : ( CLIENT_RECEPTION );
+      this.store.push( type, reception.time(), reception.node(), reception.from(),
+          reception.channel(), reception.transmitTime(), null );
+    } else if ( event instanceof BatchReceptionEvent ) {
+      final BatchReceptionEvent batch = ( BatchReceptionEvent ) event;
+      this.store.push( BATCH, batch.time(), 0, batch.from(), batch.channel(), 0.0, batch );
+    } else {
+      this.store.push( OBJECT, event.time(), 0, 0, 0, 0.0, event );
+    }
+  }
+
+  @Override
+  public final void scheduleReception(
+      final double time,
+      final int node,
+      final int from,
+      final int channel ) {
+    this.store.push( RECEPTION, time, node, from, channel, 0.0, null );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Type of the event that the row stands for.
+   */
+  private static Class <?> eventType(
+      final ArrayEventStore store,
+      final int slot ) {
+    switch ( store.type( slot ) ) {
+      case RECEPTION:
+        return ContentReceivedEvent.class;
+      case CLIENT_RECEPTION:
+      case CLIENT_RECEPTION_SEQUENTIAL:
+        return ContentReceivedOptimizerEvent.class;
+      case BATCH:
+        return BatchReceptionEvent.class;
+      default:
+        return store.event( slot ).getClass();
+    }
+  }
+  //==============================================================================================//
+}
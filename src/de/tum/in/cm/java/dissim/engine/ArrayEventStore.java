@@ -0,0 +1,244 @@
+package de.tum.in.cm.java.dissim.engine;
+
+import de.tum.in.cm.java.dissim.SimEvent;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Pending event set stored as parallel primitive arrays (struct-of-arrays).
+ *
+ * <p>Every event occupies a slot, i.e., an index into the columns. Slots of
+ * processed events are recycled, so once the columns have grown to the peak
+ * number of pending events no further allocation takes place. The slots are
+ * ordered by a binary min-heap of slot indices keyed on time, events with
+ * the same time are polled in the order they were pushed.</p>
+ *
+ * <p>Only events that cannot be expressed with the primitive columns carry
+ * an object payload.</p>
+ *
+ * @author teemuk
+ */
+public final class ArrayEventStore {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  // Columns
+  private double[] time;
+  private byte[] type;
+  private int[] node;
+  private int[] from;
+  private int[] channel;
+  private double[] period;
+  private long[] sequence;
+  private Object[] payload;
+
+  /** Min-heap of slots */
+  private int[] heap;
+  private int size;
+
+  /** Stack of free slots */
+  private int[] free;
+  private int freeCount;
+  /** Number of slots that have ever been handed out */
+  private int used;
+
+  private long nextSequence;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public ArrayEventStore() {
+    this( INITIAL_CAPACITY );
+  }
+
+  public ArrayEventStore( final int initialCapacity ) {
+    final int capacity = Math.max( initialCapacity, 16 );
+    this.time = new double[ capacity ];
+    this.type = new byte[ capacity ];
+    this.node = new int[ capacity ];
+    this.from = new int[ capacity ];
+    this.channel = new int[ capacity ];
+    this.period = new double[ capacity ];
+    this.sequence = new long[ capacity ];
+    this.payload = new Object[ capacity ];
+    this.heap = new int[ capacity ];
+    this.free = new int[ capacity ];
+  }
+
+  /**
+   * Pushes a new event into the store.
+   *
+   * @return
+   *    The slot of the new event.
+   */
+  public final int push(
+      final byte type,
+      final double time,
+      final int node,
+      final int from,
+      final int channel,
+      final double period,
+      final Object payload ) {
+    final int slot = this.allocate();
+    this.type[ slot ] = type;
+    this.node[ slot ] = node;
+    this.from[ slot ] = from;
+    this.channel[ slot ] = channel;
+    this.period[ slot ] = period;
+    this.payload[ slot ] = payload;
+    this.enqueue( slot, time );
+    return slot;
+  }
+
+  /**
+   * Pushes a previously polled slot back into the store with a new time and
+   * destination node, keeping the rest of the columns. This lets recurring
+   * events reuse their slot without releasing it.
+   */
+  public final void reschedule(
+      final int slot,
+      final double time,
+      final int node ) {
+    this.node[ slot ] = node;
+    this.enqueue( slot, time );
+  }
+
+  /**
+   * Removes the earliest event from the store. The slot stays valid until it
+   * is either released or rescheduled.
+   *
+   * @return
+   *    The slot of the earliest event.
+   */
+  public final int poll() {
+    if ( this.size == 0 ) {
+      throw new NoSuchElementException( "Event store is empty." );
+    }
+    final int slot = this.heap[ 0 ];
+    this.size--;
+    if ( this.size > 0 ) {
+      this.heap[ 0 ] = this.heap[ this.size ];
+      this.siftDown( 0 );
+    }
+    return slot;
+  }
+
+  /**
+   * Returns the slot to the free list.
+   */
+  public final void release( final int slot ) {
+    this.payload[ slot ] = null;
+    this.free[ this.freeCount++ ] = slot;
+  }
+
+  public final int size() {
+    return this.size;
+  }
+
+  public final byte type( final int slot ) {
+    return this.type[ slot ];
+  }
+
+  public final double time( final int slot ) {
+    return this.time[ slot ];
+  }
+
+  public final int node( final int slot ) {
+    return this.node[ slot ];
+  }
+
+  public final int from( final int slot ) {
+    return this.from[ slot ];
+  }
+
+  public final int channel( final int slot ) {
+    return this.channel[ slot ];
+  }
+
+  public final double period( final int slot ) {
+    return this.period[ slot ];
+  }
+
+  public final Object payload( final int slot ) {
+    return this.payload[ slot ];
+  }
+
+  public final SimEvent event( final int slot ) {
+    return ( SimEvent ) this.payload[ slot ];
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private int allocate() {
+    if ( this.freeCount > 0 ) {
+      return this.free[ --this.freeCount ];
+    }
+    if ( this.used == this.time.length ) {
+      this.grow();
+    }
+    return this.used++;
+  }
+
+  private void grow() {
+    final int capacity = this.time.length * 2;
+    this.time = Arrays.copyOf( this.time, capacity );
+    this.type = Arrays.copyOf( this.type, capacity );
+    this.node = Arrays.copyOf( this.node, capacity );
+    this.from = Arrays.copyOf( this.from, capacity );
+    this.channel = Arrays.copyOf( this.channel, capacity );
+    this.period = Arrays.copyOf( this.period, capacity );
+    this.sequence = Arrays.copyOf( this.sequence, capacity );
+    this.payload = Arrays.copyOf( this.payload, capacity );
+    this.heap = Arrays.copyOf( this.heap, capacity );
+    this.free = Arrays.copyOf( this.free, capacity );
+  }
+
+  private void enqueue( final int slot, final double time ) {
+    this.time[ slot ] = time;
+    this.sequence[ slot ] = this.nextSequence++;
+    this.heap[ this.size ] = slot;
+    this.siftUp( this.size );
+    this.size++;
+  }
+
+  private boolean before( final int a, final int b ) {
+    final double timeA = this.time[ a ];
+    final double timeB = this.time[ b ];
+    return timeA < timeB || ( timeA == timeB && this.sequence[ a ] < this.sequence[ b ] );
+  }
+
+  private void siftUp( int i ) {
+    final int slot = this.heap[ i ];
+    while ( i > 0 ) {
+      final int parent = ( i - 1 ) >>> 1;
+      final int parentSlot = this.heap[ parent ];
+      if ( !this.before( slot, parentSlot ) ) break;
+      this.heap[ i ] = parentSlot;
+      i = parent;
+    }
+    this.heap[ i ] = slot;
+  }
+
+  private void siftDown( int i ) {
+    final int slot = this.heap[ i ];
+    final int half = this.size >>> 1;
+    while ( i < half ) {
+      int child = 2 * i + 1;
+      int childSlot = this.heap[ child ];
+      final int right = child + 1;
+      if ( right < this.size && this.before( this.heap[ right ], childSlot ) ) {
+        child = right;
+        childSlot = this.heap[ child ];
+      }
+      if ( !this.before( childSlot, slot ) ) break;
+      this.heap[ i ] = childSlot;
+      i = child;
+    }
+    this.heap[ i ] = slot;
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,38 @@
+package de.tum.in.cm.java.dissim.engine;
+
+import de.tum.in.cm.java.dissim.EventSink;
+import de.tum.in.cm.java.dissim.SimContext;
+
+/**
+ * Event loop of a simulation. Events are scheduled into the engine, which
+ * processes them in time order in the context of the simulation that owns
+ * the engine.
+ *
+ * @author teemuk
+ */
+public interface Engine
+extends EventSink {
+  /**
+   * Runs the event loop until no events are left.
+   *
+   * @param context
+   *    Context in which the events are processed.
+   * @return
+   *    Number of processed events.
+   */
+  long run( SimContext context );
+
+  /**
+   * Number of pending events.
+   */
+  int size();
+
+  /**
+   * Releases the resources of the event queues, dropping the pending
+   * events. Does nothing by default.
+   *
+   * @see de.tum.in.cm.java.dissim.queue.EventQueue#close()
+   */
+  default void close() {
+  }
+}
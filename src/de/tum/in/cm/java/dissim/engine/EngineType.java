@@ -0,0 +1,61 @@
+package de.tum.in.cm.java.dissim.engine;
+
+import de.tum.in.cm.java.dissim.Main;
+
+/**
+ * Selectable event loop implementations.
+ *
+ * @author teemuk
+ */
+public enum EngineType {
+  /** Event objects in an {@link de.tum.in.cm.java.dissim.queue.EventQueue} */
+  OBJECT,
+  /** Primitive event rows in an {@link ArrayEventStore}, see {@link ArrayEngine} */
+  ARRAY,
+  /** Leader subtrees in parallel tasks, see {@link ForkJoinEngine} */
+  FORK_JOIN,
+  /** Conservative time windows in parallel, see {@link WindowEngine} */
+  WINDOW;
+
+  public final String toString() {
+    if ( this == OBJECT ) return "object";
+    else if ( this == ARRAY ) return "array";
+    else if ( this == FORK_JOIN ) return "forkjoin";
+    else if ( this == WINDOW ) return "window";
+    else return "unknown";
+  }
+
+  public static EngineType fromString( final String string ) {
+    if ( string.equals( OBJECT.toString() ) ) return OBJECT;
+    else if ( string.equals( ARRAY.toString() ) ) return ARRAY;
+    else if ( string.equals( FORK_JOIN.toString() ) ) return FORK_JOIN;
+    else if ( string.equals( WINDOW.toString() ) ) return WINDOW;
+    else return null;
+  }
+
+  /**
+   * Creates a new engine of this type.
+   *
+   * @param args
+   *    Simulation arguments, determine the event queue type and the
+   *    lookahead of the {@link #WINDOW} engine.
+   * @return
+   *    New engine without pending events.
+   */
+  public final Engine create( final Main.Args args ) {
+    if ( this == OBJECT ) return new QueueEngine( args.eventQueueType.create( args ) );
+    else if ( this == ARRAY ) return new ArrayEngine();
+    else if ( this == FORK_JOIN ) {
+      return new ForkJoinEngine( () -> args.eventQueueType.create( args ) );
+    }
+    else if ( this == WINDOW ) {
+      // The optimizer's client pool is shared by all events
+      if ( args.runMode == Main.RunMode.OPTIMIZING ) {
+        return new QueueEngine( args.eventQueueType.create( args ) );
+      }
+      return new WindowEngine( args.eventQueueType.create( args ),
+          args.contentSize / args.channelCapacity );
+    }
+    else throw new IllegalStateException( "Unknown engine type (" + this + ")" );
+  }
+}
@@ -0,0 +1,198 @@
+package de.tum.in.cm.java.dissim.engine;
+
+import de.tum.in.cm.java.dissim.ClientPool;
+import de.tum.in.cm.java.dissim.ClientRange;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SimEvent;
+import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
+import de.tum.in.cm.java.dissim.metrics.EngineMetrics;
+import de.tum.in.cm.java.dissim.queue.EventQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Event loop that evaluates the subtrees of the leader tree in parallel.
+ * <p>
+ * The child leaders created by a {@link CreateLeaderEvent} serve disjoint
+ * clients on disjoint channels, so after its creation a subtree never
+ * interacts with the rest of the simulation. Every large enough subtree is
+ * forked into its own task on a {@link ForkJoinPool}, with a local event
+ * queue and local statistics. When all tasks are done, the statistics are
+ * merged in time order, which gives the same records as the sequential
+ * engines. Records at the same time are ordered parent first and then by
+ * child, which is one of the orders a sequential queue could produce.
+ * <p>
+ * The optimizer hands out clients from a shared pool, so its events are
+ * never forked and optimizing runs are processed sequentially.
+ *
+ * @author teemuk
+ */
+public final class ForkJoinEngine
+implements Engine {
+
+  /** Subtrees with fewer clients are processed in the parent's task */
+  public static final int DEFAULT_FORK_THRESHOLD = 4096;
+
+  private final Supplier <EventQueue> queues;
+  private final int forkThreshold;
+  /** Events scheduled before the run */
+  private final List <SimEvent> pending = new ArrayList<>();
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public ForkJoinEngine( final Supplier <EventQueue> queues ) {
+    this( queues, DEFAULT_FORK_THRESHOLD );
+  }
+
+  /**
+   * @param queues
+   *    Creates the local event queues of the subtree tasks.
+   * @param forkThreshold
+   *    Minimum number of clients in a subtree for it to get its own task.
+   */
+  public ForkJoinEngine(
+      final Supplier <EventQueue> queues,
+      final int forkThreshold ) {
+    this.queues = queues;
+    this.forkThreshold = forkThreshold;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Engine
+  //==============================================================================================//
+  @Override
+  public final long run( final SimContext context ) {
+    final Subtree root = new Subtree( this, context.clientPool(), context.metrics() );
+    root.queue.scheduleAll( this.pending );
+    this.pending.clear();
+
+    // Run in the current pool when called from a fork-join task, e.g., a sweep
+    if ( ForkJoinTask.inForkJoinPool() ) {
+      root.invoke();
+    } else {
+      ForkJoinPool.commonPool().invoke( root );
+    }
+
+    final List <Stats> parts = new ArrayList<>();
+    final long eventCount = root.collect( parts );
+    context.stats().merge( parts );
+    return eventCount;
+  }
+
+  @Override
+  public final int size() {
+    return this.pending.size();
+  }
+
+  @Override
+  public final void schedule( final SimEvent event ) {
+    this.pending.add( event );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Task that processes the events of one subtree.
+   */
+  private static final class Subtree
+  extends RecursiveAction
+  implements SimContext {
+    private static final long serialVersionUID = 1L;
+
+    private final ForkJoinEngine engine;
+    private final ClientPool clientPool;
+    private final EngineMetrics metrics;
+    private final QueueEngine queue;
+    private final Stats stats = new Stats();
+    private final List <Subtree> children = new ArrayList<>();
+    private long eventCount;
+
+    private Subtree(
+        final ForkJoinEngine engine,
+        final ClientPool clientPool,
+        final EngineMetrics metrics ) {
+      this.engine = engine;
+      this.clientPool = clientPool;
+      this.metrics = metrics;
+      this.queue = new QueueEngine( engine.queues.get() );
+    }
+
+    @Override
+    protected final void compute() {
+      try {
+        this.eventCount = this.queue.run( this );
+      } finally {
+        this.queue.close();
+      }
+      for ( final Subtree child : this.children ) {
+        child.join();
+      }
+    }
+
+    /**
+     * Collects the stats of this subtree, parent before children.
+     *
+     * @return
+     *    Number of events processed in the subtree.
+     */
+    private long collect( final List <Stats> parts ) {
+      parts.add( this.stats );
+      long eventCount = this.eventCount;
+      for ( final Subtree child : this.children ) {
+        eventCount += child.collect( parts );
+      }
+      return eventCount;
+    }
+
+    @Override
+    public final Stats stats() {
+      return this.stats;
+    }
+
+    @Override
+    public final ClientPool clientPool() {
+      return this.clientPool;
+    }
+
+    @Override
+    public final EngineMetrics metrics() {
+      return this.metrics;
+    }
+
+    @Override
+    public final void schedule( final SimEvent event ) {
+      if ( event instanceof CreateLeaderEvent
+          && ( ( CreateLeaderEvent ) event ).clients().length() >= this.engine.forkThreshold ) {
+        final Subtree child = new Subtree( this.engine, new ClientPool( ClientRange.EMPTY ),
+            this.metrics );
+        child.queue.schedule( event );
+        this.children.add( child );
+        child.fork();
+      } else {
+        this.queue.schedule( event );
+      }
+    }
+
+    @Override
+    public final void scheduleReception(
+        final double time,
+        final int node,
+        final int from,
+        final int channel ) {
+      this.queue.scheduleReception( time, node, from, channel );
+    }
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,93 @@
+package de.tum.in.cm.java.dissim.engine;
+
+import de.tum.in.cm.java.dissim.Checkpointer;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SimEvent;
+import de.tum.in.cm.java.dissim.SinkEvent;
+import de.tum.in.cm.java.dissim.metrics.EngineMetrics;
+import de.tum.in.cm.java.dissim.queue.EventQueue;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Event loop over event objects in an {@link EventQueue}.
+ *
+ * @author teemuk
+ */
+public final class QueueEngine
+implements Engine {
+
+  private final EventQueue queue;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public QueueEngine( final EventQueue queue ) {
+    this.queue = queue;
+  }
+
+  public final EventQueue queue() {
+    return this.queue;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Engine
+  //==============================================================================================//
+  @Override
+  public final long run( final SimContext context ) {
+    final EventQueue queue = this.queue;
+    final EngineMetrics metrics = context.metrics();
+    final Checkpointer checkpointer = context.checkpointer();
+    long eventCount = 0;
+    while ( queue.size() != 0 ) {
+      eventCount++;
+      final SimEvent event = queue.remove();
+      if ( metrics != null ) {
+        metrics.event( event.getClass(), queue.size(), event.time() );
+      }
+      SinkEvent.process( event, context );
+      if ( checkpointer != null && checkpointer.due( event.time() ) ) {
+        checkpointer.checkpoint( eventCount, event.time() );
+      }
+    }
+    return eventCount;
+  }
+
+  @Override
+  public final int size() {
+    return this.queue.size();
+  }
+
+  @Override
+  public final void close() {
+    this.queue.close();
+  }
+
+  @Override
+  public final void schedule( final SimEvent event ) {
+    this.queue.add( event );
+  }
+
+  @Override
+  public final void scheduleAll( final Collection <? extends SimEvent> events ) {
+    this.queue.addAll( events );
+  }
+
+  @Override
+  public final void scheduleSorted( final List <? extends SimEvent> events ) {
+    this.queue.scheduleSorted( events );
+  }
+
+  @Override
+  public final void scheduleReception(
+      final double time,
+      final int node,
+      final int from,
+      final int channel ) {
+    this.queue.scheduleReception( time, node, from, channel );
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,290 @@
+package de.tum.in.cm.java.dissim.engine;
+
+import de.tum.in.cm.java.dissim.ClientPool;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SimEvent;
+import de.tum.in.cm.java.dissim.SinkEvent;
+import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
+import de.tum.in.cm.java.dissim.metrics.EngineMetrics;
+import de.tum.in.cm.java.dissim.queue.EventQueue;
+import de.tum.in.cm.java.dissim.queue.HeapEventQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Conservative time window event loop.
+ * <p>
+ * No event creates another event less than the lookahead later, e.g., a
+ * leader's next transmission completes {@code contentSize / capacity} after
+ * the current one. So all events in {@code [t, t + lookahead)}, where
+ * {@code t} is the time of the earliest pending event, can be processed
+ * without waiting for each other. Large windows are split into chunks that
+ * are processed in parallel on a {@link ForkJoinPool}, each with local
+ * statistics and a local buffer for the created events. The statistics are
+ * then merged in time order, and the created events scheduled chunk by chunk,
+ * so the results are deterministic and match the sequential loop. Events that
+ * land inside the window anyway, like concurrent batches that deliver
+ * several receptions at the same time, are processed within their chunk.
+ * <p>
+ * The lookahead given to the engine is narrowed to the shortest transmit
+ * time of every scheduled {@link CreateLeaderEvent}, so initial events with
+ * channels faster than the arguments' capacity keep the windows safe.
+ * <p>
+ * Events must not share state other than the statistics, so optimizer runs,
+ * which take clients from a shared pool, must use a sequential engine.
+ *
+ * @author teemuk
+ */
+public final class WindowEngine
+implements Engine {
+
+  /** Windows with fewer events are processed sequentially */
+  public static final int DEFAULT_MIN_PARALLEL_WINDOW = 1024;
+
+  private final EventQueue queue;
+  private final int minParallelWindow;
+  private double lookahead;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public WindowEngine(
+      final EventQueue queue,
+      final double lookahead ) {
+    this( queue, lookahead, DEFAULT_MIN_PARALLEL_WINDOW );
+  }
+
+  /**
+   * @param queue
+   *    Queue for the pending events.
+   * @param lookahead
+   *    Minimum delay between an event and any event it creates, narrowed by
+   *    the scheduled leaders' transmit times.
+   * @param minParallelWindow
+   *    Minimum number of events in a window for it to be processed in
+   *    parallel.
+   */
+  public WindowEngine(
+      final EventQueue queue,
+      final double lookahead,
+      final int minParallelWindow ) {
+    if ( !( lookahead >= 0.0 ) ) {
+      throw new IllegalArgumentException( "Negative lookahead (" + lookahead + ")" );
+    }
+    this.queue = queue;
+    this.lookahead = lookahead;
+    this.minParallelWindow = Math.max( 1, minParallelWindow );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Engine
+  //==============================================================================================//
+  @Override
+  public final long run( final SimContext context ) {
+    final EventQueue queue = this.queue;
+    final int parallelism = parallelism();
+    final List <SimEvent> window = new ArrayList<>();
+    final EngineMetrics metrics = context.metrics();
+    long eventCount = 0;
+
+    // Windows don't pay off without parallelism
+    if ( parallelism <= 1 ) {
+      while ( queue.size() != 0 ) {
+        eventCount++;
+        final SimEvent event = queue.remove();
+        if ( metrics != null ) {
+          metrics.event( event.getClass(), queue.size(), event.time() );
+        }
+        SinkEvent.process( event, context );
+      }
+      return eventCount;
+    }
+
+    while ( queue.size() != 0 ) {
+      // Collect the window
+      final SimEvent first = queue.remove();
+      final double windowEnd = first.time() + this.lookahead;
+      window.add( first );
+      while ( queue.size() != 0 ) {
+        final SimEvent event = queue.remove();
+        if ( event.time() >= windowEnd ) {
+          queue.add( event );
+          break;
+        }
+        window.add( event );
+      }
+
+      if ( window.size() < this.minParallelWindow ) {
+        eventCount += window.size();
+        for ( final SimEvent event : window ) {
+          if ( metrics != null ) {
+            metrics.event( event.getClass(), queue.size(), event.time() );
+          }
+          SinkEvent.process( event, context );
+        }
+      } else {
+        eventCount += this.processParallel( context, window, windowEnd, parallelism );
+      }
+      window.clear();
+    }
+    return eventCount;
+  }
+
+  @Override
+  public final int size() {
+    return this.queue.size();
+  }
+
+  @Override
+  public final void close() {
+    this.queue.close();
+  }
+
+  @Override
+  public final void schedule( final SimEvent event ) {
+    if ( event instanceof CreateLeaderEvent ) {
+      this.lookahead = Math.min( this.lookahead,
+          ( ( CreateLeaderEvent ) event ).minTransmitTime() );
+    }
+    this.queue.add( event );
+  }
+
+  @Override
+  public final void scheduleReception(
+      final double time,
+      final int node,
+      final int from,
+      final int channel ) {
+    this.queue.scheduleReception( time, node, from, channel );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private static int parallelism() {
+    return ForkJoinTask.inForkJoinPool()
+        ? ForkJoinTask.getPool().getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+  }
+
+  private long processParallel(
+      final SimContext context,
+      final List <SimEvent> window,
+      final double windowEnd,
+      final int parallelism ) {
+    final int chunkCount = Math.max( 1, Math.min( parallelism * 4,
+        window.size() / this.minParallelWindow ) );
+
+    final List <Chunk> chunks = new ArrayList<>( chunkCount );
+    for ( int i = 0; i < chunkCount; i++ ) {
+      final int from = ( int ) ( ( long ) window.size() * i / chunkCount );
+      final int to = ( int ) ( ( long ) window.size() * ( i + 1 ) / chunkCount );
+      chunks.add( new Chunk( window.subList( from, to ), windowEnd, context.clientPool(),
+          context.metrics() ) );
+    }
+    if ( ForkJoinTask.inForkJoinPool() ) {
+      ForkJoinTask.invokeAll( chunks );
+    } else {
+      ForkJoinPool.commonPool().invoke( new RecursiveAction() {
+        @Override
+        protected void compute() {
+          ForkJoinTask.invokeAll( chunks );
+        }
+      } );
+    }
+
+    // Merge in chunk order
+    final List <Stats> parts = new ArrayList<>( chunkCount );
+    long eventCount = 0;
+    for ( final Chunk chunk : chunks ) {
+      parts.add( chunk.stats );
+      eventCount += chunk.eventCount;
+    }
+    context.stats().merge( parts );
+    for ( final Chunk chunk : chunks ) {
+      this.queue.addAll( chunk.created );
+    }
+    return eventCount;
+  }
+
+  /**
+   * Task that processes a part of a window.
+   */
+  private static final class Chunk
+  extends RecursiveAction
+  implements SimContext {
+    private static final long serialVersionUID = 1L;
+
+    private final List <SimEvent> events;
+    private final double windowEnd;
+    private final ClientPool clientPool;
+    private final EngineMetrics metrics;
+    private final Stats stats = new Stats();
+    /** Created events that are inside the window */
+    private final EventQueue local = new HeapEventQueue();
+    /** Created events that are past the window */
+    private final List <SimEvent> created = new ArrayList<>();
+    private long eventCount;
+
+    private Chunk(
+        final List <SimEvent> events,
+        final double windowEnd,
+        final ClientPool clientPool,
+        final EngineMetrics metrics ) {
+      this.events = events;
+      this.windowEnd = windowEnd;
+      this.clientPool = clientPool;
+      this.metrics = metrics;
+    }
+
+    @Override
+    protected final void compute() {
+      final EventQueue local = this.local;
+      final EngineMetrics metrics = this.metrics;
+      local.addAll( this.events );
+      long eventCount = 0;
+      while ( local.size() != 0 ) {
+        eventCount++;
+        final SimEvent event = local.remove();
+        if ( metrics != null ) {
+          metrics.event( event.getClass(), local.size(), event.time() );
+        }
+        SinkEvent.process( event, this );
+      }
+      this.eventCount = eventCount;
+    }
+
+    @Override
+    public final Stats stats() {
+      return this.stats;
+    }
+
+    @Override
+    public final ClientPool clientPool() {
+      return this.clientPool;
+    }
+
+    @Override
+    public final EngineMetrics metrics() {
+      return this.metrics;
+    }
+
+    @Override
+    public final void schedule( final SimEvent event ) {
+      if ( event.time() < this.windowEnd ) {
+        this.local.add( event );
+      } else {
+        this.created.add( event );
+      }
+    }
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,189 @@
+package de.tum.in.cm.java.dissim.events;
+
+import de.tum.in.cm.java.dissim.ClientSet;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SinkEvent;
+import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.jfr.BatchDisseminationEvent;
+import de.tum.in.cm.java.dissim.jfr.FlightRecording;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Run of receptions by the clients {@code clients[first..end)} from a single
+ * node on a single channel. The reception by {@code clients[k]} happens at
+ * {@code baseTime + (k + 1) * period}, so sequential dissemination uses the
+ * transmission time as the period, and concurrent dissemination uses a zero
+ * period with the common finish time as the base time.
+ *
+ * <p>The batch is expanded lazily: every time it is processed it records the
+ * reception by the next client and reschedules itself for the one after
+ * that. This keeps a single pending event per batch instead of one per
+ * client. Instances are therefore mutable and must only be scheduled once at
+ * a time.</p>
+ *
+ * @author teemuk
+ */
+public final class BatchReceptionEvent
+implements SinkEvent {
+
+  private final ClientSet clients;
+  private final int first;
+  private final int end;
+  private final int from;
+  private final int channel;
+  private final double baseTime;
+  private final double period;
+
+  /** Index of the next client to receive */
+  private int next;
+  private double time;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Creates a new batch. The range must not be empty.
+   *
+   * @param clients
+   *    Clients, of which {@code clients[first..end)} are in this batch.
+   * @param first
+   *    Index of the first client in the batch.
+   * @param end
+   *    Index one past the last client in the batch.
+   * @param from
+   *    Transmitting node.
+   * @param channel
+   *    Channel used for the transmissions.
+   * @param baseTime
+   *    Base time of the receptions.
+   * @param period
+   *    Time between consecutive receptions, zero if all happen at once.
+   */
+  public BatchReceptionEvent(
+      final ClientSet clients,
+      final int first,
+      final int end,
+      final int from,
+      final int channel,
+      final double baseTime,
+      final double period ) {
+    if ( first >= end ) {
+      throw new IllegalArgumentException( "batch must not be empty" );
+    }
+    this.clients = clients;
+    this.first = first;
+    this.end = end;
+    this.from = from;
+    this.channel = channel;
+    this.baseTime = baseTime;
+    this.period = period;
+
+    this.next = first;
+    this.time = this.receptionTime( first );
+  }
+
+  /**
+   * Records the reception by the next client in the batch and advances the
+   * batch to the client after it.
+   *
+   * @param stats
+   *    Statistics to record the reception into.
+   * @return
+   *    {@code true} if there are clients left in the batch, in which case
+   *    the batch must be rescheduled at its new {@link #time()}.
+   */
+  public final boolean receiveNext( final Stats stats ) {
+    stats.recordReception( this.time, this.from, this.clients.get( this.next ), this.channel );
+    this.next++;
+    if ( this.next < this.end ) {
+      this.time = this.receptionTime( this.next );
+      return true;
+    }
+    if ( !FlightRecording.active() ) {
+      return false;
+    }
+    final BatchDisseminationEvent batch = new BatchDisseminationEvent();
+    if ( batch.shouldCommit() ) {
+      batch.node = this.from;
+      batch.channel = this.channel;
+      batch.clients = this.end - this.first;
+      batch.firstReception = this.receptionTime( this.first );
+      batch.lastReception = this.time;
+      batch.commit();
+    }
+    return false;
+  }
+
+  public final int remaining() {
+    return this.end - this.next;
+  }
+
+  public final int from() {
+    return this.from;
+  }
+
+  public final int channel() {
+    return this.channel;
+  }
+
+  @Override
+  public final String toString() {
+    return "" + this.time + ": BatchReceptionEvent: from = " + this.from
+        + ", channel = " + this.channel + ", remaining = " + this.remaining();
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // SinkEvent
+  //==============================================================================================//
+  @Override
+  public final double time() {
+    return this.time;
+  }
+
+  @Override
+  public final void process( final SimContext context ) {
+    if ( this.receiveNext( context.stats() ) ) {
+      context.schedule( this );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private double receptionTime( final int index ) {
+    return this.baseTime + ( ( index + 1 ) * this.period );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Checkpoint
+  //==============================================================================================//
+  final void write( final DataOutput out ) throws IOException {
+    EventCodec.writeClients( out, this.clients );
+    out.writeInt( this.first );
+    out.writeInt( this.end );
+    out.writeInt( this.from );
+    out.writeInt( this.channel );
+    out.writeDouble( this.baseTime );
+    out.writeDouble( this.period );
+    out.writeInt( this.next );
+  }
+
+  static BatchReceptionEvent read( final DataInput in ) throws IOException {
+    final BatchReceptionEvent batch = new BatchReceptionEvent( EventCodec.readClients( in ),
+        in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readDouble(),
+        in.readDouble() );
+    batch.next = in.readInt();
+    batch.time = batch.receptionTime( batch.next );
+    return batch;
+  }
+  //==============================================================================================//
+}
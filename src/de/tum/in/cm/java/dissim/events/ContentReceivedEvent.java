@@ -1,16 +1,17 @@
 package de.tum.in.cm.java.dissim.events;
 
-import de.tum.in.cm.java.dissim.SimEvent;
-import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SinkEvent;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * @author teemuk
  */
 public final class ContentReceivedEvent
-implements SimEvent {
+implements SinkEvent {
 
   private final double time;
   private final int node;
@@ -31,6 +32,18 @@ implements SimEvent {
     this.channel = channel;
   }
 
+  public final int node() {
+    return this.node;
+  }
+
+  public final int from() {
+    return this.from;
+  }
+
+  public final int channel() {
+    return this.channel;
+  }
+
   @Override
   public final String toString() {
     return "" + this.time + ": ContentReceivedEvent: node = " + this.node
@@ -39,7 +52,7 @@ implements SimEvent {
   //==============================================================================================//
 
   //==============================================================================================//
-  // SimEvent
+  // SinkEvent
   //==============================================================================================//
   @Override
   public double time() {
@@ -47,15 +60,27 @@ implements SimEvent {
   }
 
   @Override
-  public Collection <SimEvent> process() {
+  public void process( final SimContext context ) {
 //    System.out.println( "" + this.time + ": Client node " + this.node + " "
 //        + "received content on " + "channel " + this.channel + "" );
 
-    final Stats.Reception stats = new Stats.Reception( this.time, this.from,
-        this.node, this.channel );
-    Stats.RECEPTIONS.add( stats );
+    context.stats().recordReception( this.time, this.from, this.node, this.channel );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Checkpoint
+  //==============================================================================================//
+  final void write( final DataOutput out ) throws IOException {
+    out.writeDouble( this.time );
+    out.writeInt( this.node );
+    out.writeInt( this.from );
+    out.writeInt( this.channel );
+  }
 
-    return Collections.emptyList();
+  static ContentReceivedEvent read( final DataInput in ) throws IOException {
+    return new ContentReceivedEvent( in.readDouble(), in.readInt(), in.readInt(), in.readInt() );
   }
   //==============================================================================================//
 }
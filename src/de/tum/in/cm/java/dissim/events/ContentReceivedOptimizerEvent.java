@@ -1,11 +1,12 @@
 package de.tum.in.cm.java.dissim.events;
 
 import de.tum.in.cm.java.dissim.Algorithm;
-import de.tum.in.cm.java.dissim.SimEvent;
-import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SinkEvent;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Used to simulate the optimal dissemination where each active channel will
@@ -14,12 +15,7 @@ import java.util.Collections;
  * @author teemuk
  */
 public final class ContentReceivedOptimizerEvent
-implements SimEvent {
-
-  /** Unserved clients */
-  public static int[] CLIENTS;
-  /** Position in the unserved clients array */
-  public static int CLIENT_POS;
+implements SinkEvent {
 
   private final double time;
   private final int node;
@@ -55,30 +51,35 @@ implements SimEvent {
         + ", channel = " + this.channel;
   }
 
-  public static boolean hasClients() {
-    return ( CLIENT_POS < CLIENTS.length );
+  public final int node() {
+    return this.node;
+  }
+
+  public final int from() {
+    return this.from;
   }
 
-  public static int nextClient() {
-    final int nextClient = CLIENTS[ CLIENT_POS ];
-    CLIENT_POS++;
-    return nextClient;
+  public final int channel() {
+    return this.channel;
   }
 
-  public static int clientsLeft() {
-    return CLIENTS.length - CLIENT_POS;
+  /**
+   * Time to transmit the content to one client on this channel.
+   *
+   * @return
+   *    Content size divided by channel capacity.
+   */
+  public final double transmitTime() {
+    return this.contentSize / this.channelCapacity;
   }
 
-  public static int[] getClients( final int count ) {
-    final int[] ret = new int[ count ];
-    System.arraycopy( CLIENTS, CLIENT_POS, ret, 0, count );
-    CLIENT_POS += count;
-    return ret;
+  public final Algorithm.DisseminationStrategy disseminationStrategy() {
+    return this.disseminationStrategy;
   }
   //==============================================================================================//
 
   //==============================================================================================//
-  // SimEvent
+  // SinkEvent
   //==============================================================================================//
   @Override
   public double time() {
@@ -86,31 +87,45 @@ implements SimEvent {
   }
 
   @Override
-  public Collection <SimEvent> process() {
+  public void process( final SimContext context ) {
 //    System.out.println( "Client node " + this.node + " received content on "
 //        + "channel " + this.channel + "" );
 
     // Record statistics
-    final Stats.Reception stats = new Stats.Reception( this.time, this.from,
-        this.node, this.channel );
-    Stats.RECEPTIONS.add( stats );
-
-    Stats.CLIENT_RECEPTIONS.add( stats );
+    context.stats().recordClientReception( this.time, this.from, this.node, this.channel );
 
     // If sequential dissemination, start the next client transfer on this channel.
     if ( this.disseminationStrategy == Algorithm.DisseminationStrategy.SEQUENTIAL
-          && hasClients() ) {
-      final int nextClient = nextClient();
+          && context.clientPool().hasClients() ) {
+      final int nextClient = context.clientPool().nextClient();
 
       final double nextTime = this.time
           + this.contentSize / this.channelCapacity;
       final ContentReceivedOptimizerEvent nextEvent = new ContentReceivedOptimizerEvent(
           nextTime, nextClient, this.from, this.channel, this.contentSize, this.channelCapacity,
           this.disseminationStrategy );
-      return Collections.singleton( nextEvent );
+      context.schedule( nextEvent );
     }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Checkpoint
+  //==============================================================================================//
+  final void write( final DataOutput out ) throws IOException {
+    out.writeDouble( this.time );
+    out.writeInt( this.node );
+    out.writeInt( this.from );
+    out.writeInt( this.channel );
+    out.writeDouble( this.contentSize );
+    out.writeDouble( this.channelCapacity );
+    EventCodec.writeStrategy( out, this.disseminationStrategy );
+  }
 
-    return Collections.emptyList();
+  static ContentReceivedOptimizerEvent read( final DataInput in ) throws IOException {
+    return new ContentReceivedOptimizerEvent( in.readDouble(), in.readInt(), in.readInt(),
+        in.readInt(), in.readDouble(), in.readDouble(), EventCodec.readStrategy( in ) );
   }
   //==============================================================================================//
 }
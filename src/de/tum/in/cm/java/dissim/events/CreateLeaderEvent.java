@@ -1,13 +1,18 @@
 package de.tum.in.cm.java.dissim.events;
 
 import de.tum.in.cm.java.dissim.Algorithm;
+import de.tum.in.cm.java.dissim.ClientSet;
+import de.tum.in.cm.java.dissim.DoubleSlice;
+import de.tum.in.cm.java.dissim.IntSlice;
 import de.tum.in.cm.java.dissim.Main;
-import de.tum.in.cm.java.dissim.SimEvent;
-import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SinkEvent;
+import de.tum.in.cm.java.dissim.jfr.FlightRecording;
+import de.tum.in.cm.java.dissim.jfr.LeaderActivationEvent;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * This event corresponds to the Node.Distribute() algorithm.
@@ -15,16 +20,18 @@ import java.util.List;
  * @author teemuk
  */
 public final class CreateLeaderEvent
-implements SimEvent {
+implements SinkEvent {
 
   private final double time;
   private final int channel;
   private final int node;
   private final double channelCapacity;
-  private final int[] clients;
-  private final int[] additionalChannels;
-  private final double[] additionalChannelCapacities;
+  private final ClientSet clients;
+  private final IntSlice additionalChannels;
+  private final DoubleSlice additionalChannelCapacities;
   private final Main.Args args;
+  /** Depth in the leader tree, zero for the source */
+  private final int depth;
 
   private final double transmitTime;
 
@@ -40,6 +47,41 @@ implements SimEvent {
       final int[] additionalChannels,
       final double[] additionalChannelCapacities,
       final Main.Args args ) {
+    this( time, node, channel, channelCapacity, ClientSet.of( clients ),
+        IntSlice.of( additionalChannels ), DoubleSlice.of( additionalChannelCapacities ), args );
+  }
+
+  /**
+   * Creates a new leader event over views of the clients and channels. The
+   * views are not copied, so the whole leader tree can share the arrays of
+   * the initial event, or a single implicit client range.
+   */
+  public CreateLeaderEvent(
+      final double time,
+      final int node,
+      final int channel,
+      final double channelCapacity,
+      final ClientSet clients,
+      final IntSlice additionalChannels,
+      final DoubleSlice additionalChannelCapacities,
+      final Main.Args args ) {
+    this( time, node, channel, channelCapacity, clients, additionalChannels,
+        additionalChannelCapacities, args, 0 );
+  }
+
+  /**
+   * Creates a new leader event at the given depth of the leader tree.
+   */
+  public CreateLeaderEvent(
+      final double time,
+      final int node,
+      final int channel,
+      final double channelCapacity,
+      final ClientSet clients,
+      final IntSlice additionalChannels,
+      final DoubleSlice additionalChannelCapacities,
+      final Main.Args args,
+      final int depth ) {
     this.time = time;
     this.node = node;
     this.channel = channel;
@@ -48,10 +90,58 @@ implements SimEvent {
     this.additionalChannels = additionalChannels;
     this.additionalChannelCapacities = additionalChannelCapacities;
     this.args = args;
+    this.depth = depth;
 
     this.transmitTime = args.contentSize / channelCapacity;
   }
 
+  public final int node() {
+    return this.node;
+  }
+
+  public final int channel() {
+    return this.channel;
+  }
+
+  public final double channelCapacity() {
+    return this.channelCapacity;
+  }
+
+  /**
+   * Clients in the subtree of this leader.
+   */
+  public final ClientSet clients() {
+    return this.clients;
+  }
+
+  public final IntSlice additionalChannels() {
+    return this.additionalChannels;
+  }
+
+  public final DoubleSlice additionalChannelCapacities() {
+    return this.additionalChannelCapacities;
+  }
+
+  public final Main.Args args() {
+    return this.args;
+  }
+
+  /**
+   * Shortest transmit time on the channels of this leader, which bounds the
+   * transmit times of all leaders in its subtree.
+   */
+  public final double minTransmitTime() {
+    double maxCapacity = this.channelCapacity;
+    for ( int i = 0; i < this.additionalChannelCapacities.length(); i++ ) {
+      maxCapacity = Math.max( maxCapacity, this.additionalChannelCapacities.get( i ) );
+    }
+    return this.args.contentSize / maxCapacity;
+  }
+
+  public final int depth() {
+    return this.depth;
+  }
+
   @Override
   public final String toString() {
     return "" + this.time + ": CreateLeaderEvent: node = " + this.node
@@ -61,7 +151,7 @@ implements SimEvent {
 
 
   //==============================================================================================//
-  // SimEvent
+  // SinkEvent
   //==============================================================================================//
   @Override
   public final double time() {
@@ -69,165 +159,300 @@ implements SimEvent {
   }
 
   @Override
-  public final Collection <SimEvent> process() {
+  public final void process( final SimContext context ) {
 //    System.out.println( "Node " + this.node + " started as leader on channel "
 //      + this.channel + ". Additional channels: "
 //        + this.additionalChannels.length + ", clients: "
 //        + this.clients.length );
 
-    Stats.LEADER_ACTIVATIONS.add(
-        new Stats.LeaderActivation( this.time, this.node ) );
+    final LeaderActivationEvent activation
+        = FlightRecording.active() ? new LeaderActivationEvent() : null;
+    if ( activation != null ) {
+      activation.begin();
+    }
 
-    final Collection <SimEvent> nextEvents = new ArrayList<>();
+    context.stats().recordLeaderActivation( this.time, this.node, this.depth );
 
-    final int[][] clientSplit = this.getLocalSplit();
-    final int[] followers = clientSplit[ 0 ];
-    int[] localClients = clientSplit[ 1 ];
+    final Split split = this.split();
+    final ClientSet localClients = split.localClients;
+    final int branchingFactor = split.branchingFactor;
 
 //    System.out.println( "  local clients: " + localClients.length );
 
-    final int branchingFactor = Algorithm.branchingFactor(
-        this.args.branchingFactor, this.additionalChannels.length,
-        followers.length );
-
     // Recursive step
     if ( branchingFactor > 0 ) {
-      // Divide the resources into sets
-      final int[][] channelSets
-          = Algorithm.divide( this.additionalChannels, branchingFactor );
-      final double[][] channelCapSets
-          = Algorithm.divide( this.additionalChannelCapacities, branchingFactor );
-
-      // Divide the followers into sets
-      final int[][] nodeSets;
-      if ( this.args.followerDivisionStrategy == Algorithm.FollowerDivisionStrategy.NAIVE ) {
-        nodeSets = Algorithm.divide( followers, branchingFactor );
-      } else if ( this.args.followerDivisionStrategy
-                  == Algorithm.FollowerDivisionStrategy.COUNT_WEIGHTED ) {
-        final double[] divisionWeights = Algorithm.calculateWeights( channelSets );
-        nodeSets = Algorithm.divideWeighted( followers, divisionWeights );
-      } else {
-        nodeSets = new int[0][0];
-        System.err.println( "Unknown follower division strategy ("
-            + this.args.followerDivisionStrategy + ")" );
-        System.exit( 1 );
-      }
-
       // Recursive step for every follower/resource set
       for ( int i = 0; i < branchingFactor; i++ ) {
-        final int[] channelSet = channelSets[ i ];
-        final int[] nodeSet = nodeSets[ i ];
-        final double[] channelCapsSet = channelCapSets[ i ];
-
-        // Pick leaders from the local client set
-        final int nextLeader = localClients[ i ];
-        final int nextChannel = channelSet[ 0 ];
-        final double nextCapacity = channelCapsSet[ 0 ];
-
-        // Follower set is just the full node set
-        final int[] nextFollowers = nodeSet;
-        // Pop the next channel from the sets
-        final int[] nextChannels = new int[ channelSet.length - 1 ];
-        System.arraycopy( channelSet, 1, nextChannels, 0, nextChannels.length );
-        final double[] nextChannelCaps = new double[ channelCapsSet.length - 1 ];
-        System.arraycopy( channelCapsSet, 1, nextChannelCaps, 0, nextChannelCaps.length );
-
-        // Calculate the time when this leader will be activated
-        final double eventTime = this.time + ( ( i + 1 ) * this.transmitTime );
+        final CreateLeaderEvent recursiveEvent = this.child( split, i );
 
         // Content transfer to the next leader
-        final ContentReceivedEvent receivedEvent = new ContentReceivedEvent(
-            eventTime, nextLeader, this.node, this.channel );
-        nextEvents.add( receivedEvent );
+        context.scheduleReception( this.leaderReceptionTime( i ), recursiveEvent.node,
+            this.node, this.channel );
 
         // Recursive call
-        final CreateLeaderEvent recursiveEvent = new CreateLeaderEvent(
-            eventTime + this.args.activationDelay, nextLeader, nextChannel, nextCapacity,
-            nextFollowers, nextChannels, nextChannelCaps, this.args );
-        nextEvents.add( recursiveEvent );
+        context.schedule( recursiveEvent );
       }
     } else {
-      if ( followers.length > 0 ) {
-        System.err.println( "Branching factor zero, while followers are not zero." );
-        // Since we're not branching, we need to serve all clients directly.
-        localClients = this.clients;
-        System.exit( 0 );
+      if ( split.followers.length() > 0 ) {
+        throw new IllegalStateException( "Branching factor zero, while followers are not zero." );
       }
     }
 
     // Local clients. I.e., the clients that were not picked as leaders for
     // the recursive calls.
-    final double clientStartTime
-        = this.time + branchingFactor * this.transmitTime;
+    final double clientStartTime = this.clientStartTime( branchingFactor );
     if ( this.args.dissStrategy == Algorithm.DisseminationStrategy.SEQUENTIAL ) {
-      nextEvents.addAll( this.sequentialDissemination( clientStartTime, localClients,
-          branchingFactor ) );
+      this.sequentialDissemination( context, clientStartTime, localClients, branchingFactor );
     } else if ( this.args.dissStrategy == Algorithm.DisseminationStrategy.CONCURRENT ) {
-      nextEvents.addAll( this.concurrentDissemination( clientStartTime, localClients,
-          branchingFactor ) );
+      this.concurrentDissemination( context, clientStartTime, localClients, branchingFactor );
     } else {
       throw new RuntimeException( "Invalid dissemination strategy" );
     }
 
-    // Return events
-    return nextEvents;
+    if ( activation != null && activation.shouldCommit() ) {
+      activation.simulatedTime = this.time;
+      activation.node = this.node;
+      activation.channel = this.channel;
+      activation.depth = this.depth;
+      activation.channels = this.additionalChannels.length() + 1;
+      activation.childLeaders = branchingFactor;
+      activation.subtreeClients = this.clients.length();
+      activation.localClients = Math.max( 0, localClients.length() - branchingFactor );
+      activation.commit();
+    }
+  }
+  //==============================================================================================//
+
+  //==============================================================================================//
+  // Split
+  //==============================================================================================//
+  /**
+   * Division of the clients and channels of a leader among its child
+   * leaders and its local clients.
+   */
+  public static final class Split {
+    /** Clients that are served by the child leaders */
+    public final ClientSet followers;
+    /** Clients served directly, the first {@code branchingFactor} become child leaders */
+    public final ClientSet localClients;
+    public final int branchingFactor;
+    /** Followers of each child leader */
+    public final ClientSet[] nodeSets;
+    /** Channels of each child leader, the first one is the child's own channel */
+    public final IntSlice[] channelSets;
+    public final DoubleSlice[] channelCapSets;
+
+    private Split(
+        final ClientSet followers,
+        final ClientSet localClients,
+        final int branchingFactor,
+        final ClientSet[] nodeSets,
+        final IntSlice[] channelSets,
+        final DoubleSlice[] channelCapSets ) {
+      this.followers = followers;
+      this.localClients = localClients;
+      this.branchingFactor = branchingFactor;
+      this.nodeSets = nodeSets;
+      this.channelSets = channelSets;
+      this.channelCapSets = channelCapSets;
+    }
+  }
+
+  /**
+   * Divides the clients and channels of this leader. Depends only on the
+   * sizes of the sets, not on the node and channel IDs or the time.
+   */
+  public final Split split() {
+    final ClientSet[] clientSplit = this.getLocalSplit();
+    final ClientSet followers = clientSplit[ 0 ];
+    final ClientSet localClients = clientSplit[ 1 ];
+
+    final int branchingFactor = Algorithm.branchingFactor(
+        this.args.branchingFactor, this.additionalChannels.length(),
+        followers.length() );
+    if ( branchingFactor <= 0 ) {
+      return new Split( followers, localClients, branchingFactor, new ClientSet[ 0 ],
+          new IntSlice[ 0 ], new DoubleSlice[ 0 ] );
+    }
+
+    // Divide the resources into sets
+    final IntSlice[] channelSets
+        = Algorithm.divide( this.additionalChannels, branchingFactor );
+    final DoubleSlice[] channelCapSets
+        = Algorithm.divide( this.additionalChannelCapacities, branchingFactor );
+
+    // Divide the followers into sets
+    final ClientSet[] nodeSets;
+    if ( this.args.followerDivisionStrategy == Algorithm.FollowerDivisionStrategy.NAIVE ) {
+      nodeSets = Algorithm.divide( followers, branchingFactor );
+    } else if ( this.args.followerDivisionStrategy
+                == Algorithm.FollowerDivisionStrategy.COUNT_WEIGHTED ) {
+      final double[] divisionWeights = Algorithm.calculateWeights( channelSets );
+      nodeSets = Algorithm.divideWeighted( followers, divisionWeights );
+    } else {
+      throw new IllegalStateException( "Unknown follower division strategy ("
+          + this.args.followerDivisionStrategy + ")" );
+    }
+
+    return new Split( followers, localClients, branchingFactor, nodeSets, channelSets,
+        channelCapSets );
+  }
+
+  /**
+   * Creates the event for the {@code i}th child leader of the split.
+   */
+  public final CreateLeaderEvent child(
+      final Split split,
+      final int i ) {
+    final IntSlice channelSet = split.channelSets[ i ];
+    final DoubleSlice channelCapsSet = split.channelCapSets[ i ];
+
+    // Pick leaders from the local client set
+    final int nextLeader = split.localClients.get( i );
+    final int nextChannel = channelSet.get( 0 );
+    final double nextCapacity = channelCapsSet.get( 0 );
+    // Follower set is just the full node set
+    final ClientSet nextFollowers = split.nodeSets[ i ];
+    // Pop the next channel from the sets
+    final IntSlice nextChannels = channelSet.slice( 1, channelSet.length() );
+    final DoubleSlice nextChannelCaps = channelCapsSet.slice( 1, channelCapsSet.length() );
+
+    // Calculate the time when this leader will be activated
+    return new CreateLeaderEvent(
+        this.leaderReceptionTime( i ) + this.args.activationDelay, nextLeader, nextChannel,
+        nextCapacity, nextFollowers, nextChannels, nextChannelCaps, this.args, this.depth + 1 );
+  }
+
+  /**
+   * Time when the {@code i}th child leader has received the content.
+   */
+  public final double leaderReceptionTime( final int i ) {
+    return this.time + ( ( i + 1 ) * this.transmitTime );
+  }
+
+  /**
+   * Time when the transmissions to the local clients start.
+   */
+  public final double clientStartTime( final int branchingFactor ) {
+    return this.time + branchingFactor * this.transmitTime;
+  }
+
+  /**
+   * Time when the {@code i}th local client has received the content in a
+   * sequential transmission.
+   */
+  public final double sequentialReceptionTime(
+      final double startTime,
+      final int i ) {
+    return startTime + ( ( i + 1 ) * this.transmitTime );
+  }
+
+  /**
+   * Time when a concurrent transmission to {@code count} clients completes.
+   */
+  public final double concurrentFinishTime(
+      final double startTime,
+      final int count ) {
+    return startTime + count * this.args.contentSize / this.channelCapacity;
   }
   //==============================================================================================//
 
+
   //==============================================================================================//
   // Private
   //==============================================================================================//
-  private int[][] getLocalSplit() {
+  private ClientSet[] getLocalSplit() {
     if ( this.args.localSplitStrategy == Algorithm.LocalSplitStrategy.NAIVE ) {
-      return Algorithm.selectFollowersApprox( this.clients, this.additionalChannels.length,
+      return Algorithm.selectFollowersApprox( this.clients, this.additionalChannels.length(),
           this.args.branchingFactor /* leaders come from local clients */ );
     } else if ( this.args.localSplitStrategy
         == Algorithm.LocalSplitStrategy.SWITCH_DELAY_CORRECTED ) {
       return Algorithm.selectFollowersWithSwitchDelay(
-          this.clients, this.additionalChannels.length,
+          this.clients, this.additionalChannels.length(),
           this.args.branchingFactor /* leaders come from local clients */,
           this.args.activationDelay, this.transmitTime );
     } else {
-      System.err.println( "Unknown local split strategy (" + this.args.localSplitStrategy + ")" );
-      System.exit( 1 );
+      throw new IllegalStateException( "Unknown local split strategy ("
+          + this.args.localSplitStrategy + ")" );
     }
-    return new int[0][0];
   }
 
-  private List <SimEvent> sequentialDissemination(
+  private void sequentialDissemination(
+      final SimContext context,
       final double startTime,
-      final int[] localClients,
+      final ClientSet localClients,
       final int firstClient ) {
-    final List <SimEvent> events
-        = new ArrayList<>( localClients.length - firstClient );
-    for ( int i = firstClient; i < localClients.length; i++ ) {
-      final int client = localClients[ i ];
-      final double eventTime = startTime + ( ( i + 1 ) * this.transmitTime );
-      final ContentReceivedEvent receivedEvent = new ContentReceivedEvent(
-          eventTime, client, this.node, this.channel );
-      events.add( receivedEvent );
+    if ( this.args.batchReceptions ) {
+      if ( firstClient < localClients.length() ) {
+        context.schedule( new BatchReceptionEvent( localClients, firstClient, localClients.length(),
+            this.node, this.channel, startTime, this.transmitTime ) );
+      }
+      return;
+    }
+
+    if ( firstClient < localClients.length() ) {
+      context.scheduleSorted( new ReceptionRun( localClients, firstClient,
+          localClients.length(), this.node, this.channel, startTime, this.transmitTime ) );
     }
-    return events;
   }
 
-  private List <SimEvent> concurrentDissemination(
+  private void concurrentDissemination(
+      final SimContext context,
       final double startTime,
-      final int[] localClients,
+      final ClientSet localClients,
       final int firstClient  ) {
-    final double finishTime = startTime
-        + localClients.length * this.args.contentSize / this.channelCapacity;
-    final List <SimEvent> events
-        = new ArrayList<>( localClients.length - firstClient );
-    for ( int i = firstClient; i < localClients.length; i++ ) {
-      final int client = localClients[ i ];
-      final double eventTime = finishTime;
-      final ContentReceivedEvent receivedEvent = new ContentReceivedEvent(
-          eventTime, client, this.node, this.channel );
-      events.add( receivedEvent );
+    final double finishTime = this.concurrentFinishTime( startTime, localClients.length() );
+    if ( this.args.batchReceptions ) {
+      if ( firstClient < localClients.length() ) {
+        context.schedule( new BatchReceptionEvent( localClients, firstClient, localClients.length(),
+            this.node, this.channel, finishTime, 0.0 ) );
+      }
+      return;
+    }
+
+    for ( int i = firstClient; i < localClients.length(); i++ ) {
+      final int client = localClients.get( i );
+      context.scheduleReception( finishTime, client, this.node, this.channel );
     }
-    return events;
   }
   //==============================================================================================//
 
 
+
+
+  //==============================================================================================//
+  // Checkpoint
+  //==============================================================================================//
+  final void write( final DataOutput out ) throws IOException {
+    out.writeDouble( this.time );
+    out.writeInt( this.node );
+    out.writeInt( this.channel );
+    out.writeDouble( this.channelCapacity );
+    EventCodec.writeClients( out, this.clients );
+    EventCodec.writeInts( out, this.additionalChannels.toArray() );
+    final double[] capacities = this.additionalChannelCapacities.toArray();
+    out.writeInt( capacities.length );
+    for ( final double capacity : capacities ) {
+      out.writeDouble( capacity );
+    }
+    out.writeInt( this.depth );
+  }
+
+  static CreateLeaderEvent read(
+      final DataInput in,
+      final Main.Args args ) throws IOException {
+    final double time = in.readDouble();
+    final int node = in.readInt();
+    final int channel = in.readInt();
+    final double channelCapacity = in.readDouble();
+    final ClientSet clients = EventCodec.readClients( in );
+    final int[] additionalChannels = EventCodec.readInts( in );
+    final double[] capacities = new double[ in.readInt() ];
+    for ( int i = 0; i < capacities.length; i++ ) {
+      capacities[ i ] = in.readDouble();
+    }
+    return new CreateLeaderEvent( time, node, channel, channelCapacity, clients,
+        IntSlice.of( additionalChannels ), DoubleSlice.of( capacities ), args, in.readInt() );
+  }
+  //==============================================================================================//
 }
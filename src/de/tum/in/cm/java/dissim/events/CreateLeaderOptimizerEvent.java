@@ -1,12 +1,17 @@
 package de.tum.in.cm.java.dissim.events;
 
 import de.tum.in.cm.java.dissim.Algorithm;
+import de.tum.in.cm.java.dissim.ClientSet;
+import de.tum.in.cm.java.dissim.IntSlice;
 import de.tum.in.cm.java.dissim.Main;
-import de.tum.in.cm.java.dissim.SimEvent;
-import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SinkEvent;
+import de.tum.in.cm.java.dissim.jfr.FlightRecording;
+import de.tum.in.cm.java.dissim.jfr.LeaderActivationEvent;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * This event corresponds to the Node.Distribute() algorithm.
@@ -14,16 +19,18 @@ import java.util.Collection;
  * @author teemuk
  */
 public final class CreateLeaderOptimizerEvent
-implements SimEvent {
+implements SinkEvent {
 
   private final double time;
   private final int channel;
   private final int node;
   private final double channelCapacity;
-  private final int[] additionalChannels;
+  private final IntSlice additionalChannels;
   private final Algorithm.DisseminationStrategy disseminationStrategy;
   private final int[] channelClientCounts;
   private final Main.Args args;
+  /** Depth in the leader tree, zero for the source */
+  private final int depth;
 
   private final double transmitTime;
 
@@ -38,6 +45,7 @@ implements SimEvent {
    * @param channel
    * @param channelCapacity
    * @param additionalChannels
+   *    View of the additional channels, not copied.
    * @param args
    */
   public CreateLeaderOptimizerEvent(
@@ -45,19 +53,10 @@ implements SimEvent {
       final int node,
       final int channel,
       final double channelCapacity,
-      final int[] additionalChannels,
+      final IntSlice additionalChannels,
       final Main.Args args ) {
-    this.time = time;
-    this.node = node;
-    this.channel = channel;
-    this.channelCapacity = channelCapacity;
-    this.additionalChannels = additionalChannels;
-    this.args = args;
-
-    this.disseminationStrategy = Algorithm.DisseminationStrategy.SEQUENTIAL;
-    this.channelClientCounts = null;
-
-    this.transmitTime = args.contentSize / channelCapacity;
+    this( time, node, channel, channelCapacity, additionalChannels, args,
+        Algorithm.DisseminationStrategy.SEQUENTIAL, null, 0 );
   }
 
   /**
@@ -70,6 +69,7 @@ implements SimEvent {
    * @param channel
    * @param channelCapacity
    * @param additionalChannels
+   *    View of the additional channels, not copied.
    * @param args
    * @param channelClientCounts
    */
@@ -78,32 +78,51 @@ implements SimEvent {
       final int node,
       final int channel,
       final double channelCapacity,
-      final int[] additionalChannels,
+      final IntSlice additionalChannels,
       final Main.Args args,
       final int[] channelClientCounts ) {
+    this( time, node, channel, channelCapacity, additionalChannels, args,
+        Algorithm.DisseminationStrategy.CONCURRENT, channelClientCounts, 0 );
+  }
+
+  @Override
+  public final String toString() {
+    return "" + this.time + ": CreateLeaderEvent: node = " + this.node
+        + ", channel = " + this.channel;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private CreateLeaderOptimizerEvent(
+      final double time,
+      final int node,
+      final int channel,
+      final double channelCapacity,
+      final IntSlice additionalChannels,
+      final Main.Args args,
+      final Algorithm.DisseminationStrategy disseminationStrategy,
+      final int[] channelClientCounts,
+      final int depth ) {
     this.time = time;
     this.node = node;
     this.channel = channel;
     this.channelCapacity = channelCapacity;
     this.additionalChannels = additionalChannels;
     this.args = args;
+    this.disseminationStrategy = disseminationStrategy;
     this.channelClientCounts = channelClientCounts;
-
-    this.disseminationStrategy = Algorithm.DisseminationStrategy.CONCURRENT;
+    this.depth = depth;
 
     this.transmitTime = args.contentSize / channelCapacity;
   }
-
-  @Override
-  public final String toString() {
-    return "" + this.time + ": CreateLeaderEvent: node = " + this.node
-        + ", channel = " + this.channel;
-  }
   //==============================================================================================//
 
 
   //==============================================================================================//
-  // SimEvent
+  // SinkEvent
   //==============================================================================================//
   @Override
   public final double time() {
@@ -111,74 +130,74 @@ implements SimEvent {
   }
 
   @Override
-  public final Collection <SimEvent> process() {
+  public final void process( final SimContext context ) {
 //    System.out.println( "Node " + this.node + " started as leader on channel "
 //        + this.channel + "." );
 
-    Stats.LEADER_ACTIVATIONS.add(
-        new Stats.LeaderActivation( this.time, this.node ) );
+    final LeaderActivationEvent activation
+        = FlightRecording.active() ? new LeaderActivationEvent() : null;
+    if ( activation != null ) {
+      activation.begin();
+    }
 
-    final Collection <SimEvent> nextEvents = new ArrayList<>();
+    context.stats().recordLeaderActivation( this.time, this.node, this.depth );
 
     final int branchingFactor = Math.min( this.args.branchingFactor,
-        this.additionalChannels.length );
+        this.additionalChannels.length() );
 
     // Recursive step
     if ( branchingFactor > 0 ) {
-      final int[][] channelSets
+      final IntSlice[] channelSets
           = Algorithm.divide( this.additionalChannels, branchingFactor );
 
       for ( int i = 0; i < branchingFactor; i++ ) {
-        final int[] channelSet = channelSets[ i ];
+        final IntSlice channelSet = channelSets[ i ];
 
         // Pick next leader and channel (leader = channel)
-        final int nextLeader = channelSet[ 0 ];
-        final int nextChannel = channelSet[ 0 ];
+        final int nextLeader = channelSet.get( 0 );
+        final int nextChannel = channelSet.get( 0 );
 
         // Pop next leader and channel from the sets
-        final int[] nextChannels = new int[ channelSet.length - 1 ];
-        System.arraycopy( channelSet, 1, nextChannels, 0,
-            nextChannels.length );
+        final IntSlice nextChannels = channelSet.slice( 1, channelSet.length() );
 
         // Calculate the time when the transfer to this leader will complete
         final double eventTime = this.time + ( ( i + 1 ) * this.transmitTime );
 
         // Content transfer to the next leader
-        final ContentReceivedEvent receivedEvent = new ContentReceivedEvent(
-            eventTime, nextLeader, this.node, this.channel );
-        nextEvents.add( receivedEvent );
+        context.scheduleReception( eventTime, nextLeader, this.node, this.channel );
 
         // Recursive call
         final CreateLeaderOptimizerEvent recursiveEvent;
         if ( this.disseminationStrategy == Algorithm.DisseminationStrategy.SEQUENTIAL ) {
           recursiveEvent = new CreateLeaderOptimizerEvent(
               eventTime + this.args.activationDelay, nextLeader, nextChannel,
-              this.channelCapacity, nextChannels, this.args );
+              this.channelCapacity, nextChannels, this.args, this.disseminationStrategy, null,
+              this.depth + 1 );
         } else if ( this.disseminationStrategy == Algorithm.DisseminationStrategy.CONCURRENT ){
           recursiveEvent = new CreateLeaderOptimizerEvent(
               eventTime + this.args.activationDelay, nextLeader, nextChannel,
-              this.channelCapacity, nextChannels, this.args, this.channelClientCounts );
+              this.channelCapacity, nextChannels, this.args, this.disseminationStrategy,
+              this.channelClientCounts, this.depth + 1 );
         } else {
-          recursiveEvent = null;
-          System.err.println( "Unknown dissemination strategy (" + this.disseminationStrategy
-              + ")" );
-          System.exit( 1 );
+          throw new IllegalStateException( "Unknown dissemination strategy ("
+              + this.disseminationStrategy + ")" );
         }
-        nextEvents.add( recursiveEvent );
+        context.schedule( recursiveEvent );
       }
     }
 
     // Local clients
+    int localClients = -1;
     if ( this.disseminationStrategy == Algorithm.DisseminationStrategy.SEQUENTIAL ) {
-      if ( ContentReceivedOptimizerEvent.hasClients() ) {
-        final int client = ContentReceivedOptimizerEvent.nextClient();
+      if ( context.clientPool().hasClients() ) {
+        final int client = context.clientPool().nextClient();
 
         final double eventTime = this.time + branchingFactor * this.transmitTime
             + this.transmitTime;
         final ContentReceivedOptimizerEvent receivedEvent
             = new ContentReceivedOptimizerEvent( eventTime, client, this.node,
             this.channel, this.args.contentSize, this.channelCapacity, this.disseminationStrategy );
-        nextEvents.add( receivedEvent );
+        context.schedule( receivedEvent );
       }
     } else if ( this.disseminationStrategy == Algorithm.DisseminationStrategy.CONCURRENT ) {
       final int clientCount = this.channelClientCounts[ this.channel ];
@@ -186,20 +205,64 @@ implements SimEvent {
       // time to serve all the clients. The transmissions will all finish at the same time.
       final double eventTime = this.time + branchingFactor * this.transmitTime
           + clientCount * this.transmitTime;
-      final int[] clients = ContentReceivedOptimizerEvent.getClients( clientCount );
-      for ( final int client : clients ) {
+      final ClientSet clients = context.clientPool().getClients( clientCount );
+      localClients = clients.length();
+      for ( int i = 0; i < clients.length(); i++ ) {
         final ContentReceivedOptimizerEvent receivedEvent
-            = new ContentReceivedOptimizerEvent( eventTime, client, this.node,
+            = new ContentReceivedOptimizerEvent( eventTime, clients.get( i ), this.node,
             this.channel, this.args.contentSize, this.channelCapacity, this.disseminationStrategy );
-        nextEvents.add( receivedEvent );
+        context.schedule( receivedEvent );
       }
     } else {
-      System.err.println( "Unknown dissemination strategy (" + this.disseminationStrategy + ")" );
-      System.exit( 1 );
+      throw new IllegalStateException( "Unknown dissemination strategy ("
+          + this.disseminationStrategy + ")" );
+    }
+
+    if ( activation != null && activation.shouldCommit() ) {
+      activation.simulatedTime = this.time;
+      activation.node = this.node;
+      activation.channel = this.channel;
+      activation.depth = this.depth;
+      activation.channels = this.additionalChannels.length() + 1;
+      activation.childLeaders = branchingFactor;
+      activation.subtreeClients = -1;
+      activation.localClients = localClients;
+      activation.optimizer = true;
+      activation.commit();
     }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Checkpoint
+  //==============================================================================================//
+  final void write( final DataOutput out ) throws IOException {
+    out.writeDouble( this.time );
+    out.writeInt( this.node );
+    out.writeInt( this.channel );
+    out.writeDouble( this.channelCapacity );
+    EventCodec.writeInts( out, this.additionalChannels.toArray() );
+    EventCodec.writeStrategy( out, this.disseminationStrategy );
+    out.writeBoolean( this.channelClientCounts != null );
+    if ( this.channelClientCounts != null ) {
+      EventCodec.writeInts( out, this.channelClientCounts );
+    }
+    out.writeInt( this.depth );
+  }
 
-    // Return events
-    return nextEvents;
+  static CreateLeaderOptimizerEvent read(
+      final DataInput in,
+      final Main.Args args ) throws IOException {
+    final double time = in.readDouble();
+    final int node = in.readInt();
+    final int channel = in.readInt();
+    final double channelCapacity = in.readDouble();
+    final IntSlice additionalChannels = IntSlice.of( EventCodec.readInts( in ) );
+    final Algorithm.DisseminationStrategy strategy = EventCodec.readStrategy( in );
+    final int[] channelClientCounts = in.readBoolean() ? EventCodec.readInts( in ) : null;
+    return new CreateLeaderOptimizerEvent( time, node, channel, channelCapacity,
+        additionalChannels, args, strategy, channelClientCounts, in.readInt() );
   }
   //==============================================================================================//
 }
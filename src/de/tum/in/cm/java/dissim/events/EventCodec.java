@@ -0,0 +1,152 @@
+package de.tum.in.cm.java.dissim.events;
+
+import de.tum.in.cm.java.dissim.Algorithm;
+import de.tum.in.cm.java.dissim.ClientRange;
+import de.tum.in.cm.java.dissim.ClientSet;
+import de.tum.in.cm.java.dissim.IntSlice;
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.SimEvent;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary form of the pending events in a checkpoint. Every event is written
+ * as a type tag followed by its fields. The simulation arguments are not
+ * written, they are passed back in when the events are read.
+ *
+ * @author teemuk
+ */
+public final class EventCodec {
+
+  private static final byte RECEPTION = 1;
+  private static final byte OPTIMIZER_RECEPTION = 2;
+  private static final byte BATCH_RECEPTION = 3;
+  private static final byte LEADER = 4;
+  private static final byte OPTIMIZER_LEADER = 5;
+
+  private static final byte CLIENT_RANGE = 1;
+  private static final byte CLIENT_ARRAY = 2;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Writes the event.
+   *
+   * @throws IllegalArgumentException
+   *    If the event type has no binary form.
+   */
+  public static void write(
+      final SimEvent event,
+      final DataOutput out ) throws IOException {
+    final Class <?> type = event.getClass();
+    if ( type == ContentReceivedEvent.class ) {
+      out.writeByte( RECEPTION );
+      ( ( ContentReceivedEvent ) event ).write( out );
+    } else if ( type == ContentReceivedOptimizerEvent.class ) {
+      out.writeByte( OPTIMIZER_RECEPTION );
+      ( ( ContentReceivedOptimizerEvent ) event ).write( out );
+    } else if ( type == BatchReceptionEvent.class ) {
+      out.writeByte( BATCH_RECEPTION );
+      ( ( BatchReceptionEvent ) event ).write( out );
+    } else if ( type == CreateLeaderEvent.class ) {
+      out.writeByte( LEADER );
+      ( ( CreateLeaderEvent ) event ).write( out );
+    } else if ( type == CreateLeaderOptimizerEvent.class ) {
+      out.writeByte( OPTIMIZER_LEADER );
+      ( ( CreateLeaderOptimizerEvent ) event ).write( out );
+    } else {
+      throw new IllegalArgumentException( "Events of type " + type.getSimpleName()
+          + " can't be checkpointed" );
+    }
+  }
+
+  /**
+   * Reads an event written by {@link #write(SimEvent, DataOutput)}.
+   *
+   * @param args
+   *    Arguments of the simulation the event belongs to.
+   */
+  public static SimEvent read(
+      final DataInput in,
+      final Main.Args args ) throws IOException {
+    final byte type = in.readByte();
+    if ( type == RECEPTION ) return ContentReceivedEvent.read( in );
+    else if ( type == OPTIMIZER_RECEPTION ) return ContentReceivedOptimizerEvent.read( in );
+    else if ( type == BATCH_RECEPTION ) return BatchReceptionEvent.read( in );
+    else if ( type == LEADER ) return CreateLeaderEvent.read( in, args );
+    else if ( type == OPTIMIZER_LEADER ) return CreateLeaderOptimizerEvent.read( in, args );
+    else throw new IOException( "Unknown event type (" + type + ")" );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Package
+  //==============================================================================================//
+  /**
+   * Writes a range as its bounds and anything else as the client IDs.
+   */
+  static void writeClients(
+      final DataOutput out,
+      final ClientSet clients ) throws IOException {
+    if ( clients instanceof ClientRange ) {
+      final ClientRange range = ( ClientRange ) clients;
+      out.writeByte( CLIENT_RANGE );
+      out.writeInt( range.lo() );
+      out.writeInt( range.hi() );
+    } else {
+      out.writeByte( CLIENT_ARRAY );
+      writeInts( out, clients.toArray() );
+    }
+  }
+
+  static ClientSet readClients( final DataInput in ) throws IOException {
+    final byte type = in.readByte();
+    if ( type == CLIENT_RANGE ) return new ClientRange( in.readInt(), in.readInt() );
+    else if ( type == CLIENT_ARRAY ) return IntSlice.of( readInts( in ) );
+    else throw new IOException( "Unknown client set type (" + type + ")" );
+  }
+
+  static void writeInts(
+      final DataOutput out,
+      final int[] values ) throws IOException {
+    out.writeInt( values.length );
+    for ( final int value : values ) {
+      out.writeInt( value );
+    }
+  }
+
+  static int[] readInts( final DataInput in ) throws IOException {
+    final int[] values = new int[ in.readInt() ];
+    for ( int i = 0; i < values.length; i++ ) {
+      values[ i ] = in.readInt();
+    }
+    return values;
+  }
+
+  static void writeStrategy(
+      final DataOutput out,
+      final Algorithm.DisseminationStrategy strategy ) throws IOException {
+    out.writeByte( strategy.ordinal() );
+  }
+
+  static Algorithm.DisseminationStrategy readStrategy( final DataInput in ) throws IOException {
+    final int ordinal = in.readByte();
+    final Algorithm.DisseminationStrategy[] strategies = Algorithm.DisseminationStrategy.values();
+    if ( ordinal < 0 || ordinal >= strategies.length ) {
+      throw new IOException( "Unknown dissemination strategy (" + ordinal + ")" );
+    }
+    return strategies[ ordinal ];
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private EventCodec() {}
+  //==============================================================================================//
+}
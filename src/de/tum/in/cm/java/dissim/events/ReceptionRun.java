@@ -0,0 +1,116 @@
+package de.tum.in.cm.java.dissim.events;
+
+import de.tum.in.cm.java.dissim.ClientSet;
+import de.tum.in.cm.java.dissim.EventSink;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Time ordered run of receptions by the clients {@code clients[first..end)}
+ * from a single node on a single channel, as scheduled by sequential
+ * dissemination through {@link EventSink#scheduleSorted}. The reception by
+ * {@code clients[k]} happens at {@code baseTime + (k + 1) * period}, the same
+ * times as in a {@link BatchReceptionEvent}.
+ *
+ * <p>The run is a read-only view, its elements are created on access. Sinks
+ * that can schedule receptions without event objects get them through
+ * {@link #scheduleInto(EventSink)} instead.</p>
+ *
+ * @author teemuk
+ */
+public final class ReceptionRun
+extends AbstractList <ContentReceivedEvent>
+implements RandomAccess {
+
+  private final ClientSet clients;
+  private final int first;
+  private final int end;
+  private final int from;
+  private final int channel;
+  private final double baseTime;
+  private final double period;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * @param clients
+   *    Clients, of which {@code clients[first..end)} are in this run.
+   * @param first
+   *    Index of the first client in the run.
+   * @param end
+   *    Index one past the last client in the run.
+   * @param from
+   *    Transmitting node.
+   * @param channel
+   *    Channel used for the transmissions.
+   * @param baseTime
+   *    Base time of the receptions.
+   * @param period
+   *    Time between consecutive receptions, must not be negative.
+   */
+  public ReceptionRun(
+      final ClientSet clients,
+      final int first,
+      final int end,
+      final int from,
+      final int channel,
+      final double baseTime,
+      final double period ) {
+    if ( first > end ) {
+      throw new IllegalArgumentException( "first must not be after end" );
+    }
+    if ( !( period >= 0.0 ) ) {
+      throw new IllegalArgumentException( "period must not be negative" );
+    }
+    this.clients = clients;
+    this.first = first;
+    this.end = end;
+    this.from = from;
+    this.channel = channel;
+    this.baseTime = baseTime;
+    this.period = period;
+  }
+
+  /**
+   * Schedules the receptions in order through
+   * {@link EventSink#scheduleReception}.
+   */
+  public final void scheduleInto( final EventSink sink ) {
+    for ( int k = this.first; k < this.end; k++ ) {
+      sink.scheduleReception( this.receptionTime( k ), this.clients.get( k ), this.from,
+          this.channel );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // List
+  //==============================================================================================//
+  @Override
+  public final ContentReceivedEvent get( final int index ) {
+    if ( index < 0 || index >= this.size() ) {
+      throw new IndexOutOfBoundsException( "Index: " + index + ", size: " + this.size() );
+    }
+    final int k = this.first + index;
+    return new ContentReceivedEvent( this.receptionTime( k ), this.clients.get( k ), this.from,
+        this.channel );
+  }
+
+  @Override
+  public final int size() {
+    return this.end - this.first;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private double receptionTime( final int k ) {
+    return this.baseTime + ( ( k + 1 ) * this.period );
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,40 @@
+package de.tum.in.cm.java.dissim.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a batch of receptions that has been delivered
+ * completely. Committed when the last client of the batch receives.
+ *
+ * @author teemuk
+ */
+@Name( "dissim.BatchDissemination" )
+@Label( "Batch Dissemination" )
+@Category( "Dissemination Simulator" )
+@Description( "Batch of receptions from a single leader on a single channel" )
+@StackTrace( false )
+public final class BatchDisseminationEvent
+extends Event {
+  @Label( "Node" )
+  @Description( "Transmitting node" )
+  public int node;
+
+  @Label( "Channel" )
+  public int channel;
+
+  @Label( "Clients" )
+  public int clients;
+
+  @Label( "First Reception" )
+  @Description( "Simulated time of the first reception" )
+  public double firstReception;
+
+  @Label( "Last Reception" )
+  @Description( "Simulated time of the last reception" )
+  public double lastReception;
+}
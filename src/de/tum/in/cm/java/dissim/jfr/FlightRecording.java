@@ -0,0 +1,70 @@
+package de.tum.in.cm.java.dissim.jfr;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Whether a flight recording is running. The simulator only creates its
+ * events while one is, because the first event created loads and
+ * instruments the flight recorder classes, which takes a few hundred
+ * milliseconds even if nothing is recorded.
+ *
+ * <p>The state is cached and updated by a {@link FlightRecorderListener},
+ * so checking it costs a volatile read.</p>
+ *
+ * @author teemuk
+ */
+public final class FlightRecording {
+
+  private static volatile boolean active;
+
+  static {
+    FlightRecorder.addListener( new FlightRecorderListener() {
+      @Override
+      public void recordingStateChanged( final Recording recording ) {
+        update();
+      }
+    } );
+    if ( FlightRecorder.isInitialized() ) {
+      update();
+    }
+  }
+
+  private FlightRecording() {}
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Whether any flight recording is running.
+   */
+  public static boolean active() {
+    return active;
+  }
+
+  /**
+   * Registers the listener for the recording state, if not registered yet.
+   * Called before the event loop, so that the loop doesn't pay for it.
+   */
+  public static void register() {
+    // The static initializer registers the listener
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private static void update() {
+    boolean running = false;
+    for ( final Recording recording : FlightRecorder.getFlightRecorder().getRecordings() ) {
+      if ( recording.getState() == RecordingState.RUNNING ) {
+        running = true;
+      }
+    }
+    active = running;
+  }
+  //==============================================================================================//
+}
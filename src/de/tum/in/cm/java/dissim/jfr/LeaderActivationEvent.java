@@ -0,0 +1,53 @@
+package de.tum.in.cm.java.dissim.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for the processing of a leader activation, i.e., the
+ * split of its subtree and the scheduling of its children and clients.
+ *
+ * @author teemuk
+ */
+@Name( "dissim.LeaderActivation" )
+@Label( "Leader Activation" )
+@Category( "Dissemination Simulator" )
+@Description( "Processing of a leader activation" )
+@StackTrace( false )
+public final class LeaderActivationEvent
+extends Event {
+  @Label( "Simulated Time" )
+  public double simulatedTime;
+
+  @Label( "Node" )
+  public int node;
+
+  @Label( "Channel" )
+  public int channel;
+
+  @Label( "Depth" )
+  @Description( "Depth in the leader tree, zero for the source" )
+  public int depth;
+
+  @Label( "Channels" )
+  @Description( "Channels of the subtree, including the leader's own" )
+  public int channels;
+
+  @Label( "Child Leaders" )
+  public int childLeaders;
+
+  @Label( "Subtree Clients" )
+  @Description( "Clients in the subtree, -1 for optimizer leaders" )
+  public int subtreeClients;
+
+  @Label( "Local Clients" )
+  @Description( "Clients served by the leader itself, -1 if taken from the pool one by one" )
+  public int localClients;
+
+  @Label( "Optimizer" )
+  public boolean optimizer;
+}
@@ -0,0 +1,25 @@
+package de.tum.in.cm.java.dissim.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for writing a report.
+ *
+ * @author teemuk
+ */
+@Name( "dissim.Report" )
+@Label( "Report" )
+@Category( "Dissemination Simulator" )
+@StackTrace( false )
+public final class ReportEvent
+extends Event {
+  @Label( "Report" )
+  public String report;
+
+  @Label( "Files" )
+  public String files;
+}
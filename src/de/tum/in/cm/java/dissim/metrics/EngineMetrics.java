@@ -0,0 +1,207 @@
+package de.tum.in.cm.java.dissim.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentation of the event loop. The engines report every processed
+ * event through {@link #event(Class, int, double)} when the context of the
+ * run provides the metrics, see {@link de.tum.in.cm.java.dissim.SimContext#metrics()}.
+ * Without metrics the engines only pay for a null check.
+ * <p>
+ * The counters may be updated by the worker threads of the parallel engines
+ * and read by any thread, e.g., over JMX or by a {@link ProgressLog}. The
+ * parallel engines report from their tasks, so the queue depth and the
+ * simulated time are those of the task that reported last, and the maximum
+ * queue depth is the largest depth of any single task's queue. The
+ * allocation is measured for the thread that started the run, i.e., the
+ * event loop of the sequential engines, not for the workers of the parallel
+ * ones.
+ *
+ * @author teemuk
+ */
+public final class EngineMetrics
+implements EngineMetricsMXBean {
+
+  private static final String NAME_PREFIX = "de.tum.in.cm.java.dissim:type=EngineMetrics,name=";
+
+  private final ConcurrentHashMap <Class <?>, LongAdder> eventCounts
+      = new ConcurrentHashMap<>();
+  private final AtomicLong queueDepth = new AtomicLong();
+  private final AtomicLong maxQueueDepth = new AtomicLong();
+  /** Bits of the time of the last processed event */
+  private final AtomicLong simulatedTime = new AtomicLong();
+
+  private volatile long startNanos;
+  /** Thread that started the run, its allocation is measured */
+  private volatile long threadId;
+  private volatile long startAllocatedBytes;
+  /** Name in the platform MBean server, {@code null} if not registered */
+  private ObjectName name;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Starts the wall clock and the allocation measurement of the run. The
+   * allocation of the calling thread is measured.
+   */
+  public final void start() {
+    this.threadId = Thread.currentThread().getId();
+    this.startAllocatedBytes = allocatedBytes( this.threadId );
+    this.startNanos = System.nanoTime();
+  }
+
+  /**
+   * Registers the metrics in the platform MBean server as
+   * {@code de.tum.in.cm.java.dissim:type=EngineMetrics,name=<name>}.
+   *
+   * @throws IllegalStateException
+   *    if the name is taken.
+   */
+  public final void register( final String name ) {
+    try {
+      final ObjectName objectName = new ObjectName( NAME_PREFIX + ObjectName.quote( name ) );
+      ManagementFactory.getPlatformMBeanServer().registerMBean( this, objectName );
+      this.name = objectName;
+    } catch ( final JMException e ) {
+      throw new IllegalStateException( "Can't register metrics '" + name + "'", e );
+    }
+  }
+
+  /**
+   * Removes the metrics from the platform MBean server, if registered.
+   */
+  public final void unregister() {
+    if ( this.name == null ) return;
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.unregisterMBean( this.name );
+    } catch ( final JMException e ) {
+      throw new IllegalStateException( "Can't unregister metrics " + this.name, e );
+    } finally {
+      this.name = null;
+    }
+  }
+
+  /**
+   * Counts a processed event.
+   *
+   * @param type
+   *    Type of the event.
+   * @param queueDepth
+   *    Number of events pending after the event was taken from the queue.
+   * @param time
+   *    Time of the event.
+   */
+  public final void event(
+      final Class <?> type,
+      final int queueDepth,
+      final double time ) {
+    LongAdder count = this.eventCounts.get( type );
+    if ( count == null ) {
+      count = this.eventCounts.computeIfAbsent( type, t -> new LongAdder() );
+    }
+    count.increment();
+    this.queueDepth.lazySet( queueDepth );
+    if ( queueDepth > this.maxQueueDepth.get() ) {
+      this.maxQueueDepth.accumulateAndGet( queueDepth, Math::max );
+    }
+    this.simulatedTime.lazySet( Double.doubleToRawLongBits( time ) );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // EngineMetricsMXBean
+  //==============================================================================================//
+  @Override
+  public final long getEventCount() {
+    long eventCount = 0;
+    for ( final LongAdder count : this.eventCounts.values() ) {
+      eventCount += count.sum();
+    }
+    return eventCount;
+  }
+
+  @Override
+  public final Map <String, Long> getEventCounts() {
+    final Map <String, Long> eventCounts = new TreeMap<>();
+    for ( final Map.Entry <Class <?>, LongAdder> entry : this.eventCounts.entrySet() ) {
+      eventCounts.merge( entry.getKey().getSimpleName(), entry.getValue().sum(), Long::sum );
+    }
+    return eventCounts;
+  }
+
+  @Override
+  public final int getQueueDepth() {
+    return ( int ) this.queueDepth.get();
+  }
+
+  @Override
+  public final int getMaxQueueDepth() {
+    return ( int ) this.maxQueueDepth.get();
+  }
+
+  @Override
+  public final double getSimulatedTime() {
+    return Double.longBitsToDouble( this.simulatedTime.get() );
+  }
+
+  @Override
+  public final double getWallSeconds() {
+    return ( System.nanoTime() - this.startNanos ) / 1e9;
+  }
+
+  @Override
+  public final double getEventsPerSecond() {
+    return this.getEventCount() / this.getWallSeconds();
+  }
+
+  @Override
+  public final double getSimulatedTimeRatio() {
+    return this.getSimulatedTime() / this.getWallSeconds();
+  }
+
+  @Override
+  public final long getAllocatedBytes() {
+    final long allocatedBytes = allocatedBytes( this.threadId );
+    return ( allocatedBytes < 0 || this.startAllocatedBytes < 0 )
+        ? -1 : allocatedBytes - this.startAllocatedBytes;
+  }
+
+  @Override
+  public final long getHeapUsed() {
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Total bytes allocated by the thread, or -1 if not supported or the
+   * thread has terminated.
+   */
+  private static long allocatedBytes( final long threadId ) {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if ( !( threads instanceof com.sun.management.ThreadMXBean ) ) return -1;
+    final com.sun.management.ThreadMXBean allocations
+        = ( com.sun.management.ThreadMXBean ) threads;
+    if ( !allocations.isThreadAllocatedMemorySupported()
+        || !allocations.isThreadAllocatedMemoryEnabled() ) {
+      return -1;
+    }
+    return allocations.getThreadAllocatedBytes( threadId );
+  }
+  //==============================================================================================//
+}
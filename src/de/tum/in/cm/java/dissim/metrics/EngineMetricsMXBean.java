@@ -0,0 +1,67 @@
+package de.tum.in.cm.java.dissim.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link EngineMetrics}. The values are sampled
+ * while the event loop runs, so they are not mutually consistent.
+ *
+ * @author teemuk
+ */
+public interface EngineMetricsMXBean {
+  /**
+   * Number of processed events.
+   */
+  long getEventCount();
+
+  /**
+   * Number of processed events per event type, by simple class name.
+   */
+  Map <String, Long> getEventCounts();
+
+  /**
+   * Last observed number of pending events. Under the parallel engines, the
+   * number of events pending in the task that reported last.
+   */
+  int getQueueDepth();
+
+  /**
+   * Largest observed number of pending events. Under the parallel engines,
+   * the largest number pending in any single task.
+   */
+  int getMaxQueueDepth();
+
+  /**
+   * Time of the last processed event. Under the parallel engines, the local
+   * time of the task that reported last.
+   */
+  double getSimulatedTime();
+
+  /**
+   * Wall clock time since the start of the run.
+   */
+  double getWallSeconds();
+
+  /**
+   * Processed events per wall clock second since the start of the run.
+   */
+  double getEventsPerSecond();
+
+  /**
+   * Simulated time per wall clock second since the start of the run.
+   */
+  double getSimulatedTimeRatio();
+
+  /**
+   * Bytes allocated by the thread that started the run since the start, or
+   * -1 if the JVM does not measure thread allocations or the thread has
+   * terminated. Allocations by the workers of the parallel engines are not
+   * included.
+   */
+  long getAllocatedBytes();
+
+  /**
+   * Used heap in bytes.
+   */
+  long getHeapUsed();
+}
@@ -0,0 +1,108 @@
+package de.tum.in.cm.java.dissim.metrics;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Prints a line of the event loop metrics at a fixed wall clock interval on
+ * a background thread. The event rate is over the last interval.
+ *
+ * @author teemuk
+ */
+public final class ProgressLog
+implements Closeable {
+
+  private final EngineMetrics metrics;
+  private final PrintStream out;
+  private final long intervalMillis;
+  private final Thread thread;
+  private long lastEventCount;
+  private double lastWallSeconds;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Starts printing.
+   *
+   * @param metrics
+   *    Metrics of the run, must have been started.
+   * @param out
+   *    Stream for the lines.
+   * @param intervalSeconds
+   *    Wall clock time between the lines.
+   */
+  public ProgressLog(
+      final EngineMetrics metrics,
+      final PrintStream out,
+      final double intervalSeconds ) {
+    if ( !( intervalSeconds > 0.0 ) ) {
+      throw new IllegalArgumentException( "Non-positive interval (" + intervalSeconds + ")" );
+    }
+    this.metrics = metrics;
+    this.out = out;
+    this.intervalMillis = Math.max( 1, ( long ) ( intervalSeconds * 1000.0 ) );
+    this.thread = new Thread( this::log, "progress-log" );
+    this.thread.setDaemon( true );
+    this.thread.start();
+  }
+
+  /**
+   * Formats the current metrics as a single line.
+   */
+  public final String line() {
+    final EngineMetrics metrics = this.metrics;
+    final long eventCount = metrics.getEventCount();
+    final double wallSeconds = metrics.getWallSeconds();
+    final double rate = ( eventCount - this.lastEventCount )
+        / ( wallSeconds - this.lastWallSeconds );
+    this.lastEventCount = eventCount;
+    this.lastWallSeconds = wallSeconds;
+
+    final double simulatedTime = metrics.getSimulatedTime();
+    final long allocatedBytes = metrics.getAllocatedBytes();
+    return String.format( Locale.ROOT, "Progress: %.1fs, %d events (%.0f/s), "
+        + "simulated time %.3f (%.3f/s), queue %d (max %d), allocated %s, heap %dMB",
+        wallSeconds, eventCount, rate, simulatedTime, simulatedTime / wallSeconds,
+        metrics.getQueueDepth(), metrics.getMaxQueueDepth(),
+        allocatedBytes < 0 ? "n/a" : ( allocatedBytes >> 20 ) + "MB",
+        metrics.getHeapUsed() >> 20 );
+  }
+
+  /**
+   * Stops printing.
+   */
+  @Override
+  public final void close() {
+    this.thread.interrupt();
+    boolean interrupted = false;
+    while ( this.thread.isAlive() ) {
+      try {
+        this.thread.join();
+      } catch ( final InterruptedException e ) {
+        interrupted = true;
+      }
+    }
+    if ( interrupted ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private void log() {
+    try {
+      while ( true ) {
+        Thread.sleep( this.intervalMillis );
+        this.out.println( this.line() );
+      }
+    } catch ( final InterruptedException e ) {
+      // Closed
+    }
+  }
+  //==============================================================================================//
+}
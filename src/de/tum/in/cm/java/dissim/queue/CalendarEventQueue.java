@@ -0,0 +1,304 @@
+package de.tum.in.cm.java.dissim.queue;
+
+import de.tum.in.cm.java.dissim.SimEvent;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Calendar queue (R. Brown, "Calendar Queues: A Fast O(1) Priority Queue
+ * Implementation for the Simulation Event Set Problem", 1988).
+ *
+ * <p>Events are hashed into an array of buckets ("days") by their time. Every
+ * bucket keeps a sorted list, and removal scans the days of the current
+ * "year" in order. The number of buckets and their width are re-tuned
+ * whenever the queue grows or shrinks by a factor of two, which keeps the
+ * amortized cost of both insert and removal constant. Events with the same
+ * time are removed in insertion order.</p>
+ *
+ * @author teemuk
+ */
+public final class CalendarEventQueue
+implements EventQueue {
+
+  private static final int MIN_BUCKETS = 16;
+  /** Number of earliest events sampled to estimate the bucket width */
+  private static final int WIDTH_SAMPLES = 25;
+  private static final double DEFAULT_WIDTH = 1.0;
+
+  private Entry[] heads;
+  private Entry[] tails;
+  private int mask;
+  private double width;
+  /** Virtual bucket (year * bucket count + day) of the last removal */
+  private long currentBucket;
+  private int size;
+  /** Recycled list entries */
+  private Entry free;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public CalendarEventQueue() {
+    this( MIN_BUCKETS, DEFAULT_WIDTH );
+  }
+
+  /**
+   * Creates a new calendar queue.
+   *
+   * @param bucketCount
+   *    Initial number of buckets, rounded up to the next power of two.
+   * @param bucketWidth
+   *    Initial width of a bucket in simulation time units.
+   */
+  public CalendarEventQueue(
+      final int bucketCount,
+      final double bucketWidth ) {
+    if ( bucketWidth <= 0.0 ) {
+      throw new IllegalArgumentException( "bucket width must be positive" );
+    }
+    final int buckets = Integer.highestOneBit(
+        Math.max( bucketCount, MIN_BUCKETS ) - 1 ) << 1;
+    this.heads = new Entry[ buckets ];
+    this.tails = new Entry[ buckets ];
+    this.mask = buckets - 1;
+    this.width = bucketWidth;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // EventQueue
+  //==============================================================================================//
+  @Override
+  public final void add( final SimEvent event ) {
+    final Entry entry = this.allocate( event );
+    if ( this.size == 0 || entry.bucket < this.currentBucket ) {
+      this.currentBucket = entry.bucket;
+    }
+    this.insert( entry );
+    this.size++;
+
+    if ( this.size > 2 * this.heads.length ) {
+      this.resize( 2 * this.heads.length );
+    }
+  }
+
+  /**
+   * Inserts a run of events sorted by time. Consecutive events mostly land at
+   * the tails of their buckets, and the calendar is re-tuned only once for
+   * the whole run.
+   */
+  @Override
+  public final void scheduleSorted( final List <? extends SimEvent> events ) {
+    for ( final SimEvent event : events ) {
+      final Entry entry = this.allocate( event );
+      if ( this.size == 0 || entry.bucket < this.currentBucket ) {
+        this.currentBucket = entry.bucket;
+      }
+      this.insert( entry );
+      this.size++;
+    }
+
+    if ( this.size > 2 * this.heads.length ) {
+      this.resize( Integer.highestOneBit( this.size ) );
+    }
+  }
+
+  @Override
+  public final SimEvent remove() {
+    if ( this.size == 0 ) {
+      throw new NoSuchElementException( "Event queue is empty." );
+    }
+
+    // Scan one year worth of days starting from the current one
+    for ( int i = 0; i < this.heads.length; i++ ) {
+      final Entry head = this.heads[ ( int ) ( this.currentBucket & this.mask ) ];
+      if ( head != null && head.bucket <= this.currentBucket ) {
+        return this.pop( ( int ) ( this.currentBucket & this.mask ) );
+      }
+      this.currentBucket++;
+    }
+
+    // Sparse calendar, jump directly to the earliest event
+    Entry min = null;
+    for ( final Entry head : this.heads ) {
+      if ( head != null && ( min == null || head.time < min.time ) ) min = head;
+    }
+    this.currentBucket = min.bucket;
+    return this.pop( ( int ) ( this.currentBucket & this.mask ) );
+  }
+
+  @Override
+  public final int size() {
+    return this.size;
+  }
+
+  @Override
+  public final void forEach( final Consumer <? super SimEvent> action ) {
+    for ( Entry head : this.heads ) {
+      while ( head != null ) {
+        action.accept( head.event );
+        head = head.next;
+      }
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private long virtualBucket( final double time ) {
+    return ( long ) Math.floor( time / this.width );
+  }
+
+  private void insert( final Entry entry ) {
+    final int i = ( int ) ( entry.bucket & this.mask );
+    final Entry tail = this.tails[ i ];
+    entry.next = null;
+    if ( tail == null ) {
+      this.heads[ i ] = entry;
+      this.tails[ i ] = entry;
+    } else if ( entry.time >= tail.time ) {
+      // Common case: events are mostly scheduled in increasing time order
+      tail.next = entry;
+      this.tails[ i ] = entry;
+    } else if ( entry.time < this.heads[ i ].time ) {
+      entry.next = this.heads[ i ];
+      this.heads[ i ] = entry;
+    } else {
+      Entry prev = this.heads[ i ];
+      while ( prev.next.time <= entry.time ) prev = prev.next;
+      entry.next = prev.next;
+      prev.next = entry;
+    }
+  }
+
+  private SimEvent pop( final int i ) {
+    final Entry entry = this.heads[ i ];
+    this.heads[ i ] = entry.next;
+    if ( entry.next == null ) this.tails[ i ] = null;
+    this.size--;
+
+    final SimEvent event = entry.event;
+    this.release( entry );
+
+    if ( this.size < this.heads.length / 2 && this.heads.length > MIN_BUCKETS ) {
+      this.resize( this.heads.length / 2 );
+    }
+    return event;
+  }
+
+  private void resize( final int bucketCount ) {
+    // Collect all entries, preserving the order of equal times
+    final Entry[] entries = new Entry[ this.size ];
+    int count = 0;
+    for ( Entry head : this.heads ) {
+      while ( head != null ) {
+        entries[ count++ ] = head;
+        head = head.next;
+      }
+    }
+
+    this.width = this.estimateWidth( entries );
+    this.heads = new Entry[ bucketCount ];
+    this.tails = new Entry[ bucketCount ];
+    this.mask = bucketCount - 1;
+
+    long minBucket = Long.MAX_VALUE;
+    for ( final Entry entry : entries ) {
+      entry.bucket = this.virtualBucket( entry.time );
+      if ( entry.bucket < minBucket ) minBucket = entry.bucket;
+      this.insert( entry );
+    }
+    if ( count > 0 ) this.currentBucket = minBucket;
+  }
+
+  /**
+   * Estimates the bucket width as three times the average separation of the
+   * earliest events, ignoring separations that are more than twice the
+   * average.
+   */
+  private double estimateWidth( final Entry[] entries ) {
+    if ( entries.length < 2 ) return this.width;
+
+    // Bounded max-heap of the earliest times
+    final int sampleCount = Math.min( WIDTH_SAMPLES, entries.length );
+    final double[] samples = new double[ sampleCount ];
+    int n = 0;
+    for ( final Entry entry : entries ) {
+      if ( n < sampleCount ) {
+        int i = n++;
+        samples[ i ] = entry.time;
+        while ( i > 0 && samples[ ( i - 1 ) / 2 ] < samples[ i ] ) {
+          swap( samples, i, ( i - 1 ) / 2 );
+          i = ( i - 1 ) / 2;
+        }
+      } else if ( entry.time < samples[ 0 ] ) {
+        samples[ 0 ] = entry.time;
+        int i = 0;
+        while ( true ) {
+          final int left = 2 * i + 1;
+          final int right = left + 1;
+          int largest = i;
+          if ( left < n && samples[ left ] > samples[ largest ] ) largest = left;
+          if ( right < n && samples[ right ] > samples[ largest ] ) largest = right;
+          if ( largest == i ) break;
+          swap( samples, i, largest );
+          i = largest;
+        }
+      }
+    }
+    Arrays.sort( samples );
+
+    final double average = ( samples[ sampleCount - 1 ] - samples[ 0 ] ) / ( sampleCount - 1 );
+    double total = 0.0;
+    int separations = 0;
+    for ( int i = 1; i < sampleCount; i++ ) {
+      final double separation = samples[ i ] - samples[ i - 1 ];
+      if ( separation <= 2.0 * average ) {
+        total += separation;
+        separations++;
+      }
+    }
+
+    final double estimate = ( separations > 0 ) ? ( 3.0 * total / separations ) : ( 0.0 );
+    return ( estimate > 0.0 ) ? ( estimate ) : ( this.width );
+  }
+
+  private static void swap( final double[] values, final int i, final int j ) {
+    final double tmp = values[ i ];
+    values[ i ] = values[ j ];
+    values[ j ] = tmp;
+  }
+
+  private Entry allocate( final SimEvent event ) {
+    Entry entry = this.free;
+    if ( entry != null ) {
+      this.free = entry.next;
+    } else {
+      entry = new Entry();
+    }
+    entry.event = event;
+    entry.time = event.time();
+    entry.bucket = this.virtualBucket( entry.time );
+    return entry;
+  }
+
+  private void release( final Entry entry ) {
+    entry.event = null;
+    entry.next = this.free;
+    this.free = entry;
+  }
+
+  private static final class Entry {
+    SimEvent event;
+    double time;
+    long bucket;
+    Entry next;
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,84 @@
+package de.tum.in.cm.java.dissim.queue;
+
+import de.tum.in.cm.java.dissim.EventSink;
+import de.tum.in.cm.java.dissim.SimEvent;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Pending event set of the simulator. Events are removed in non-decreasing
+ * order of their time instance.
+ *
+ * @author teemuk
+ */
+public interface EventQueue
+extends EventSink {
+  /**
+   * Inserts the event into the queue.
+   *
+   * @param event
+   *    Event to insert.
+   */
+  void add( SimEvent event );
+
+  /**
+   * Inserts all the given events into the queue.
+   *
+   * @param events
+   *    Events to insert.
+   */
+  default void addAll( final Collection <? extends SimEvent> events ) {
+    for ( final SimEvent event : events ) {
+      this.add( event );
+    }
+  }
+
+  @Override
+  default void schedule( final SimEvent event ) {
+    this.add( event );
+  }
+
+  @Override
+  default void scheduleAll( final Collection <? extends SimEvent> events ) {
+    this.addAll( events );
+  }
+
+  /**
+   * Removes the event with the earliest time instance from the queue.
+   *
+   * @return
+   *    The earliest event.
+   * @throws java.util.NoSuchElementException
+   *    If the queue is empty.
+   */
+  SimEvent remove();
+
+  /**
+   * Number of events in the queue.
+   *
+   * @return
+   *    The number of pending events.
+   */
+  int size();
+
+  /**
+   * Passes every pending event to the action, in no particular order. The
+   * queue must not be modified meanwhile.
+   *
+   * @param action
+   *    Receives the events.
+   */
+  void forEach( Consumer <? super SimEvent> action );
+
+  default boolean isEmpty() {
+    return this.size() == 0;
+  }
+
+  /**
+   * Releases the resources of the queue, e.g., files, dropping the pending
+   * events. Does nothing by default.
+   */
+  default void close() {
+  }
+}
@@ -0,0 +1,71 @@
+package de.tum.in.cm.java.dissim.queue;
+
+import de.tum.in.cm.java.dissim.Main;
+
+/**
+ * Selectable event queue implementations.
+ *
+ * @author teemuk
+ */
+public enum EventQueueType {
+  HEAP, CALENDAR,
+  /** Integer ticks in a {@link TimingWheelEventQueue} */
+  WHEEL,
+  /** Far future receptions on disk, see {@link SpillingEventQueue} */
+  SPILL;
+
+  public final String toString() {
+    if ( this == HEAP ) return "heap";
+    else if ( this == CALENDAR ) return "calendar";
+    else if ( this == WHEEL ) return "wheel";
+    else if ( this == SPILL ) return "spill";
+    else return "unknown";
+  }
+
+  public static EventQueueType fromString( final String string ) {
+    if ( string.equals( HEAP.toString() ) ) return HEAP;
+    else if ( string.equals( CALENDAR.toString() ) ) return CALENDAR;
+    else if ( string.equals( WHEEL.toString() ) ) return WHEEL;
+    else if ( string.equals( SPILL.toString() ) ) return SPILL;
+    else return null;
+  }
+
+  /**
+   * Creates a new empty queue of this type.
+   *
+   * @return
+   *    New event queue.
+   * @throws IllegalStateException
+   *    For {@link #WHEEL} and {@link #SPILL}, which need the simulation
+   *    arguments, see {@link #create(Main.Args)}.
+   */
+  public final EventQueue create() {
+    if ( this == HEAP ) return new HeapEventQueue();
+    else if ( this == CALENDAR ) return new CalendarEventQueue();
+    else if ( this == WHEEL || this == SPILL ) {
+      throw new IllegalStateException( "Event queue type " + this
+          + " needs the simulation arguments" );
+    }
+    else throw new IllegalStateException( "Unknown event queue type (" + this + ")" );
+  }
+
+  /**
+   * Creates a new empty queue of this type for the simulation.
+   *
+   * @param args
+   *    Simulation arguments, determine the tick quantum of {@link #WHEEL}
+   *    and the spill directory and window of {@link #SPILL}.
+   * @return
+   *    New event queue.
+   */
+  public final EventQueue create( final Main.Args args ) {
+    if ( this == WHEEL ) {
+      return new TimingWheelEventQueue( TimingWheelEventQueue.quantum(
+          args.contentSize, args.channelCapacity, args.activationDelay ) );
+    } else if ( this == SPILL ) {
+      return new SpillingEventQueue( args.spillDirectory, args.spillWindow,
+          SpillingEventQueue.DEFAULT_RUN_LENGTH );
+    }
+    return this.create();
+  }
+}
@@ -0,0 +1,55 @@
+package de.tum.in.cm.java.dissim.queue;
+
+import de.tum.in.cm.java.dissim.SimEvent;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Binary heap event queue backed by {@link PriorityQueue}. This is the
+ * reference implementation, O(log n) per insert and removal.
+ *
+ * @author teemuk
+ */
+public final class HeapEventQueue
+implements EventQueue {
+
+  public static final Comparator <SimEvent> EVENT_COMPARATOR = ( o1, o2 ) -> {
+        if ( o1.time() == o2.time() ) return 0;
+        return ( o1.time() < o2.time() ) ? ( -1 ) : ( 1 );
+      };
+
+  private final PriorityQueue <SimEvent> queue
+      = new PriorityQueue<>( EVENT_COMPARATOR );
+
+  //==============================================================================================//
+  // EventQueue
+  //==============================================================================================//
+  @Override
+  public final void add( final SimEvent event ) {
+    this.queue.add( event );
+  }
+
+  @Override
+  public final void addAll( final Collection <? extends SimEvent> events ) {
+    this.queue.addAll( events );
+  }
+
+  @Override
+  public final SimEvent remove() {
+    return this.queue.remove();
+  }
+
+  @Override
+  public final int size() {
+    return this.queue.size();
+  }
+
+  @Override
+  public final void forEach( final Consumer <? super SimEvent> action ) {
+    this.queue.forEach( action );
+  }
+  //==============================================================================================//
+}
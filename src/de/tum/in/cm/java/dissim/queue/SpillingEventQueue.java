@@ -0,0 +1,400 @@
+package de.tum.in.cm.java.dissim.queue;
+
+import de.tum.in.cm.java.dissim.SimEvent;
+import de.tum.in.cm.java.dissim.events.ContentReceivedEvent;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Event queue that keeps only the near future on the heap and spills the far
+ * future into sorted run files on disk.
+ *
+ * <p>Events before the horizon are kept in a binary heap. Receptions at or
+ * after the horizon are appended as primitive records into a buffer, which
+ * is sorted and written into a memory mapped run file whenever it fills up.
+ * When the heap has no more events before the horizon, the horizon is moved
+ * one window past the earliest spilled reception, and the receptions before
+ * it are merged back from the buffer and the runs. Only
+ * {@link ContentReceivedEvent}s are spilled, they make up the bulk of the
+ * pending events; all other events are few and stay on the heap, so no event
+ * implementation needs to be serializable.</p>
+ *
+ * <p>Run files are deleted as soon as they have been read back, and by
+ * {@link #close()}, which the engines call when their run ends, also if it
+ * fails.</p>
+ *
+ * @author teemuk
+ */
+public final class SpillingEventQueue
+implements EventQueue, Closeable {
+
+  /** Records buffered before they are written into a run */
+  public static final int DEFAULT_RUN_LENGTH = 1 << 20;
+
+  /** Time, node, from and channel */
+  private static final int RECORD_BYTES = 8 + 3 * 4;
+
+  private final File directory;
+  private final double window;
+  private final PriorityQueue <SimEvent> memory
+      = new PriorityQueue<>( HeapEventQueue.EVENT_COMPARATOR );
+  /** Earliest time that is spilled instead of kept in memory */
+  private double horizon = Double.NEGATIVE_INFINITY;
+
+  // Unsorted records of the next run, allocated on the first spill
+  private final int runLength;
+  private double[] times;
+  private int[] nodes;
+  private int[] froms;
+  private int[] channels;
+  private int buffered;
+  private double bufferedMin = Double.POSITIVE_INFINITY;
+
+  private final List <Run> runs = new ArrayList<>();
+  /** Records in the buffer and the runs */
+  private long spilled;
+  private long runCount;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Creates a new empty queue.
+   *
+   * @param directory
+   *    Directory of the run files, {@code null} for the default temporary
+   *    file directory.
+   * @param window
+   *    Length of the in-memory time window.
+   * @param runLength
+   *    Records per run file, also the size of the in-memory buffer.
+   */
+  public SpillingEventQueue(
+      final File directory,
+      final double window,
+      final int runLength ) {
+    if ( !( window > 0.0 ) ) {
+      throw new IllegalArgumentException( "window must be positive" );
+    }
+    if ( runLength <= 0 || runLength > Integer.MAX_VALUE / RECORD_BYTES ) {
+      throw new IllegalArgumentException( "run length must be in 1.."
+          + ( Integer.MAX_VALUE / RECORD_BYTES ) + " (" + runLength + ")" );
+    }
+    this.directory = directory;
+    this.window = window;
+    this.runLength = runLength;
+  }
+
+  /**
+   * Number of run files written so far.
+   */
+  public final long runCount() {
+    return this.runCount;
+  }
+
+  /**
+   * Number of events kept on the heap.
+   */
+  public final int inMemory() {
+    return this.memory.size();
+  }
+
+  /**
+   * Deletes the remaining run files.
+   */
+  @Override
+  public final void close() {
+    for ( final Run run : this.runs ) {
+      run.delete();
+    }
+    this.runs.clear();
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // EventQueue
+  //==============================================================================================//
+  @Override
+  public final void add( final SimEvent event ) {
+    if ( this.size() == 0 ) {
+      this.horizon = event.time() + this.window;
+    }
+    if ( event.time() >= this.horizon && event.getClass() == ContentReceivedEvent.class ) {
+      final ContentReceivedEvent reception = ( ContentReceivedEvent ) event;
+      this.spill( reception.time(), reception.node(), reception.from(), reception.channel() );
+    } else {
+      this.memory.add( event );
+    }
+  }
+
+  @Override
+  public final void scheduleReception(
+      final double time,
+      final int node,
+      final int from,
+      final int channel ) {
+    if ( this.size() == 0 ) {
+      this.horizon = time + this.window;
+    }
+    if ( time >= this.horizon ) {
+      this.spill( time, node, from, channel );
+    } else {
+      this.memory.add( new ContentReceivedEvent( time, node, from, channel ) );
+    }
+  }
+
+  @Override
+  public final SimEvent remove() {
+    if ( this.size() == 0 ) {
+      throw new NoSuchElementException( "Event queue is empty." );
+    }
+
+    // Spilled events are never before the horizon
+    while ( this.spilled != 0 ) {
+      final SimEvent head = this.memory.peek();
+      if ( head != null && head.time() < this.horizon ) break;
+      this.advance();
+    }
+    return this.memory.remove();
+  }
+
+  @Override
+  public final int size() {
+    return ( int ) ( this.memory.size() + this.spilled );
+  }
+
+  /**
+   * Spilled receptions are passed as new event objects.
+   */
+  @Override
+  public final void forEach( final Consumer <? super SimEvent> action ) {
+    this.memory.forEach( action );
+    for ( int i = 0; i < this.buffered; i++ ) {
+      action.accept( new ContentReceivedEvent( this.times[ i ], this.nodes[ i ],
+          this.froms[ i ], this.channels[ i ] ) );
+    }
+    for ( final Run run : this.runs ) {
+      run.forEach( action );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private void spill(
+      final double time,
+      final int node,
+      final int from,
+      final int channel ) {
+    if ( this.times == null ) {
+      this.times = new double[ this.runLength ];
+      this.nodes = new int[ this.runLength ];
+      this.froms = new int[ this.runLength ];
+      this.channels = new int[ this.runLength ];
+    } else if ( this.buffered == this.runLength ) {
+      this.writeRun();
+    }
+    final int i = this.buffered++;
+    this.times[ i ] = time;
+    this.nodes[ i ] = node;
+    this.froms[ i ] = from;
+    this.channels[ i ] = channel;
+    this.bufferedMin = Math.min( this.bufferedMin, time );
+    this.spilled++;
+  }
+
+  /**
+   * Moves the horizon one window past the earliest spilled record and loads
+   * the records before it.
+   */
+  private void advance() {
+    double earliest = this.bufferedMin;
+    for ( final Run run : this.runs ) {
+      earliest = Math.min( earliest, run.nextTime() );
+    }
+    this.horizon = earliest + this.window;
+
+    if ( this.bufferedMin < this.horizon ) {
+      // Scanning a large buffer on every advance costs more than sorting it once
+      if ( this.buffered > this.runLength / 8 ) {
+        this.writeRun();
+      } else {
+        this.loadBuffered();
+      }
+    }
+
+    final Iterator <Run> runs = this.runs.iterator();
+    while ( runs.hasNext() ) {
+      final Run run = runs.next();
+      while ( run.remaining > 0 && run.nextTime() < this.horizon ) {
+        this.memory.add( run.next() );
+        this.spilled--;
+      }
+      if ( run.remaining == 0 ) {
+        run.delete();
+        runs.remove();
+      }
+    }
+  }
+
+  /**
+   * Moves the buffered records before the horizon into memory, keeping the
+   * others in order.
+   */
+  private void loadBuffered() {
+    int kept = 0;
+    double keptMin = Double.POSITIVE_INFINITY;
+    for ( int i = 0; i < this.buffered; i++ ) {
+      if ( this.times[ i ] < this.horizon ) {
+        this.memory.add( new ContentReceivedEvent( this.times[ i ], this.nodes[ i ],
+            this.froms[ i ], this.channels[ i ] ) );
+        this.spilled--;
+      } else {
+        this.times[ kept ] = this.times[ i ];
+        this.nodes[ kept ] = this.nodes[ i ];
+        this.froms[ kept ] = this.froms[ i ];
+        this.channels[ kept ] = this.channels[ i ];
+        keptMin = Math.min( keptMin, this.times[ i ] );
+        kept++;
+      }
+    }
+    this.buffered = kept;
+    this.bufferedMin = keptMin;
+  }
+
+  /**
+   * Sorts the buffer by time and writes it into a new run file.
+   */
+  private void writeRun() {
+    final int count = this.buffered;
+    final int[] order = sortedOrder( this.times, count );
+    try {
+      final File file = File.createTempFile( "dissim-spill-", ".run", this.directory );
+      final MappedByteBuffer buffer;
+      try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ,
+          StandardOpenOption.WRITE ) ) {
+        buffer = channel.map( FileChannel.MapMode.READ_WRITE, 0,
+            ( long ) count * RECORD_BYTES );
+      }
+      buffer.order( ByteOrder.LITTLE_ENDIAN );
+      for ( final int i : order ) {
+        buffer.putDouble( this.times[ i ] );
+        buffer.putInt( this.nodes[ i ] );
+        buffer.putInt( this.froms[ i ] );
+        buffer.putInt( this.channels[ i ] );
+      }
+      buffer.flip();
+      this.runs.add( new Run( file, buffer, count ) );
+      this.runCount++;
+    } catch ( final IOException e ) {
+      throw new UncheckedIOException( "Failed to write an event run", e );
+    }
+    this.buffered = 0;
+    this.bufferedMin = Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Stable order of the first {@code count} times, already sorted buffers
+   * are detected in a single pass.
+   */
+  private static int[] sortedOrder(
+      final double[] times,
+      final int count ) {
+    int[] order = new int[ count ];
+    boolean sorted = true;
+    for ( int i = 0; i < count; i++ ) {
+      order[ i ] = i;
+      if ( i > 0 && times[ i ] < times[ i - 1 ] ) sorted = false;
+    }
+    if ( sorted ) return order;
+
+    // Bottom-up merge sort
+    int[] scratch = new int[ count ];
+    for ( int width = 1; width < count; width *= 2 ) {
+      for ( int low = 0; low < count; low += 2 * width ) {
+        final int middle = Math.min( low + width, count );
+        final int high = Math.min( low + 2 * width, count );
+        int left = low;
+        int right = middle;
+        for ( int k = low; k < high; k++ ) {
+          if ( left < middle
+              && ( right >= high || times[ order[ left ] ] <= times[ order[ right ] ] ) ) {
+            scratch[ k ] = order[ left++ ];
+          } else {
+            scratch[ k ] = order[ right++ ];
+          }
+        }
+      }
+      final int[] tmp = order;
+      order = scratch;
+      scratch = tmp;
+    }
+    return order;
+  }
+
+  /**
+   * Sorted run file, read back through its mapping.
+   */
+  private static final class Run {
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private int remaining;
+
+    private Run(
+        final File file,
+        final MappedByteBuffer buffer,
+        final int count ) {
+      this.file = file;
+      this.buffer = buffer;
+      this.remaining = count;
+    }
+
+    private double nextTime() {
+      return this.buffer.getDouble( this.buffer.position() );
+    }
+
+    private ContentReceivedEvent next() {
+      this.remaining--;
+      final double time = this.buffer.getDouble();
+      final int node = this.buffer.getInt();
+      final int from = this.buffer.getInt();
+      final int channel = this.buffer.getInt();
+      return new ContentReceivedEvent( time, node, from, channel );
+    }
+
+    /**
+     * Passes the remaining records without consuming them.
+     */
+    private void forEach( final Consumer <? super SimEvent> action ) {
+      int position = this.buffer.position();
+      for ( int i = 0; i < this.remaining; i++ ) {
+        action.accept( new ContentReceivedEvent( this.buffer.getDouble( position ),
+            this.buffer.getInt( position + 8 ), this.buffer.getInt( position + 12 ),
+            this.buffer.getInt( position + 16 ) ) );
+        position += RECORD_BYTES;
+      }
+    }
+
+    private void delete() {
+      // The mapping stays valid until it is collected
+      this.file.delete();
+    }
+  }
+  //==============================================================================================//
+}
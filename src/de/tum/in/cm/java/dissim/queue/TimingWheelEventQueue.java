@@ -0,0 +1,334 @@
+package de.tum.in.cm.java.dissim.queue;
+
+import de.tum.in.cm.java.dissim.SimEvent;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel keyed by integer ticks.
+ *
+ * <p>Event times are mapped to {@code long} ticks of a fixed quantum, see
+ * {@link #quantum(double, double, double)}. The wheel has one level of 256
+ * slots per byte of the tick. An event is stored on the level of the highest
+ * byte in which its tick differs from the current tick, so the lowest level
+ * holds exactly one tick per slot. When the lowest level runs empty, the next
+ * occupied slot of the lowest non-empty level is cascaded down. Occupied
+ * slots are found through per-level bitmaps, which makes insertion O(1) and
+ * removal amortized O(1) independently of the number of pending events.</p>
+ *
+ * <p>Ties are detected on the ticks, not on the floating point times, so
+ * events whose times only differ by rounding errors are treated as
+ * simultaneous. Events with the same tick are removed in insertion order.
+ * Inserting an event before the current tick, e.g., when an engine pushes
+ * back an event it has already removed and then schedules earlier ones,
+ * rebuilds the wheel around the earlier tick.</p>
+ *
+ * @author teemuk
+ */
+public final class TimingWheelEventQueue
+implements EventQueue {
+
+  private static final int SLOT_BITS = 8;
+  private static final int SLOTS = 1 << SLOT_BITS;
+  private static final int LEVELS = Long.SIZE / SLOT_BITS;
+  /** Largest accepted distance of a time from its tick, in ticks */
+  private static final double TICK_TOLERANCE = 1.0e-3;
+
+  private final double quantum;
+  private final Entry[][] heads = new Entry[ LEVELS ][ SLOTS ];
+  private final Entry[][] tails = new Entry[ LEVELS ][ SLOTS ];
+  /** Occupied slots of every level, 4 words of 64 slots each */
+  private final long[][] occupied = new long[ LEVELS ][ SLOTS / Long.SIZE ];
+  /** Tick of the last removal */
+  private long now;
+  private int size;
+  /** Recycled list entries */
+  private Entry free;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Creates a new empty timing wheel.
+   *
+   * @param quantum
+   *    Length of a tick in simulation time units. All event times must be
+   *    non-negative multiples of it.
+   */
+  public TimingWheelEventQueue( final double quantum ) {
+    if ( !( quantum > 0.0 ) || Double.isInfinite( quantum ) ) {
+      throw new IllegalArgumentException( "tick quantum must be positive and finite" );
+    }
+    this.quantum = quantum;
+  }
+
+  /**
+   * Derives the common tick quantum of the simulation times. Every event
+   * time is a sum of transmission times {@code contentSize / channelCapacity}
+   * and activation delays, so their greatest common divisor divides all the
+   * times. The divisor is computed exactly on the decimal representations of
+   * the arguments.
+   *
+   * @param contentSize
+   *    Size of the disseminated content.
+   * @param channelCapacity
+   *    Capacity of the channels.
+   * @param activationDelay
+   *    Delay between leader activations, may be zero.
+   * @return
+   *    The largest quantum whose multiples include all event times.
+   * @throws IllegalArgumentException
+   *    If the transmission time is not positive or the activation delay is
+   *    negative.
+   */
+  public static double quantum(
+      final double contentSize,
+      final double channelCapacity,
+      final double activationDelay ) {
+    final double transmitTime = contentSize / channelCapacity;
+    if ( !( transmitTime > 0.0 ) || Double.isInfinite( transmitTime ) ) {
+      throw new IllegalArgumentException( "Transmission time must be positive and finite ("
+          + transmitTime + ")" );
+    }
+    if ( !( activationDelay >= 0.0 ) || Double.isInfinite( activationDelay ) ) {
+      throw new IllegalArgumentException( "Activation delay must be non-negative and finite ("
+          + activationDelay + ")" );
+    }
+
+    if ( activationDelay == 0.0 ) return transmitTime;
+
+    // gcd( a / b, c / d ) = gcd( a * d, c * b ) / ( b * d ), with a / b the transmission time
+    final BigDecimal size = BigDecimal.valueOf( contentSize );
+    final BigDecimal capacity = BigDecimal.valueOf( channelCapacity );
+    final BigDecimal delay = BigDecimal.valueOf( activationDelay );
+    final BigInteger a = numerator( size ).multiply( denominator( capacity ) );
+    final BigInteger b = denominator( size ).multiply( numerator( capacity ) );
+    final BigInteger c = numerator( delay );
+    final BigInteger d = denominator( delay );
+    final BigInteger gcd = a.multiply( d ).gcd( c.multiply( b ) );
+    return new BigDecimal( gcd )
+        .divide( new BigDecimal( b.multiply( d ) ), MathContext.DECIMAL64 ).doubleValue();
+  }
+
+  /**
+   * @return
+   *    Length of a tick in simulation time units.
+   */
+  public final double quantum() {
+    return this.quantum;
+  }
+
+  /**
+   * Maps a simulation time to its tick.
+   *
+   * @param time
+   *    Non-negative multiple of the quantum.
+   * @return
+   *    The tick of the time.
+   * @throws IllegalArgumentException
+   *    If the time is negative or not a multiple of the quantum.
+   */
+  public final long tick( final double time ) {
+    final double ticks = time / this.quantum;
+    final long tick = Math.round( ticks );
+    if ( tick < 0 || Math.abs( ticks - tick ) > TICK_TOLERANCE ) {
+      throw new IllegalArgumentException( "Event time " + time
+          + " is not a non-negative multiple of the tick quantum " + this.quantum );
+    }
+    return tick;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // EventQueue
+  //==============================================================================================//
+  @Override
+  public final void add( final SimEvent event ) {
+    final Entry entry = this.allocate( event );
+    if ( this.size == 0 ) {
+      this.now = entry.tick;
+    } else if ( entry.tick < this.now ) {
+      this.rewind( entry.tick );
+    }
+    this.insert( entry );
+    this.size++;
+  }
+
+  @Override
+  public final SimEvent remove() {
+    if ( this.size == 0 ) {
+      throw new NoSuchElementException( "Event queue is empty." );
+    }
+
+    while ( true ) {
+      // Current tick or the next occupied one on the lowest level
+      final int current = ( int ) ( this.now & ( SLOTS - 1 ) );
+      final int slot = this.nextOccupied( 0, current );
+      if ( slot >= 0 ) {
+        this.now = ( this.now & ~( long ) ( SLOTS - 1 ) ) | slot;
+        return this.pop( slot );
+      }
+      this.cascade();
+    }
+  }
+
+  @Override
+  public final int size() {
+    return this.size;
+  }
+
+  @Override
+  public final void forEach( final Consumer <? super SimEvent> action ) {
+    for ( final Entry[] level : this.heads ) {
+      for ( Entry head : level ) {
+        while ( head != null ) {
+          action.accept( head.event );
+          head = head.next;
+        }
+      }
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private static BigInteger numerator( final BigDecimal value ) {
+    return ( value.scale() >= 0 ) ? ( value.unscaledValue() )
+        : ( value.unscaledValue().multiply( BigInteger.TEN.pow( -value.scale() ) ) );
+  }
+
+  private static BigInteger denominator( final BigDecimal value ) {
+    return ( value.scale() <= 0 ) ? ( BigInteger.ONE ) : ( BigInteger.TEN.pow( value.scale() ) );
+  }
+
+  private static int level( final long tick, final long now ) {
+    final long diff = tick ^ now;
+    return ( diff == 0 ) ? ( 0 ) : ( ( Long.SIZE - 1 - Long.numberOfLeadingZeros( diff ) )
+        / SLOT_BITS );
+  }
+
+  private void insert( final Entry entry ) {
+    final int level = level( entry.tick, this.now );
+    final int slot = ( int ) ( ( entry.tick >>> ( level * SLOT_BITS ) ) & ( SLOTS - 1 ) );
+    entry.next = null;
+    final Entry tail = this.tails[ level ][ slot ];
+    if ( tail == null ) {
+      this.heads[ level ][ slot ] = entry;
+      this.occupied[ level ][ slot >>> 6 ] |= 1L << slot;
+    } else {
+      tail.next = entry;
+    }
+    this.tails[ level ][ slot ] = entry;
+  }
+
+  /**
+   * Index of the first occupied slot at or after the given one, or -1.
+   */
+  private int nextOccupied( final int level, final int from ) {
+    final long[] words = this.occupied[ level ];
+    int word = from >>> 6;
+    long bits = words[ word ] & ( -1L << from );
+    while ( bits == 0 ) {
+      if ( ++word == words.length ) return -1;
+      bits = words[ word ];
+    }
+    return ( word << 6 ) + Long.numberOfTrailingZeros( bits );
+  }
+
+  /**
+   * Moves the events of the next occupied slot of the lowest non-empty upper
+   * level down to the levels below it. The lower levels are empty, so the
+   * moved events keep their insertion order.
+   */
+  private void cascade() {
+    for ( int level = 1; level < LEVELS; level++ ) {
+      final int shift = level * SLOT_BITS;
+      final int current = ( int ) ( ( this.now >>> shift ) & ( SLOTS - 1 ) );
+      final int slot = this.nextOccupied( level, current );
+      if ( slot < 0 ) continue;
+
+      final long upper = ( shift + SLOT_BITS == Long.SIZE )
+          ? ( 0 ) : ( -1L << ( shift + SLOT_BITS ) );
+      this.now = ( this.now & upper ) | ( ( long ) slot << shift );
+      Entry entry = this.heads[ level ][ slot ];
+      this.clear( level, slot );
+      while ( entry != null ) {
+        final Entry next = entry.next;
+        this.insert( entry );
+        entry = next;
+      }
+      return;
+    }
+    throw new IllegalStateException( "Timing wheel is empty but has " + this.size + " events" );
+  }
+
+  /**
+   * Re-inserts all the events around an earlier tick, in removal order.
+   */
+  private void rewind( final long tick ) {
+    final Entry[] entries = new Entry[ this.size ];
+    for ( int i = 0; i < entries.length; i++ ) {
+      while ( this.nextOccupied( 0, ( int ) ( this.now & ( SLOTS - 1 ) ) ) < 0 ) this.cascade();
+      final int slot = this.nextOccupied( 0, ( int ) ( this.now & ( SLOTS - 1 ) ) );
+      this.now = ( this.now & ~( long ) ( SLOTS - 1 ) ) | slot;
+      final Entry head = this.heads[ 0 ][ slot ];
+      this.heads[ 0 ][ slot ] = head.next;
+      if ( head.next == null ) this.clear( 0, slot );
+      entries[ i ] = head;
+    }
+    this.now = tick;
+    for ( final Entry entry : entries ) {
+      this.insert( entry );
+    }
+  }
+
+  private SimEvent pop( final int slot ) {
+    final Entry entry = this.heads[ 0 ][ slot ];
+    this.heads[ 0 ][ slot ] = entry.next;
+    if ( entry.next == null ) this.clear( 0, slot );
+    this.size--;
+
+    final SimEvent event = entry.event;
+    this.release( entry );
+    return event;
+  }
+
+  private void clear( final int level, final int slot ) {
+    this.heads[ level ][ slot ] = null;
+    this.tails[ level ][ slot ] = null;
+    this.occupied[ level ][ slot >>> 6 ] &= ~( 1L << slot );
+  }
+
+  private Entry allocate( final SimEvent event ) {
+    final long tick = this.tick( event.time() );
+    Entry entry = this.free;
+    if ( entry != null ) {
+      this.free = entry.next;
+    } else {
+      entry = new Entry();
+    }
+    entry.event = event;
+    entry.tick = tick;
+    return entry;
+  }
+
+  private void release( final Entry entry ) {
+    entry.event = null;
+    entry.next = this.free;
+    this.free = entry;
+  }
+
+  private static final class Entry {
+    SimEvent event;
+    long tick;
+    Entry next;
+  }
+  //==============================================================================================//
+}
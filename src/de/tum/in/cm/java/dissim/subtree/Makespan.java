@@ -0,0 +1,32 @@
+package de.tum.in.cm.java.dissim.subtree;
+
+/**
+ * Outcome of a run computed by the {@link MakespanEvaluator}.
+ *
+ * @author teemuk
+ */
+public final class Makespan {
+  /** Time of the last reception */
+  public final double completionTime;
+  /** Number of receptions */
+  public final long receptionCount;
+  /** Receptions per channel, index 0 is channel 1 */
+  public final int[] receptionsPerChannel;
+  /** Number of activated leaders */
+  public final int leaderCount;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public Makespan(
+      final double completionTime,
+      final long receptionCount,
+      final int[] receptionsPerChannel,
+      final int leaderCount ) {
+    this.completionTime = completionTime;
+    this.receptionCount = receptionCount;
+    this.receptionsPerChannel = receptionsPerChannel;
+    this.leaderCount = leaderCount;
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,106 @@
+package de.tum.in.cm.java.dissim.subtree;
+
+import de.tum.in.cm.java.dissim.Algorithm;
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
+
+import java.util.Arrays;
+
+/**
+ * Computes the completion time and the receptions per channel of a normal
+ * run without simulating individual receptions.
+ * <p>
+ * Walks the leader tree using the same split and timing as
+ * {@link CreateLeaderEvent}. The receptions of the local clients of a
+ * leader are accounted for in one step, since only the last one affects the
+ * completion time. The cost is linear in the number of leaders, which is at
+ * most the number of channels, and the results are exactly those of a full
+ * simulation.
+ *
+ * @author teemuk
+ */
+public final class MakespanEvaluator {
+
+  private double completionTime = 0.0;
+  private long receptionCount = 0;
+  private int[] receptionsPerChannel = new int[ 0 ];
+  private int leaderCount = 0;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Evaluates the standard scenario for the arguments.
+   *
+   * @throws IllegalArgumentException
+   *    if the arguments are not for a normal run.
+   */
+  public static Makespan evaluate( final Main.Args args ) {
+    if ( args.runMode != Main.RunMode.NORMAL ) {
+      throw new IllegalArgumentException( "Makespan can only be evaluated for normal runs" );
+    }
+    return evaluate( ( CreateLeaderEvent ) Simulation.createInitialEvent( args ) );
+  }
+
+  /**
+   * Evaluates the subtree of the leader.
+   */
+  public static Makespan evaluate( final CreateLeaderEvent root ) {
+    final MakespanEvaluator evaluator = new MakespanEvaluator();
+    evaluator.visit( root );
+    return new Makespan( evaluator.completionTime, evaluator.receptionCount,
+        evaluator.receptionsPerChannel, evaluator.leaderCount );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private MakespanEvaluator() {}
+
+  private void visit( final CreateLeaderEvent leader ) {
+    this.leaderCount++;
+
+    final CreateLeaderEvent.Split split = leader.split();
+    final int branchingFactor = split.branchingFactor;
+    if ( branchingFactor <= 0 && split.followers.length() > 0 ) {
+      throw new IllegalStateException( "Branching factor zero, while followers are not zero." );
+    }
+
+    // Child leaders
+    for ( int i = 0; i < branchingFactor; i++ ) {
+      this.receive( leader.leaderReceptionTime( i ), leader.channel(), 1 );
+      this.visit( leader.child( split, i ) );
+    }
+
+    // Local clients, the first branchingFactor of them became leaders
+    final int localCount = split.localClients.length();
+    if ( localCount > branchingFactor ) {
+      final double startTime = leader.clientStartTime( branchingFactor );
+      final double lastTime;
+      if ( leader.args().dissStrategy == Algorithm.DisseminationStrategy.SEQUENTIAL ) {
+        lastTime = leader.sequentialReceptionTime( startTime, localCount - 1 );
+      } else if ( leader.args().dissStrategy == Algorithm.DisseminationStrategy.CONCURRENT ) {
+        lastTime = leader.concurrentFinishTime( startTime, localCount );
+      } else {
+        throw new IllegalStateException( "Invalid dissemination strategy" );
+      }
+      this.receive( lastTime, leader.channel(), localCount - branchingFactor );
+    }
+  }
+
+  private void receive(
+      final double lastTime,
+      final int channel,
+      final int count ) {
+    if ( lastTime > this.completionTime ) this.completionTime = lastTime;
+    this.receptionCount += count;
+    if ( channel > this.receptionsPerChannel.length ) {
+      this.receptionsPerChannel = Arrays.copyOf( this.receptionsPerChannel, channel );
+    }
+    this.receptionsPerChannel[ channel - 1 ] += count;
+  }
+  //==============================================================================================//
+}
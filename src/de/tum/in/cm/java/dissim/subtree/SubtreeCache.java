@@ -0,0 +1,155 @@
+package de.tum.in.cm.java.dissim.subtree;
+
+import de.tum.in.cm.java.dissim.Algorithm;
+import de.tum.in.cm.java.dissim.ClientRange;
+import de.tum.in.cm.java.dissim.ClientSet;
+import de.tum.in.cm.java.dissim.IntSlice;
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.SimEvent;
+import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of the reception profiles of leader subtrees.
+ * <p>
+ * The records of a {@link CreateLeaderEvent} subtree depend only on its
+ * {@link SubtreeShape} and the simulation arguments. The profile of a shape
+ * is built once from time zero with canonical IDs (positions in the client
+ * set and channel indices). It holds the leader's own records and refers to
+ * the profiles of its child subtrees, which are composed at replay time. No
+ * events are simulated for it. Every subtree of the shape then replays the
+ * profile. Replayed times are the profile times shifted by the start time,
+ * so they can differ from a full simulation by floating point rounding.
+ * <p>
+ * Each profile costs about 21 bytes per record of its leader, i.e., per
+ * local client, plus the canonical child events. So the cache holds at most
+ * one record per client and shape, and far less when the shapes repeat.
+ * Profiles are never evicted.
+ * <p>
+ * Safe to share between threads, but all users must have the same
+ * arguments.
+ *
+ * @author teemuk
+ */
+public final class SubtreeCache {
+
+  private final Main.Args args;
+  private final Map <SubtreeShape, SubtreeProfile> profiles = new HashMap<>();
+  private long hits;
+  private long misses;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public SubtreeCache( final Main.Args args ) {
+    this.args = args;
+  }
+
+  /**
+   * Creates the event that replays the subtree of the leader.
+   */
+  public final SimEvent replay( final CreateLeaderEvent leader ) {
+    return new SubtreeReplayEvent( this.profile( leader ), leader );
+  }
+
+  /**
+   * Returns the profile for the shape of the leader's subtree, simulating
+   * it if it's not cached yet.
+   */
+  public final SubtreeProfile profile( final CreateLeaderEvent leader ) {
+    if ( leader.args() != this.args ) {
+      throw new IllegalArgumentException( "Leader has different arguments than the cache" );
+    }
+
+    final SubtreeShape shape = SubtreeShape.of( leader );
+    synchronized ( this ) {
+      final SubtreeProfile profile = this.profiles.get( shape );
+      if ( profile != null ) {
+        this.hits++;
+        return profile;
+      }
+      this.misses++;
+    }
+
+    // Build outside the lock, the children's profiles come from the cache
+    final SubtreeProfile profile = this.build( leader );
+    synchronized ( this ) {
+      final SubtreeProfile existing = this.profiles.putIfAbsent( shape, profile );
+      return ( existing != null ) ? existing : profile;
+    }
+  }
+
+  public final synchronized int size() {
+    return this.profiles.size();
+  }
+
+  public final synchronized long hits() {
+    return this.hits;
+  }
+
+  public final synchronized long misses() {
+    return this.misses;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private SubtreeProfile build( final CreateLeaderEvent leader ) {
+    final int clientCount = leader.clients().length();
+    final int channelCount = leader.additionalChannels().length();
+    final int[] channels = new int[ channelCount ];
+    for ( int i = 0; i < channelCount; i++ ) {
+      channels[ i ] = i + 1;
+    }
+    final CreateLeaderEvent canonical = new CreateLeaderEvent( 0.0, SubtreeProfile.LEADER, 0,
+        leader.channelCapacity(), new ClientRange( 0, clientCount ), IntSlice.of( channels ),
+        leader.additionalChannelCapacities(), this.args );
+
+    final CreateLeaderEvent.Split split = canonical.split();
+    final int branchingFactor = split.branchingFactor;
+    if ( branchingFactor <= 0 && split.followers.length() > 0 ) {
+      throw new IllegalStateException( "Branching factor zero, while followers are not zero." );
+    }
+
+    final CreateLeaderEvent[] childLeaders = new CreateLeaderEvent[ Math.max( 0,
+        branchingFactor ) ];
+    final SubtreeProfile[] children = new SubtreeProfile[ childLeaders.length ];
+    for ( int i = 0; i < childLeaders.length; i++ ) {
+      childLeaders[ i ] = canonical.child( split, i );
+      children[ i ] = this.profile( childLeaders[ i ] );
+    }
+
+    // The leader's own records are in time order: activation, transmissions to the child
+    // leaders, transmissions to the local clients
+    final ClientSet localClients = split.localClients;
+    final int localCount = localClients.length();
+    final SubtreeProfile own = new SubtreeProfile(
+        1 + childLeaders.length + Math.max( 0, localCount - childLeaders.length ),
+        childLeaders, children );
+    int index = 0;
+    own.set( index++, 0.0, SubtreeProfile.LEADER_ACTIVATION, SubtreeProfile.LEADER, 0, 0 );
+    for ( int i = 0; i < branchingFactor; i++ ) {
+      own.set( index++, canonical.leaderReceptionTime( i ), SubtreeProfile.RECEPTION,
+          localClients.get( i ), SubtreeProfile.LEADER, 0 );
+    }
+    if ( localCount > branchingFactor ) {
+      final double startTime = canonical.clientStartTime( branchingFactor );
+      final boolean sequential
+          = this.args.dissStrategy == Algorithm.DisseminationStrategy.SEQUENTIAL;
+      final double finishTime = canonical.concurrentFinishTime( startTime, localCount );
+      for ( int i = branchingFactor; i < localCount; i++ ) {
+        final double time = sequential
+            ? canonical.sequentialReceptionTime( startTime, i ) : finishTime;
+        own.set( index++, time, SubtreeProfile.RECEPTION, localClients.get( i ),
+            SubtreeProfile.LEADER, 0 );
+      }
+    }
+    return own;
+  }
+
+  //==============================================================================================//
+}
@@ -0,0 +1,117 @@
+package de.tum.in.cm.java.dissim.subtree;
+
+import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
+
+/**
+ * Records of the leader of a subtree relative to its start, in time order,
+ * and the child subtrees that the leader creates. Nodes are stored as
+ * positions in the client set of the subtree, or {@link #LEADER} for the
+ * leader of the subtree. Channels are stored as {@code 0} for the channel of
+ * the leader and {@code k} for the {@code k}th additional channel (one
+ * based). The children are canonical {@link CreateLeaderEvent}s, with the
+ * same positions and channel indices as IDs, and their profiles.
+ *
+ * @author teemuk
+ */
+public final class SubtreeProfile {
+
+  /** Node position of the subtree's leader */
+  public static final int LEADER = -1;
+
+  /** Record kinds */
+  public static final byte RECEPTION = 0;
+  public static final byte LEADER_ACTIVATION = 1;
+
+  private final double[] times;
+  private final byte[] kinds;
+  /** Receiving or activated node */
+  private final int[] nodes;
+  /** Transmitting node, or the depth below the subtree's leader for activations */
+  private final int[] sources;
+  private final int[] channels;
+  private final CreateLeaderEvent[] childLeaders;
+  private final SubtreeProfile[] children;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public final int size() {
+    return this.times.length;
+  }
+
+  /**
+   * Time of the record relative to the start of the subtree.
+   */
+  public final double time( final int index ) {
+    return this.times[ index ];
+  }
+
+  public final byte kind( final int index ) {
+    return this.kinds[ index ];
+  }
+
+  public final int node( final int index ) {
+    return this.nodes[ index ];
+  }
+
+  /**
+   * Transmitting node of a reception, or the depth of an activated leader
+   * relative to the subtree's leader.
+   */
+  public final int source( final int index ) {
+    return this.sources[ index ];
+  }
+
+  public final int channel( final int index ) {
+    return this.channels[ index ];
+  }
+
+  public final int childCount() {
+    return this.children.length;
+  }
+
+  /**
+   * Canonical event of a child leader, its time is relative to the start of
+   * the subtree.
+   */
+  public final CreateLeaderEvent childLeader( final int index ) {
+    return this.childLeaders[ index ];
+  }
+
+  public final SubtreeProfile child( final int index ) {
+    return this.children[ index ];
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Package
+  //==============================================================================================//
+  SubtreeProfile(
+      final int size,
+      final CreateLeaderEvent[] childLeaders,
+      final SubtreeProfile[] children ) {
+    this.times = new double[ size ];
+    this.kinds = new byte[ size ];
+    this.nodes = new int[ size ];
+    this.sources = new int[ size ];
+    this.channels = new int[ size ];
+    this.childLeaders = childLeaders;
+    this.children = children;
+  }
+
+  final void set(
+      final int index,
+      final double time,
+      final byte kind,
+      final int node,
+      final int source,
+      final int channel ) {
+    this.times[ index ] = time;
+    this.kinds[ index ] = kind;
+    this.nodes[ index ] = node;
+    this.sources[ index ] = source;
+    this.channels[ index ] = channel;
+  }
+  //==============================================================================================//
+}
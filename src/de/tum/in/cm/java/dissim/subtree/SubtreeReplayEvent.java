@@ -0,0 +1,142 @@
+package de.tum.in.cm.java.dissim.subtree;
+
+import de.tum.in.cm.java.dissim.ClientSet;
+import de.tum.in.cm.java.dissim.IntSlice;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SinkEvent;
+import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
+
+/**
+ * Replays a {@link SubtreeProfile} for a leader subtree, time shifted to its
+ * start and mapped to its nodes and channels. Like a
+ * {@link de.tum.in.cm.java.dissim.events.BatchReceptionEvent}, the event
+ * records one entry and reschedules itself at the time of the next one, so
+ * the records and the event count are the same as when simulating the
+ * subtree. When it records the leader's activation it schedules the replays
+ * of the child subtrees, which map their canonical IDs through this event.
+ *
+ * @author teemuk
+ */
+public final class SubtreeReplayEvent
+implements SinkEvent {
+
+  private final SubtreeProfile profile;
+  private final double startTime;
+  private final int node;
+  private final int channel;
+  private final ClientSet clients;
+  private final IntSlice additionalChannels;
+  private final int depth;
+  /** Replay of the parent subtree, {@code null} if the IDs are not canonical */
+  private final SubtreeReplayEvent parent;
+
+  /** Index of the next record */
+  private int next;
+  private double time;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public SubtreeReplayEvent(
+      final SubtreeProfile profile,
+      final CreateLeaderEvent leader ) {
+    this.profile = profile;
+    this.startTime = leader.time();
+    this.node = leader.node();
+    this.channel = leader.channel();
+    this.clients = leader.clients();
+    this.additionalChannels = leader.additionalChannels();
+    this.depth = leader.depth();
+    this.parent = null;
+
+    this.next = 0;
+    this.time = this.startTime + profile.time( 0 );
+  }
+
+  public final int remaining() {
+    return this.profile.size() - this.next;
+  }
+
+  @Override
+  public final String toString() {
+    return "" + this.time + ": SubtreeReplayEvent: node = " + this.node
+        + ", channel = " + this.channel + ", remaining = " + this.remaining();
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // SinkEvent
+  //==============================================================================================//
+  @Override
+  public final double time() {
+    return this.time;
+  }
+
+  @Override
+  public final void process( final SimContext context ) {
+    final SubtreeProfile profile = this.profile;
+    final int i = this.next;
+    if ( profile.kind( i ) == SubtreeProfile.LEADER_ACTIVATION ) {
+      context.stats().recordLeaderActivation( this.time, this.node( profile.node( i ) ),
+          this.depth + profile.source( i ) );
+    } else {
+      context.stats().recordReception( this.time, this.node( profile.source( i ) ),
+          this.node( profile.node( i ) ), this.channel( profile.channel( i ) ) );
+    }
+
+    if ( i == 0 ) {
+      for ( int c = 0; c < profile.childCount(); c++ ) {
+        context.schedule( new SubtreeReplayEvent( profile.child( c ), profile.childLeader( c ),
+            this ) );
+      }
+    }
+
+    this.next++;
+    if ( this.next < profile.size() ) {
+      this.time = this.startTime + profile.time( this.next );
+      context.schedule( this );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Replay of a child subtree.
+   *
+   * @param leader
+   *    Canonical event of the child leader, relative to the parent.
+   */
+  private SubtreeReplayEvent(
+      final SubtreeProfile profile,
+      final CreateLeaderEvent leader,
+      final SubtreeReplayEvent parent ) {
+    this.profile = profile;
+    this.startTime = parent.startTime + leader.time();
+    this.node = parent.node( leader.node() );
+    this.channel = parent.channel( leader.channel() );
+    this.clients = leader.clients();
+    this.additionalChannels = leader.additionalChannels();
+    this.depth = parent.depth + leader.depth();
+    this.parent = parent;
+
+    this.next = 0;
+    this.time = this.startTime + profile.time( 0 );
+  }
+
+  private int node( final int position ) {
+    if ( position == SubtreeProfile.LEADER ) return this.node;
+    final int node = this.clients.get( position );
+    return ( this.parent == null ) ? node : this.parent.node( node );
+  }
+
+  private int channel( final int index ) {
+    if ( index == 0 ) return this.channel;
+    final int channel = this.additionalChannels.get( index - 1 );
+    return ( this.parent == null ) ? channel : this.parent.channel( channel );
+  }
+  //==============================================================================================//
+}
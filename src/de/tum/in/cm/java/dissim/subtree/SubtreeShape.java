@@ -0,0 +1,65 @@
+package de.tum.in.cm.java.dissim.subtree;
+
+import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
+
+import java.util.Arrays;
+
+/**
+ * Everything the reception schedule of a leader subtree depends on, apart
+ * from the fixed simulation arguments, its start time and the node and
+ * channel IDs.
+ *
+ * @author teemuk
+ */
+public final class SubtreeShape {
+
+  private final int clientCount;
+  private final double channelCapacity;
+  private final double[] additionalCapacities;
+  private final int hash;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public SubtreeShape(
+      final int clientCount,
+      final double channelCapacity,
+      final double[] additionalCapacities ) {
+    this.clientCount = clientCount;
+    this.channelCapacity = channelCapacity;
+    this.additionalCapacities = additionalCapacities;
+    this.hash = 31 * ( 31 * clientCount + Double.hashCode( channelCapacity ) )
+        + Arrays.hashCode( additionalCapacities );
+  }
+
+  public static SubtreeShape of( final CreateLeaderEvent event ) {
+    return new SubtreeShape( event.clients().length(), event.channelCapacity(),
+        event.additionalChannelCapacities().toArray() );
+  }
+
+  public final int clientCount() {
+    return this.clientCount;
+  }
+
+  @Override
+  public final boolean equals( final Object o ) {
+    if ( this == o ) return true;
+    if ( !( o instanceof SubtreeShape ) ) return false;
+    final SubtreeShape other = ( SubtreeShape ) o;
+    return this.clientCount == other.clientCount
+        && Double.compare( this.channelCapacity, other.channelCapacity ) == 0
+        && Arrays.equals( this.additionalCapacities, other.additionalCapacities );
+  }
+
+  @Override
+  public final int hashCode() {
+    return this.hash;
+  }
+
+  @Override
+  public final String toString() {
+    return "clients = " + this.clientCount + ", capacity = " + this.channelCapacity
+        + ", additional = " + Arrays.toString( this.additionalCapacities );
+  }
+  //==============================================================================================//
+}
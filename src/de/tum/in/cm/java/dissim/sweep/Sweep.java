@@ -0,0 +1,385 @@
+package de.tum.in.cm.java.dissim.sweep;
+
+import de.tum.in.cm.java.dissim.LatencyHistogram;
+import de.tum.in.cm.java.dissim.LatencySketches;
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.Simulation;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parameter sweep over the {@link Main.Args} of the simulator. Every argument
+ * takes a list of values, the sweep runs the cartesian product of all the
+ * values in parallel on a work-stealing pool within one JVM and writes a
+ * single result table.
+ * <p>
+ * Values are given either as a comma separated list
+ * ({@code localSplit=naive,switch_delay_corrected}), as an inclusive integer
+ * range ({@code channels=3..9}) or as an inclusive range with a step
+ * ({@code activationDelay=0.0..1.0:0.25}). For example:
+ * <pre>
+ *   clients=1000,10000 channels=3..9 branchingFactor=2..4 threads=16 out=sweep.txt
+ * </pre>
+ * The reception time distributions of all simulated points can be merged
+ * into a single latency report with {@code latencyOut=<file>}.
+ *
+ * @author teemuk
+ */
+public final class Sweep {
+
+  //==============================================================================================//
+  // Constants
+  //==============================================================================================//
+  public static String ARG_THREADS = "threads";
+  public static String ARG_OUTPUT = "out";
+  public static String ARG_LATENCY_OUTPUT = "latencyOut";
+  //==============================================================================================//
+
+  /** Names of the swept arguments */
+  private final List <String> names;
+  /** Values for each of the swept arguments */
+  private final List <List <String>> values;
+
+  //==============================================================================================//
+  // Main
+  //==============================================================================================//
+  public static void main( final String[] argStrings ) throws FileNotFoundException {
+    int threads = Runtime.getRuntime().availableProcessors();
+    File outFile = null;
+    File latencyFile = null;
+    final List <String> sweepArgs = new ArrayList<>();
+    for ( final String argString : argStrings ) {
+      if ( argString.startsWith( ARG_THREADS + "=" ) ) {
+        threads = Integer.parseInt( argString.substring( ARG_THREADS.length() + 1 ) );
+      } else if ( argString.startsWith( ARG_OUTPUT + "=" ) ) {
+        outFile = new File( argString.substring( ARG_OUTPUT.length() + 1 ) );
+      } else if ( argString.startsWith( ARG_LATENCY_OUTPUT + "=" ) ) {
+        latencyFile = new File( argString.substring( ARG_LATENCY_OUTPUT.length() + 1 ) );
+      } else {
+        sweepArgs.add( argString );
+      }
+    }
+
+    final Sweep sweep;
+    final List <SweepResult> results;
+    final long startTime;
+    final long endTime;
+    try {
+      sweep = new Sweep( sweepArgs.toArray( new String[ sweepArgs.size() ] ) );
+      final List <String[]> points = sweep.points();
+      System.out.println( "Sweeping " + points.size() + " points on " + threads + " threads." );
+      startTime = System.nanoTime();
+      results = sweep.run( threads );
+      endTime = System.nanoTime();
+    } catch ( final IllegalArgumentException e ) {
+      System.err.println( e.getMessage() );
+      System.exit( 1 );
+      return;
+    } catch ( final IllegalStateException e ) {
+      // The pool may wrap the failure of the point into copies of it
+      Throwable cause = e;
+      while ( cause.getCause() != null ) cause = cause.getCause();
+      System.err.println( e.getMessage() + ": " + cause.getMessage() );
+      System.exit( 1 );
+      return;
+    }
+
+    final double durationMillis = 1.0 * ( endTime - startTime ) / 1000000.0;
+    System.out.println( "Swept " + results.size() + " points in " + durationMillis + "ms." );
+
+    if ( outFile != null ) try ( PrintStream out = new PrintStream( outFile ) ) {
+      sweep.printResults( out, results );
+    } else {
+      sweep.printResults( System.out, results );
+    }
+
+    if ( latencyFile != null ) try ( PrintStream out = new PrintStream( latencyFile ) ) {
+      mergeLatency( results ).print( out );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Creates a sweep from {@code name=values} arguments.
+   *
+   * @throws IllegalArgumentException
+   *    if an argument is malformed, repeated or writes a report file.
+   */
+  public Sweep( final String[] argStrings ) {
+    final List <String> names = new ArrayList<>( argStrings.length );
+    final List <List <String>> values = new ArrayList<>( argStrings.length );
+    for ( final String argString : argStrings ) {
+      final int split = argString.indexOf( '=' );
+      if ( split <= 0 ) {
+        throw new IllegalArgumentException( "Malformed sweep argument '" + argString + "'" );
+      }
+      final String name = argString.substring( 0, split );
+      if ( name.equals( Main.ARG_CHANNEL_USE_REPORT ) || name.equals( Main.ARG_LEADER_COUNT_REPORT )
+          || name.equals( Main.ARG_BUCKETED_RECEPTION_REPORT )
+          || name.equals( Main.ARG_RECEPTION_TRACE ) || name.equals( Main.ARG_COMPRESSED_TRACE )
+          || name.equals( Main.ARG_LATENCY_REPORT )
+          || name.equals( Main.ARG_RECEPTION_CDF_REPORT ) ) {
+        throw new IllegalArgumentException( "Reports are not supported in sweeps ('" + name
+            + "')" );
+      }
+      if ( names.contains( name ) ) {
+        throw new IllegalArgumentException( "Repeated sweep argument '" + name + "'" );
+      }
+      names.add( name );
+      values.add( parseValues( argString.substring( split + 1 ) ) );
+    }
+    this.names = Collections.unmodifiableList( names );
+    this.values = Collections.unmodifiableList( values );
+  }
+
+  public final List <String> names() {
+    return this.names;
+  }
+
+  /**
+   * Expands the cartesian product of the argument values. The last argument
+   * varies the fastest.
+   *
+   * @return
+   *    Values of every point in the order of {@link #names()}.
+   */
+  public final List <String[]> points() {
+    List <String[]> points = new ArrayList<>();
+    points.add( new String[ 0 ] );
+    for ( final List <String> argValues : this.values ) {
+      final List <String[]> expanded = new ArrayList<>( points.size() * argValues.size() );
+      for ( final String[] point : points ) {
+        for ( final String value : argValues ) {
+          final String[] next = new String[ point.length + 1 ];
+          System.arraycopy( point, 0, next, 0, point.length );
+          next[ point.length ] = value;
+          expanded.add( next );
+        }
+      }
+      points = expanded;
+    }
+    return points;
+  }
+
+  /**
+   * Creates the simulator arguments for a point.
+   *
+   * @throws IllegalArgumentException
+   *    If an argument of the point is unknown or malformed.
+   */
+  public final Main.Args args( final String[] point ) {
+    final String[] argStrings = new String[ point.length ];
+    for ( int i = 0; i < point.length; i++ ) {
+      argStrings[ i ] = this.names.get( i ) + "=" + point[ i ];
+    }
+    try {
+      return new Main.Args( argStrings );
+    } catch ( final IllegalArgumentException e ) {
+      throw new IllegalArgumentException( e.getMessage() + " in point " + String.join( " ",
+          argStrings ), e );
+    }
+  }
+
+  /**
+   * Runs all points of the sweep.
+   *
+   * @param threads
+   *    Parallelism of the work-stealing pool.
+   * @return
+   *    Results in the order of {@link #points()}.
+   * @throws IllegalArgumentException
+   *    If the arguments of a point are invalid, before anything is run.
+   * @throws IllegalStateException
+   *    If simulating a point failed, with the failure as the cause.
+   */
+  public final List <SweepResult> run( final int threads ) {
+    // Parse all points before running anything, so that bad values fail fast
+    final List <String[]> points = this.points();
+    final List <Main.Args> pointArgs = new ArrayList<>( points.size() );
+    for ( final String[] point : points ) {
+      final Main.Args args = this.args( point );
+      if ( args.runMode == null ) {
+        throw new IllegalArgumentException( "Unknown run mode in point "
+            + this.describe( point ) );
+      }
+      if ( args.makespanOnly && args.runMode != Main.RunMode.NORMAL ) {
+        throw new IllegalArgumentException( "Makespan evaluation in optimizing point "
+            + this.describe( point ) );
+      }
+      pointArgs.add( args );
+    }
+
+    final ForkJoinPool pool = new ForkJoinPool( threads );
+    try {
+      final List <ForkJoinTask <SweepResult>> tasks = new ArrayList<>( points.size() );
+      for ( int i = 0; i < points.size(); i++ ) {
+        final String[] point = points.get( i );
+        final Main.Args args = pointArgs.get( i );
+        tasks.add( pool.submit( () -> args.makespanOnly
+            ? SweepResult.ofMakespan( point, args )
+            : SweepResult.of( point, new Simulation( args ) ) ) );
+      }
+
+      final List <SweepResult> results = new ArrayList<>( tasks.size() );
+      for ( int i = 0; i < tasks.size(); i++ ) {
+        try {
+          results.add( tasks.get( i ).get() );
+        } catch ( final ExecutionException e ) {
+          throw new IllegalStateException( "Sweep point " + this.describe( points.get( i ) )
+              + " failed", e.getCause() );
+        }
+      }
+      return results;
+    } catch ( final InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException( "Sweep interrupted", e );
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Writes the results as a table with one row per point. The swept values
+   * are followed by the completion time, the event count, the median, 99th
+   * and 99.9th percentile reception times and the receptions on each
+   * channel. Makespan evaluations have no percentiles, they are printed as
+   * {@code NaN}.
+   */
+  public final void printResults(
+      final PrintStream out,
+      final List <SweepResult> results ) {
+    out.println( "# Sweep results" );
+    final StringBuilder header = new StringBuilder( "#" );
+    for ( final String name : this.names ) {
+      header.append( " <" ).append( name ).append( ">" );
+    }
+    header.append( " <completion time> <events> <p50> <p99> <p99.9>"
+        + " <receptions on channel 1> ..." );
+    out.println( header );
+
+    for ( final SweepResult result : results ) {
+      final StringBuilder row = new StringBuilder();
+      for ( final String value : result.values ) {
+        row.append( value ).append( ' ' );
+      }
+      row.append( result.completionTime ).append( ' ' ).append( result.eventCount );
+      final LatencyHistogram latency
+          = ( result.latency != null ) ? result.latency.total() : new LatencyHistogram();
+      row.append( ' ' ).append( latency.quantile( 0.5 ) )
+          .append( ' ' ).append( latency.quantile( 0.99 ) )
+          .append( ' ' ).append( latency.quantile( 0.999 ) );
+      for ( final int count : result.receptionsPerChannel ) {
+        row.append( ' ' ).append( count );
+      }
+      out.println( row );
+    }
+  }
+
+  /**
+   * Merges the reception time distributions of the simulated points.
+   * Makespan evaluations are skipped.
+   */
+  public static LatencySketches mergeLatency( final List <SweepResult> results ) {
+    final LatencySketches merged = new LatencySketches();
+    for ( final SweepResult result : results ) {
+      if ( result.latency != null ) merged.merge( result.latency );
+    }
+    return merged;
+  }
+
+  /**
+   * Expands a value specification into the list of values.
+   *
+   * @param spec
+   *    Comma separated list, {@code from..to} integer range or
+   *    {@code from..to:step} range.
+   */
+  public static List <String> parseValues( final String spec ) {
+    final List <String> values = new ArrayList<>();
+    for ( final String part : spec.split( "," ) ) {
+      final int rangeSplit = part.indexOf( ".." );
+      if ( rangeSplit < 0 ) {
+        values.add( part );
+        continue;
+      }
+
+      final int stepSplit = part.indexOf( ':', rangeSplit );
+      final String from = part.substring( 0, rangeSplit );
+      final String to = stepSplit < 0
+          ? part.substring( rangeSplit + 2 ) : part.substring( rangeSplit + 2, stepSplit );
+      final String step = stepSplit < 0 ? "1" : part.substring( stepSplit + 1 );
+      try {
+        if ( isInteger( from ) && isInteger( to ) && isInteger( step ) ) {
+          expandRange( Long.parseLong( from ), Long.parseLong( to ), Long.parseLong( step ),
+              values );
+        } else {
+          expandRange( new BigDecimal( from ), new BigDecimal( to ), new BigDecimal( step ),
+              values );
+        }
+      } catch ( final NumberFormatException e ) {
+        throw new IllegalArgumentException( "Malformed range '" + part + "'" );
+      }
+    }
+    return values;
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private String describe( final String[] point ) {
+    final StringBuilder sb = new StringBuilder();
+    for ( int i = 0; i < point.length; i++ ) {
+      if ( i > 0 ) sb.append( ' ' );
+      sb.append( this.names.get( i ) ).append( '=' ).append( point[ i ] );
+    }
+    return sb.toString();
+  }
+
+  private static boolean isInteger( final String string ) {
+    return string.matches( "-?\\d+" );
+  }
+
+  private static void expandRange(
+      final long from,
+      final long to,
+      final long step,
+      final List <String> values ) {
+    if ( step <= 0 ) throw new IllegalArgumentException( "Non-positive step " + step );
+    for ( long value = from; value <= to; value += step ) {
+      values.add( Long.toString( value ) );
+    }
+  }
+
+  /**
+   * Decimal ranges are expanded exactly, so the values read the way they
+   * were typed ({@code 0.3}, not {@code 0.30000000000000004}).
+   */
+  private static void expandRange(
+      final BigDecimal from,
+      final BigDecimal to,
+      final BigDecimal step,
+      final List <String> values ) {
+    if ( step.signum() <= 0 ) {
+      throw new IllegalArgumentException( "Non-positive step " + step.toPlainString() );
+    }
+    for ( BigDecimal value = from; value.compareTo( to ) <= 0; value = value.add( step ) ) {
+      values.add( value.stripTrailingZeros().toPlainString() );
+    }
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,79 @@
+package de.tum.in.cm.java.dissim.sweep;
+
+import de.tum.in.cm.java.dissim.LatencySketches;
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.subtree.Makespan;
+import de.tum.in.cm.java.dissim.subtree.MakespanEvaluator;
+
+/**
+ * Outcome of the simulation of a single sweep point.
+ *
+ * @author teemuk
+ */
+public final class SweepResult {
+  /** Values of the swept parameters, in the order of {@link Sweep#names()} */
+  public final String[] values;
+  /** Time of the last reception */
+  public final double completionTime;
+  /** Number of processed events, zero for makespan evaluations */
+  public final long eventCount;
+  /** Receptions per channel, index 0 is channel 1 */
+  public final int[] receptionsPerChannel;
+  /** Wall clock time of the run */
+  public final double durationMillis;
+  /** Reception time distributions, {@code null} for makespan evaluations */
+  public final LatencySketches latency;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  public SweepResult(
+      final String[] values,
+      final double completionTime,
+      final long eventCount,
+      final int[] receptionsPerChannel,
+      final double durationMillis,
+      final LatencySketches latency ) {
+    this.values = values;
+    this.completionTime = completionTime;
+    this.eventCount = eventCount;
+    this.receptionsPerChannel = receptionsPerChannel;
+    this.durationMillis = durationMillis;
+    this.latency = latency;
+  }
+
+  /**
+   * Runs the simulation to completion and collects the result, including
+   * the latency sketches for the percentiles of the results table.
+   */
+  public static SweepResult of(
+      final String[] values,
+      final Simulation simulation ) {
+    simulation.reportStats().trackLatency();
+    final long startTime = System.nanoTime();
+    final long eventCount = simulation.run();
+    final long endTime = System.nanoTime();
+
+    final Stats stats = simulation.stats();
+    return new SweepResult( values, stats.completionTime(), eventCount,
+        stats.receptionsPerChannel(), 1.0 * ( endTime - startTime ) / 1000000.0,
+        stats.latency() );
+  }
+
+  /**
+   * Evaluates the makespan of a normal run without simulating it.
+   */
+  public static SweepResult ofMakespan(
+      final String[] values,
+      final Main.Args args ) {
+    final long startTime = System.nanoTime();
+    final Makespan makespan = MakespanEvaluator.evaluate( args );
+    final long endTime = System.nanoTime();
+
+    return new SweepResult( values, makespan.completionTime, 0, makespan.receptionsPerChannel,
+        1.0 * ( endTime - startTime ) / 1000000.0, null );
+  }
+  //==============================================================================================//
+}
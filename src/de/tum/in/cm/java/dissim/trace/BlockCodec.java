@@ -0,0 +1,333 @@
+package de.tum.in.cm.java.dissim.trace;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Encoding of a block of receptions in the compressed trace. The block is
+ * decodable without the blocks before it.
+ * <p>
+ * The receptions of concurrent leaders are interleaved in time, but a
+ * channel is used by one leader at a time. Every record is therefore
+ * predicted from the previous record on its channel: the same source, the
+ * next destination and the same step in time. Channels are coded by their
+ * position in a move-to-front list, which is constant when the channels
+ * take turns. The residuals are stored column by column, the int columns
+ * as (value, run length) varint pairs and the times as runs of exact
+ * predictions followed by the non-zero bytes of the prediction XOR the
+ * time.
+ *
+ * @author teemuk
+ */
+final class BlockCodec {
+
+  /** Channels with a context, older ones are forgotten */
+  private static final int CONTEXTS = 64;
+
+  /** Channel contexts, most recent first */
+  private final int[] contextChannels = new int[ CONTEXTS ];
+  private final int[] contextSources = new int[ CONTEXTS ];
+  private final int[] contextDestinations = new int[ CONTEXTS ];
+  private final double[] contextTimes = new double[ CONTEXTS ];
+  private final double[] contextPreviousTimes = new double[ CONTEXTS ];
+  private int contextCount;
+
+  /** Residual columns */
+  private final int[] channelCodes;
+  private final int[] literalChannels;
+  private final int[] sourceResiduals;
+  private final int[] destinationResiduals;
+  private final long[] timeResiduals;
+
+  private byte[] bytes = new byte[ 1 << 12 ];
+  private int length;
+
+  //==============================================================================================//
+  // Package
+  //==============================================================================================//
+  BlockCodec( final int capacity ) {
+    this.channelCodes = new int[ capacity ];
+    this.literalChannels = new int[ capacity ];
+    this.sourceResiduals = new int[ capacity ];
+    this.destinationResiduals = new int[ capacity ];
+    this.timeResiduals = new long[ capacity ];
+  }
+
+  /**
+   * Encodes the records into the internal buffer, replacing its previous
+   * contents.
+   */
+  final void encode(
+      final double[] times,
+      final int[] sources,
+      final int[] destinations,
+      final int[] channels,
+      final int count ) {
+    this.contextCount = 0;
+    int literalCount = 0;
+    double previousTime = 0.0;
+    for ( int i = 0; i < count; i++ ) {
+      final int position = this.findContext( channels[ i ] );
+      if ( position < 0 ) {
+        this.channelCodes[ i ] = 0;
+        this.literalChannels[ literalCount++ ] = channels[ i ];
+        this.addContext( channels[ i ], previousTime );
+      } else {
+        this.channelCodes[ i ] = position + 1;
+        this.moveToFront( position );
+      }
+
+      this.sourceResiduals[ i ] = sources[ i ] - this.contextSources[ 0 ];
+      this.destinationResiduals[ i ] = destinations[ i ] - this.contextDestinations[ 0 ] - 1;
+      this.timeResiduals[ i ] = Double.doubleToRawLongBits( times[ i ] )
+          ^ Double.doubleToRawLongBits( this.predictTime() );
+      this.update( sources[ i ], destinations[ i ], times[ i ] );
+      previousTime = times[ i ];
+    }
+
+    this.length = 0;
+    this.writeVarint( literalCount );
+    for ( int i = 0; i < literalCount; i++ ) {
+      this.writeVarint( zigzag( this.literalChannels[ i ] ) );
+    }
+    this.encodeRuns( this.channelCodes, count );
+    this.encodeRuns( this.sourceResiduals, count );
+    this.encodeRuns( this.destinationResiduals, count );
+    this.encodeTimes( this.timeResiduals, count );
+  }
+
+  final byte[] bytes() {
+    return this.bytes;
+  }
+
+  final int length() {
+    return this.length;
+  }
+
+  /**
+   * Decodes {@code count} records from the buffer into the arrays.
+   */
+  final void decode(
+      final ByteBuffer in,
+      final int count,
+      final double[] times,
+      final int[] sources,
+      final int[] destinations,
+      final int[] channels ) {
+    final int literalCount = readVarint( in );
+    for ( int i = 0; i < literalCount; i++ ) {
+      this.literalChannels[ i ] = unzigzag( readVarint( in ) );
+    }
+    decodeRuns( in, this.channelCodes, count );
+    decodeRuns( in, this.sourceResiduals, count );
+    decodeRuns( in, this.destinationResiduals, count );
+    decodeTimes( in, this.timeResiduals, count );
+
+    this.contextCount = 0;
+    int literal = 0;
+    double previousTime = 0.0;
+    for ( int i = 0; i < count; i++ ) {
+      final int code = this.channelCodes[ i ];
+      if ( code == 0 ) {
+        this.addContext( this.literalChannels[ literal++ ], previousTime );
+      } else {
+        this.moveToFront( code - 1 );
+      }
+
+      channels[ i ] = this.contextChannels[ 0 ];
+      sources[ i ] = this.contextSources[ 0 ] + this.sourceResiduals[ i ];
+      destinations[ i ] = this.contextDestinations[ 0 ] + 1 + this.destinationResiduals[ i ];
+      times[ i ] = Double.longBitsToDouble( Double.doubleToRawLongBits( this.predictTime() )
+          ^ this.timeResiduals[ i ] );
+      this.update( sources[ i ], destinations[ i ], times[ i ] );
+      previousTime = times[ i ];
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private int findContext( final int channel ) {
+    for ( int i = 0; i < this.contextCount; i++ ) {
+      if ( this.contextChannels[ i ] == channel ) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Puts a new context first, forgetting the oldest one if needed. Its time
+   * prediction is the time of the previous record.
+   */
+  private void addContext(
+      final int channel,
+      final double time ) {
+    if ( this.contextCount < CONTEXTS ) {
+      this.contextCount++;
+    }
+    this.shift( this.contextCount - 1 );
+    this.contextChannels[ 0 ] = channel;
+    this.contextSources[ 0 ] = 0;
+    this.contextDestinations[ 0 ] = 0;
+    this.contextTimes[ 0 ] = time;
+    this.contextPreviousTimes[ 0 ] = time;
+  }
+
+  private void moveToFront( final int position ) {
+    if ( position == 0 ) return;
+    final int channel = this.contextChannels[ position ];
+    final int source = this.contextSources[ position ];
+    final int destination = this.contextDestinations[ position ];
+    final double time = this.contextTimes[ position ];
+    final double previousTime = this.contextPreviousTimes[ position ];
+    this.shift( position );
+    this.contextChannels[ 0 ] = channel;
+    this.contextSources[ 0 ] = source;
+    this.contextDestinations[ 0 ] = destination;
+    this.contextTimes[ 0 ] = time;
+    this.contextPreviousTimes[ 0 ] = previousTime;
+  }
+
+  /**
+   * Moves the contexts before the position one step back.
+   */
+  private void shift( final int position ) {
+    System.arraycopy( this.contextChannels, 0, this.contextChannels, 1, position );
+    System.arraycopy( this.contextSources, 0, this.contextSources, 1, position );
+    System.arraycopy( this.contextDestinations, 0, this.contextDestinations, 1, position );
+    System.arraycopy( this.contextTimes, 0, this.contextTimes, 1, position );
+    System.arraycopy( this.contextPreviousTimes, 0, this.contextPreviousTimes, 1, position );
+  }
+
+  private double predictTime() {
+    return this.contextTimes[ 0 ] + ( this.contextTimes[ 0 ] - this.contextPreviousTimes[ 0 ] );
+  }
+
+  private void update(
+      final int source,
+      final int destination,
+      final double time ) {
+    this.contextSources[ 0 ] = source;
+    this.contextDestinations[ 0 ] = destination;
+    this.contextPreviousTimes[ 0 ] = this.contextTimes[ 0 ];
+    this.contextTimes[ 0 ] = time;
+  }
+
+  /**
+   * Writes runs of zero residuals as their length, and every other residual
+   * as a header of its leading and trailing zero bytes and the bytes in
+   * between.
+   */
+  private void encodeTimes(
+      final long[] residuals,
+      final int count ) {
+    int i = 0;
+    while ( i < count ) {
+      int run = 0;
+      while ( i < count && residuals[ i ] == 0 ) {
+        run++;
+        i++;
+      }
+      this.writeVarint( run );
+      if ( i == count ) break;
+
+      final long residual = residuals[ i++ ];
+      final int leading = Long.numberOfLeadingZeros( residual ) / 8;
+      final int trailing = Long.numberOfTrailingZeros( residual ) / 8;
+      this.writeByte( ( leading << 4 ) | trailing );
+      for ( int b = 7 - leading; b >= trailing; b-- ) {
+        this.writeByte( ( int ) ( residual >>> ( 8 * b ) ) );
+      }
+    }
+  }
+
+  private static void decodeTimes(
+      final ByteBuffer in,
+      final long[] residuals,
+      final int count ) {
+    int i = 0;
+    while ( i < count ) {
+      final int run = readVarint( in );
+      Arrays.fill( residuals, i, i + run, 0L );
+      i += run;
+      if ( i == count ) break;
+
+      final int header = in.get() & 0xFF;
+      final int leading = header >>> 4;
+      final int trailing = header & 0x0F;
+      long residual = 0;
+      for ( int b = 7 - leading; b >= trailing; b-- ) {
+        residual |= ( in.get() & 0xFFL ) << ( 8 * b );
+      }
+      residuals[ i++ ] = residual;
+    }
+  }
+
+  /**
+   * Writes (value, run length) pairs, values as zigzag varints.
+   */
+  private void encodeRuns(
+      final int[] values,
+      final int count ) {
+    int i = 0;
+    while ( i < count ) {
+      final int value = values[ i ];
+      int run = 1;
+      i++;
+      while ( i < count && values[ i ] == value ) {
+        run++;
+        i++;
+      }
+      this.writeVarint( zigzag( value ) );
+      this.writeVarint( run );
+    }
+  }
+
+  private static void decodeRuns(
+      final ByteBuffer in,
+      final int[] values,
+      final int count ) {
+    int i = 0;
+    while ( i < count ) {
+      final int value = unzigzag( readVarint( in ) );
+      final int run = readVarint( in );
+      Arrays.fill( values, i, i + run, value );
+      i += run;
+    }
+  }
+
+  private static int zigzag( final int value ) {
+    return ( value << 1 ) ^ ( value >> 31 );
+  }
+
+  private static int unzigzag( final int value ) {
+    return ( value >>> 1 ) ^ -( value & 1 );
+  }
+
+  private void writeVarint( final int value ) {
+    int remaining = value;
+    while ( ( remaining & ~0x7F ) != 0 ) {
+      this.writeByte( ( remaining & 0x7F ) | 0x80 );
+      remaining >>>= 7;
+    }
+    this.writeByte( remaining );
+  }
+
+  private static int readVarint( final ByteBuffer in ) {
+    int value = 0;
+    for ( int shift = 0; ; shift += 7 ) {
+      final int b = in.get();
+      value |= ( b & 0x7F ) << shift;
+      if ( ( b & 0x80 ) == 0 ) return value;
+    }
+  }
+
+  private void writeByte( final int value ) {
+    if ( this.length == this.bytes.length ) {
+      this.bytes = Arrays.copyOf( this.bytes, this.bytes.length * 2 );
+    }
+    this.bytes[ this.length++ ] = ( byte ) value;
+  }
+  //==============================================================================================//
+}
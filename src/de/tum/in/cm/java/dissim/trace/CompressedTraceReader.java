@@ -0,0 +1,206 @@
+package de.tum.in.cm.java.dissim.trace;
+
+import de.tum.in.cm.java.dissim.ReceptionListener;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Decodes a trace written by {@link CompressedTraceWriter}. Only the block
+ * index is kept in memory, the blocks are read and decoded one at a time,
+ * and the index lets a replay start at a given time without decoding the
+ * blocks before it.
+ *
+ * @author teemuk
+ */
+public final class CompressedTraceReader
+implements Closeable {
+
+  private final FileChannel channel;
+  private final long size;
+  private final long[] blockOffsets;
+  private final int[] blockCounts;
+  private final double[] blockFirstTimes;
+  private final double[] blockLastTimes;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Opens a compressed trace and reads its block index.
+   *
+   * @param file
+   *    Trace file.
+   * @return
+   *    Reader over all records of the trace.
+   * @throws IOException
+   *    If the file cannot be read or is not a complete trace.
+   */
+  public static CompressedTraceReader open( final File file ) throws IOException {
+    final FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ );
+    try {
+      return new CompressedTraceReader( channel );
+    } catch ( final IOException | RuntimeException e ) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Number of records in the trace.
+   */
+  public final long size() {
+    return this.size;
+  }
+
+  public final int blockCount() {
+    return this.blockCounts.length;
+  }
+
+  /**
+   * Time of the first record, or {@code NaN} for an empty trace.
+   */
+  public final double firstTime() {
+    return this.blockCount() == 0 ? Double.NaN : this.blockFirstTimes[ 0 ];
+  }
+
+  /**
+   * Time of the last record, or {@code NaN} for an empty trace.
+   */
+  public final double lastTime() {
+    return this.blockCount() == 0 ? Double.NaN : this.blockLastTimes[ this.blockCount() - 1 ];
+  }
+
+  /**
+   * Passes every record to the listener in trace order.
+   */
+  public final void forEach( final ReceptionListener listener ) throws IOException {
+    this.replay( 0, Double.NEGATIVE_INFINITY, listener );
+  }
+
+  /**
+   * Passes the records from the first one at or after the given time to the
+   * listener in trace order. Only the blocks from the one containing that
+   * record on are decoded.
+   *
+   * @param startTime
+   *    Time of the first record to replay.
+   * @param listener
+   *    Receiver of the records.
+   */
+  public final void forEachFrom(
+      final double startTime,
+      final ReceptionListener listener ) throws IOException {
+    this.replay( this.findBlock( startTime ), startTime, listener );
+  }
+
+  @Override
+  public final void close() throws IOException {
+    this.channel.close();
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private CompressedTraceReader( final FileChannel channel ) throws IOException {
+    this.channel = channel;
+
+    final ByteBuffer header = this.read( 0, TraceFormat.COMPRESSED_HEADER_BYTES );
+    if ( header.getInt() != TraceFormat.COMPRESSED_MAGIC ) {
+      throw new IOException( "Not a compressed reception trace" );
+    }
+    final int version = header.getInt();
+    if ( version != TraceFormat.COMPRESSED_VERSION ) {
+      throw new IOException( "Unsupported trace version (" + version + ")" );
+    }
+
+    final long footerOffset = channel.size() - TraceFormat.FOOTER_BYTES;
+    if ( footerOffset < TraceFormat.COMPRESSED_HEADER_BYTES ) {
+      throw new IOException( "Truncated compressed trace" );
+    }
+    final ByteBuffer footer = this.read( footerOffset, TraceFormat.FOOTER_BYTES );
+    final long indexOffset = footer.getLong();
+    final int blockCount = footer.getInt();
+    this.size = footer.getLong();
+    if ( footer.getInt() != TraceFormat.COMPRESSED_MAGIC
+         || indexOffset + ( long ) blockCount * TraceFormat.INDEX_ENTRY_BYTES != footerOffset ) {
+      throw new IOException( "Truncated compressed trace" );
+    }
+
+    final ByteBuffer index = this.read( indexOffset,
+        blockCount * TraceFormat.INDEX_ENTRY_BYTES );
+    this.blockOffsets = new long[ blockCount ];
+    this.blockCounts = new int[ blockCount ];
+    this.blockFirstTimes = new double[ blockCount ];
+    this.blockLastTimes = new double[ blockCount ];
+    for ( int i = 0; i < blockCount; i++ ) {
+      this.blockOffsets[ i ] = index.getLong();
+      this.blockCounts[ i ] = index.getInt();
+      this.blockFirstTimes[ i ] = index.getDouble();
+      this.blockLastTimes[ i ] = index.getDouble();
+    }
+  }
+
+  /**
+   * First block whose last record is at or after the time.
+   */
+  private int findBlock( final double time ) {
+    int low = 0;
+    int high = this.blockCount();
+    while ( low < high ) {
+      final int mid = ( low + high ) >>> 1;
+      if ( this.blockLastTimes[ mid ] < time ) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private void replay(
+      final int firstBlock,
+      final double startTime,
+      final ReceptionListener listener ) throws IOException {
+    final BlockCodec codec = new BlockCodec( TraceFormat.BLOCK_RECORDS );
+    final double[] times = new double[ TraceFormat.BLOCK_RECORDS ];
+    final int[] sources = new int[ TraceFormat.BLOCK_RECORDS ];
+    final int[] destinations = new int[ TraceFormat.BLOCK_RECORDS ];
+    final int[] channels = new int[ TraceFormat.BLOCK_RECORDS ];
+    for ( int block = firstBlock; block < this.blockCount(); block++ ) {
+      final long offset = this.blockOffsets[ block ];
+      final int length = this.read( offset, TraceFormat.BLOCK_HEADER_BYTES ).getInt();
+      final int count = this.blockCounts[ block ];
+      codec.decode( this.read( offset + TraceFormat.BLOCK_HEADER_BYTES, length ), count,
+          times, sources, destinations, channels );
+
+      int i = 0;
+      if ( block == firstBlock ) {
+        while ( i < count && times[ i ] < startTime ) i++;
+      }
+      for ( ; i < count; i++ ) {
+        listener.reception( times[ i ], sources[ i ], destinations[ i ], channels[ i ] );
+      }
+    }
+  }
+
+  private ByteBuffer read(
+      final long offset,
+      final int length ) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate( length );
+    while ( buffer.hasRemaining() ) {
+      if ( this.channel.read( buffer, offset + buffer.position() ) < 0 ) {
+        throw new IOException( "Truncated compressed trace" );
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,167 @@
+package de.tum.in.cm.java.dissim.trace;
+
+import de.tum.in.cm.java.dissim.ReceptionListener;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Streams receptions into a compressed trace file, see {@link BlockCodec}
+ * for the encoding. Records are buffered into blocks, so the writer only
+ * holds one block in memory. The receptions must be fed in time order, as
+ * {@link de.tum.in.cm.java.dissim.Stats} does, for the block index to
+ * support seeking by time.
+ *
+ * @author teemuk
+ */
+public final class CompressedTraceWriter
+implements ReceptionListener, Closeable {
+
+  private final DataOutputStream out;
+  private final BlockCodec codec = new BlockCodec( TraceFormat.BLOCK_RECORDS );
+
+  /** Current block */
+  private final double[] times = new double[ TraceFormat.BLOCK_RECORDS ];
+  private final int[] sources = new int[ TraceFormat.BLOCK_RECORDS ];
+  private final int[] destinations = new int[ TraceFormat.BLOCK_RECORDS ];
+  private final int[] channels = new int[ TraceFormat.BLOCK_RECORDS ];
+  private int blockSize;
+
+  /** Block index */
+  private long[] blockOffsets = new long[ 64 ];
+  private int[] blockCounts = new int[ 64 ];
+  private double[] blockFirstTimes = new double[ 64 ];
+  private double[] blockLastTimes = new double[ 64 ];
+  private int blockCount;
+
+  private long position;
+  private long count;
+  private boolean closed;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Creates or truncates the trace file.
+   *
+   * @param file
+   *    File to write the trace into.
+   * @return
+   *    Writer without records.
+   * @throws IOException
+   *    If the file cannot be opened.
+   */
+  public static CompressedTraceWriter open( final File file ) throws IOException {
+    final DataOutputStream out = new DataOutputStream( new BufferedOutputStream(
+        new FileOutputStream( file ), 1 << 16 ) );
+    out.writeInt( TraceFormat.COMPRESSED_MAGIC );
+    out.writeInt( TraceFormat.COMPRESSED_VERSION );
+    return new CompressedTraceWriter( out );
+  }
+
+  /**
+   * Number of records written so far.
+   */
+  public final long count() {
+    return this.count;
+  }
+
+  /**
+   * Number of bytes written so far, excluding the block being filled.
+   */
+  public final long position() {
+    return this.position;
+  }
+
+  @Override
+  public final void reception(
+      final double time,
+      final int source,
+      final int destination,
+      final int channel ) {
+    if ( this.closed ) {
+      throw new IllegalStateException( "Trace writer is closed" );
+    }
+    final int i = this.blockSize++;
+    this.times[ i ] = time;
+    this.sources[ i ] = source;
+    this.destinations[ i ] = destination;
+    this.channels[ i ] = channel;
+    this.count++;
+    if ( this.blockSize == TraceFormat.BLOCK_RECORDS ) {
+      try {
+        this.writeBlock();
+      } catch ( final IOException e ) {
+        throw new UncheckedIOException( "Failed to write the trace", e );
+      }
+    }
+  }
+
+  /**
+   * Writes the last block, the block index and the footer.
+   */
+  @Override
+  public final void close() throws IOException {
+    if ( this.closed ) return;
+    this.closed = true;
+    try {
+      if ( this.blockSize > 0 ) {
+        this.writeBlock();
+      }
+      final long indexOffset = this.position;
+      for ( int i = 0; i < this.blockCount; i++ ) {
+        this.out.writeLong( this.blockOffsets[ i ] );
+        this.out.writeInt( this.blockCounts[ i ] );
+        this.out.writeDouble( this.blockFirstTimes[ i ] );
+        this.out.writeDouble( this.blockLastTimes[ i ] );
+      }
+      this.out.writeLong( indexOffset );
+      this.out.writeInt( this.blockCount );
+      this.out.writeLong( this.count );
+      this.out.writeInt( TraceFormat.COMPRESSED_MAGIC );
+    } finally {
+      this.out.close();
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private CompressedTraceWriter( final DataOutputStream out ) {
+    this.out = out;
+    this.position = TraceFormat.COMPRESSED_HEADER_BYTES;
+  }
+
+  private void writeBlock() throws IOException {
+    this.codec.encode( this.times, this.sources, this.destinations, this.channels,
+        this.blockSize );
+
+    if ( this.blockCount == this.blockOffsets.length ) {
+      final int capacity = this.blockCount * 2;
+      this.blockOffsets = Arrays.copyOf( this.blockOffsets, capacity );
+      this.blockCounts = Arrays.copyOf( this.blockCounts, capacity );
+      this.blockFirstTimes = Arrays.copyOf( this.blockFirstTimes, capacity );
+      this.blockLastTimes = Arrays.copyOf( this.blockLastTimes, capacity );
+    }
+    this.blockOffsets[ this.blockCount ] = this.position;
+    this.blockCounts[ this.blockCount ] = this.blockSize;
+    this.blockFirstTimes[ this.blockCount ] = this.times[ 0 ];
+    this.blockLastTimes[ this.blockCount ] = this.times[ this.blockSize - 1 ];
+    this.blockCount++;
+
+    this.out.writeInt( this.codec.length() );
+    this.out.writeInt( this.blockSize );
+    this.out.write( this.codec.bytes(), 0, this.codec.length() );
+    this.position += TraceFormat.BLOCK_HEADER_BYTES + this.codec.length();
+    this.blockSize = 0;
+  }
+  //==============================================================================================//
+}
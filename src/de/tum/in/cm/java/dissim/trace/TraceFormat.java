@@ -0,0 +1,52 @@
+package de.tum.in.cm.java.dissim.trace;
+
+/**
+ * Layouts of the reception traces.
+ * <p>
+ * The mapped trace starts with a header of the magic number, the format
+ * version and the record count, followed by fixed size little-endian
+ * records of the reception time, source, destination and channel.
+ * <p>
+ * The compressed trace starts with the magic number and the version,
+ * followed by blocks of a payload length, a record count and the payload
+ * encoded by {@link BlockCodec}. The blocks are followed by the block index
+ * of an offset, a record count and the first and last time per block, and
+ * a footer of the index offset, the block count, the record count and the
+ * magic number again.
+ *
+ * @author teemuk
+ */
+final class TraceFormat {
+
+  static final int MAGIC = 0x44535452;
+  static final int VERSION = 1;
+
+  static final int HEADER_BYTES = 16;
+  static final int COUNT_OFFSET = 8;
+
+  static final int RECORD_BYTES = 20;
+  static final int TIME_OFFSET = 0;
+  static final int SOURCE_OFFSET = 8;
+  static final int DESTINATION_OFFSET = 12;
+  static final int CHANNEL_OFFSET = 16;
+
+  /** Records per mapped region, regions never split a record */
+  static final int REGION_RECORDS = 1 << 20;
+  static final long REGION_BYTES = ( long ) REGION_RECORDS * RECORD_BYTES;
+
+  static final int COMPRESSED_MAGIC = 0x4453545A;
+  static final int COMPRESSED_VERSION = 1;
+  static final int COMPRESSED_HEADER_BYTES = 8;
+  /** Maximum records per compressed block */
+  static final int BLOCK_RECORDS = 1 << 14;
+  static final int BLOCK_HEADER_BYTES = 8;
+  static final int INDEX_ENTRY_BYTES = 28;
+  static final int FOOTER_BYTES = 24;
+
+  private TraceFormat() {
+  }
+
+  static long recordPosition( final long index ) {
+    return HEADER_BYTES + index * RECORD_BYTES;
+  }
+}
@@ -0,0 +1,145 @@
+package de.tum.in.cm.java.dissim.trace;
+
+import de.tum.in.cm.java.dissim.ReceptionListener;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Random access to a trace written by {@link TraceWriter}. The records are
+ * mapped read only, so traces larger than the heap can be analyzed without
+ * loading them.
+ *
+ * @author teemuk
+ */
+public final class TraceReader
+implements Closeable {
+
+  private final FileChannel channel;
+  private final long size;
+  private final MappedByteBuffer[] regions;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Opens and maps a trace file.
+   *
+   * @param file
+   *    Trace file.
+   * @return
+   *    Reader over all records of the trace.
+   * @throws IOException
+   *    If the file cannot be read or is not a complete trace.
+   */
+  public static TraceReader open( final File file ) throws IOException {
+    final FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ );
+    try {
+      return new TraceReader( channel );
+    } catch ( final IOException | RuntimeException e ) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Number of records in the trace.
+   */
+  public final long size() {
+    return this.size;
+  }
+
+  public final double time( final long index ) {
+    return this.region( index ).getDouble( this.offset( index ) + TraceFormat.TIME_OFFSET );
+  }
+
+  public final int source( final long index ) {
+    return this.region( index ).getInt( this.offset( index ) + TraceFormat.SOURCE_OFFSET );
+  }
+
+  public final int destination( final long index ) {
+    return this.region( index ).getInt( this.offset( index ) + TraceFormat.DESTINATION_OFFSET );
+  }
+
+  public final int channel( final long index ) {
+    return this.region( index ).getInt( this.offset( index ) + TraceFormat.CHANNEL_OFFSET );
+  }
+
+  /**
+   * Passes every record to the listener in trace order.
+   */
+  public final void forEach( final ReceptionListener listener ) {
+    for ( final MappedByteBuffer region : this.regions ) {
+      final int records = region.capacity() / TraceFormat.RECORD_BYTES;
+      for ( int i = 0, offset = 0; i < records; i++, offset += TraceFormat.RECORD_BYTES ) {
+        listener.reception( region.getDouble( offset + TraceFormat.TIME_OFFSET ),
+            region.getInt( offset + TraceFormat.SOURCE_OFFSET ),
+            region.getInt( offset + TraceFormat.DESTINATION_OFFSET ),
+            region.getInt( offset + TraceFormat.CHANNEL_OFFSET ) );
+      }
+    }
+  }
+
+  @Override
+  public final void close() throws IOException {
+    this.channel.close();
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private TraceReader( final FileChannel channel ) throws IOException {
+    this.channel = channel;
+
+    final ByteBuffer header = ByteBuffer.allocate( TraceFormat.HEADER_BYTES )
+        .order( ByteOrder.LITTLE_ENDIAN );
+    while ( header.hasRemaining() ) {
+      if ( channel.read( header, header.position() ) < 0 ) {
+        throw new IOException( "Truncated trace header" );
+      }
+    }
+    header.flip();
+    if ( header.getInt() != TraceFormat.MAGIC ) {
+      throw new IOException( "Not a reception trace" );
+    }
+    final int version = header.getInt();
+    if ( version != TraceFormat.VERSION ) {
+      throw new IOException( "Unsupported trace version (" + version + ")" );
+    }
+    this.size = header.getLong();
+    if ( channel.size() < TraceFormat.recordPosition( this.size ) ) {
+      throw new IOException( "Trace has fewer records than its header (" + this.size + ")" );
+    }
+
+    final int regionCount = ( int ) ( ( this.size + TraceFormat.REGION_RECORDS - 1 )
+        / TraceFormat.REGION_RECORDS );
+    this.regions = new MappedByteBuffer[ regionCount ];
+    for ( int i = 0; i < regionCount; i++ ) {
+      final long first = ( long ) i * TraceFormat.REGION_RECORDS;
+      final long records = Math.min( TraceFormat.REGION_RECORDS, this.size - first );
+      this.regions[ i ] = channel.map( FileChannel.MapMode.READ_ONLY,
+          TraceFormat.recordPosition( first ), records * TraceFormat.RECORD_BYTES );
+      this.regions[ i ].order( ByteOrder.LITTLE_ENDIAN );
+    }
+  }
+
+  private MappedByteBuffer region( final long index ) {
+    if ( index < 0 || index >= this.size ) {
+      throw new IndexOutOfBoundsException( "Record " + index + " of " + this.size );
+    }
+    return this.regions[ ( int ) ( index / TraceFormat.REGION_RECORDS ) ];
+  }
+
+  private int offset( final long index ) {
+    return ( int ) ( index % TraceFormat.REGION_RECORDS ) * TraceFormat.RECORD_BYTES;
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,125 @@
+package de.tum.in.cm.java.dissim.trace;
+
+import de.tum.in.cm.java.dissim.ReceptionListener;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the receptions of a simulation into a binary trace file through
+ * memory mapped regions, so the records are written by the OS page cache
+ * instead of being kept on the heap or formatted as text. Register it with
+ * {@link de.tum.in.cm.java.dissim.Stats#addReceptionListener} before the run
+ * and close it afterwards.
+ *
+ * @author teemuk
+ */
+public final class TraceWriter
+implements ReceptionListener, Closeable {
+
+  private final FileChannel channel;
+  private MappedByteBuffer region;
+  private long regionStart;
+  private long count;
+  private boolean closed;
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Creates or truncates the trace file.
+   *
+   * @param file
+   *    File to write the trace into.
+   * @return
+   *    Writer positioned at the first record.
+   * @throws IOException
+   *    If the file cannot be opened.
+   */
+  public static TraceWriter open( final File file ) throws IOException {
+    final FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE );
+    return new TraceWriter( channel );
+  }
+
+  /**
+   * Number of records written so far.
+   */
+  public final long count() {
+    return this.count;
+  }
+
+  @Override
+  public final void reception(
+      final double time,
+      final int source,
+      final int destination,
+      final int channel ) {
+    if ( this.closed ) {
+      throw new IllegalStateException( "Trace writer is closed" );
+    }
+    if ( this.count % TraceFormat.REGION_RECORDS == 0 ) {
+      this.mapRegion( TraceFormat.recordPosition( this.count ) );
+    }
+    final int offset = ( int ) ( TraceFormat.recordPosition( this.count ) - this.regionStart );
+    this.region.putDouble( offset + TraceFormat.TIME_OFFSET, time );
+    this.region.putInt( offset + TraceFormat.SOURCE_OFFSET, source );
+    this.region.putInt( offset + TraceFormat.DESTINATION_OFFSET, destination );
+    this.region.putInt( offset + TraceFormat.CHANNEL_OFFSET, channel );
+    this.count++;
+  }
+
+  /**
+   * Writes the header and truncates the file to the written records.
+   */
+  @Override
+  public final void close() throws IOException {
+    if ( this.closed ) return;
+    this.closed = true;
+    try {
+      if ( this.region != null ) {
+        this.region.force();
+        this.region = null;
+      }
+      final ByteBuffer header = ByteBuffer.allocate( TraceFormat.HEADER_BYTES )
+          .order( ByteOrder.LITTLE_ENDIAN );
+      header.putInt( TraceFormat.MAGIC );
+      header.putInt( TraceFormat.VERSION );
+      header.putLong( this.count );
+      header.flip();
+      this.channel.write( header, 0 );
+      this.channel.truncate( TraceFormat.recordPosition( this.count ) );
+    } finally {
+      this.channel.close();
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private TraceWriter( final FileChannel channel ) {
+    this.channel = channel;
+  }
+
+  private void mapRegion( final long start ) {
+    try {
+      this.region = this.channel.map( FileChannel.MapMode.READ_WRITE, start,
+          TraceFormat.REGION_BYTES );
+    } catch ( final IOException e ) {
+      throw new UncheckedIOException( "Failed to map the trace file", e );
+    }
+    this.region.order( ByteOrder.LITTLE_ENDIAN );
+    this.regionStart = start;
+  }
+  //==============================================================================================//
+}
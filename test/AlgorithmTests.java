@@ -1,4 +1,7 @@
 import de.tum.in.cm.java.dissim.Algorithm;
+import de.tum.in.cm.java.dissim.ClientRange;
+import de.tum.in.cm.java.dissim.ClientSet;
+import de.tum.in.cm.java.dissim.IntSlice;
 import org.junit.Test;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -138,6 +141,58 @@ public class AlgorithmTests {
     assertEquals( "Incorrect number of clients", 200, groups[ 0 ].length );
     assertEquals( "Incorrect number of clients", 100, groups[ 1 ].length );
   }
+
+  @Test
+  public void testSliceVariants()
+  throws Exception {
+    final int[] clients = getSequence( 100, 0 );
+
+    // 100 clients over 9 channels plus the leader's own: 10 locals, 90 followers
+    final ClientSet[] split = Algorithm.selectFollowersApprox( IntSlice.of( clients ), 9, 1 );
+    assertArrayEquals( "Incorrect followers", getSequence( 90, 10 ), split[ 0 ].toArray() );
+    assertArrayEquals( "Incorrect locals", getSequence( 10, 0 ), split[ 1 ].toArray() );
+
+    // 90 followers into 4 sets of 22, the last one takes the remaining 24
+    final ClientSet[] divided = Algorithm.divide( split[ 0 ], 4 );
+    assertEquals( "Incorrect number of sets", 4, divided.length );
+    assertArrayEquals( "Incorrect division", getSequence( 22, 10 ), divided[ 0 ].toArray() );
+    assertArrayEquals( "Incorrect division", getSequence( 22, 32 ), divided[ 1 ].toArray() );
+    assertArrayEquals( "Incorrect division", getSequence( 22, 54 ), divided[ 2 ].toArray() );
+    assertArrayEquals( "Incorrect division", getSequence( 24, 76 ), divided[ 3 ].toArray() );
+
+    // Nested slices index into the original array
+    final ClientSet nested = divided[ 3 ].slice( 1, 3 );
+    assertArrayEquals( "Incorrect nested slice", new int[] { 77, 78 }, nested.toArray() );
+  }
+
+  @Test
+  public void testClientRange()
+  throws Exception {
+    // Consecutive IDs become an implicit range
+    final ClientSet clients = ClientSet.of( getSequence( 300, 2 ) );
+    assertTrue( "Consecutive clients not a range", clients instanceof ClientRange );
+    assertFalse( "Non-consecutive clients are a range",
+        ClientSet.of( new int[] { 1, 2, 4 } ) instanceof ClientRange );
+
+    // Splits of a range must match the splits of the explicit array
+    final ClientSet[] split = Algorithm.selectFollowersWithSwitchDelay( clients, 4, 2, 0.5, 1.0 );
+    final int[][] expectedSplit = Algorithm.selectFollowersWithSwitchDelay(
+        getSequence( 300, 2 ), 4, 2, 0.5, 1.0 );
+    assertArrayEquals( "Incorrect followers", expectedSplit[ 0 ], split[ 0 ].toArray() );
+    assertArrayEquals( "Incorrect locals", expectedSplit[ 1 ], split[ 1 ].toArray() );
+
+    final ClientSet[] groups = Algorithm.divideWeighted( split[ 0 ], new double[] { 0.25, 0.75 } );
+    assertEquals( "Incorrect first client", split[ 0 ].get( 0 ), groups[ 0 ].get( 0 ) );
+    assertEquals( "Incorrect group size", split[ 0 ].length() / 4, groups[ 0 ].length() );
+    assertEquals( "Incorrect group size", split[ 0 ].length(),
+        groups[ 0 ].length() + groups[ 1 ].length() );
+
+    // Ranges of a billion clients take no memory
+    final ClientSet huge = new ClientRange( 2, 1000000002 );
+    final ClientSet[] hugeSplit = Algorithm.selectFollowersApprox( huge, 15, 2 );
+    assertEquals( "Incorrect local size", 62500000, hugeSplit[ 1 ].length() );
+    assertEquals( "Incorrect first follower", 62500002, hugeSplit[ 0 ].get( 0 ) );
+  }
   //==============================================================================================//
 
 
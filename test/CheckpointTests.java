@@ -0,0 +1,95 @@
+import de.tum.in.cm.java.dissim.Checkpoint;
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.Simulation;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class CheckpointTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testResumeMatchesUninterrupted()
+  throws Exception {
+    checkResume( "clients=3000", "channels=5", "latencyReport=unused" );
+    checkResume( "clients=5000", "channels=9", "branchingFactor=3", "dissStrategy=CONCURRENT" );
+    checkResume( "clients=3000", "channels=7", "activationDelay=0.5",
+        "localSplit=switch_delay_corrected" );
+    checkResume( "mode=optimizing", "clients=2000", "channels=5" );
+  }
+
+  @Test
+  public void testResumeStatsModes()
+  throws Exception {
+    checkResume( "clients=3000", "channels=7", "batchReceptions=true", "latencyReport=unused" );
+    checkResume( "clients=3000", "channels=7", "offHeapStats=true" );
+    checkResume( "clients=3000", "channels=7", "streamingStats=true",
+        "bucketedReceptionReport=2.0;unused", "latencyReport=unused" );
+  }
+
+  @Test
+  public void testResumeQueues()
+  throws Exception {
+    checkResume( "clients=3000", "channels=7", "eventQueue=wheel" );
+    checkResume( "clients=3000", "channels=7", "eventQueue=spill", "spillWindow=3" );
+  }
+
+  @Test
+  public void testArgumentsOfCheckpoint()
+  throws Exception {
+    final File file = File.createTempFile( "checkpoint", ".bin" );
+    try {
+      Fixtures.run( "clients=1000", "checkpoint=" + file, "checkpointTime=5", "resume=unused" );
+      final Checkpoint checkpoint = Checkpoint.read( file );
+      assertArrayEquals( new String[] { "clients=1000", "checkpoint=" + file,
+          "checkpointTime=5" }, checkpoint.argStrings() );
+      assertTrue( checkpoint.time() >= 5.0 );
+      assertTrue( checkpoint.pendingCount() > 0 );
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testUnsupportedEngine()
+  throws Exception {
+    new Simulation( new Main.Args( new String[] { "engine=forkjoin", "checkpoint=unused" } ) );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Checkpoints a run, resumes from its last checkpoint and checks that the
+   * reports of the resumed run equal those of an uninterrupted run.
+   */
+  private static void checkResume( final String... argStrings ) throws Exception {
+    final File file = File.createTempFile( "checkpoint", ".bin" );
+    try {
+      final Simulation expected = Fixtures.simulation( argStrings );
+      final long eventCount = expected.run();
+
+      Fixtures.run( Fixtures.withArgs( argStrings, "checkpoint=" + file, "checkpointTime=5",
+          "checkpointInterval=0" ) );
+
+      final Checkpoint checkpoint = Checkpoint.read( file );
+      assertTrue( "Checkpoint before the end", checkpoint.eventCount() < eventCount );
+      final Simulation resumed = Simulation.resume(
+          new Main.Args( checkpoint.argStrings() ), checkpoint );
+      assertEquals( "Event count", eventCount, resumed.run() );
+      Fixtures.assertSameReports( expected.stats(), resumed.stats() );
+    } finally {
+      file.delete();
+    }
+  }
+  //==============================================================================================//
+}
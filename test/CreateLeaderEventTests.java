@@ -1,12 +1,17 @@
 import de.tum.in.cm.java.dissim.Algorithm;
 import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.ClientPool;
+import de.tum.in.cm.java.dissim.ClientRange;
 import de.tum.in.cm.java.dissim.SimEvent;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.Stats;
 import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
 import org.junit.Test;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -54,12 +59,58 @@ public class CreateLeaderEventTests {
     }
 
   }
+
+  @Test
+  public void testBatchReceptions()
+  throws Exception {
+    for ( final String strategy : new String[] { "SEQUENTIAL", "CONCURRENT" } ) {
+      final double[] expected = receptionTimes( new Main.Args( new String[] {
+          "dissStrategy=" + strategy } ) );
+      final double[] batched = receptionTimes( new Main.Args( new String[] {
+          "dissStrategy=" + strategy, "batchReceptions=true" } ) );
+      assertArrayEquals( "Batched receptions differ", expected, batched, 0.0 );
+    }
+  }
+
+  @Test
+  public void testIndependentSimulations()
+  throws Exception {
+    final Main.Args args = new Main.Args( new String[] { "mode=optimizing", "clients=300" } );
+    final Simulation first = new Simulation( args );
+    final Simulation second = new Simulation( args );
+    final Thread thread = new Thread( second::run );
+    thread.start();
+    first.run();
+    thread.join();
+
+    assertEquals( 300, first.stats().receptions().size() );
+    assertEquals( first.stats().receptions().size(), second.stats().receptions().size() );
+    assertFalse( first.clientPool().hasClients() );
+    assertFalse( second.clientPool().hasClients() );
+  }
   //==============================================================================================//
 
 
   //==============================================================================================//
   // Private
   //==============================================================================================//
+  /**
+   * Runs a small tree to completion and returns the reception times.
+   */
+  private static double[] receptionTimes( final Main.Args args ) {
+    final Simulation simulation = new Simulation( args, new CreateLeaderEvent( 0.0, 0, 1, 1.0,
+        getSequence( 200, 1 ), getSequence( 6, 2 ), new double[] { 1.0, 1.0, 1.0, 1.0, 1.0, 1.0 },
+        args ), new ClientPool( ClientRange.EMPTY ) );
+    simulation.run();
+
+    final List <Stats.Reception> receptions = simulation.stats().receptions();
+    final double[] times = new double[ receptions.size() ];
+    for ( int i = 0; i < times.length; i++ ) {
+      times[ i ] = receptions.get( i ).time;
+    }
+    return times;
+  }
+
   private static int[] getSequence( final int count, final int firstVal ) {
     final int[] vals = new int[ count ];
     for ( int i = 0; i < count; i++ ) {
@@ -0,0 +1,229 @@
+import de.tum.in.cm.java.dissim.ClientRange;
+import de.tum.in.cm.java.dissim.DoubleSlice;
+import de.tum.in.cm.java.dissim.IntSlice;
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SimEvent;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.SinkEvent;
+import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.engine.QueueEngine;
+import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
+import de.tum.in.cm.java.dissim.queue.SpillingEventQueue;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class EngineTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testForkJoinMatchesSequential()
+  throws Exception {
+    checkSameAsObjectEngine( "engine=forkjoin", "clients=40000", "channels=9" );
+    checkSameAsObjectEngine( "engine=forkjoin", "clients=40000", "channels=9",
+        "dissStrategy=CONCURRENT", "branchingFactor=3" );
+    checkSameAsObjectEngine( "engine=forkjoin", "clients=40000", "channels=9",
+        "batchReceptions=true", "followerDivision=count_weighted" );
+  }
+
+  @Test
+  public void testWindowMatchesSequential()
+  throws Exception {
+    checkSameAsObjectEngine( "engine=window", "clients=40000", "channels=9",
+        "dissStrategy=CONCURRENT", "branchingFactor=3" );
+    checkSameAsObjectEngine( "engine=window", "clients=40000", "channels=9",
+        "dissStrategy=CONCURRENT", "batchReceptions=true" );
+    checkSameAsObjectEngine( "engine=window", "clients=20000", "channels=5",
+        "activationDelay=0.5", "localSplit=switch_delay_corrected" );
+  }
+
+  @Test
+  public void testWindowWithFasterChannels()
+  throws Exception {
+    // Additional channels four times faster than the arguments' capacity
+    final String[] argStrings = { "engine=window", "clients=40000", "channels=9" };
+    final String[] objectArgStrings = argStrings.clone();
+    objectArgStrings[ 0 ] = "engine=object";
+    checkSame( run( objectArgStrings, fastChannelsEvent( objectArgStrings ) ),
+        run( argStrings, fastChannelsEvent( argStrings ) ) );
+  }
+
+  @Test
+  public void testTimingWheelMatchesHeap()
+  throws Exception {
+    checkSameAsObjectEngine( "engine=object", "eventQueue=wheel", "clients=40000",
+        "channels=9", "activationDelay=0.3", "contentSize=2.5" );
+    checkSameAsObjectEngine( "engine=object", "eventQueue=wheel", "mode=optimizing",
+        "clients=2000", "channels=5" );
+    checkSameAsObjectEngine( "engine=forkjoin", "eventQueue=wheel", "clients=40000",
+        "channels=9", "batchReceptions=true" );
+    checkSameAsObjectEngine( "engine=window", "eventQueue=wheel", "clients=40000",
+        "channels=9", "dissStrategy=CONCURRENT", "branchingFactor=3" );
+  }
+
+  @Test
+  public void testSpillingQueueMatchesHeap()
+  throws Exception {
+    checkSameAsObjectEngine( "engine=object", "eventQueue=spill", "spillWindow=5",
+        "clients=40000", "channels=9" );
+    checkSameAsObjectEngine( "engine=object", "eventQueue=spill", "spillWindow=5",
+        "clients=40000", "channels=9", "dissStrategy=CONCURRENT", "batchReceptions=true" );
+    checkSameAsObjectEngine( "engine=object", "eventQueue=spill", "spillWindow=2",
+        "mode=optimizing", "clients=2000", "channels=5" );
+  }
+
+  @Test
+  public void testSpillFilesDeletedOnFailure()
+  throws Exception {
+    for ( final String engine : new String[] { "engine=object", "engine=forkjoin" } ) {
+      final File directory = Files.createTempDirectory( "spill" ).toFile();
+      try {
+        final Main.Args args = new Main.Args( new String[] { engine, "eventQueue=spill",
+            "spillWindow=1", "spillDirectory=" + directory } );
+        final Simulation simulation = new Simulation( args, failingEvent(),
+            Simulation.createClientPool( args ) );
+        try {
+          simulation.run();
+          fail( "Run did not fail" );
+        } catch ( final IllegalStateException e ) {
+          // Expected, the fork-join engine may rethrow a copy
+        }
+        if ( simulation.engine() instanceof QueueEngine ) {
+          assertTrue( "No runs spilled", ( ( SpillingEventQueue ) ( ( QueueEngine )
+              simulation.engine() ).queue() ).runCount() > 0 );
+        }
+        assertEquals( "Runs not deleted", 0, directory.list().length );
+      } finally {
+        directory.delete();
+      }
+    }
+  }
+
+  @Test
+  public void testForkJoinOptimizer()
+  throws Exception {
+    checkSameAsObjectEngine( "engine=forkjoin", "mode=optimizing", "clients=2000",
+        "channels=5" );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Runs the simulation with the given arguments and with the default
+   * object engine, and checks that the records are the same.
+   */
+  private static void checkSameAsObjectEngine( final String... argStrings ) {
+    final String[] objectArgStrings = argStrings.clone();
+    objectArgStrings[ 0 ] = "engine=object";
+    checkSame( run( objectArgStrings, null ), run( argStrings, null ) );
+  }
+
+  private static void checkSame(
+      final Stats expected,
+      final Stats stats ) {
+    assertEquals( "Reception count", expected.receptions().size(), stats.receptions().size() );
+    assertArrayEquals( "Reception times", receptionTimes( expected.receptions() ),
+        receptionTimes( stats.receptions() ), 0.0 );
+    assertArrayEquals( "Receptions per channel", expected.receptionsPerChannel(),
+        stats.receptionsPerChannel() );
+    assertEquals( "Leader count", expected.leaderActivations().size(),
+        stats.leaderActivations().size() );
+    for ( int i = 0; i < expected.leaderActivations().size(); i++ ) {
+      assertEquals( "Leader activation times", expected.leaderActivations().get( i ).time,
+          stats.leaderActivations().get( i ).time, 0.0 );
+    }
+  }
+
+  /**
+   * Runs in a pool of its own so that the parallel engines get some
+   * parallelism even on a single core machine.
+   *
+   * @param initialEvent
+   *    Initial event, {@code null} for the standard scenario.
+   */
+  private static Stats run(
+      final String[] argStrings,
+      final SimEvent initialEvent ) {
+    final Main.Args args = new Main.Args( argStrings );
+    final Simulation simulation = ( initialEvent == null ) ? ( new Simulation( args ) )
+        : ( new Simulation( args, initialEvent, Simulation.createClientPool( args ) ) );
+    final ForkJoinPool pool = new ForkJoinPool( 4 );
+    try {
+      pool.submit( simulation::run ).get();
+    } catch ( final InterruptedException | ExecutionException e ) {
+      throw new AssertionError( e );
+    } finally {
+      pool.shutdown();
+    }
+    return simulation.stats();
+  }
+
+  private static SimEvent fastChannelsEvent( final String[] argStrings ) {
+    final Main.Args args = new Main.Args( argStrings );
+    final int[] channels = new int[ args.channelCount - 1 ];
+    final double[] channelCaps = new double[ args.channelCount - 1 ];
+    for ( int i = 0; i < channels.length; i++ ) {
+      channels[ i ] = i + 2;
+      channelCaps[ i ] = 4.0 * args.channelCapacity;
+    }
+    return new CreateLeaderEvent( 0.0, 1, 1, args.channelCapacity,
+        new ClientRange( 2, 2 + args.clientCount ), IntSlice.of( channels ),
+        DoubleSlice.of( channelCaps ), args );
+  }
+
+  /**
+   * Event that schedules enough receptions for the spilling queue to write a
+   * run, and an event that fails before they have all been received.
+   */
+  private static SimEvent failingEvent() {
+    final SinkEvent failure = new SinkEvent() {
+      @Override
+      public double time() {
+        return 100.0;
+      }
+
+      @Override
+      public void process( final SimContext context ) {
+        throw new IllegalStateException( "Failing event" );
+      }
+    };
+    return new SinkEvent() {
+      @Override
+      public double time() {
+        return 0.0;
+      }
+
+      @Override
+      public void process( final SimContext context ) {
+        for ( int i = 0; i < 200000; i++ ) {
+          context.scheduleReception( 10.0 + i * 0.001, i + 2, 1, 1 );
+        }
+        context.schedule( failure );
+      }
+    };
+  }
+
+  private static double[] receptionTimes( final List <Stats.Reception> receptions ) {
+    final double[] times = new double[ receptions.size() ];
+    for ( int i = 0; i < times.length; i++ ) {
+      times[ i ] = receptions.get( i ).time;
+    }
+    return times;
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,401 @@
+import de.tum.in.cm.java.dissim.ClientRange;
+import de.tum.in.cm.java.dissim.SimEvent;
+import de.tum.in.cm.java.dissim.engine.ArrayEventStore;
+import de.tum.in.cm.java.dissim.events.ContentReceivedEvent;
+import de.tum.in.cm.java.dissim.events.ReceptionRun;
+import de.tum.in.cm.java.dissim.queue.CalendarEventQueue;
+import de.tum.in.cm.java.dissim.queue.EventQueue;
+import de.tum.in.cm.java.dissim.queue.HeapEventQueue;
+import de.tum.in.cm.java.dissim.queue.SpillingEventQueue;
+import de.tum.in.cm.java.dissim.queue.TimingWheelEventQueue;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class EventQueueTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testHeapOrder()
+  throws Exception {
+    checkOrder( new HeapEventQueue() );
+  }
+
+  @Test
+  public void testCalendarOrder()
+  throws Exception {
+    checkOrder( new CalendarEventQueue() );
+  }
+
+  @Test
+  public void testCalendarTiesInInsertionOrder()
+  throws Exception {
+    final EventQueue queue = new CalendarEventQueue();
+    for ( int i = 0; i < 100; i++ ) {
+      queue.add( new ContentReceivedEvent( 5.0, i, 0, 1 ) );
+    }
+    for ( int i = 0; i < 100; i++ ) {
+      final ContentReceivedEvent event = ( ContentReceivedEvent ) queue.remove();
+      assertEquals( "Ties not in insertion order", i, event.node() );
+    }
+  }
+
+  @Test
+  public void testCalendarSparseTimes()
+  throws Exception {
+    final EventQueue queue = new CalendarEventQueue();
+    queue.add( new ContentReceivedEvent( 1.0e9, 1, 0, 1 ) );
+    queue.add( new ContentReceivedEvent( 0.5, 2, 0, 1 ) );
+    queue.add( new ContentReceivedEvent( 3.0e4, 3, 0, 1 ) );
+
+    assertEquals( "Incorrect order", 0.5, queue.remove().time(), 0.0 );
+    assertEquals( "Incorrect order", 3.0e4, queue.remove().time(), 0.0 );
+    queue.add( new ContentReceivedEvent( 3.0e4, 4, 0, 1 ) );
+    assertEquals( "Incorrect order", 3.0e4, queue.remove().time(), 0.0 );
+    assertEquals( "Incorrect order", 1.0e9, queue.remove().time(), 0.0 );
+    assertTrue( "Queue not empty", queue.isEmpty() );
+  }
+
+  @Test
+  public void testSortedRuns()
+  throws Exception {
+    checkSortedRuns( new HeapEventQueue() );
+    checkSortedRuns( new CalendarEventQueue() );
+    checkSortedRuns( new TimingWheelEventQueue( 0.25 ) );
+    checkSortedRuns( new SpillingEventQueue( null, 4.0, 8 ) );
+  }
+
+  @Test( expected = NoSuchElementException.class )
+  public void testCalendarRemoveEmpty()
+  throws Exception {
+    new CalendarEventQueue().remove();
+  }
+
+  @Test
+  public void testSpillOrder()
+  throws Exception {
+    final File directory = Files.createTempDirectory( "spill" ).toFile();
+    directory.deleteOnExit();
+    final SpillingEventQueue queue = new SpillingEventQueue( directory, 5.0, 64 );
+    checkOrder( queue );
+    assertTrue( "No runs spilled", queue.runCount() > 0 );
+    assertEquals( "Runs not deleted", 0, directory.list().length );
+  }
+
+  @Test
+  public void testSpillReceptions()
+  throws Exception {
+    final SpillingEventQueue queue = new SpillingEventQueue( null, 1.0, 16 );
+    // The first event sets the horizon, the rest come in reverse order
+    queue.scheduleReception( 0.0, 0, 0, 0 );
+    for ( int i = 999; i > 0; i-- ) {
+      queue.scheduleReception( i * 0.5, i, -i, i % 7 );
+    }
+    assertEquals( "Incorrect size", 1000, queue.size() );
+    assertTrue( "Too many events in memory", queue.inMemory() <= 2 );
+    for ( int i = 0; i < 1000; i++ ) {
+      final ContentReceivedEvent event = ( ContentReceivedEvent ) queue.remove();
+      assertEquals( "Incorrect time", i * 0.5, event.time(), 0.0 );
+      assertEquals( "Incorrect node", i, event.node() );
+      assertEquals( "Incorrect source", -i, event.from() );
+      assertEquals( "Incorrect channel", i % 7, event.channel() );
+    }
+    assertTrue( "Queue not empty", queue.isEmpty() );
+    queue.close();
+  }
+
+  @Test( expected = NoSuchElementException.class )
+  public void testSpillRemoveEmpty()
+  throws Exception {
+    new SpillingEventQueue( null, 1.0, 16 ).remove();
+  }
+
+  @Test
+  public void testWheelOrder()
+  throws Exception {
+    checkOrder( new TimingWheelEventQueue( 0.125 ), 0.125 );
+    checkOrder( new TimingWheelEventQueue( 0.1 ), 0.1 );
+  }
+
+  @Test
+  public void testWheelTiesInInsertionOrder()
+  throws Exception {
+    final EventQueue queue = new TimingWheelEventQueue( 0.1 );
+    queue.add( new ContentReceivedEvent( 1.0e6, -1, 0, 1 ) );
+    for ( int i = 0; i < 100; i++ ) {
+      // Sums of 0.1 that differ in the last bits still share the tick
+      final double time = ( i % 2 == 0 ) ? ( 0.3 ) : ( 0.1 + 0.2 );
+      queue.add( new ContentReceivedEvent( time + 5000.0, i, 0, 1 ) );
+    }
+    for ( int i = 0; i < 100; i++ ) {
+      final ContentReceivedEvent event = ( ContentReceivedEvent ) queue.remove();
+      assertEquals( "Ties not in insertion order", i, event.node() );
+    }
+    assertEquals( "Incorrect order", 1.0e6, queue.remove().time(), 0.0 );
+  }
+
+  @Test
+  public void testWheelSparseTimes()
+  throws Exception {
+    final EventQueue queue = new TimingWheelEventQueue( 0.5 );
+    queue.add( new ContentReceivedEvent( 1.0e9, 1, 0, 1 ) );
+    queue.add( new ContentReceivedEvent( 0.5, 2, 0, 1 ) );
+    queue.add( new ContentReceivedEvent( 3.0e4, 3, 0, 1 ) );
+
+    assertEquals( "Incorrect order", 0.5, queue.remove().time(), 0.0 );
+    assertEquals( "Incorrect order", 3.0e4, queue.remove().time(), 0.0 );
+    queue.add( new ContentReceivedEvent( 3.0e4, 4, 0, 1 ) );
+    assertEquals( "Incorrect order", 3.0e4, queue.remove().time(), 0.0 );
+    assertEquals( "Incorrect order", 1.0e9, queue.remove().time(), 0.0 );
+    assertTrue( "Queue not empty", queue.isEmpty() );
+  }
+
+  @Test
+  public void testWheelEarlierThanRemoved()
+  throws Exception {
+    final EventQueue queue = new TimingWheelEventQueue( 1.0 );
+    queue.add( new ContentReceivedEvent( 300.0, 1, 0, 1 ) );
+    queue.add( new ContentReceivedEvent( 70000.0, 2, 0, 1 ) );
+    queue.add( new ContentReceivedEvent( 300.0, 3, 0, 1 ) );
+    assertEquals( "Incorrect order", 1, ( ( ContentReceivedEvent ) queue.remove() ).node() );
+
+    // Pushed back after the removal, like the window engine does
+    queue.add( new ContentReceivedEvent( 10.0, 4, 0, 1 ) );
+    queue.add( new ContentReceivedEvent( 300.0, 5, 0, 1 ) );
+    final int[] expected = { 4, 3, 5, 2 };
+    for ( final int node : expected ) {
+      assertEquals( "Incorrect order", node, ( ( ContentReceivedEvent ) queue.remove() ).node() );
+    }
+    assertTrue( "Queue not empty", queue.isEmpty() );
+  }
+
+  @Test( expected = NoSuchElementException.class )
+  public void testWheelRemoveEmpty()
+  throws Exception {
+    new TimingWheelEventQueue( 1.0 ).remove();
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testWheelOffTickTime()
+  throws Exception {
+    new TimingWheelEventQueue( 0.1 ).add( new ContentReceivedEvent( 0.15, 1, 0, 1 ) );
+  }
+
+  @Test
+  public void testArrayStoreOrder()
+  throws Exception {
+    final ArrayEventStore store = new ArrayEventStore( 16 );
+    final Random random = new Random( 42 );
+    for ( int i = 0; i < 1000; i++ ) {
+      store.push( ( byte ) 0, random.nextDouble() * 100.0, i, 0, 1, 0.0, null );
+    }
+
+    double lastTime = Double.NEGATIVE_INFINITY;
+    int removed = 0;
+    int added = 1000;
+    while ( store.size() != 0 ) {
+      final int slot = store.poll();
+      removed++;
+      assertTrue( "Events out of order", store.time( slot ) >= lastTime );
+      lastTime = store.time( slot );
+      store.release( slot );
+
+      if ( added < 50000 ) {
+        final int count = random.nextInt( 3 );
+        for ( int i = 0; i < count; i++ ) {
+          final double delta
+              = ( random.nextInt( 4 ) == 0 ) ? ( 0.0 ) : ( random.nextDouble() * 10.0 );
+          store.push( ( byte ) 0, lastTime + delta, added++, 0, 1, 0.0, null );
+        }
+      }
+    }
+    assertEquals( "Events lost", added, removed );
+  }
+
+  @Test
+  public void testArrayStoreTiesInPushOrder()
+  throws Exception {
+    final ArrayEventStore store = new ArrayEventStore( 16 );
+    for ( int i = 0; i < 100; i++ ) {
+      store.push( ( byte ) 0, 5.0, i, 0, 1, 0.0, null );
+    }
+    // A rescheduled slot is behind the events pushed before it
+    final int first = store.poll();
+    assertEquals( "Ties not in push order", 0, store.node( first ) );
+    store.reschedule( first, 5.0, 100 );
+    for ( int i = 1; i <= 100; i++ ) {
+      final int slot = store.poll();
+      assertEquals( "Ties not in push order", i, store.node( slot ) );
+      store.release( slot );
+    }
+    assertEquals( "Store not empty", 0, store.size() );
+  }
+
+  @Test
+  public void testArrayStoreSlotRecycling()
+  throws Exception {
+    final ArrayEventStore store = new ArrayEventStore( 16 );
+    final Object payload = new Object();
+    final int slot = store.push( ( byte ) 2, 1.0, 3, 4, 5, 0.5, payload );
+    assertEquals( "Incorrect slot", slot, store.poll() );
+
+    // Rescheduling keeps the slot and all columns but the time and node
+    store.reschedule( slot, 1.5, 6 );
+    assertEquals( "Incorrect slot", slot, store.poll() );
+    assertEquals( "Incorrect type", 2, store.type( slot ) );
+    assertEquals( "Incorrect time", 1.5, store.time( slot ), 0.0 );
+    assertEquals( "Incorrect node", 6, store.node( slot ) );
+    assertEquals( "Incorrect source", 4, store.from( slot ) );
+    assertEquals( "Incorrect channel", 5, store.channel( slot ) );
+    assertEquals( "Incorrect period", 0.5, store.period( slot ), 0.0 );
+    assertSame( "Incorrect payload", payload, store.payload( slot ) );
+
+    // Released slots are handed out again, without their payload
+    store.release( slot );
+    assertNull( "Payload kept", store.payload( slot ) );
+    assertEquals( "Slot not recycled", slot, store.push( ( byte ) 0, 2.0, 7, 0, 1, 0.0,
+        null ) );
+    assertEquals( "Incorrect node", 7, store.node( slot ) );
+  }
+
+  @Test
+  public void testArrayStoreGrowth()
+  throws Exception {
+    // Far past the initial capacity, in reverse time order
+    final ArrayEventStore store = new ArrayEventStore( 16 );
+    for ( int i = 999; i >= 0; i-- ) {
+      store.push( ( byte ) ( i % 3 ), i * 0.5, i, -i, i % 7, i * 0.25, ( i % 10 == 0 ) ? i : null );
+    }
+    assertEquals( "Incorrect size", 1000, store.size() );
+    for ( int i = 0; i < 1000; i++ ) {
+      final int slot = store.poll();
+      assertEquals( "Incorrect type", i % 3, store.type( slot ) );
+      assertEquals( "Incorrect time", i * 0.5, store.time( slot ), 0.0 );
+      assertEquals( "Incorrect node", i, store.node( slot ) );
+      assertEquals( "Incorrect source", -i, store.from( slot ) );
+      assertEquals( "Incorrect channel", i % 7, store.channel( slot ) );
+      assertEquals( "Incorrect period", i * 0.25, store.period( slot ), 0.0 );
+      assertEquals( "Incorrect payload", ( i % 10 == 0 ) ? i : null, store.payload( slot ) );
+      store.release( slot );
+    }
+    assertEquals( "Store not empty", 0, store.size() );
+  }
+
+  @Test( expected = NoSuchElementException.class )
+  public void testArrayStorePollEmpty()
+  throws Exception {
+    new ArrayEventStore().poll();
+  }
+
+  @Test
+  public void testWheelQuantum()
+  throws Exception {
+    assertEquals( "Transmission time only", 0.1, TimingWheelEventQueue.quantum( 1.0, 10.0, 0.0 ),
+        0.0 );
+    assertEquals( "Common divisor", 0.05, TimingWheelEventQueue.quantum( 1.0, 10.0, 0.25 ),
+        0.0 );
+    assertEquals( "Fractional transmission time", 1.0 / 30.0,
+        TimingWheelEventQueue.quantum( 1.0, 3.0, 0.1 ), 1.0e-15 );
+    assertEquals( "Large values", 1.0e18, TimingWheelEventQueue.quantum( 1.0e20, 50.0, 3.0e18 ),
+        0.0 );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Interleaves inserts and removals the same way the simulator does: every
+   * removed event schedules a few events into the future.
+   */
+  private static void checkOrder( final EventQueue queue ) {
+    checkOrder( queue, 0.0 );
+  }
+
+  /**
+   * @param quantum
+   *    If positive, all times are multiples of it and events of the same
+   *    multiple are not ordered by their exact times.
+   */
+  private static void checkOrder(
+      final EventQueue queue,
+      final double quantum ) {
+    final Random random = new Random( 42 );
+    for ( int i = 0; i < 1000; i++ ) {
+      queue.add( new ContentReceivedEvent( quantize( random.nextDouble() * 100.0, quantum ), i, 0,
+          1 ) );
+    }
+
+    double lastTime = Double.NEGATIVE_INFINITY;
+    int removed = 0;
+    int added = 1000;
+    while ( !queue.isEmpty() ) {
+      final SimEvent event = queue.remove();
+      removed++;
+      // Times of the same tick may differ by rounding errors
+      final double slack = ( quantum > 0.0 ) ? ( quantum / 2.0 ) : ( 0.0 );
+      assertTrue( "Events out of order", event.time() >= lastTime - slack );
+      lastTime = event.time();
+
+      if ( added < 50000 ) {
+        final int count = random.nextInt( 3 );
+        for ( int i = 0; i < count; i++ ) {
+          final double delta = ( random.nextInt( 4 ) == 0 ) ? ( 0.0 ) : ( random.nextDouble() * 10.0 );
+          queue.add( new ContentReceivedEvent( lastTime + quantize( delta, quantum ), added++,
+              0, 1 ) );
+        }
+      }
+    }
+    assertEquals( "Events lost", added, removed );
+  }
+
+  /**
+   * Schedules overlapping sorted runs between single events, and checks
+   * that everything comes out in time order.
+   */
+  private static void checkSortedRuns( final EventQueue queue ) {
+    queue.add( new ContentReceivedEvent( 3.0, 1000, 0, 1 ) );
+    queue.scheduleSorted( new ReceptionRun( new ClientRange( 0, 100 ), 0, 100, 0, 1, 0.0,
+        0.5 ) );
+    queue.add( new ContentReceivedEvent( 1.0, 1001, 0, 1 ) );
+    queue.scheduleSorted( Arrays.asList( new ContentReceivedEvent( 0.75, 1002, 0, 1 ),
+        new ContentReceivedEvent( 20.0, 1003, 0, 1 ), new ContentReceivedEvent( 60.0, 1004, 0,
+        1 ) ) );
+    queue.scheduleSorted( new ReceptionRun( new ClientRange( 100, 200 ), 0, 100, 0, 1, 10.0,
+        1.0 ) );
+
+    final int[] expectedNodes = new int[] { 0, 1002, 1, 1001, 2, 3, 4, 1000 };
+    for ( final int expected : expectedNodes ) {
+      assertEquals( "Incorrect order", expected,
+          ( ( ContentReceivedEvent ) queue.remove() ).node() );
+    }
+    double lastTime = Double.NEGATIVE_INFINITY;
+    int removed = expectedNodes.length;
+    while ( !queue.isEmpty() ) {
+      final SimEvent event = queue.remove();
+      assertTrue( "Events out of order", event.time() >= lastTime );
+      lastTime = event.time();
+      removed++;
+    }
+    assertEquals( "Events lost", 205, removed );
+  }
+
+  private static double quantize(
+      final double value,
+      final double quantum ) {
+    return ( quantum > 0.0 ) ? ( Math.floor( value / quantum ) * quantum ) : ( value );
+  }
+  //==============================================================================================//
+}
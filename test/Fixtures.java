@@ -0,0 +1,106 @@
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.Stats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Simulation runs and report comparisons shared by the tests.
+ *
+ * @author teemuk
+ */
+final class Fixtures {
+
+  private Fixtures() {}
+
+  //==============================================================================================//
+  // API
+  //==============================================================================================//
+  /**
+   * Creates the simulation of the standard scenario for the arguments.
+   */
+  static Simulation simulation( final String... argStrings ) {
+    return new Simulation( new Main.Args( argStrings ) );
+  }
+
+  /**
+   * Creates and runs the simulation of the standard scenario.
+   */
+  static Simulation run( final String... argStrings ) {
+    final Simulation simulation = simulation( argStrings );
+    simulation.run();
+    return simulation;
+  }
+
+  /**
+   * Appends arguments to a copy of the arguments.
+   */
+  static String[] withArgs(
+      final String[] argStrings,
+      final String... extraArgStrings ) {
+    final String[] result = Arrays.copyOf( argStrings,
+        argStrings.length + extraArgStrings.length );
+    System.arraycopy( extraArgStrings, 0, result, argStrings.length, extraArgStrings.length );
+    return result;
+  }
+
+  /**
+   * Prints the report of the stats.
+   */
+  static String report(
+      final Stats stats,
+      final Report report ) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try ( PrintStream out = new PrintStream( bytes ) ) {
+      if ( report == Report.RECEPTIONS_PER_CHANNEL ) {
+        stats.printReceptionsPerChannel( out );
+      } else if ( report == Report.CLIENT_RECEPTIONS_PER_CHANNEL ) {
+        stats.printClientReceptionsPerChannel( out );
+      } else if ( report == Report.RECEPTIONS_BUCKETED ) {
+        stats.printReceptionsBucketed( out, 2.0 );
+      } else if ( report == Report.LEADER_COUNT ) {
+        stats.printLeaderCountOverTime( out );
+      } else if ( report == Report.LATENCY ) {
+        if ( stats.latency() != null ) stats.latency().print( out );
+      } else {
+        throw new IllegalStateException( "Unknown report (" + report + ")" );
+      }
+    }
+    return bytes.toString();
+  }
+
+  /**
+   * Checks that the completion time and all reports are the same.
+   */
+  static void assertSameReports(
+      final Stats expected,
+      final Stats stats ) {
+    assertEquals( "Completion time", expected.completionTime(), stats.completionTime(), 0.0 );
+    for ( final Report report : Report.values() ) {
+      assertEquals( "Report " + report, report( expected, report ), report( stats, report ) );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Report
+  //==============================================================================================//
+  /**
+   * Reports printed by {@link #report(Stats, Report)}.
+   */
+  enum Report {
+    RECEPTIONS_PER_CHANNEL,
+    CLIENT_RECEPTIONS_PER_CHANNEL,
+    /** Receptions in buckets of 2.0 */
+    RECEPTIONS_BUCKETED,
+    LEADER_COUNT,
+    /** Latency sketches, empty if the latency is not tracked */
+    LATENCY
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,131 @@
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.jfr.FlightRecording;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class FlightRecorderTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testLeaderActivations()
+  throws Exception {
+    final Recorded recorded = record( "clients=5000", "channels=9" );
+    final Stats stats = recorded.simulation.stats();
+    assertEquals( stats.leaderActivations().size(), count( recorded.events,
+        "dissim.LeaderActivation" ) );
+
+    long localClients = 0;
+    for ( final RecordedEvent event : recorded.events ) {
+      if ( !event.getEventType().getName().equals( "dissim.LeaderActivation" ) ) continue;
+      assertFalse( event.getBoolean( "optimizer" ) );
+      if ( event.getInt( "depth" ) == 0 ) {
+        assertEquals( 5000, event.getInt( "subtreeClients" ) );
+        assertEquals( 9, event.getInt( "channels" ) );
+      }
+      localClients += event.getInt( "localClients" );
+    }
+    // Every node except the source receives from its leader
+    assertEquals( stats.receptions().size(), localClients + stats.leaderActivations().size() - 1 );
+  }
+
+  @Test
+  public void testOptimizerActivations()
+  throws Exception {
+    final Recorded recorded = record( "mode=optimizing", "clients=1000", "channels=5" );
+    final int activations = count( recorded.events, "dissim.LeaderActivation" );
+    assertEquals( recorded.simulation.stats().leaderActivations().size(), activations );
+    for ( final RecordedEvent event : recorded.events ) {
+      if ( !event.getEventType().getName().equals( "dissim.LeaderActivation" ) ) continue;
+      assertTrue( event.getBoolean( "optimizer" ) );
+      assertEquals( -1, event.getInt( "subtreeClients" ) );
+    }
+  }
+
+  @Test
+  public void testBatchDissemination()
+  throws Exception {
+    final Recorded recorded = record( "clients=5000", "channels=9", "batchReceptions=true" );
+    final Stats stats = recorded.simulation.stats();
+    long batchClients = 0;
+    for ( final RecordedEvent event : recorded.events ) {
+      if ( !event.getEventType().getName().equals( "dissim.BatchDissemination" ) ) continue;
+      batchClients += event.getInt( "clients" );
+      assertTrue( event.getDouble( "firstReception" ) <= event.getDouble( "lastReception" ) );
+    }
+    assertTrue( count( recorded.events, "dissim.BatchDissemination" ) > 0 );
+    assertEquals( stats.receptions().size(), batchClients + stats.leaderActivations().size() - 1 );
+  }
+
+  @Test
+  public void testRecordingState()
+  throws Exception {
+    FlightRecording.register();
+    try ( Recording recording = new Recording() ) {
+      assertFalse( FlightRecording.active() );
+      recording.start();
+      assertTrue( FlightRecording.active() );
+      recording.stop();
+      assertFalse( FlightRecording.active() );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private static final class Recorded {
+    private final Simulation simulation;
+    private final List <RecordedEvent> events;
+
+    private Recorded(
+        final Simulation simulation,
+        final List <RecordedEvent> events ) {
+      this.simulation = simulation;
+      this.events = events;
+    }
+  }
+
+  /**
+   * Runs the simulation under a recording of the simulator's events.
+   */
+  private static Recorded record( final String... argStrings ) throws Exception {
+    final File file = File.createTempFile( "dissim", ".jfr" );
+    file.deleteOnExit();
+    final Simulation simulation = new Simulation( new Main.Args( argStrings ) );
+    try ( Recording recording = new Recording() ) {
+      recording.enable( "dissim.LeaderActivation" );
+      recording.enable( "dissim.BatchDissemination" );
+      recording.start();
+      simulation.run();
+      recording.stop();
+      recording.dump( file.toPath() );
+    }
+    return new Recorded( simulation, RecordingFile.readAllEvents( file.toPath() ) );
+  }
+
+  private static int count(
+      final List <RecordedEvent> events,
+      final String name ) {
+    int count = 0;
+    for ( final RecordedEvent event : events ) {
+      if ( event.getEventType().getName().equals( name ) ) count++;
+    }
+    return count;
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,177 @@
+import de.tum.in.cm.java.dissim.LatencyHistogram;
+import de.tum.in.cm.java.dissim.LatencySketches;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.Stats;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class LatencyTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testQuantileAccuracy()
+  throws Exception {
+    final Random random = new Random( 7 );
+    final double[] values = new double[ 100000 ];
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for ( int i = 0; i < values.length; i++ ) {
+      values[ i ] = Math.exp( random.nextGaussian() * 3.0 );
+      histogram.record( values[ i ] );
+    }
+    Arrays.sort( values );
+
+    for ( final double quantile : new double[] { 0.0, 0.1, 0.5, 0.9, 0.99, 0.999, 1.0 } ) {
+      final int rank = Math.max( 1, ( int ) Math.ceil( quantile * values.length ) );
+      final double exact = values[ rank - 1 ];
+      assertEquals( "Quantile " + quantile, exact, histogram.quantile( quantile ),
+          exact / LatencyHistogram.SUB_BUCKETS );
+    }
+    assertEquals( values[ 0 ], histogram.min(), 0.0 );
+    assertEquals( values[ values.length - 1 ], histogram.max(), 0.0 );
+  }
+
+  @Test
+  public void testMerge()
+  throws Exception {
+    final LatencyHistogram all = new LatencyHistogram();
+    final LatencyHistogram first = new LatencyHistogram();
+    final LatencyHistogram second = new LatencyHistogram();
+    for ( int i = 0; i < 1000; i++ ) {
+      all.record( i * 0.75 );
+      ( ( i % 3 == 0 ) ? first : second ).record( i * 0.75 );
+    }
+    first.merge( second );
+    assertEquals( all.count(), first.count() );
+    for ( final double quantile : new double[] { 0.0, 0.25, 0.5, 0.99, 1.0 } ) {
+      assertEquals( all.quantile( quantile ), first.quantile( quantile ), 0.0 );
+    }
+  }
+
+  @Test
+  public void testEmpty()
+  throws Exception {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    assertTrue( Double.isNaN( histogram.quantile( 0.5 ) ) );
+    histogram.record( 0.0 );
+    assertEquals( 0.0, histogram.quantile( 0.99 ), 0.0 );
+  }
+
+  @Test
+  public void testSimulationSketches()
+  throws Exception {
+    final Simulation simulation = Fixtures.run( "clients=20000", "channels=9",
+        "branchingFactor=2", "latencyReport=unused" );
+    final Stats stats = simulation.stats();
+    final LatencySketches latency = stats.latency();
+
+    // Channel counts are the per channel receptions
+    final int[] perChannel = stats.receptionsPerChannel();
+    for ( int i = 0; i < perChannel.length; i++ ) {
+      final LatencyHistogram histogram = latency.channel( i + 1 );
+      assertEquals( perChannel[ i ], histogram == null ? 0 : histogram.count() );
+    }
+    assertEquals( stats.completionTime(), latency.total().max(), 0.0 );
+
+    // Every reception comes from a leader, with the source at depth zero
+    long depthTotal = 0;
+    int maxDepth = 0;
+    for ( final Stats.LeaderActivation activation : stats.leaderActivations() ) {
+      maxDepth = Math.max( maxDepth, activation.depth );
+    }
+    assertEquals( 0, stats.leaderActivations().get( 0 ).depth );
+    assertTrue( maxDepth > 1 );
+    for ( int depth = 0; depth <= maxDepth; depth++ ) {
+      final LatencyHistogram histogram = latency.depth( depth );
+      depthTotal += histogram == null ? 0 : histogram.count();
+    }
+    assertEquals( stats.receptions().size(), depthTotal );
+  }
+
+  @Test
+  public void testLeaderReactivation()
+  throws Exception {
+    final LatencySketches latency = new LatencySketches();
+    latency.leaderActivation( 1, 0 );
+    latency.leaderActivation( 2, 1 );
+    latency.reception( 1.0, 1, 1 );
+    latency.reception( 1.0, 2, 2 );
+    // Activating another leader keeps the cached sources of the channels
+    latency.leaderActivation( 3, 2 );
+    latency.reception( 2.0, 1, 1 );
+    // Reactivating a cached source counts its receptions at the new depth
+    latency.leaderActivation( 2, 2 );
+    latency.reception( 3.0, 2, 2 );
+
+    assertEquals( 2, latency.depth( 0 ).count() );
+    assertEquals( 1, latency.depth( 1 ).count() );
+    assertEquals( 1, latency.depth( 2 ).count() );
+    assertEquals( 3.0, latency.depth( 2 ).max(), 0.0 );
+  }
+
+  @Test
+  public void testReactivationsMatchUncachedDepths()
+  throws Exception {
+    final Random random = new Random( 5 );
+    final LatencySketches latency = new LatencySketches();
+    final int[] depths = new int[ 12 ];
+    Arrays.fill( depths, -1 );
+    final long[] expected = new long[ 4 ];
+    for ( int i = 0; i < 20000; i++ ) {
+      final int node = random.nextInt( depths.length );
+      if ( random.nextInt( 8 ) == 0 ) {
+        depths[ node ] = random.nextInt( expected.length );
+        latency.leaderActivation( node, depths[ node ] );
+      } else {
+        // Few channels, so every channel sees many different sources
+        latency.reception( i, node, random.nextInt( 3 ) );
+        if ( depths[ node ] >= 0 ) expected[ depths[ node ] ]++;
+      }
+    }
+
+    for ( int depth = 0; depth < expected.length; depth++ ) {
+      final LatencyHistogram histogram = latency.depth( depth );
+      assertEquals( "Depth " + depth, expected[ depth ],
+          ( histogram == null ) ? 0 : histogram.count() );
+    }
+  }
+
+  @Test
+  public void testNotTrackedByDefault()
+  throws Exception {
+    assertNull( Fixtures.run( "clients=1000" ).stats().latency() );
+  }
+
+  @Test
+  public void testSketchesAcrossEngines()
+  throws Exception {
+    final String expected = report( "clients=50000", "channels=9" );
+    assertEquals( expected, report( "clients=50000", "channels=9", "engine=forkjoin" ) );
+    assertEquals( expected, report( "clients=50000", "channels=9", "engine=array",
+        "batchReceptions=true" ) );
+    assertEquals( expected, report( "clients=50000", "channels=9", "streamingStats=true" ) );
+    assertEquals( expected, report( "clients=50000", "channels=9", "subtreeCache=true" ) );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Runs the simulation with the latency sketches tracked and prints them.
+   */
+  private static String report( final String... argStrings ) {
+    return Fixtures.report( Fixtures.run( Fixtures.withArgs( argStrings,
+        "latencyReport=unused" ) ).stats(), Fixtures.Report.LATENCY );
+  }
+  //==============================================================================================//
+}
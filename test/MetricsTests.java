@@ -0,0 +1,137 @@
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.metrics.EngineMetrics;
+import de.tum.in.cm.java.dissim.metrics.ProgressLog;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class MetricsTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testDisabledByDefault()
+  throws Exception {
+    assertNull( Fixtures.simulation( "clients=10" ).metrics() );
+  }
+
+  @Test
+  public void testEventCounts()
+  throws Exception {
+    for ( final String engine : new String[] { "object", "array", "forkjoin", "window" } ) {
+      checkEventCounts( "clients=20000", "channels=5", "engine=" + engine );
+      checkEventCounts( "clients=2000", "channels=5", "engine=" + engine, "batchReceptions=true" );
+      checkEventCounts( "mode=optimizing", "clients=2000", "channels=5", "engine=" + engine );
+    }
+  }
+
+  @Test
+  public void testReceptionCount()
+  throws Exception {
+    final Simulation simulation = Fixtures.run( "clients=3000", "channels=5", "metrics=true" );
+    final Map <String, Long> eventCounts = simulation.metrics().getEventCounts();
+    assertEquals( 3000L, ( long ) eventCounts.get( "ContentReceivedEvent" ) );
+    assertTrue( simulation.metrics().getMaxQueueDepth() > 0 );
+    assertEquals( simulation.stats().completionTime(), simulation.metrics().getSimulatedTime(),
+        0.0 );
+  }
+
+  @Test
+  public void testUnregisteredAfterRun()
+  throws Exception {
+    Fixtures.run( "clients=100", "metrics=true" );
+    assertTrue( ManagementFactory.getPlatformMBeanServer().queryNames(
+        new ObjectName( "de.tum.in.cm.java.dissim:type=EngineMetrics,*" ), null ).isEmpty() );
+  }
+
+  @Test
+  public void testRegister()
+  throws Exception {
+    final EngineMetrics metrics = new EngineMetrics();
+    metrics.start();
+    metrics.register( "test" );
+    try {
+      final ObjectName name = new ObjectName(
+          "de.tum.in.cm.java.dissim:type=EngineMetrics,name=\"test\"" );
+      metrics.event( String.class, 3, 1.5 );
+      assertEquals( 1L, ManagementFactory.getPlatformMBeanServer().getAttribute(
+          name, "EventCount" ) );
+      assertEquals( 3, ManagementFactory.getPlatformMBeanServer().getAttribute(
+          name, "MaxQueueDepth" ) );
+    } finally {
+      metrics.unregister();
+    }
+  }
+
+  @Test
+  public void testMaxQueueDepthAcrossThreads()
+  throws Exception {
+    final EngineMetrics metrics = new EngineMetrics();
+    metrics.start();
+    final Thread[] threads = new Thread[ 4 ];
+    for ( int t = 0; t < threads.length; t++ ) {
+      final int top = 100000 * ( t + 1 );
+      // Each thread reports a growing depth, interleaved with the others
+      threads[ t ] = new Thread( () -> {
+        for ( int depth = 0; depth <= top; depth++ ) {
+          metrics.event( String.class, depth, depth );
+        }
+      } );
+      threads[ t ].start();
+    }
+    for ( final Thread thread : threads ) {
+      thread.join();
+    }
+    assertEquals( 100000 * threads.length, metrics.getMaxQueueDepth() );
+    assertEquals( 1000000L + threads.length, metrics.getEventCount() );
+  }
+
+  @Test
+  public void testProgressLine()
+  throws Exception {
+    final EngineMetrics metrics = new EngineMetrics();
+    metrics.start();
+    metrics.event( String.class, 7, 2.0 );
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try ( ProgressLog progress = new ProgressLog( metrics, new PrintStream( bytes ), 1000.0 ) ) {
+      final String line = progress.line();
+      assertTrue( line, line.startsWith( "Progress: " ) );
+      assertTrue( line, line.contains( " 1 events " ) );
+      assertTrue( line, line.contains( "simulated time 2.000 " ) );
+      assertTrue( line, line.contains( "queue 7 (max 7)" ) );
+    }
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Checks that the counts per event type add up to the processed events.
+   */
+  private static void checkEventCounts( final String... argStrings ) {
+    final Simulation simulation
+        = Fixtures.simulation( Fixtures.withArgs( argStrings, "metrics=true" ) );
+    final long eventCount = simulation.run();
+    long sum = 0;
+    for ( final long count : simulation.metrics().getEventCounts().values() ) {
+      sum += count;
+    }
+    assertEquals( eventCount, sum );
+    assertEquals( eventCount, simulation.metrics().getEventCount() );
+    // Measured for the thread that ran the simulation, which is still alive
+    assertTrue( simulation.metrics().getAllocatedBytes() >= 0 );
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,103 @@
+import de.tum.in.cm.java.dissim.RecordLog;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class RecordLogTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testOnHeap()
+  throws Exception {
+    checkLog( new RecordLog( 3, false ) );
+  }
+
+  @Test
+  public void testOffHeap()
+  throws Exception {
+    checkLog( new RecordLog( 3, true ) );
+  }
+
+  @Test
+  public void testAddFrom()
+  throws Exception {
+    final RecordLog source = new RecordLog( 1, true );
+    source.add( 1.5, 7 );
+    source.add( 2.5, 8 );
+    final RecordLog target = new RecordLog( 1, false );
+    target.addFrom( source, 1 );
+
+    assertEquals( 1, target.size() );
+    assertEquals( 2.5, target.time( 0 ), 0.0 );
+    assertEquals( 8, target.field( 0, 0 ) );
+  }
+
+  @Test
+  public void testSnapshotAndReadBack()
+  throws Exception {
+    for ( final boolean offHeap : new boolean[] { false, true } ) {
+      final RecordLog log = new RecordLog( 2, offHeap );
+      final int count = 2 * RecordLog.CHUNK_SIZE + 5;
+      for ( int i = 0; i < count; i++ ) {
+        log.add( i * 0.25, i, -i );
+      }
+      final RecordLog snapshot = log.snapshot();
+      log.add( -1.0, 1, 1 );
+
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      snapshot.write( new DataOutputStream( bytes ) );
+      final RecordLog copy = new RecordLog( 2, !offHeap );
+      copy.read( new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) );
+
+      assertEquals( count, snapshot.size() );
+      assertEquals( count, copy.size() );
+      for ( int i = 0; i < count; i++ ) {
+        assertEquals( i * 0.25, copy.time( i ), 0.0 );
+        assertEquals( i, copy.field( i, 0 ) );
+        assertEquals( -i, copy.field( i, 1 ) );
+      }
+    }
+  }
+
+  @Test( expected = IndexOutOfBoundsException.class )
+  public void testOutOfBounds()
+  throws Exception {
+    final RecordLog log = new RecordLog( 1, false );
+    log.add( 1.0, 1 );
+    log.time( 1 );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Fills the log past a few chunk boundaries and reads everything back.
+   */
+  private static void checkLog( final RecordLog log ) {
+    final int count = 3 * RecordLog.CHUNK_SIZE + 17;
+    for ( int i = 0; i < count; i++ ) {
+      log.add( i * 0.5, i, -i, i % 7 );
+    }
+
+    assertEquals( count, log.size() );
+    for ( int i = 0; i < count; i++ ) {
+      assertEquals( "Time", i * 0.5, log.time( i ), 0.0 );
+      assertEquals( "Field 0", i, log.field( i, 0 ) );
+      assertEquals( "Field 1", -i, log.field( i, 1 ) );
+      assertEquals( "Field 2", i % 7, log.field( i, 2 ) );
+    }
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,95 @@
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.ReportWriter;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.Stats;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class ReportTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testNumberFormat()
+  throws Exception {
+    final ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+    final PrintStream expected = new PrintStream( expectedBytes );
+    final ByteArrayOutputStream actualBytes = new ByteArrayOutputStream();
+    final ReportWriter actual = ReportWriter.of( actualBytes );
+
+    final double[] specials = { 0.0, -0.0, 1.0, -1.0, 9999999.0, 1.0e7, 1.0e-3, 1.0e-4, 0.1,
+        1.0 / 3.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        Double.MIN_VALUE, Double.MAX_VALUE, 4.35, 2.0e23 };
+    for ( final double value : specials ) {
+      expected.println( value );
+      actual.append( value ).newLine();
+    }
+    final long[] longs = { 0, -1, 42, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MIN_VALUE };
+    for ( final long value : longs ) {
+      expected.println( value );
+      actual.append( value ).newLine();
+    }
+
+    // Past the buffer size
+    final Random random = new Random( 3 );
+    for ( int i = 0; i < 20000; i++ ) {
+      final double value = ( i % 2 == 0 ) ? random.nextInt( 100000 ) * 0.25
+          : random.nextDouble() * Math.pow( 10, random.nextInt( 20 ) - 10 );
+      expected.println( "" + value + " " + i );
+      actual.append( value ).append( ' ' ).append( i ).newLine();
+    }
+    expected.flush();
+    actual.flush();
+    assertEquals( expectedBytes.toString(), actualBytes.toString() );
+  }
+
+  @Test
+  public void testSinglePass()
+  throws Exception {
+    final Simulation simulation = new Simulation( new Main.Args( new String[] {
+        "clients=20000", "channels=7", "activationDelay=0.3" } ) );
+    simulation.run();
+    final Stats stats = simulation.stats();
+
+    final ByteArrayOutputStream channelBytes = new ByteArrayOutputStream();
+    final ByteArrayOutputStream bucketedBytes = new ByteArrayOutputStream();
+    final ByteArrayOutputStream cdfBytes = new ByteArrayOutputStream();
+    try ( ReportWriter channelReport = ReportWriter.of( channelBytes );
+          ReportWriter bucketedReport = ReportWriter.of( bucketedBytes );
+          ReportWriter cdfReport = ReportWriter.of( cdfBytes ) ) {
+      stats.writeReceptionReports( channelReport, bucketedReport, 5.0, cdfReport );
+    }
+
+    assertEquals( print( stats, 0 ), channelBytes.toString() );
+    assertEquals( print( stats, 1 ), bucketedBytes.toString() );
+    final String[] cdf = cdfBytes.toString().split( System.lineSeparator() );
+    assertEquals( stats.receptions().size() + 2, cdf.length );
+    assertEquals( stats.completionTime() + " 1.0", cdf[ cdf.length - 1 ] );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private static String print(
+      final Stats stats,
+      final int report ) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try ( PrintStream out = new PrintStream( bytes ) ) {
+      if ( report == 0 ) stats.printReceptionsPerChannel( out );
+      else stats.printReceptionsBucketed( out, 5.0 );
+    }
+    return bytes.toString();
+  }
+  //==============================================================================================//
+}
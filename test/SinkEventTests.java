@@ -0,0 +1,108 @@
+import de.tum.in.cm.java.dissim.ClientRange;
+import de.tum.in.cm.java.dissim.EventSink;
+import de.tum.in.cm.java.dissim.SimContext;
+import de.tum.in.cm.java.dissim.SimEvent;
+import de.tum.in.cm.java.dissim.SinkEvent;
+import de.tum.in.cm.java.dissim.events.ContentReceivedEvent;
+import de.tum.in.cm.java.dissim.events.ReceptionRun;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class SinkEventTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testProcessOldStyleEvent()
+  throws Exception {
+    final SimEvent created1 = new ContentReceivedEvent( 2.0, 5, 1, 1 );
+    final SimEvent created2 = new ContentReceivedEvent( 3.0, 6, 1, 1 );
+    final SimEvent event = new SimEvent() {
+      @Override
+      public double time() {
+        return 1.0;
+      }
+
+      @Override
+      public Collection <SimEvent> process() {
+        return Arrays.asList( created1, created2 );
+      }
+    };
+
+    final List <SimEvent> scheduled = new ArrayList<>();
+    SinkEvent.process( event, SimContext.collecting( scheduled ) );
+    assertEquals( Arrays.asList( created1, created2 ), scheduled );
+  }
+
+  @Test
+  public void testProcessSinkEvent()
+  throws Exception {
+    final SimEvent created = new ContentReceivedEvent( 2.0, 5, 1, 1 );
+    final SinkEvent event = new SinkEvent() {
+      @Override
+      public double time() {
+        return 1.0;
+      }
+
+      @Override
+      public void process( final SimContext context ) {
+        context.schedule( created );
+      }
+    };
+
+    final List <SimEvent> scheduled = new ArrayList<>();
+    SinkEvent.process( event, SimContext.collecting( scheduled ) );
+    assertEquals( Arrays.asList( created ), scheduled );
+    assertEquals( Arrays.asList( created ), new ArrayList<>( event.process() ) );
+  }
+
+  @Test
+  public void testReceptionRun()
+  throws Exception {
+    final ReceptionRun run = new ReceptionRun( new ClientRange( 10, 20 ), 2, 5, 1, 3, 4.0, 0.5 );
+    assertEquals( 3, run.size() );
+    assertEquals( 5.5, run.get( 0 ).time(), 0.0 );
+    assertEquals( 12, run.get( 0 ).node() );
+    assertEquals( 6.5, run.get( 2 ).time(), 0.0 );
+    assertEquals( 14, run.get( 2 ).node() );
+    assertEquals( 1, run.get( 2 ).from() );
+    assertEquals( 3, run.get( 2 ).channel() );
+
+    // Sinks get the receptions in order without the list elements
+    final List <String> receptions = new ArrayList<>();
+    final EventSink sink = new EventSink() {
+      @Override
+      public void schedule( final SimEvent event ) {
+        fail( "Reception scheduled as an event" );
+      }
+
+      @Override
+      public void scheduleReception(
+          final double time,
+          final int node,
+          final int from,
+          final int channel ) {
+        receptions.add( time + ":" + node );
+      }
+    };
+    sink.scheduleSorted( run );
+    assertEquals( Arrays.asList( "5.5:12", "6.0:13", "6.5:14" ), receptions );
+  }
+
+  @Test( expected = IndexOutOfBoundsException.class )
+  public void testReceptionRunOutOfBounds()
+  throws Exception {
+    new ReceptionRun( new ClientRange( 10, 20 ), 2, 5, 1, 3, 4.0, 0.5 ).get( 3 );
+  }
+  //==============================================================================================//
+}
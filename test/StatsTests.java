@@ -0,0 +1,133 @@
+import de.tum.in.cm.java.dissim.RecordRing;
+import de.tum.in.cm.java.dissim.ReportPipeline;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.Stats;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class StatsTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testStreamingReports()
+  throws Exception {
+    checkStreaming( "clients=1000", "channels=5" );
+    checkStreaming( "clients=5000", "channels=9", "branchingFactor=3", "dissStrategy=CONCURRENT" );
+    checkStreaming( "clients=3000", "channels=7", "activationDelay=0.5",
+        "localSplit=switch_delay_corrected" );
+    checkStreaming( "mode=optimizing", "clients=1000", "channels=5" );
+  }
+
+  @Test
+  public void testStreamingKeepsNoRecords()
+  throws Exception {
+    final Simulation simulation = Fixtures.run( "clients=1000", "streamingStats=true" );
+    assertEquals( 0, simulation.stats().receptions().size() );
+    assertEquals( 1000, simulation.stats().aggregator().receptionCount() );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testStreamingBucketWidth()
+  throws Exception {
+    final Simulation simulation = Fixtures.run( "clients=100", "streamingStats=true" );
+    simulation.stats().printReceptionsBucketed( System.out, 1.0 );
+  }
+
+  @Test
+  public void testAsyncReports()
+  throws Exception {
+    checkAsync( "clients=3000", "channels=5" );
+    checkAsync( "clients=3000", "channels=7", "branchingFactor=3", "asyncReports=16" );
+    checkAsync( "mode=optimizing", "clients=1000", "channels=5", "asyncReports=64" );
+    checkAsync( "clients=3000", "channels=5", "engine=forkjoin", "asyncReports=64" );
+    checkAsync( "clients=3000", "channels=5", "streamingStats=true",
+        "bucketedReceptionReport=2.0;unused", "asyncReports=8" );
+  }
+
+  @Test
+  public void testAsyncReceptionListener()
+  throws Exception {
+    final Simulation simulation = Fixtures.simulation( "clients=2000", "asyncReports=32" );
+    final int[] count = new int[ 1 ];
+    simulation.reportStats().addReceptionListener( ( time, source, destination, channel ) ->
+        count[ 0 ]++ );
+    simulation.run();
+    assertEquals( 2000, count[ 0 ] );
+    assertSame( simulation.reportStats(), simulation.stats() );
+  }
+
+  @Test
+  public void testRecordRingWraparound()
+  throws Exception {
+    final Stats stats = new Stats();
+    final ReportPipeline pipeline = new ReportPipeline( stats, 3 );
+    pipeline.start();
+    for ( int i = 0; i < 10000; i++ ) {
+      pipeline.producer().recordReception( i, i + 1, i + 2, 1 + i % 3 );
+      if ( i % 7 == 0 ) {
+        pipeline.producer().recordLeaderActivation( i, i, i % 5 );
+      }
+    }
+    pipeline.finish();
+
+    assertEquals( 10000, stats.receptions().size() );
+    for ( int i = 0; i < 10000; i++ ) {
+      final Stats.Reception reception = stats.receptions().get( i );
+      assertEquals( i, reception.time, 0.0 );
+      assertEquals( i + 1, reception.source );
+      assertEquals( i + 2, reception.destination );
+      assertEquals( 1 + i % 3, reception.channel );
+    }
+    assertEquals( 1429, stats.leaderActivations().size() );
+    assertEquals( 9996 % 5, stats.leaderActivations().get( 1428 ).depth );
+    assertEquals( 0, pipeline.producer().receptions().size() );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testRecordRingCapacity()
+  throws Exception {
+    new RecordRing( 0 );
+  }
+
+  @Test( expected = IllegalStateException.class )
+  public void testForwardingListener()
+  throws Exception {
+    Stats.forwarding( new RecordRing( 4 ) ).addReceptionListener(
+        ( time, source, destination, channel ) -> { } );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Checks that the streaming reports equal the reports from the kept
+   * records.
+   */
+  private static void checkStreaming( final String... argStrings ) {
+    final Stats expected = Fixtures.run( argStrings ).stats();
+    final Stats streaming = Fixtures.run( Fixtures.withArgs( argStrings, "streamingStats=true",
+        "bucketedReceptionReport=2.0;unused" ) ).stats();
+    Fixtures.assertSameReports( expected, streaming );
+  }
+
+  /**
+   * Checks that the reports built on the report thread equal the reports
+   * built on the event loop.
+   */
+  private static void checkAsync( final String... argStrings ) {
+    final String[] latencyArgStrings = Fixtures.withArgs( argStrings, "latencyReport=unused" );
+    final Stats expected = Fixtures.run( latencyArgStrings ).stats();
+    final Stats async = Fixtures.run( Fixtures.withArgs( latencyArgStrings,
+        "asyncReports=1024" ) ).stats();
+    Fixtures.assertSameReports( expected, async );
+  }
+  //==============================================================================================//
+}
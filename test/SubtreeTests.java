@@ -0,0 +1,114 @@
+import de.tum.in.cm.java.dissim.Main;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.events.CreateLeaderEvent;
+import de.tum.in.cm.java.dissim.subtree.Makespan;
+import de.tum.in.cm.java.dissim.subtree.MakespanEvaluator;
+import de.tum.in.cm.java.dissim.subtree.SubtreeCache;
+import de.tum.in.cm.java.dissim.subtree.SubtreeProfile;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class SubtreeTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testMakespanMatchesSimulation()
+  throws Exception {
+    checkMakespan( "clients=1000", "channels=5" );
+    checkMakespan( "clients=5000", "channels=9", "branchingFactor=3", "dissStrategy=CONCURRENT" );
+    checkMakespan( "clients=3000", "channels=7", "activationDelay=0.5",
+        "localSplit=switch_delay_corrected" );
+    checkMakespan( "clients=2000", "channels=6", "followerDivision=count_weighted",
+        "contentSize=2.0", "channelCapacity=3.0" );
+    checkMakespan( "clients=40", "channels=9", "branchingFactor=4" );
+  }
+
+  @Test
+  public void testSubtreeCacheReplay()
+  throws Exception {
+    checkReplay( "clients=10000", "channels=17" );
+    checkReplay( "clients=10000", "channels=13", "branchingFactor=3", "dissStrategy=CONCURRENT" );
+    checkReplay( "clients=7000", "channels=9", "activationDelay=0.5", "batchReceptions=true" );
+  }
+
+  @Test
+  public void testSubtreeCacheHits()
+  throws Exception {
+    final Simulation simulation = Fixtures.run( "clients=1024", "channels=17",
+        "subtreeCache=true" );
+    assertTrue( "No subtree replayed from the cache", simulation.subtreeCache().hits() > 0 );
+  }
+
+  @Test
+  public void testSubtreeProfileHoldsOwnRecords()
+  throws Exception {
+    final Main.Args args = new Main.Args( new String[] { "clients=10000", "channels=17" } );
+    final CreateLeaderEvent leader = ( CreateLeaderEvent ) Simulation.createInitialEvent( args );
+    final CreateLeaderEvent.Split split = leader.split();
+    final SubtreeProfile profile = new SubtreeCache( args ).profile( leader );
+
+    assertEquals( "Child count", split.branchingFactor, profile.childCount() );
+    assertEquals( "Record count", 1 + split.localClients.length(), profile.size() );
+    int recordCount = 0;
+    for ( int i = 0; i < profile.childCount(); i++ ) {
+      recordCount += profile.child( i ).size();
+    }
+    assertTrue( "Child records", recordCount < split.followers.length() );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  private static void checkMakespan( final String... argStrings ) {
+    final Main.Args args = new Main.Args( argStrings );
+    final Simulation simulation = new Simulation( args );
+    simulation.run();
+    final Makespan makespan = MakespanEvaluator.evaluate( args );
+
+    assertEquals( "Completion time", simulation.stats().completionTime(),
+        makespan.completionTime, 0.0 );
+    assertEquals( "Reception count", simulation.stats().receptions().size(),
+        makespan.receptionCount );
+    assertArrayEquals( "Receptions per channel", simulation.stats().receptionsPerChannel(),
+        makespan.receptionsPerChannel );
+    assertEquals( "Leader count", simulation.stats().leaderActivations().size(),
+        makespan.leaderCount );
+  }
+
+  /**
+   * Checks that replaying subtrees gives the same records as simulating
+   * them, up to rounding of the times.
+   */
+  private static void checkReplay( final String... argStrings ) {
+    final Simulation expected = Fixtures.simulation( argStrings );
+    final long expectedEvents = expected.run();
+    final Simulation cached
+        = Fixtures.simulation( Fixtures.withArgs( argStrings, "subtreeCache=true" ) );
+    final long cachedEvents = cached.run();
+
+    assertEquals( "Event count", expectedEvents, cachedEvents );
+    assertArrayEquals( "Receptions per channel", expected.stats().receptionsPerChannel(),
+        cached.stats().receptionsPerChannel() );
+    final List <Stats.Reception> expectedReceptions = expected.stats().receptions();
+    final List <Stats.Reception> receptions = cached.stats().receptions();
+    assertEquals( "Reception count", expectedReceptions.size(), receptions.size() );
+    for ( int i = 0; i < receptions.size(); i++ ) {
+      assertEquals( "Reception time", expectedReceptions.get( i ).time,
+          receptions.get( i ).time, 1e-9 );
+    }
+    assertEquals( "Leader count", expected.stats().leaderActivations().size(),
+        cached.stats().leaderActivations().size() );
+  }
+  //==============================================================================================//
+}
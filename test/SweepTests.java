@@ -0,0 +1,103 @@
+import de.tum.in.cm.java.dissim.LatencyHistogram;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.sweep.Sweep;
+import de.tum.in.cm.java.dissim.sweep.SweepResult;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class SweepTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testParseValues()
+  throws Exception {
+    assertEquals( Arrays.asList( "naive", "switch_delay_corrected" ),
+        Sweep.parseValues( "naive,switch_delay_corrected" ) );
+    assertEquals( Arrays.asList( "3", "4", "5" ), Sweep.parseValues( "3..5" ) );
+    assertEquals( Arrays.asList( "100", "300", "500", "7" ), Sweep.parseValues( "100..500:200,7" ) );
+    assertEquals( Arrays.asList( "0", "0.1", "0.2", "0.3" ), Sweep.parseValues( "0.0..0.3:0.1" ) );
+    assertEquals( Arrays.asList( "0.5", "1", "1.5" ), Sweep.parseValues( "0.5..1.6:0.5" ) );
+    assertEquals( Arrays.asList( "100", "150" ), Sweep.parseValues( "1e2..1.5e2:50.0" ) );
+  }
+
+  @Test
+  public void testPoints()
+  throws Exception {
+    final Sweep sweep = new Sweep( new String[] { "clients=10,20", "channels=3..5" } );
+    final List <String[]> points = sweep.points();
+    assertEquals( 6, points.size() );
+    assertArrayEquals( new String[] { "10", "3" }, points.get( 0 ) );
+    assertArrayEquals( new String[] { "10", "5" }, points.get( 2 ) );
+    assertArrayEquals( new String[] { "20", "3" }, points.get( 3 ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testReportsRejected()
+  throws Exception {
+    new Sweep( new String[] { "clients=10", "channelReport=out.txt" } );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testUnknownArgumentRejected()
+  throws Exception {
+    new Sweep( new String[] { "clients=10", "bogus=1,2" } ).run( 2 );
+  }
+
+  @Test
+  public void testFailingPoint()
+  throws Exception {
+    final Sweep sweep = new Sweep( new String[] { "clients=100,200", "branchingFactor=0,2" } );
+    try {
+      sweep.run( 2 );
+      fail( "Sweep with a failing point succeeded" );
+    } catch ( final IllegalStateException e ) {
+      assertTrue( e.getMessage(), e.getMessage().contains( "branchingFactor=0" ) );
+    }
+  }
+
+  @Test
+  public void testParallelMatchesSequential()
+  throws Exception {
+    final Sweep sweep = new Sweep( new String[] { "mode=normal,optimizing", "clients=200,500",
+        "channels=3..5", "branchingFactor=2,3" } );
+    final List <String[]> points = sweep.points();
+    final List <SweepResult> results = sweep.run( 4 );
+    assertEquals( points.size(), results.size() );
+
+    for ( int i = 0; i < points.size(); i++ ) {
+      final SweepResult expected
+          = SweepResult.of( points.get( i ), new Simulation( sweep.args( points.get( i ) ) ) );
+      final SweepResult result = results.get( i );
+      assertArrayEquals( points.get( i ), result.values );
+      assertEquals( expected.completionTime, result.completionTime, 0.0 );
+      assertEquals( expected.eventCount, result.eventCount );
+      assertArrayEquals( expected.receptionsPerChannel, result.receptionsPerChannel );
+    }
+  }
+
+  @Test
+  public void testMergeLatency()
+  throws Exception {
+    final Sweep sweep = new Sweep( new String[] { "clients=200,500", "channels=3..5" } );
+    final List <SweepResult> results = sweep.run( 2 );
+    long receptions = 0;
+    double completionTime = 0.0;
+    for ( final SweepResult result : results ) {
+      receptions += result.latency.total().count();
+      completionTime = Math.max( completionTime, result.completionTime );
+    }
+    final LatencyHistogram merged = Sweep.mergeLatency( results ).total();
+    assertEquals( receptions, merged.count() );
+    assertEquals( completionTime, merged.max(), 0.0 );
+  }
+  //==============================================================================================//
+}
@@ -0,0 +1,180 @@
+import de.tum.in.cm.java.dissim.RecordLog;
+import de.tum.in.cm.java.dissim.Simulation;
+import de.tum.in.cm.java.dissim.Stats;
+import de.tum.in.cm.java.dissim.trace.CompressedTraceReader;
+import de.tum.in.cm.java.dissim.trace.CompressedTraceWriter;
+import de.tum.in.cm.java.dissim.trace.TraceReader;
+import de.tum.in.cm.java.dissim.trace.TraceWriter;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author teemuk
+ */
+public class TraceTests {
+
+  //==============================================================================================//
+  // Tests
+  //==============================================================================================//
+  @Test
+  public void testRoundTrip()
+  throws Exception {
+    // Past the first mapped region
+    final int count = ( 1 << 20 ) + 17;
+    final File file = File.createTempFile( "trace", ".bin" );
+    file.deleteOnExit();
+    try ( TraceWriter writer = TraceWriter.open( file ) ) {
+      for ( int i = 0; i < count; i++ ) {
+        writer.reception( i * 0.5, i, -i, i % 7 );
+      }
+    }
+    assertEquals( 16 + 20L * count, file.length() );
+
+    try ( TraceReader reader = TraceReader.open( file ) ) {
+      assertEquals( count, reader.size() );
+      for ( int i = 0; i < count; i += 997 ) {
+        assertEquals( i * 0.5, reader.time( i ), 0.0 );
+        assertEquals( i, reader.source( i ) );
+        assertEquals( -i, reader.destination( i ) );
+        assertEquals( i % 7, reader.channel( i ) );
+      }
+      assertEquals( count - 1, reader.source( count - 1 ) );
+    }
+  }
+
+  @Test
+  public void testSimulationTrace()
+  throws Exception {
+    checkTrace( "clients=5000", "channels=7" );
+    checkTrace( "clients=5000", "channels=7", "batchReceptions=true", "engine=array" );
+    checkTrace( "mode=optimizing", "clients=1000", "channels=5" );
+  }
+
+  @Test
+  public void testEmptyTrace()
+  throws Exception {
+    final File file = File.createTempFile( "trace", ".bin" );
+    file.deleteOnExit();
+    TraceWriter.open( file ).close();
+    try ( TraceReader reader = TraceReader.open( file ) ) {
+      assertEquals( 0, reader.size() );
+    }
+  }
+
+  @Test
+  public void testCompressedRoundTrip()
+  throws Exception {
+    // Irregular values over several blocks
+    final Random random = new Random( 42 );
+    final int count = 3 * ( 1 << 14 ) + 123;
+    final double[] times = new double[ count ];
+    final int[] values = new int[ count ];
+    double time = 0.0;
+    for ( int i = 0; i < count; i++ ) {
+      time += random.nextInt( 4 ) == 0 ? 0.0 : random.nextDouble();
+      times[ i ] = time;
+      values[ i ] = random.nextInt( 5 ) == 0 ? random.nextInt() : i;
+    }
+    final File file = File.createTempFile( "trace", ".dstz" );
+    file.deleteOnExit();
+    try ( CompressedTraceWriter writer = CompressedTraceWriter.open( file ) ) {
+      for ( int i = 0; i < count; i++ ) {
+        writer.reception( times[ i ], values[ i ], -values[ i ], i % 3 );
+      }
+    }
+
+    try ( CompressedTraceReader reader = CompressedTraceReader.open( file ) ) {
+      assertEquals( count, reader.size() );
+      assertEquals( 4, reader.blockCount() );
+      final int[] index = { 0 };
+      reader.forEach( ( t, source, destination, channel ) -> {
+        final int i = index[ 0 ]++;
+        assertEquals( Double.doubleToRawLongBits( times[ i ] ), Double.doubleToRawLongBits( t ) );
+        assertEquals( values[ i ], source );
+        assertEquals( -values[ i ], destination );
+        assertEquals( i % 3, channel );
+      } );
+      assertEquals( count, index[ 0 ] );
+
+      // Seek into the third block
+      final double seekTime = times[ 2 * ( 1 << 14 ) + 50 ];
+      int first = 0;
+      while ( times[ first ] < seekTime ) first++;
+      index[ 0 ] = first;
+      reader.forEachFrom( seekTime, ( t, source, destination, channel ) -> {
+        assertEquals( times[ index[ 0 ]++ ], t, 0.0 );
+      } );
+      assertEquals( count, index[ 0 ] );
+    }
+  }
+
+  @Test
+  public void testCompressedSimulationTrace()
+  throws Exception {
+    final File mapped = File.createTempFile( "trace", ".bin" );
+    mapped.deleteOnExit();
+    final File compressed = File.createTempFile( "trace", ".dstz" );
+    compressed.deleteOnExit();
+    final Simulation simulation = Fixtures.simulation( "clients=100000", "channels=7",
+        "activationDelay=0.25", "batchReceptions=true" );
+    try ( TraceWriter writer = TraceWriter.open( mapped );
+          CompressedTraceWriter compressedWriter = CompressedTraceWriter.open( compressed ) ) {
+      simulation.stats().addReceptionListener( writer );
+      simulation.stats().addReceptionListener( compressedWriter );
+      simulation.run();
+    }
+    assertTrue( compressed.length() * 4 < mapped.length() );
+
+    final List <String> expected = new ArrayList<>();
+    try ( TraceReader reader = TraceReader.open( mapped ) ) {
+      reader.forEach( ( t, source, destination, channel ) -> expected.add(
+          t + " " + source + " " + destination + " " + channel ) );
+    }
+    final List <String> actual = new ArrayList<>();
+    try ( CompressedTraceReader reader = CompressedTraceReader.open( compressed ) ) {
+      reader.forEach( ( t, source, destination, channel ) -> actual.add(
+          t + " " + source + " " + destination + " " + channel ) );
+    }
+    assertEquals( expected, actual );
+  }
+  //==============================================================================================//
+
+
+  //==============================================================================================//
+  // Private
+  //==============================================================================================//
+  /**
+   * Checks that the trace of a run holds the recorded receptions in order.
+   */
+  private static void checkTrace( final String... argStrings )
+  throws Exception {
+    final File file = File.createTempFile( "trace", ".bin" );
+    file.deleteOnExit();
+    final Simulation simulation = Fixtures.simulation( argStrings );
+    try ( TraceWriter writer = TraceWriter.open( file ) ) {
+      simulation.stats().addReceptionListener( writer );
+      simulation.run();
+    }
+
+    final RecordLog receptions = simulation.stats().receptionLog();
+    try ( TraceReader reader = TraceReader.open( file ) ) {
+      assertEquals( receptions.size(), reader.size() );
+      final int[] index = { 0 };
+      reader.forEach( ( time, source, destination, channel ) -> {
+        final int i = index[ 0 ]++;
+        assertEquals( receptions.time( i ), time, 0.0 );
+        assertEquals( receptions.field( i, Stats.RECEPTION_SOURCE ), source );
+        assertEquals( receptions.field( i, Stats.RECEPTION_DESTINATION ), destination );
+        assertEquals( receptions.field( i, Stats.RECEPTION_CHANNEL ), channel );
+      } );
+      assertEquals( receptions.size(), index[ 0 ] );
+    }
+  }
+  //==============================================================================================//
+}